@@ -0,0 +1,33 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.server.CatpointServer;
+
+import javax.swing.*;
+
+/**
+ * This is the main class that launches the application.
+ *
+ * The services are built on a background thread while Swing starts up, and the frame, which paints
+ * without them, attaches its panels once they are ready. Pass --exit-after-startup to print
+ * startup time, heap usage, and the times of the first paint and the first event once both have
+ * happened, and then exit. The headless equivalent is CatpointServer.
+ */
+public class CatpointApp {
+    public static void main(String[] args) {
+        CatpointServer.StartupReport.mark("main");
+        boolean exitAfterStartup = args.length > 0 && args[0].equals("--exit-after-startup");
+        CatpointServices services = new CatpointServices();
+        services.prepareInBackground();
+        //Swing components must be created and shown on the event dispatch thread
+        SwingUtilities.invokeLater(() -> {
+            CatpointGui gui = new CatpointGui(services);
+            gui.setVisible(true);
+            if (exitAfterStartup) {
+                gui.whenStarted(() -> {
+                    System.out.println(CatpointServer.StartupReport.describe("gui", gui.getSecurityService()));
+                    System.exit(0);
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.server.CatpointServer;
+import com.udacity.catpoint.security.service.SecurityService;
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This is the primary JFrame for the application that contains all the top-level JPanels.
+ *
+ * We're not using any dependency injection framework, so the services come from a
+ * CatpointServices, which the launcher starts building before the frame, and this class
+ * provides them to the panels as necessary.
+ *
+ * The frame does not wait for them: it paints a placeholder right away, picks the service up on
+ * a worker thread, and only then builds the panels and starts the clock on the EDT.
+ */
+public class CatpointGui extends JFrame {
+    private final JPanel mainPanel = new JPanel(new MigLayout());
+    private final JLabel loadingLabel = new JLabel("Loading sensors...");
+    private SecurityService securityService;
+    private final List<Runnable> startedCallbacks = new ArrayList<>();
+    private boolean painted;
+    private boolean ticked;
+
+    public CatpointGui() {
+        this(new CatpointServices());
+    }
+
+    public CatpointGui(CatpointServices services) {
+        setLocation(100, 100);
+        setSize(600, 850);
+        setTitle("Very Secure App");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        mainPanel.add(loadingLabel);
+        getContentPane().add(mainPanel);
+
+        new SwingWorker<SecurityService, Void>() {
+            @Override
+            protected SecurityService doInBackground() {
+                return services.getSecurityService();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    attach(get());
+                } catch (ExecutionException e) {
+                    loadingLabel.setText("Could not load the sensors: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    private void attach(SecurityService securityService) {
+        this.securityService = securityService;
+        //the service is confined to the EDT, so its entry and exit delay timers are advanced from here
+        Timer clockTimer = new Timer((int) SecurityService.TIMER_TICK_MILLIS, e -> {
+            securityService.advanceClock(System.currentTimeMillis());
+            if (!ticked) {
+                ticked = true;
+                CatpointServer.StartupReport.mark("first event");
+                runStartedCallbacks();
+            }
+        });
+        //the first tick is the first event the service handles, so do not wait a whole period for it
+        clockTimer.setInitialDelay(0);
+
+        mainPanel.remove(loadingLabel);
+        mainPanel.add(new DisplayPanel(securityService), "wrap");
+        mainPanel.add(new ImagePanel(securityService), "wrap");
+        mainPanel.add(new ControlPanel(securityService), "wrap");
+        mainPanel.add(new SensorPanel(securityService));
+        mainPanel.revalidate();
+        mainPanel.repaint();
+        CatpointServer.StartupReport.mark("panels");
+
+        clockTimer.start();
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!painted) {
+            painted = true;
+            CatpointServer.StartupReport.mark("first paint");
+            runStartedCallbacks();
+        }
+    }
+
+    /**
+     * Runs the callback on the EDT once the frame has been painted and the service has handled its
+     * first event, or right away if both have happened. Call from the EDT.
+     */
+    public void whenStarted(Runnable callback) {
+        startedCallbacks.add(callback);
+        runStartedCallbacks();
+    }
+
+    private void runStartedCallbacks() {
+        if (painted && ticked) {
+            List<Runnable> callbacks = new ArrayList<>(startedCallbacks);
+            startedCallbacks.clear();
+            callbacks.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * The service behind the panels, or null until it has been attached, which is always the case
+     * by the time {@link #whenStarted} callbacks run.
+     */
+    public SecurityService getSecurityService() {
+        return securityService;
+    }
+}
@@ -0,0 +1,68 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.image.service.AwsImageService;
+import com.udacity.catpoint.security.data.PretendDatabaseSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.image.ImageService;
+import com.udacity.catpoint.security.server.CatpointServer;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The services behind the GUI, constructed on first use instead of in field initializers.
+ *
+ * Loading the repository parses every stored sensor, which has nothing to do with Swing, so the
+ * launcher calls {@link #prepareInBackground()} before it touches the AWT toolkit and the two run
+ * side by side. Whoever asks for the SecurityService first either finds it ready, waits for the
+ * background thread to finish it, or builds it right there if nothing started it; the frame asks
+ * from a worker thread so it never waits on the EDT. The service is handed over once built and
+ * from then on belongs to the EDT.
+ *
+ * Images are scanned by Rekognition when config.properties is on the classpath, through an
+ * AwsImageService whose client is itself only built for the first scan, and by the
+ * FakeImageService otherwise.
+ */
+public class CatpointServices {
+
+    private final FutureTask<SecurityService> securityService = new FutureTask<>(this::createSecurityService);
+
+    /**
+     * Starts building the services on a daemon thread.
+     */
+    public void prepareInBackground() {
+        Thread thread = new Thread(securityService, "catpoint-services");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the SecurityService, building it or waiting for it first if need be. Do not call
+     * from the EDT before the service is known to be ready.
+     */
+    public SecurityService getSecurityService() {
+        //runs the construction here unless another thread already has it, in which case get() waits
+        securityService.run();
+        try {
+            return securityService.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the services were being built", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not build the services", e.getCause());
+        }
+    }
+
+    private SecurityService createSecurityService() {
+        SecurityRepository securityRepository = new PretendDatabaseSecurityRepositoryImpl();
+        SecurityService service = new SecurityService(securityRepository, createImageService());
+        CatpointServer.StartupReport.mark("services");
+        return service;
+    }
+
+    private static ImageService createImageService() {
+        return AwsImageService.isConfigured() ? new AwsImageService() : new FakeImageService();
+    }
+}
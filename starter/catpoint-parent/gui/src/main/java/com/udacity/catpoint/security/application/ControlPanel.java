@@ -2,7 +2,6 @@ package com.udacity.catpoint.security.application;
 
 import com.udacity.catpoint.security.data.ArmingStatus;
 import com.udacity.catpoint.security.service.SecurityService;
-import com.udacity.catpoint.security.service.StyleService;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
@@ -37,7 +36,7 @@ public class ControlPanel extends JPanel {
         buttonMap.forEach((k, v) -> {
             v.addActionListener(e -> {
                 securityService.setArmingStatus(k);
-                buttonMap.forEach((status, button) -> button.setBackground(status == k ? status.getColor() : null));
+                buttonMap.forEach((status, button) -> button.setBackground(status == k ? StyleService.getColor(status) : null));
             });
         });
 
@@ -45,7 +44,7 @@ public class ControlPanel extends JPanel {
         Arrays.stream(ArmingStatus.values()).forEach(status -> add(buttonMap.get(status)));
 
         ArmingStatus currentStatus = securityService.getArmingStatus();
-        buttonMap.get(currentStatus).setBackground(currentStatus.getColor());
+        buttonMap.get(currentStatus).setBackground(StyleService.getColor(currentStatus));
 
 
     }
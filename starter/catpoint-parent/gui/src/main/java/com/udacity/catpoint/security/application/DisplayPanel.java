@@ -2,14 +2,15 @@ package com.udacity.catpoint.security.application;
 
 import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.service.SecurityService;
-import com.udacity.catpoint.security.service.StyleService;
+import com.udacity.catpoint.security.service.StatusListener;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
 
 /**
  * Displays the current status of the system. Implements the StatusListener
- * interface so that it can be notified whenever the status changes.
+ * interface so that it can be notified whenever the status changes. Notifications
+ * are delivered through a StatusUpdateCoalescer, so they always arrive on the EDT.
  */
 public class DisplayPanel extends JPanel implements StatusListener {
 
@@ -19,7 +20,7 @@ public class DisplayPanel extends JPanel implements StatusListener {
         super();
         setLayout(new MigLayout());
 
-        securityService.addStatusListener(this);
+        securityService.addStatusListener(new StatusUpdateCoalescer(this));
 
         JLabel panelLabel = new JLabel("Very Secure Home Security");
         JLabel systemStatusLabel = new JLabel("System Status:");
@@ -38,7 +39,7 @@ public class DisplayPanel extends JPanel implements StatusListener {
     @Override
     public void notify(AlarmStatus status) {
         currentStatusLabel.setText(status.getDescription());
-        currentStatusLabel.setBackground(status.getColor());
+        currentStatusLabel.setBackground(StyleService.getColor(status));
         currentStatusLabel.setOpaque(true);
     }
 
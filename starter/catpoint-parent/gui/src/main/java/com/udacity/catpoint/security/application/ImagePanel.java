@@ -2,7 +2,7 @@ package com.udacity.catpoint.security.application;
 
 import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.service.SecurityService;
-import com.udacity.catpoint.security.service.StyleService;
+import com.udacity.catpoint.security.service.StatusListener;
 import net.miginfocom.swing.MigLayout;
 
 import javax.imageio.ImageIO;
@@ -29,7 +29,7 @@ public class ImagePanel extends JPanel implements StatusListener {
         super();
         setLayout(new MigLayout());
         this.securityService = securityService;
-        securityService.addStatusListener(this);
+        securityService.addStatusListener(new StatusUpdateCoalescer(this));
 
         cameraHeader = new JLabel("Camera Feed");
         cameraHeader.setFont(StyleService.HEADING_FONT);
@@ -0,0 +1,236 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.ChangeFeed;
+import com.udacity.catpoint.security.service.ChangeListener;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.StatusListener;
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumnModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Panel that allows users to add sensors to their system. Sensors may be
+ * manually set to "active" and "inactive" to test the system.
+ *
+ * The sensor list follows the SecurityService's change feed: it is filled from the snapshot once
+ * and then only touches the rows named by each change. Changes are published on whichever thread
+ * made them, so they are only collected there: rows to add or remove are queued in order, and
+ * sensors whose activation changed are remembered once however often they flip. The panel's
+ * StatusUpdateCoalescer applies whatever has been collected in its next flush on the EDT, so an
+ * event storm costs the EDT one task per frame rather than one per event.
+ */
+public class SensorPanel extends JPanel implements StatusListener, ChangeListener {
+
+    private SecurityService securityService;
+    private final StatusUpdateCoalescer coalescer;
+    //structural changes published by the feed, in order, and sensors to repaint, both drained by the coalescer
+    private final Queue<Runnable> pendingRowChanges = new ConcurrentLinkedQueue<>();
+    private final Set<Sensor> pendingRowUpdates = ConcurrentHashMap.newKeySet();
+
+    private JLabel panelLabel = new JLabel("Sensor Management");
+    private JLabel newSensorName = new JLabel("Name:");
+    private JLabel newSensorType = new JLabel("Sensor Type:");
+    private JTextField newSensorNameField = new JTextField();
+    private JComboBox newSensorTypeDropdown = new JComboBox(SensorType.values());
+    private JButton addNewSensorButton = new JButton("Add New Sensor");
+
+    private SensorTableModel sensorTableModel = new SensorTableModel();
+    private JTable sensorTable;
+    private JPanel newSensorPanel;
+
+    public SensorPanel(SecurityService securityService) {
+        super();
+        setLayout(new MigLayout());
+        this.securityService = securityService;
+        this.coalescer = new StatusUpdateCoalescer(this, StatusUpdateCoalescer.DEFAULT_FRAME_MILLIS,
+                this::applyFeedChanges);
+        this.securityService.addStatusListener(coalescer);
+
+        panelLabel.setFont(StyleService.HEADING_FONT);
+        addNewSensorButton.addActionListener(e ->
+                addSensor(new Sensor(newSensorNameField.getText(),
+                        SensorType.valueOf(newSensorTypeDropdown.getSelectedItem().toString()))));
+
+        newSensorPanel = buildAddSensorPanel();
+        sensorTable = buildSensorTable();
+
+        sensorTableModel.setOfflineCheck(securityService::isSensorOffline);
+        securityService.subscribe(this, ChangeFeed.SNAPSHOT);
+
+        add(panelLabel, "wrap");
+        add(newSensorPanel, "span");
+        add(new JScrollPane(sensorTable), "span, width 560:560:560, height 250:250:250");
+    }
+
+    /**
+     * Builds the panel with the form for adding a new sensor
+     */
+    private JPanel buildAddSensorPanel() {
+        JPanel p = new JPanel();
+        p.setLayout(new MigLayout());
+        p.add(newSensorName);
+        p.add(newSensorNameField, "width 50:100:200");
+        p.add(newSensorType);
+        p.add(newSensorTypeDropdown, "wrap");
+        p.add(addNewSensorButton, "span 3");
+        return p;
+    }
+
+    /**
+     * Builds the table that lists the current sensors. The toggle and remove columns are drawn
+     * with a single shared button renderer, and clicks on them are resolved to a row here.
+     */
+    private JTable buildSensorTable() {
+        JTable t = new JTable(sensorTableModel);
+        t.setFillsViewportHeight(true);
+        t.setRowSelectionAllowed(false);
+        t.getTableHeader().setReorderingAllowed(false);
+
+        TableCellRenderer buttonRenderer = new ButtonCellRenderer();
+        TableColumnModel columns = t.getColumnModel();
+        columns.getColumn(SensorTableModel.TOGGLE_COLUMN).setCellRenderer(buttonRenderer);
+        columns.getColumn(SensorTableModel.REMOVE_COLUMN).setCellRenderer(buttonRenderer);
+
+        //hard code some sizes, tsk tsk
+        columns.getColumn(SensorTableModel.NAME_COLUMN).setPreferredWidth(150);
+        columns.getColumn(SensorTableModel.TYPE_COLUMN).setPreferredWidth(70);
+        columns.getColumn(SensorTableModel.STATUS_COLUMN).setPreferredWidth(80);
+        columns.getColumn(SensorTableModel.TOGGLE_COLUMN).setPreferredWidth(100);
+        columns.getColumn(SensorTableModel.REMOVE_COLUMN).setPreferredWidth(130);
+
+        t.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = t.rowAtPoint(e.getPoint());
+                int column = t.convertColumnIndexToModel(t.columnAtPoint(e.getPoint()));
+                if (row < 0) {
+                    return;
+                }
+                Sensor s = sensorTableModel.getSensorAt(t.convertRowIndexToModel(row));
+                if (column == SensorTableModel.TOGGLE_COLUMN) {
+                    setSensorActivity(s, !s.getActive());
+                } else if (column == SensorTableModel.REMOVE_COLUMN) {
+                    removeSensor(s);
+                }
+            }
+        });
+        return t;
+    }
+
+    /**
+     * Asks the securityService to change a sensor activation status. The row is refreshed by the change it publishes.
+     * @param sensor The sensor to update
+     * @param isActive The sensor's activation status
+     */
+    private void setSensorActivity(Sensor sensor, Boolean isActive) {
+        securityService.changeSensorActivationStatus(sensor, isActive);
+    }
+
+    /**
+     * Adds a sensor to the securityService. The row is inserted by the change it publishes.
+     * @param sensor The sensor to add
+     */
+    private void addSensor(Sensor sensor) {
+        if(securityService.getSensors().size() < 4) {
+            securityService.addSensor(sensor);
+        } else {
+            JOptionPane.showMessageDialog(null, "To add more than 4 sensors, please subscribe to our Premium Membership!");
+        }
+    }
+
+    /**
+     * Remove a sensor from the securityService. The row is removed by the change it publishes.
+     * @param sensor The sensor to remove
+     */
+    private void removeSensor(Sensor sensor) {
+        securityService.removeSensor(sensor);
+    }
+
+    @Override
+    public void notify(AlarmStatus status) {
+        // no behavior necessary
+    }
+
+    @Override
+    public void catDetected(boolean catDetected) {
+        // no behavior necessary
+    }
+
+    @Override
+    public void sensorStatusChanged() {
+        //rows follow the change feed; this only repaints the status column for connectivity changes
+        sensorTableModel.allSensorsUpdated();
+    }
+
+    @Override
+    public void snapshot(long version, SecurityService securityService) {
+        //copied now; the service's set keeps changing while this waits for the EDT
+        List<Sensor> sensors = new ArrayList<>(securityService.getSensors());
+        pendingRowChanges.add(() -> sensorTableModel.setSensors(sensors));
+        coalescer.requestFlush();
+    }
+
+    @Override
+    public void sensorAdded(long version, Sensor sensor) {
+        pendingRowChanges.add(() -> sensorTableModel.sensorAdded(sensor));
+        coalescer.requestFlush();
+    }
+
+    @Override
+    public void sensorRemoved(long version, Sensor sensor) {
+        pendingRowChanges.add(() -> sensorTableModel.sensorRemoved(sensor));
+        coalescer.requestFlush();
+    }
+
+    @Override
+    public void sensorActivationChanged(long version, Sensor sensor, boolean active) {
+        pendingRowUpdates.add(sensor);
+        coalescer.requestFlush();
+    }
+
+    /**
+     * Applies the changes collected since the last frame. Runs on the EDT, from the coalescer.
+     * Rows are repainted after the structural changes, and render the sensor's current state, so
+     * an update for a sensor that was removed meanwhile is simply not found.
+     */
+    private void applyFeedChanges() {
+        Runnable change;
+        while ((change = pendingRowChanges.poll()) != null) {
+            change.run();
+        }
+        for (Iterator<Sensor> it = pendingRowUpdates.iterator(); it.hasNext(); ) {
+            Sensor sensor = it.next();
+            //removed before the repaint, so a flip racing with it is repainted again next frame
+            it.remove();
+            sensorTableModel.sensorUpdated(sensor);
+        }
+    }
+
+    /**
+     * Paints a button-looking cell. One instance is shared by every row, so no components are
+     * created per sensor.
+     */
+    private static class ButtonCellRenderer extends JButton implements TableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            setText(String.valueOf(value));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.data.Sensor;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Table model backing the sensor list in the SensorPanel. Rows are kept in sensor sort order so
+ * a single sensor can be located with a binary search, and every change is published as a
+ * per-row event. The JTable only renders the rows that are visible in its viewport, so the cost
+ * of an update does not depend on how many sensors are in the system.
+ */
+public class SensorTableModel extends AbstractTableModel {
+
+    public static final int NAME_COLUMN = 0;
+    public static final int TYPE_COLUMN = 1;
+    public static final int STATUS_COLUMN = 2;
+    public static final int TOGGLE_COLUMN = 3;
+    public static final int REMOVE_COLUMN = 4;
+
+    private static final String[] COLUMN_NAMES = {"Name", "Type", "Status", "", ""};
+
+    private final List<Sensor> rows = new ArrayList<>();
+    private Predicate<Sensor> offlineCheck = s -> false;
+
+    /**
+     * Sets how the status column finds out whether a sensor has missed its heartbeats.
+     * @param offlineCheck Returns true for sensors that should be shown as offline
+     */
+    public void setOfflineCheck(Predicate<Sensor> offlineCheck) {
+        this.offlineCheck = offlineCheck;
+    }
+
+    /**
+     * Replaces all rows with the provided sensors. Only used for the initial load, or when
+     * the sensor set has been changed outside of this model.
+     * @param sensors The sensors to display
+     */
+    public void setSensors(Collection<Sensor> sensors) {
+        rows.clear();
+        rows.addAll(sensors);
+        Collections.sort(rows);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Inserts a single row at its sorted position.
+     * @param sensor The sensor that was added
+     */
+    public void sensorAdded(Sensor sensor) {
+        int row = Collections.binarySearch(rows, sensor);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+            return;
+        }
+        row = -row - 1;
+        rows.add(row, sensor);
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * Removes the row for a single sensor, if it is displayed.
+     * @param sensor The sensor that was removed
+     */
+    public void sensorRemoved(Sensor sensor) {
+        int row = Collections.binarySearch(rows, sensor);
+        if (row >= 0) {
+            rows.remove(row);
+            fireTableRowsDeleted(row, row);
+        }
+    }
+
+    /**
+     * Repaints the row for a single sensor whose state has changed.
+     * @param sensor The sensor that was updated
+     */
+    public void sensorUpdated(Sensor sensor) {
+        int row = Collections.binarySearch(rows, sensor);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * Marks every row as updated without rebuilding anything. The JTable clips the resulting
+     * repaint to the visible rows.
+     */
+    public void allSensorsUpdated() {
+        if (!rows.isEmpty()) {
+            fireTableRowsUpdated(0, rows.size() - 1);
+        }
+    }
+
+    public Sensor getSensorAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Sensor s = rows.get(rowIndex);
+        return switch (columnIndex) {
+            case NAME_COLUMN -> s.getName();
+            case TYPE_COLUMN -> s.getSensorType();
+            case STATUS_COLUMN -> offlineCheck.test(s) ? "Offline" : s.getActive() ? "Active" : "Inactive";
+            case TOGGLE_COLUMN -> s.getActive() ? "Deactivate" : "Activate";
+            case REMOVE_COLUMN -> "Remove Sensor";
+            default -> throw new IndexOutOfBoundsException("No column " + columnIndex);
+        };
+    }
+}
@@ -0,0 +1,138 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.service.StatusListener;
+
+import javax.swing.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * StatusListener that sits between the SecurityService and a Swing component. Callbacks may arrive
+ * on any thread and only record the latest state; at most once per frame interval the merged
+ * changes are applied to the wrapped listener on the event dispatch thread. A burst of thousands
+ * of status changes therefore costs the EDT a single relayout and repaint per frame, and no change
+ * waits longer than one frame before it is shown.
+ *
+ * Work that is not a StatusListener callback, such as change feed deltas, can ride the same
+ * frames: the owner collects it off the EDT, calls {@link #requestFlush()}, and applies it in the
+ * flush task, which the next flush runs on the EDT before the wrapped listener's callbacks.
+ */
+public class StatusUpdateCoalescer implements StatusListener {
+
+    public static final int DEFAULT_FRAME_MILLIS = 16; // ~60 Hz
+
+    private final StatusListener target;
+    private final Runnable flushTask;
+    private final long frameNanos;
+    private final Timer flushTimer;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicReference<AlarmStatus> pendingAlarmStatus = new AtomicReference<>();
+    private final AtomicReference<Boolean> pendingCatDetected = new AtomicReference<>();
+    private final AtomicBoolean pendingSensorChange = new AtomicBoolean();
+    private final AtomicBoolean pendingFlushTask = new AtomicBoolean();
+    private volatile long lastFlushNanos;
+
+    public StatusUpdateCoalescer(StatusListener target) {
+        this(target, DEFAULT_FRAME_MILLIS);
+    }
+
+    public StatusUpdateCoalescer(StatusListener target, int frameMillis) {
+        this(target, frameMillis, null);
+    }
+
+    /**
+     * @param flushTask run on the EDT by the first flush after each {@link #requestFlush()}, may be null
+     */
+    public StatusUpdateCoalescer(StatusListener target, int frameMillis, Runnable flushTask) {
+        this.target = target;
+        this.flushTask = flushTask;
+        this.frameNanos = TimeUnit.MILLISECONDS.toNanos(frameMillis);
+        this.lastFlushNanos = System.nanoTime() - frameNanos;
+        this.flushTimer = new Timer(frameMillis, e -> flush());
+        this.flushTimer.setRepeats(false);
+    }
+
+    @Override
+    public void notify(AlarmStatus status) {
+        pendingAlarmStatus.set(status);
+        scheduleFlush();
+    }
+
+    @Override
+    public void catDetected(boolean catDetected) {
+        pendingCatDetected.set(catDetected);
+        scheduleFlush();
+    }
+
+    @Override
+    public void sensorStatusChanged() {
+        pendingSensorChange.set(true);
+        scheduleFlush();
+    }
+
+    /**
+     * Connectivity changes are merged into the next sensorStatusChanged, since the wrapped listener
+     * rereads sensor state when it gets one.
+     */
+    @Override
+    public void sensorOffline(Sensor sensor, boolean offline) {
+        sensorStatusChanged();
+    }
+
+    /**
+     * Schedules a flush that runs the flush task. May be called from any thread.
+     */
+    public void requestFlush() {
+        pendingFlushTask.set(true);
+        scheduleFlush();
+    }
+
+    /**
+     * Makes sure exactly one flush is queued. If the last flush was less than a frame ago the
+     * flush is delayed until the frame boundary, otherwise it is posted to the EDT right away. The
+     * Swing timer is only touched on the EDT, so arming it is posted there as well.
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long waitNanos = lastFlushNanos + frameNanos - System.nanoTime();
+        if (waitNanos <= 0) {
+            SwingUtilities.invokeLater(this::flush);
+        } else {
+            int delayMillis = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            SwingUtilities.invokeLater(() -> {
+                flushTimer.setInitialDelay(delayMillis);
+                flushTimer.restart();
+            });
+        }
+    }
+
+    /**
+     * Applies the merged changes to the wrapped listener. Always runs on the EDT.
+     */
+    private void flush() {
+        //clear the flag first so a callback racing with this flush schedules the next one
+        flushScheduled.set(false);
+        lastFlushNanos = System.nanoTime();
+
+        if (pendingFlushTask.getAndSet(false) && flushTask != null) {
+            flushTask.run();
+        }
+        AlarmStatus status = pendingAlarmStatus.getAndSet(null);
+        if (status != null) {
+            target.notify(status);
+        }
+        Boolean cat = pendingCatDetected.getAndSet(null);
+        if (cat != null) {
+            target.catDetected(cat);
+        }
+        if (pendingSensorChange.getAndSet(false)) {
+            target.sensorStatusChanged();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+module gui {
+    requires java.desktop;
+    requires security;
+    requires image;
+    requires miglayout;
+}
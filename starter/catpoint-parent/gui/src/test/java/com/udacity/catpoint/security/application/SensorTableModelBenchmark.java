@@ -0,0 +1,86 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the cost of a single sensor update in the sensor table, including painting the rows
+ * that are visible in the viewport. Not run as part of the test suite; start it with main().
+ * The per-update cost should stay flat as the number of sensors grows.
+ */
+public class SensorTableModelBenchmark {
+
+    private static final int[] SENSOR_COUNTS = {1_000, 10_000, 50_000};
+    private static final int UPDATES = 20_000;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        for (int count : SENSOR_COUNTS) {
+            run(count); //warm up
+        }
+        System.out.printf("%10s %16s %16s%n", "sensors", "initial load ms", "ns per update");
+        for (int count : SENSOR_COUNTS) {
+            long[] result = run(count);
+            System.out.printf("%10d %16.1f %16d%n", count, result[0] / 1_000_000.0, result[1]);
+        }
+    }
+
+    private static long[] run(int count) {
+        List<Sensor> sensors = new ArrayList<>(count);
+        SensorType[] types = SensorType.values();
+        for (int i = 0; i < count; i++) {
+            sensors.add(new Sensor("Sensor " + i, types[i % types.length]));
+        }
+
+        SensorTableModel model = new SensorTableModel();
+        JTable table = new JTable(model);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setSize(560, 250);
+        scrollPane.doLayout();
+        scrollPane.getViewport().doLayout();
+        Graphics g = new BufferedImage(560, 250, BufferedImage.TYPE_INT_RGB).getGraphics();
+
+        long loadStart = System.nanoTime();
+        model.setSensors(sensors);
+        long loadNanos = System.nanoTime() - loadStart;
+
+        Random r = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            Sensor s = sensors.get(r.nextInt(count));
+            s.setActive(!s.getActive());
+            model.sensorUpdated(s);
+            paintVisibleRows(table, g);
+        }
+        long perUpdate = (System.nanoTime() - start) / UPDATES;
+        g.dispose();
+        return new long[]{loadNanos, perUpdate};
+    }
+
+    /**
+     * Prepares the renderer for every cell the viewport would paint, the same work JTable's UI
+     * delegate does in a repaint.
+     */
+    private static void paintVisibleRows(JTable table, Graphics g) {
+        Rectangle visible = table.getVisibleRect();
+        if (visible.height == 0) {
+            visible = new Rectangle(0, 0, 560, 250);
+        }
+        int first = Math.max(0, table.rowAtPoint(visible.getLocation()));
+        int last = Math.min(table.getRowCount() - 1, first + visible.height / table.getRowHeight());
+        for (int row = first; row <= last; row++) {
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                Component c = table.prepareRenderer(table.getCellRenderer(row, column), row, column);
+                c.setBounds(table.getCellRect(row, column, false));
+                c.paint(g);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.udacity.catpoint.security.application;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.service.StatusListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusUpdateCoalescerTest {
+
+    private final List<AlarmStatus> statuses = new ArrayList<>();
+    private final List<Boolean> catResults = new ArrayList<>();
+    private final AtomicInteger sensorChanges = new AtomicInteger();
+    private final AtomicInteger offEdtCalls = new AtomicInteger();
+
+    private final StatusListener recorder = new StatusListener() {
+        @Override
+        public void notify(AlarmStatus status) {
+            checkEdt();
+            statuses.add(status);
+        }
+
+        @Override
+        public void catDetected(boolean catDetected) {
+            checkEdt();
+            catResults.add(catDetected);
+        }
+
+        @Override
+        public void sensorStatusChanged() {
+            checkEdt();
+            sensorChanges.incrementAndGet();
+        }
+    };
+
+    private void checkEdt() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            offEdtCalls.incrementAndGet();
+        }
+    }
+
+    @Test
+    @DisplayName("A burst of updates from a background thread is merged into a few EDT updates that end in the latest state.")
+    void burstOfUpdates_coalescedOnEdt_latestStateWins() throws Exception {
+        StatusUpdateCoalescer coalescer = new StatusUpdateCoalescer(recorder, 20);
+        AlarmStatus[] values = AlarmStatus.values();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                coalescer.notify(values[i % values.length]);
+                coalescer.sensorStatusChanged();
+                coalescer.catDetected(i % 2 == 0);
+            }
+            coalescer.notify(AlarmStatus.ALARM);
+            coalescer.catDetected(true);
+        });
+        producer.start();
+        producer.join();
+
+        //wait past one frame so the final flush has been posted, then drain the EDT
+        Thread.sleep(100);
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(0, offEdtCalls.get());
+        assertTrue(statuses.size() < 100, "expected coalesced updates but got " + statuses.size());
+        assertTrue(sensorChanges.get() >= 1);
+        assertEquals(AlarmStatus.ALARM, statuses.get(statuses.size() - 1));
+        assertEquals(Boolean.TRUE, catResults.get(catResults.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Work collected off the EDT rides the same frames: a storm of flush requests runs the flush task a few times, on the EDT.")
+    void flushRequests_runFlushTaskOncePerFrame() throws Exception {
+        AtomicInteger requested = new AtomicInteger();
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger flushes = new AtomicInteger();
+        StatusUpdateCoalescer coalescer = new StatusUpdateCoalescer(recorder, 20, () -> {
+            checkEdt();
+            flushes.incrementAndGet();
+            applied.set(requested.get());
+        });
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                requested.incrementAndGet();
+                coalescer.requestFlush();
+            }
+        });
+        producer.start();
+        producer.join();
+
+        Thread.sleep(100);
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(0, offEdtCalls.get());
+        assertEquals(10_000, applied.get());
+        assertTrue(flushes.get() < 100, "expected coalesced flushes but got " + flushes.get());
+        assertEquals(0, sensorChanges.get());
+    }
+}
@@ -1,5 +1,6 @@
 package com.udacity.catpoint.image.service;
 
+import com.udacity.catpoint.security.image.ImageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
@@ -33,20 +34,58 @@ import java.util.stream.Collectors;
  *      aws.secret=[your Secret access key]
  *      aws.region=[an aws region of choice. For example: us-east-2]
  */
-public class AwsImageService {
+public class AwsImageService implements ImageService, AutoCloseable {
 
-    private Logger log = LoggerFactory.getLogger(AwsImageService.class);
+    private static Logger log = LoggerFactory.getLogger(AwsImageService.class);
+    private static final String CONFIG_FILE = "config.properties";
 
-    //aws recommendation is to maintain only a single instance of client objects
+    //aws recommendation is to maintain only a single instance of client objects, so every
+    //AwsImageService shares one, created on first use and closed when the last of them is closed
+    private static final Object CLIENT_LOCK = new Object();
     private static RekognitionClient rekognitionClient;
+    private static int clientUsers;
 
+    private boolean closed;
+
+    /**
+     * Nothing is loaded or connected here; config.properties is read and the shared client
+     * built the first time any instance scans an image.
+     */
     public AwsImageService() {
+        synchronized (CLIENT_LOCK) {
+            clientUsers++;
+        }
+    }
+
+    private RekognitionClient sharedClient() {
+        synchronized (CLIENT_LOCK) {
+            if (closed) {
+                throw new IllegalStateException("AwsImageService is closed");
+            }
+            if (rekognitionClient == null) {
+                rekognitionClient = createClient();
+            }
+            return rekognitionClient;
+        }
+    }
+
+    /**
+     * True if config.properties is on the classpath, so an instance can actually reach Rekognition.
+     */
+    public static boolean isConfigured() {
+        return AwsImageService.class.getClassLoader().getResource(CONFIG_FILE) != null;
+    }
+
+    private static RekognitionClient createClient() {
         Properties props = new Properties();
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream("config.properties")) {
+        try (InputStream is = AwsImageService.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (is == null) {
+                throw new IOException("config.properties is not on the classpath");
+            }
             props.load(is);
         } catch (IOException ioe ) {
             log.error("Unable to initialize AWS Rekognition, no properties file found", ioe);
-            return;
+            throw new IllegalStateException("AWS Rekognition is not configured", ioe);
         }
 
         String awsId = props.getProperty("aws.id");
@@ -54,19 +93,41 @@ public class AwsImageService {
         String awsRegion = props.getProperty("aws.region");
 
         AwsCredentials awsCredentials = AwsBasicCredentials.create(awsId, awsSecret);
-        rekognitionClient = RekognitionClient.builder()
+        return RekognitionClient.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
                 .region(Region.of(awsRegion))
                 .build();
     }
 
+    /**
+     * Releases this instance's hold on the shared client, which is closed once every instance
+     * has been closed. Closing twice has no further effect.
+     */
+    @Override
+    public void close() {
+        RekognitionClient toClose = null;
+        synchronized (CLIENT_LOCK) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--clientUsers == 0) {
+                toClose = rekognitionClient;
+                rekognitionClient = null;
+            }
+        }
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
     /**
      * Returns true if the provided image contains a cat.
      * @param image Image to scan
      * @param confidenceThreshhold Minimum threshhold to consider for cat. For example, 90.0f would require 90% confidence minimum
      * @return
      */
-
+    @Override
     public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
         Image awsImage = null;
         try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
@@ -77,7 +138,7 @@ public class AwsImageService {
             return false;
         }
         DetectLabelsRequest detectLabelsRequest = DetectLabelsRequest.builder().image(awsImage).minConfidence(confidenceThreshhold).build();
-        DetectLabelsResponse response = rekognitionClient.detectLabels(detectLabelsRequest);
+        DetectLabelsResponse response = sharedClient().detectLabels(detectLabelsRequest);
         logLabelsForFun(response);
         return response.labels().stream().filter(l -> l.name().toLowerCase().contains("cat")).findFirst().isPresent();
     }
@@ -1,5 +1,6 @@
 module image {
-    requires java.desktop;
+    requires transitive java.desktop;
+    requires security;
     requires org.slf4j;
     requires software.amazon.awssdk.auth;
     requires software.amazon.awssdk.core;
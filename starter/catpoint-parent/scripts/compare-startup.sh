@@ -0,0 +1,39 @@
+#!/bin/bash
+# Compares startup time and memory of the Swing GUI and the headless launcher.
+# Run from catpoint-parent after `mvn -B package -DskipTests`. The GUI launch needs a display.
+# After `mvn -B package -DskipTests -Pappcds` the launchers are plain jars with their dependencies
+# in target/lib, and each is also started with the AppCDS archive trained during the build.
+set -e
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+
+run() {
+  local name=$1; shift
+  for i in $(seq 1 "$RUNS"); do
+    local start end
+    start=$(date +%s%N)
+    local report
+    report=$(java "$@" --exit-after-startup | grep ' ready: ')
+    end=$(date +%s%N)
+    echo "$report, wall $(( (end - start) / 1000000 )) ms"
+  done
+}
+
+if [ -f security/target/app-cds.jsa ] || [ -d security/target/lib ]; then
+  for module in security:com.udacity.catpoint.security.server.CatpointServer \
+                gui:com.udacity.catpoint.security.application.CatpointApp; do
+    dir=${module%%:*}; main=${module#*:}
+    cp="$dir/target/$dir-1.0-SNAPSHOT.jar:$dir/target/lib/*"
+    echo "== $dir"
+    run "$dir" -cp "$cp" "$main"
+    if [ -f "$dir/target/app-cds.jsa" ]; then
+      echo "== $dir with AppCDS"
+      run "$dir" -XX:SharedArchiveFile="$dir/target/app-cds.jsa" -cp "$cp" "$main"
+    fi
+  done
+else
+  echo "== headless"
+  run headless -jar security/target/security-1.0-SNAPSHOT-exec.jar
+  echo "== gui"
+  run gui -jar gui/target/gui-1.0-SNAPSHOT.jar
+fi
@@ -0,0 +1,47 @@
+package com.udacity.catpoint.security.alert;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+/**
+ * One alarm status transition to be delivered to a monitoring center. Ids increase by one for
+ * every alert the dispatcher accepts and survive restarts, so receivers can drop redelivered
+ * alerts by id.
+ */
+public final class Alert {
+
+    private final long id;
+    private final AlarmStatus status;
+    private final long timeMillis;
+
+    public Alert(long id, AlarmStatus status, long timeMillis) {
+        this.id = id;
+        this.status = status;
+        this.timeMillis = timeMillis;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public AlarmStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * When the transition happened, in epoch milliseconds.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    void appendJson(StringBuilder sb) {
+        sb.append("{\"id\":").append(id)
+                .append(",\"status\":\"").append(status.name())
+                .append("\",\"time\":").append(timeMillis).append('}');
+    }
+
+    @Override
+    public String toString() {
+        return "Alert " + id + " " + status + " at " + timeMillis;
+    }
+}
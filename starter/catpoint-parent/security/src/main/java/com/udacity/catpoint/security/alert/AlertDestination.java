@@ -0,0 +1,48 @@
+package com.udacity.catpoint.security.alert;
+
+import java.net.URI;
+import java.util.regex.Pattern;
+
+/**
+ * A monitoring center endpoint that receives alerts as JSON batches over HTTP POST. The name
+ * identifies the destination's outbox file, so it must stay the same across restarts.
+ */
+public final class AlertDestination {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final String name;
+    private final URI uri;
+
+    public AlertDestination(String name, URI uri) {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Destination names may only use letters, digits, '-' and '_': " + name);
+        }
+        this.name = name;
+        this.uri = uri;
+    }
+
+    /**
+     * Parses name=url, as given on the command line.
+     */
+    public static AlertDestination parse(String spec) {
+        int eq = spec.indexOf('=');
+        if (eq <= 0) {
+            throw new IllegalArgumentException("Expected name=url, got " + spec);
+        }
+        return new AlertDestination(spec.substring(0, eq), URI.create(spec.substring(eq + 1)));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + uri;
+    }
+}
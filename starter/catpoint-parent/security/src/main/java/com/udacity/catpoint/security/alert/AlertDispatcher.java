@@ -0,0 +1,360 @@
+package com.udacity.catpoint.security.alert;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.service.StatusListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes ALARM and PENDING_ALARM transitions to one or more monitoring centers.
+ *
+ * Registered as a StatusListener, it only stamps each transition with the next alert id and offers
+ * it to a bounded queue, so the SecurityService thread never waits on disk or network; if the queue
+ * is full the alert is counted as dropped rather than blocking. A single dispatcher thread writes
+ * queued alerts to every destination's {@link AlertOutbox} and forces them to disk, then sends each
+ * destination its oldest pending alerts as one JSON POST:
+ * <pre>
+ *   {"alerts":[{"id":17,"status":"PENDING_ALARM","time":1700000000000}, ...]}
+ * </pre>
+ * Requests go out through the asynchronous HttpClient with at most one in flight per destination,
+ * which keeps alerts in order. A 2xx response acknowledges the whole batch; anything else, or no
+ * response within the request timeout, retries the same alerts after an exponential backoff with
+ * jitter. Because pending alerts live in the outbox, a restart resends everything a destination had
+ * not acknowledged, and receivers can drop the occasional redelivery by id.
+ *
+ * If an outbox cannot be written the dispatcher stops for good rather than deliver alerts it could
+ * not persist: {@link #isFailed()} turns true, every later alert is counted as rejected instead of
+ * queued, and {@link #close()} throws the outbox's exception.
+ */
+public class AlertDispatcher implements StatusListener, Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(200);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    public static final String BATCH_HEADER = "X-Catpoint-Batch";
+    private static final long IDLE_PARK_NANOS = Duration.ofMillis(100).toNanos();
+
+    private final List<Lane> lanes = new ArrayList<>();
+    private final ArrayBlockingQueue<Alert> queue;
+    private final ConcurrentLinkedQueue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private final int maxBatchSize;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+
+    private Thread dispatcherThread;
+    private volatile boolean running;
+    private AlarmStatus lastStatus;
+    private long nextId;
+
+    private volatile long alertsQueued;
+    private volatile long alertsDropped;
+    private volatile long alertsDelivered;
+    private volatile long batchesFailed;
+    private volatile long alertsRejected;
+    private volatile IOException failure;
+
+    public AlertDispatcher(Path outboxDir, List<AlertDestination> destinations) throws IOException {
+        this(outboxDir, destinations, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE,
+                DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Opens, or creates, an outbox in the directory for each destination. Alerts left pending by an
+     * earlier run are sent once {@link #start()} is called.
+     */
+    public AlertDispatcher(Path outboxDir, List<AlertDestination> destinations, int queueCapacity, int maxBatchSize,
+                           Duration initialBackoff, Duration maxBackoff, Duration requestTimeout) throws IOException {
+        if (destinations.isEmpty()) {
+            throw new IllegalArgumentException("At least one alert destination is required");
+        }
+        Files.createDirectories(outboxDir);
+        for (AlertDestination destination : destinations) {
+            AlertOutbox outbox = new AlertOutbox(outboxDir.resolve(destination.getName() + ".outbox"));
+            lanes.add(new Lane(destination, outbox));
+            nextId = Math.max(nextId, outbox.getLastId());
+        }
+        nextId++;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+    }
+
+    /**
+     * Starts the dispatcher thread.
+     */
+    public void start() {
+        running = true;
+        dispatcherThread = new Thread(this::runLoop, "alert-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    /**
+     * Queues ALARM and PENDING_ALARM transitions for delivery. Repeats of the current status are
+     * not transitions and are ignored. Never blocks.
+     */
+    @Override
+    public void notify(AlarmStatus status) {
+        if (status == lastStatus) {
+            return;
+        }
+        lastStatus = status;
+        if (status == AlarmStatus.NO_ALARM) {
+            return;
+        }
+        if (failure != null) {
+            alertsRejected++;
+            return;
+        }
+        if (queue.offer(new Alert(nextId, status, System.currentTimeMillis()))) {
+            nextId++;
+            alertsQueued++;
+            LockSupport.unpark(dispatcherThread);
+        } else {
+            alertsDropped++;
+        }
+    }
+
+    @Override
+    public void catDetected(boolean catDetected) {}
+
+    @Override
+    public void sensorStatusChanged() {}
+
+    public long getAlertsQueued() {
+        return alertsQueued;
+    }
+
+    /**
+     * Alerts that arrived while the queue was full and were never written to an outbox.
+     */
+    public long getAlertsDropped() {
+        return alertsDropped;
+    }
+
+    /**
+     * Alerts acknowledged by a destination, counted once per destination.
+     */
+    public long getAlertsDelivered() {
+        return alertsDelivered;
+    }
+
+    public long getBatchesFailed() {
+        return batchesFailed;
+    }
+
+    /**
+     * Alerts that arrived after an outbox failed and were never queued.
+     */
+    public long getAlertsRejected() {
+        return alertsRejected;
+    }
+
+    /**
+     * True once an outbox write has failed and the dispatcher thread has stopped.
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Why the dispatcher stopped, or null while it is working.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Alerts written to the destination's outbox that it has not acknowledged yet.
+     */
+    public int getPendingAlerts(String destinationName) {
+        for (Lane lane : lanes) {
+            if (lane.destination.getName().equals(destinationName)) {
+                return lane.pending;
+            }
+        }
+        throw new IllegalArgumentException("Unknown alert destination " + destinationName);
+    }
+
+    private void runLoop() {
+        List<Alert> drained = new ArrayList<>();
+        try {
+            while (running) {
+                persist(drained);
+                completeRequests();
+                long now = System.nanoTime();
+                long parkNanos = IDLE_PARK_NANOS;
+                for (Lane lane : lanes) {
+                    if (lane.inFlight != null || lane.outbox.isEmpty()) {
+                        continue;
+                    }
+                    long wait = lane.nextAttemptNanos - now;
+                    if (wait <= 0) {
+                        send(lane);
+                    } else {
+                        parkNanos = Math.min(parkNanos, wait);
+                    }
+                }
+                if (queue.isEmpty() && completions.isEmpty()) {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+            }
+            //keep what was accepted before close so the next run delivers it
+            persist(drained);
+        } catch (IOException e) {
+            //alerts still in the queue are lost with it; the outbox keeps what it had already persisted
+            failure = e;
+        }
+    }
+
+    private void persist(List<Alert> drained) throws IOException {
+        if (queue.drainTo(drained) == 0) {
+            return;
+        }
+        for (Lane lane : lanes) {
+            for (Alert alert : drained) {
+                lane.outbox.append(alert);
+            }
+            lane.outbox.flush(true);
+            lane.pending = lane.outbox.size();
+        }
+        drained.clear();
+    }
+
+    private void send(Lane lane) {
+        List<Alert> batch = lane.outbox.peek(maxBatchSize);
+        StringBuilder json = new StringBuilder(64 * batch.size() + 16).append("{\"alerts\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            batch.get(i).appendJson(json);
+        }
+        json.append("]}");
+        HttpRequest request = HttpRequest.newBuilder(lane.destination.getUri())
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header(BATCH_HEADER, batch.get(0).getId() + "-" + batch.get(batch.size() - 1).getId())
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .build();
+        lane.inFlight = batch;
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    boolean accepted = error == null && response.statusCode() / 100 == 2;
+                    completions.add(new Completion(lane, accepted));
+                    LockSupport.unpark(dispatcherThread);
+                });
+    }
+
+    private void completeRequests() throws IOException {
+        Completion completion;
+        while ((completion = completions.poll()) != null) {
+            Lane lane = completion.lane;
+            List<Alert> batch = lane.inFlight;
+            lane.inFlight = null;
+            if (completion.accepted) {
+                lane.outbox.acknowledge(batch.get(batch.size() - 1).getId());
+                lane.pending = lane.outbox.size();
+                lane.failures = 0;
+                lane.nextAttemptNanos = 0;
+                alertsDelivered += batch.size();
+            } else {
+                batchesFailed++;
+                lane.failures++;
+                lane.nextAttemptNanos = System.nanoTime() + backoffNanos(lane.failures);
+            }
+        }
+    }
+
+    /**
+     * Exponential backoff capped at the maximum, with the actual delay drawn from its upper half so
+     * destinations that failed together do not all retry at the same moment.
+     */
+    private long backoffNanos(int failures) {
+        int shift = Math.min(failures - 1, 30);
+        long backoff = Math.min(maxBackoffNanos, initialBackoffNanos << shift);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Stops the dispatcher thread after writing any queued alerts to the outboxes. Requests still in
+     * flight are abandoned and their alerts resent on the next start.
+     * @throws IOException the outbox failure that stopped the dispatcher, if any, or the first
+     *                     outbox that could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (dispatcherThread != null) {
+            LockSupport.unpark(dispatcherThread);
+            try {
+                dispatcherThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        IOException error = failure;
+        for (Lane lane : lanes) {
+            try {
+                lane.outbox.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Delivery state for one destination, owned by the dispatcher thread.
+     */
+    private static final class Lane {
+        private final AlertDestination destination;
+        private final AlertOutbox outbox;
+        private List<Alert> inFlight;
+        private long nextAttemptNanos;
+        private int failures;
+        private volatile int pending;
+
+        private Lane(AlertDestination destination, AlertOutbox outbox) {
+            this.destination = destination;
+            this.outbox = outbox;
+            this.pending = outbox.size();
+        }
+    }
+
+    private static final class Completion {
+        private final Lane lane;
+        private final boolean accepted;
+
+        private Completion(Lane lane, boolean accepted) {
+            this.lane = lane;
+            this.accepted = accepted;
+        }
+    }
+}
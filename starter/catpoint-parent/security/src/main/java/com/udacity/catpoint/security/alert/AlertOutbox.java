@@ -0,0 +1,194 @@
+package com.udacity.catpoint.security.alert;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Append-only file of the alerts waiting for one destination. Every alert is written before it is
+ * sent, and a cumulative acknowledgement is written once a destination has accepted everything up
+ * to some id, so reopening the file after a crash or restart yields exactly the alerts that were
+ * never acknowledged. A record cut short by a crash is discarded when the file is reopened.
+ *
+ * Records are a byte tag followed by big-endian fields:
+ * <pre>
+ *   ALERT  byte 1, long id, long time millis, byte alarm status ordinal
+ *   ACK    byte 2, long id, everything up to and including it was delivered
+ * </pre>
+ * Once the file grows past {@link #COMPACT_BYTES} and an acknowledgement comes in, it is rewritten
+ * with only the last acknowledgement and the alerts still pending, and atomically swapped in.
+ * Not thread-safe; the AlertDispatcher thread owns it.
+ */
+class AlertOutbox implements Closeable {
+
+    static final long COMPACT_BYTES = 1 << 20;
+
+    private static final byte ALERT = 1;
+    private static final byte ACK = 2;
+    private static final int ALERT_BYTES = 1 + Long.BYTES + Long.BYTES + 1;
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+
+    private final Path file;
+    private final ArrayDeque<Alert> pending = new ArrayDeque<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private FileChannel channel;
+    private long lastAcknowledged;
+
+    AlertOutbox(Path file) throws IOException {
+        this.file = file;
+        long goodLength = 0;
+        if (Files.exists(file)) {
+            goodLength = load();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(goodLength);
+        channel.position(goodLength);
+    }
+
+    private long load() throws IOException {
+        long goodLength = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            while (true) {
+                byte tag = in.readByte();
+                if (tag == ALERT) {
+                    long id = in.readLong();
+                    long time = in.readLong();
+                    int status = in.readByte();
+                    if (status < 0 || status >= ALARM_STATUSES.length) {
+                        break;
+                    }
+                    if (id > lastAcknowledged) {
+                        pending.add(new Alert(id, ALARM_STATUSES[status], time));
+                    }
+                    goodLength += ALERT_BYTES;
+                } else if (tag == ACK) {
+                    removeUpTo(in.readLong());
+                    goodLength += 1 + Long.BYTES;
+                } else {
+                    break; //torn write
+                }
+            }
+        } catch (EOFException e) {
+            //a record cut short by a crash; everything before it is intact
+        }
+        return goodLength;
+    }
+
+    /**
+     * Writes an alert to the outbox. It is only on disk once {@link #flush(boolean)} returns.
+     */
+    void append(Alert alert) throws IOException {
+        if (buffer.remaining() < ALERT_BYTES) {
+            flush(false);
+        }
+        buffer.put(ALERT).putLong(alert.getId()).putLong(alert.getTimeMillis()).put((byte) alert.getStatus().ordinal());
+        pending.add(alert);
+    }
+
+    /**
+     * Records that the destination has accepted every alert up to and including the given id.
+     */
+    void acknowledge(long id) throws IOException {
+        removeUpTo(id);
+        if (buffer.remaining() < 1 + Long.BYTES) {
+            flush(false);
+        }
+        buffer.put(ACK).putLong(lastAcknowledged);
+        flush(false);
+        if (channel.size() > COMPACT_BYTES) {
+            compact();
+        }
+    }
+
+    void flush(boolean sync) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * The oldest pending alerts, at most max of them, in id order.
+     */
+    List<Alert> peek(int max) {
+        List<Alert> batch = new ArrayList<>(Math.min(max, pending.size()));
+        Iterator<Alert> it = pending.iterator();
+        while (it.hasNext() && batch.size() < max) {
+            batch.add(it.next());
+        }
+        return batch;
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * The highest alert id this outbox has seen, acknowledged or not.
+     */
+    long getLastId() {
+        return pending.isEmpty() ? lastAcknowledged : Math.max(lastAcknowledged, pending.getLast().getId());
+    }
+
+    long getFileSize() throws IOException {
+        return channel.size();
+    }
+
+    private void removeUpTo(long id) {
+        while (!pending.isEmpty() && pending.getFirst().getId() <= id) {
+            pending.removeFirst();
+        }
+        lastAcknowledged = Math.max(lastAcknowledged, id);
+    }
+
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.allocate(1 + Long.BYTES + pending.size() * ALERT_BYTES);
+            bytes.put(ACK).putLong(lastAcknowledged);
+            for (Alert alert : pending) {
+                bytes.put(ALERT).putLong(alert.getId()).putLong(alert.getTimeMillis()).put((byte) alert.getStatus().ordinal());
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(false);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush(true);
+        channel.close();
+    }
+}
@@ -0,0 +1,156 @@
+package com.udacity.catpoint.security.alert;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for a monitoring center, for tests and manual runs. It accepts the batches the
+ * AlertDispatcher posts, remembers the ids it received in arrival order and counts redeliveries.
+ * It can wait before answering each request and can reject a seeded, random share of requests with
+ * 503 Service Unavailable, so retry behaviour is reproducible.
+ *
+ * Run it with {@code --port n --latency-ms n --failure-rate 0.2} and point the server's
+ * --alert-url at the address it prints.
+ */
+public class AlertSinkStub implements Closeable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final double failureRate;
+    private final Random random;
+
+    private final List<Long> receivedIds = new ArrayList<>();
+    private final Set<Long> seen = new HashSet<>();
+    private int duplicates;
+    private int requests;
+    private int failuresInjected;
+
+    public AlertSinkStub(int port, long latencyMillis, double failureRate, long seed) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "alert-sink");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/alerts", this::handle);
+        server.start();
+    }
+
+    public URI getUri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/alerts");
+    }
+
+    /**
+     * Ids of accepted alerts in the order they arrived, without redeliveries.
+     */
+    public synchronized List<Long> getReceivedIds() {
+        return new ArrayList<>(receivedIds);
+    }
+
+    public synchronized int getDuplicates() {
+        return duplicates;
+    }
+
+    public synchronized int getRequests() {
+        return requests;
+    }
+
+    public synchronized int getFailuresInjected() {
+        return failuresInjected;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int status = "POST".equals(exchange.getRequestMethod()) ? accept(body) : 405;
+            exchange.sendResponseHeaders(status, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized int accept(byte[] body) {
+        requests++;
+        if (random.nextDouble() < failureRate) {
+            failuresInjected++;
+            return 503;
+        }
+        try {
+            for (JsonElement alert : JsonParser.parseString(new String(body, StandardCharsets.UTF_8))
+                    .getAsJsonObject().getAsJsonArray("alerts")) {
+                long id = alert.getAsJsonObject().get("id").getAsLong();
+                if (seen.add(id)) {
+                    receivedIds.add(id);
+                } else {
+                    duplicates++;
+                }
+            }
+        } catch (RuntimeException e) {
+            return 400;
+        }
+        return 200;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 8089;
+        long latencyMillis = 0;
+        double failureRate = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--latency-ms" -> latencyMillis = Long.parseLong(args[++i]);
+                case "--failure-rate" -> failureRate = Double.parseDouble(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        AlertSinkStub sink = new AlertSinkStub(port, latencyMillis, failureRate, System.nanoTime());
+        System.out.println("receiving alerts at " + sink.getUri());
+        int reported = 0;
+        while (true) {
+            Thread.sleep(1000);
+            List<Long> ids = sink.getReceivedIds();
+            if (ids.size() != reported) {
+                System.out.printf("%d alerts, last id %d, %d duplicates, %d of %d requests failed%n", ids.size(),
+                        ids.get(ids.size() - 1), sink.getDuplicates(), sink.getFailuresInjected(), sink.getRequests());
+                reported = ids.size();
+            }
+        }
+    }
+}
@@ -1,12 +0,0 @@
-package com.udacity.catpoint.security.application;
-
-import com.udacity.catpoint.security.data.AlarmStatus;
-
-/**
- * Identifies a component that should be notified whenever the system status changes
- */
-public interface StatusListener {
-    void notify(AlarmStatus status);
-    void catDetected(boolean catDetected);
-    void sensorStatusChanged();
-}
@@ -1,29 +1,21 @@
 package com.udacity.catpoint.security.data;
 
-import java.awt.*;
-
 /**
  * List of potential states the alarm can have. Also contains metadata about what
- * text and color is associated with the alarm.
+ * text is associated with the alarm.
  */
 public enum AlarmStatus {
-    NO_ALARM("Cool and Good", new Color(120,200,30)),
-    PENDING_ALARM("I'm in Danger...", new Color(200,150,20)),
-    ALARM("Awooga!", new Color(250,80,50));
+    NO_ALARM("Cool and Good"),
+    PENDING_ALARM("I'm in Danger..."),
+    ALARM("Awooga!");
 
     private final String description;
-    private final Color color;
 
-    AlarmStatus(String description, Color color) {
+    AlarmStatus(String description) {
         this.description = description;
-        this.color = color;
     }
 
     public String getDescription() {
         return description;
     }
-
-    public Color getColor() {
-        return color;
-    }
 }
@@ -0,0 +1,66 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Repository implementation that only keeps state in local memory. Nothing survives a restart,
+ * which makes it a good fit for load generators, benchmarks and standby replicas.
+ */
+public class InMemorySecurityRepositoryImpl implements SecurityRepository {
+    private boolean catDetected;
+    private final Set<Sensor> sensors = new TreeSet<>();
+    private AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+    private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+
+    @Override
+    public void addSensor(Sensor sensor) {
+        sensors.add(sensor);
+    }
+
+    @Override
+    public void removeSensor(Sensor sensor) {
+        sensors.remove(sensor);
+    }
+
+    @Override
+    public void updateSensor(Sensor sensor) {
+        sensors.remove(sensor);
+        sensors.add(sensor);
+    }
+
+    @Override
+    public void setAlarmStatus(AlarmStatus alarmStatus) {
+        this.alarmStatus = alarmStatus;
+    }
+
+    @Override
+    public void setArmingStatus(ArmingStatus armingStatus) {
+        this.armingStatus = armingStatus;
+    }
+
+    @Override
+    public void setCatDetected(boolean catDetected) {
+        this.catDetected = catDetected;
+    }
+
+    @Override
+    public Set<Sensor> getSensors() {
+        return sensors;
+    }
+
+    @Override
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    @Override
+    public boolean getCatDetected() {
+        return catDetected;
+    }
+}
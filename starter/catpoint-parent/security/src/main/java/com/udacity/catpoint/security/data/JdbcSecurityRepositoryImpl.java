@@ -0,0 +1,310 @@
+package com.udacity.catpoint.security.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Repository implementation that stores state in an embedded SQL database, for instance H2 with
+ * {@code jdbc:h2:file:./catpoint} or SQLite with {@code jdbc:sqlite:catpoint.db}. Each sensor is
+ * one row, so a change writes that row instead of the whole sensor set.
+ *
+ * Everything is read once when the repository opens and then served from memory, so the getters
+ * never touch the database. Writes go through prepared statements created once, and each call
+ * commits its own transaction. The repository remembers what it last wrote for every sensor and
+ * skips updates that change nothing, and {@link #updateSensors} sends the rest as one JDBC batch in
+ * a single transaction. The in-memory copy only changes once the database has accepted the write,
+ * so a failed write leaves both as they were, and updating a sensor the database does not hold
+ * inserts it. Whether a cat was detected is not stored, as in the other repositories.
+ * Not thread-safe; like the SecurityService it belongs to one thread.
+ */
+public class JdbcSecurityRepositoryImpl implements SecurityRepository, AutoCloseable {
+
+    private static final String CREATE_SENSORS = "CREATE TABLE IF NOT EXISTS sensors ("
+            + "id VARCHAR(36) PRIMARY KEY, name VARCHAR(255) NOT NULL, sensor_type VARCHAR(16) NOT NULL, "
+            + "active BOOLEAN NOT NULL, zone INT NOT NULL, threshold REAL)";
+    private static final String CREATE_STATUS = "CREATE TABLE IF NOT EXISTS system_status ("
+            + "id INT PRIMARY KEY, alarm_status VARCHAR(16) NOT NULL, arming_status VARCHAR(16) NOT NULL)";
+    private static final String STATUS_ROW = "1";
+    //rows sent to the database at a time; a bulk update still commits once
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final Connection connection;
+    private final PreparedStatement insertSensor;
+    private final PreparedStatement updateSensor;
+    private final PreparedStatement deleteSensor;
+    private final PreparedStatement updateAlarmStatus;
+    private final PreparedStatement updateArmingStatus;
+
+    private final Set<Sensor> sensors = new TreeSet<>();
+    //what the database holds for each sensor: zone << 1 | active
+    private final Map<UUID, Integer> storedState = new HashMap<>();
+    private AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+    private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+    private boolean catDetected;
+
+    public JdbcSecurityRepositoryImpl(String jdbcUrl) throws SQLException {
+        this(DriverManager.getConnection(jdbcUrl));
+    }
+
+    /**
+     * Creates the tables if they do not exist yet and loads the stored state. The repository takes
+     * over the connection and closes it in {@link #close()}.
+     */
+    public JdbcSecurityRepositoryImpl(Connection connection) throws SQLException {
+        this.connection = connection;
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_SENSORS);
+            statement.executeUpdate(CREATE_STATUS);
+            load(statement);
+        }
+        connection.commit();
+        insertSensor = connection.prepareStatement(
+                "INSERT INTO sensors (name, sensor_type, active, zone, threshold, id) VALUES (?, ?, ?, ?, ?, ?)");
+        updateSensor = connection.prepareStatement(
+                "UPDATE sensors SET active = ?, zone = ? WHERE id = ?");
+        deleteSensor = connection.prepareStatement("DELETE FROM sensors WHERE id = ?");
+        updateAlarmStatus = connection.prepareStatement(
+                "UPDATE system_status SET alarm_status = ? WHERE id = " + STATUS_ROW);
+        updateArmingStatus = connection.prepareStatement(
+                "UPDATE system_status SET arming_status = ? WHERE id = " + STATUS_ROW);
+    }
+
+    private void load(Statement statement) throws SQLException {
+        try (ResultSet rows = statement.executeQuery("SELECT alarm_status, arming_status FROM system_status")) {
+            if (rows.next()) {
+                alarmStatus = AlarmStatus.valueOf(rows.getString(1));
+                armingStatus = ArmingStatus.valueOf(rows.getString(2));
+            } else {
+                statement.executeUpdate("INSERT INTO system_status (id, alarm_status, arming_status) VALUES ("
+                        + STATUS_ROW + ", '" + alarmStatus + "', '" + armingStatus + "')");
+            }
+        }
+        try (ResultSet rows = statement.executeQuery("SELECT id, name, sensor_type, active, zone, threshold FROM sensors")) {
+            while (rows.next()) {
+                Sensor sensor = new Sensor();
+                sensor.setSensorId(UUID.fromString(rows.getString(1)));
+                sensor.setName(rows.getString(2));
+                sensor.setSensorType(SensorType.valueOf(rows.getString(3)));
+                sensor.setActive(rows.getBoolean(4));
+                sensor.setZone(rows.getInt(5));
+                float threshold = rows.getFloat(6);
+                sensor.setThreshold(rows.wasNull() ? null : threshold);
+                sensors.add(sensor);
+                storedState.put(sensor.getSensorId(), state(sensor));
+            }
+        }
+    }
+
+    @Override
+    public void addSensor(Sensor sensor) {
+        if (storedState.containsKey(sensor.getSensorId())) {
+            updateSensor(sensor);
+            return;
+        }
+        try {
+            bindInsert(sensor);
+            insertSensor.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            throw failed("add sensor " + sensor.getName(), e);
+        }
+        stored(sensor);
+    }
+
+    @Override
+    public void removeSensor(Sensor sensor) {
+        if (storedState.containsKey(sensor.getSensorId())) {
+            try {
+                deleteSensor.setString(1, sensor.getSensorId().toString());
+                deleteSensor.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                throw failed("remove sensor " + sensor.getName(), e);
+            }
+            storedState.remove(sensor.getSensorId());
+        }
+        sensors.remove(sensor);
+    }
+
+    /**
+     * Stores the sensor's activation state and zone; names, types and thresholds do not change once
+     * a sensor has been added. A sensor the database does not hold yet is added.
+     */
+    @Override
+    public void updateSensor(Sensor sensor) {
+        if (!storedState.containsKey(sensor.getSensorId())) {
+            addSensor(sensor);
+            return;
+        }
+        try {
+            if (bindUpdate(sensor)) {
+                updateSensor.executeUpdate();
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw failed("update sensor " + sensor.getName(), e);
+        }
+        stored(sensor);
+    }
+
+    /**
+     * Updates the sensors in one transaction, inserting any the database does not hold yet.
+     */
+    @Override
+    public void updateSensors(Collection<Sensor> changed) {
+        int batched = 0;
+        Set<UUID> inserted = new HashSet<>();
+        try {
+            updateSensor.clearBatch();
+            for (Sensor sensor : changed) {
+                if (!storedState.containsKey(sensor.getSensorId())) {
+                    if (inserted.add(sensor.getSensorId())) {
+                        bindInsert(sensor);
+                        insertSensor.executeUpdate();
+                    }
+                } else if (bindUpdate(sensor)) {
+                    updateSensor.addBatch();
+                    if (++batched % MAX_BATCH_SIZE == 0) {
+                        updateSensor.executeBatch();
+                    }
+                }
+            }
+            if (batched % MAX_BATCH_SIZE != 0) {
+                updateSensor.executeBatch();
+            }
+            if (batched > 0 || !inserted.isEmpty()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw failed("update " + batched + " sensors", e);
+        }
+        for (Sensor sensor : changed) {
+            stored(sensor);
+        }
+    }
+
+    /**
+     * Brings the in-memory copy in line with a sensor the database has just accepted.
+     */
+    private void stored(Sensor sensor) {
+        sensors.remove(sensor);
+        sensors.add(sensor);
+        storedState.put(sensor.getSensorId(), state(sensor));
+    }
+
+    private void bindInsert(Sensor sensor) throws SQLException {
+        insertSensor.setString(1, sensor.getName());
+        insertSensor.setString(2, sensor.getSensorType().name());
+        insertSensor.setBoolean(3, Boolean.TRUE.equals(sensor.getActive()));
+        insertSensor.setInt(4, sensor.getZone());
+        if (sensor.isAnalog()) {
+            insertSensor.setFloat(5, sensor.getThreshold());
+        } else {
+            insertSensor.setNull(5, Types.REAL);
+        }
+        insertSensor.setString(6, sensor.getSensorId().toString());
+    }
+
+    /**
+     * Sets the update parameters for the sensor, unless the database already holds its state.
+     */
+    private boolean bindUpdate(Sensor sensor) throws SQLException {
+        Integer stored = storedState.get(sensor.getSensorId());
+        if (stored == null || stored == state(sensor)) {
+            return false;
+        }
+        updateSensor.setBoolean(1, Boolean.TRUE.equals(sensor.getActive()));
+        updateSensor.setInt(2, sensor.getZone());
+        updateSensor.setString(3, sensor.getSensorId().toString());
+        return true;
+    }
+
+    @Override
+    public void setAlarmStatus(AlarmStatus alarmStatus) {
+        if (alarmStatus == this.alarmStatus) {
+            return;
+        }
+        try {
+            updateAlarmStatus.setString(1, alarmStatus.name());
+            updateAlarmStatus.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            throw failed("store alarm status " + alarmStatus, e);
+        }
+        this.alarmStatus = alarmStatus;
+    }
+
+    @Override
+    public void setArmingStatus(ArmingStatus armingStatus) {
+        if (armingStatus == this.armingStatus) {
+            return;
+        }
+        try {
+            updateArmingStatus.setString(1, armingStatus.name());
+            updateArmingStatus.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            throw failed("store arming status " + armingStatus, e);
+        }
+        this.armingStatus = armingStatus;
+    }
+
+    @Override
+    public void setCatDetected(boolean catDetected) {
+        this.catDetected = catDetected;
+    }
+
+    @Override
+    public Set<Sensor> getSensors() {
+        return sensors;
+    }
+
+    @Override
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    @Override
+    public boolean getCatDetected() {
+        return catDetected;
+    }
+
+    private static int state(Sensor sensor) {
+        return sensor.getZone() << 1 | (Boolean.TRUE.equals(sensor.getActive()) ? 1 : 0);
+    }
+
+    /**
+     * Rolls back whatever the failed write left uncommitted and wraps the failure.
+     */
+    private IllegalStateException failed(String what, SQLException e) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackFailure) {
+            e.addSuppressed(rollbackFailure);
+        }
+        return new IllegalStateException("Could not " + what, e);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
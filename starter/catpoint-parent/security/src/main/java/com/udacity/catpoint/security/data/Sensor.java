@@ -7,13 +7,22 @@ import java.util.Objects;
 import java.util.UUID;
 
 /**
- * Sensor POJO. Needs to know how to sort itself for display purposes.
+ * Sensor POJO. Needs to know how to sort itself for display purposes. Every sensor belongs to a
+ * zone, zone 0 unless set otherwise, which can be armed separately from the rest of the premises.
+ *
+ * Analog sensors, such as motion detectors that report an intensity or thermometers, have a
+ * threshold and report numeric readings; they are active while the reading is at or above the
+ * threshold. Sensors without a threshold only report whether they are active.
  */
 public class Sensor implements Comparable<Sensor> {
     private UUID sensorId;
     private String name;
     private Boolean active;
     private SensorType sensorType;
+    private int zone;
+    private Float threshold;
+    //changes every second on analog sensors, so it is not stored with the sensor
+    private transient Float reading;
 
     public Sensor() {}
 
@@ -61,6 +70,52 @@ public class Sensor implements Comparable<Sensor> {
         this.sensorType = sensorType;
     }
 
+    public int getZone() {
+        return zone;
+    }
+
+    /**
+     * Moves the sensor to another zone. Only takes effect in a SecurityService when the sensor is
+     * added to it, so change zones before adding the sensor.
+     */
+    public void setZone(int zone) {
+        this.zone = zone;
+    }
+
+    public Float getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Makes this an analog sensor whose readings decide whether it is active, or a plain one if the
+     * threshold is null. Like the zone, set it before adding the sensor.
+     */
+    public void setThreshold(Float threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean isAnalog() {
+        return threshold != null;
+    }
+
+    /**
+     * Whether an analog sensor reporting the reading is active.
+     */
+    public boolean isActiveAt(float reading) {
+        return threshold != null && reading >= threshold;
+    }
+
+    /**
+     * The last reading reported, or null if there has been none since the sensor was loaded.
+     */
+    public Float getReading() {
+        return reading;
+    }
+
+    public void setReading(Float reading) {
+        this.reading = reading;
+    }
+
     public UUID getSensorId() {
         return sensorId;
     }
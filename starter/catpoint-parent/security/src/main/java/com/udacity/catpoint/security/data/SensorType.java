@@ -1,7 +1,8 @@
 package com.udacity.catpoint.security.data;
 
 /**
- * List of available sensor types. Not currently used by system, other than for display.
+ * List of available sensor types. The alarm rules can treat each type differently, see
+ * com.udacity.catpoint.security.service.AlarmRules.
  */
 public enum SensorType {
     DOOR, WINDOW, MOTION
@@ -0,0 +1,264 @@
+package com.udacity.catpoint.security.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded history of what happened to the security system, newest entries overwriting the oldest.
+ *
+ * Entries are stored column-wise in a fixed-size ring of primitive arrays: a long timestamp, a
+ * byte event type, an int sensor slot and a byte value, 14 bytes per entry, all allocated up
+ * front. Recording an entry is a handful of array writes and never allocates, and the memory used
+ * is {@link #BYTES_PER_ENTRY} times the capacity no matter how long the system runs.
+ *
+ * Timestamps never go backwards, so a time range is found with a binary search on the timestamp
+ * column. If a spill file is given, entries that fall out of the ring are appended to it in the
+ * same fixed-width layout through a reused direct buffer, and range queries continue into the
+ * file, again by binary search.
+ *
+ * Sensor slots are those of the SecurityService's SensorRegistry at the time of the event; a slot
+ * freed by a removed sensor may later be reused by another one. Not thread-safe.
+ */
+public class EventHistory implements Closeable {
+
+    public static final int NO_SENSOR = -1;
+    public static final int BYTES_PER_ENTRY = Long.BYTES + Byte.BYTES + Integer.BYTES + Byte.BYTES;
+
+    private static final int SPILL_BUFFER_ENTRIES = 4096;
+
+    /**
+     * Receives the entries found by a range query, oldest first.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long timestampMillis, HistoryEventType type, int sensorSlot, int value);
+    }
+
+    private final LongSupplier clock;
+    private final int capacity;
+    private final long[] timestamps;
+    private final byte[] types;
+    private final int[] sensorSlots;
+    private final byte[] values;
+    private long recorded;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private final FileChannel spillChannel;
+    private final ByteBuffer spillBuffer;
+    private final ByteBuffer readBuffer;
+    private long spilledEntries;
+
+    public EventHistory(int capacity) {
+        this(capacity, null, System::currentTimeMillis);
+    }
+
+    /**
+     * @param capacity Number of entries kept in memory
+     * @param spillFile File that receives entries evicted from memory, or null to drop them
+     * @param clock Source of timestamps in epoch milliseconds
+     */
+    public EventHistory(int capacity, Path spillFile, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.clock = clock;
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.types = new byte[capacity];
+        this.sensorSlots = new int[capacity];
+        this.values = new byte[capacity];
+        if (spillFile == null) {
+            spillChannel = null;
+            spillBuffer = null;
+            readBuffer = null;
+            return;
+        }
+        try {
+            spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open history spill file " + spillFile, e);
+        }
+        spillBuffer = ByteBuffer.allocateDirect(SPILL_BUFFER_ENTRIES * BYTES_PER_ENTRY);
+        readBuffer = ByteBuffer.allocateDirect(BYTES_PER_ENTRY);
+    }
+
+    /**
+     * Appends an entry stamped with the current time.
+     */
+    public void record(HistoryEventType type, int sensorSlot, int value) {
+        long now = Math.max(clock.getAsLong(), lastTimestamp);
+        lastTimestamp = now;
+        int i = (int) (recorded % capacity);
+        if (recorded >= capacity && spillChannel != null) {
+            spill(i);
+        }
+        timestamps[i] = now;
+        types[i] = type.code();
+        sensorSlots[i] = sensorSlot;
+        values[i] = (byte) value;
+        recorded++;
+    }
+
+    /**
+     * Visits every entry with a timestamp in [fromMillis, toMillis), oldest first, including
+     * entries that were spilled to disk.
+     * @return the number of entries visited
+     */
+    public int forEachInRange(long fromMillis, long toMillis, EntryVisitor visitor) {
+        int visited = 0;
+        if (spillChannel != null && spilledEntries + spillBuffer.position() / BYTES_PER_ENTRY > 0) {
+            flushSpill();
+            for (long e = lowerBoundOnDisk(fromMillis); e < spilledEntries; e++) {
+                readFromDisk(e);
+                long t = readBuffer.getLong(0);
+                if (t >= toMillis) {
+                    return visited;
+                }
+                visitor.visit(t, HistoryEventType.fromCode(readBuffer.get(8)), readBuffer.getInt(9), readBuffer.get(13));
+                visited++;
+            }
+        }
+        int size = size();
+        for (int n = lowerBoundInMemory(fromMillis); n < size; n++) {
+            int i = physical(n);
+            if (timestamps[i] >= toMillis) {
+                break;
+            }
+            visitor.visit(timestamps[i], HistoryEventType.fromCode(types[i]), sensorSlots[i], values[i]);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Number of entries currently held in memory.
+     */
+    public int size() {
+        return (int) Math.min(recorded, capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of entries ever recorded, including those evicted or spilled.
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * The in-memory entry at the given position, 0 being the oldest still held.
+     */
+    public long getTimestamp(int n) {
+        return timestamps[physical(checkIndex(n))];
+    }
+
+    public HistoryEventType getType(int n) {
+        return HistoryEventType.fromCode(types[physical(checkIndex(n))]);
+    }
+
+    public int getSensorSlot(int n) {
+        return sensorSlots[physical(checkIndex(n))];
+    }
+
+    public int getValue(int n) {
+        return values[physical(checkIndex(n))];
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spillChannel != null && spillChannel.isOpen()) {
+            flushSpill();
+            spillChannel.close();
+        }
+    }
+
+    private int physical(int n) {
+        long oldest = recorded - size();
+        return (int) ((oldest + n) % capacity);
+    }
+
+    private int checkIndex(int n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException("No history entry " + n);
+        }
+        return n;
+    }
+
+    /**
+     * Position of the first in-memory entry with a timestamp at or after the given time.
+     */
+    private int lowerBoundInMemory(long timeMillis) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[physical(mid)] < timeMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long lowerBoundOnDisk(long timeMillis) {
+        long low = 0;
+        long high = spilledEntries;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            readFromDisk(mid);
+            if (readBuffer.getLong(0) < timeMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void spill(int i) {
+        spillBuffer.putLong(timestamps[i]).put(types[i]).putInt(sensorSlots[i]).put(values[i]);
+        if (!spillBuffer.hasRemaining()) {
+            flushSpill();
+        }
+    }
+
+    private void flushSpill() {
+        spillBuffer.flip();
+        long entries = spillBuffer.remaining() / BYTES_PER_ENTRY;
+        try {
+            while (spillBuffer.hasRemaining()) {
+                spillChannel.write(spillBuffer, spillChannel.size());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill history", e);
+        } finally {
+            spillBuffer.clear();
+        }
+        spilledEntries += entries;
+    }
+
+    private void readFromDisk(long entry) {
+        readBuffer.clear();
+        try {
+            long position = entry * BYTES_PER_ENTRY;
+            while (readBuffer.hasRemaining()) {
+                if (spillChannel.read(readBuffer, position + readBuffer.position()) < 0) {
+                    throw new IOException("History spill file is truncated");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled history", e);
+        }
+    }
+}
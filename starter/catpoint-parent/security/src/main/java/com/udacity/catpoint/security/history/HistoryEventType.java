@@ -0,0 +1,32 @@
+package com.udacity.catpoint.security.history;
+
+/**
+ * The kinds of entries kept in the EventHistory. Stored by ordinal in a byte column, so new types
+ * must only ever be added at the end or spilled history files become unreadable.
+ */
+public enum HistoryEventType {
+    /** value is the new AlarmStatus ordinal */
+    ALARM_STATUS_CHANGED,
+    /** value is the new ArmingStatus ordinal */
+    ARMING_STATUS_CHANGED,
+    SENSOR_ACTIVATED,
+    SENSOR_DEACTIVATED,
+    SENSOR_ADDED,
+    SENSOR_REMOVED,
+    /** value is 1 if a cat was detected, 0 if not */
+    CAT_DETECTION,
+    SENSOR_OFFLINE,
+    SENSOR_ONLINE,
+    /** the sensor slot column holds the zone, which does not fit the byte value; value is its new ArmingStatus ordinal */
+    ZONE_ARMING_STATUS_CHANGED;
+
+    private static final HistoryEventType[] VALUES = values();
+
+    public static HistoryEventType fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+}
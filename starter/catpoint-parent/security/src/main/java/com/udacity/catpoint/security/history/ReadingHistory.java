@@ -0,0 +1,255 @@
+package com.udacity.catpoint.security.history;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory history of the readings of analog sensors, compressed per sensor so that a day of 1 Hz
+ * readings from a large installation fits in memory. See {@link ReadingSeries} for the encoding.
+ *
+ * Timestamps are kept at a fixed resolution, one second by default, and readings of a sensor must
+ * arrive in time order; an older reading is refused. Readings are grouped into chunks of a fixed
+ * span, two hours by default, aligned to multiples of the span since the epoch, and whole chunks
+ * older than the retention are dropped as new ones start. Queries skip chunks outside the range,
+ * and {@link #downsample} uses the summary kept with every chunk instead of decoding it when the
+ * chunk lies inside a single bucket.
+ *
+ * Sensor slots are those of the SecurityService's SensorRegistry, as in the EventHistory; clear a
+ * slot when its sensor is removed, before the slot is reused. Not thread-safe.
+ */
+public class ReadingHistory {
+
+    public static final long DEFAULT_RESOLUTION_MILLIS = 1000;
+    public static final Duration DEFAULT_CHUNK_SPAN = Duration.ofHours(2);
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(1);
+
+    /**
+     * Receives the readings found by a range query, oldest first.
+     */
+    @FunctionalInterface
+    public interface ReadingVisitor {
+        void visit(long timestampMillis, float value);
+    }
+
+    /**
+     * Receives the non-empty buckets of a downsampled query, oldest first.
+     */
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long bucketStartMillis, int count, float min, float max, double mean);
+    }
+
+    private final LongSupplier clock;
+    private final long resolutionMillis;
+    private final long chunkSpan;
+    private final long retention;
+    private ReadingSeries[] series = new ReadingSeries[64];
+    private long refused;
+
+    public ReadingHistory() {
+        this(DEFAULT_RESOLUTION_MILLIS, DEFAULT_CHUNK_SPAN, DEFAULT_RETENTION, System::currentTimeMillis);
+    }
+
+    /**
+     * @param resolutionMillis Timestamps are rounded down to a multiple of this
+     * @param chunkSpan Time covered by one chunk; at least one resolution step
+     * @param retention How long readings are kept, at least; older chunks are dropped
+     * @param clock Source of timestamps in epoch milliseconds for {@link #record(int, float)}
+     */
+    public ReadingHistory(long resolutionMillis, Duration chunkSpan, Duration retention, LongSupplier clock) {
+        if (resolutionMillis <= 0 || chunkSpan.toMillis() < resolutionMillis) {
+            throw new IllegalArgumentException("Resolution must be positive and no longer than a chunk");
+        }
+        this.clock = clock;
+        this.resolutionMillis = resolutionMillis;
+        this.chunkSpan = chunkSpan.toMillis() / resolutionMillis;
+        this.retention = retention.toMillis() / resolutionMillis;
+    }
+
+    /**
+     * Records a reading of the sensor in the slot, stamped with the history's clock.
+     */
+    public boolean record(int sensorSlot, float value) {
+        return record(sensorSlot, clock.getAsLong(), value);
+    }
+
+    /**
+     * Records a reading of the sensor in the slot taken at the given time.
+     * @return false if the sensor already has a later reading, in which case this one is refused
+     */
+    public boolean record(int sensorSlot, long timestampMillis, float value) {
+        if (sensorSlot >= series.length) {
+            series = Arrays.copyOf(series, Math.max(sensorSlot + 1, series.length * 2));
+        }
+        ReadingSeries readings = series[sensorSlot];
+        if (readings == null) {
+            readings = new ReadingSeries();
+            series[sensorSlot] = readings;
+        }
+        long time = Math.floorDiv(timestampMillis, resolutionMillis);
+        boolean newChunk = Math.floorDiv(time, chunkSpan) != Math.floorDiv(readings.lastTime(), chunkSpan);
+        if (!readings.append(time, value, chunkSpan)) {
+            refused++;
+            return false;
+        }
+        if (newChunk) {
+            readings.dropBefore(time - retention);
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every reading of the sensor in the slot.
+     */
+    public void clear(int sensorSlot) {
+        if (sensorSlot >= 0 && sensorSlot < series.length) {
+            series[sensorSlot] = null;
+        }
+    }
+
+    /**
+     * Passes the readings of the sensor in the slot from {@code fromMillis} to {@code toMillis}, both
+     * inclusive, to the visitor, oldest first.
+     * @return how many readings were visited
+     */
+    public long readings(int sensorSlot, long fromMillis, long toMillis, ReadingVisitor visitor) {
+        ReadingSeries readings = seriesOf(sensorSlot);
+        if (readings == null) {
+            return 0;
+        }
+        return readings.scan(fromTime(fromMillis), toTime(toMillis), 0, 0, new ReadingSeries.SampleSink() {
+            @Override
+            public void sample(long time, float value) {
+                visitor.visit(time * resolutionMillis, value);
+            }
+
+            @Override
+            public void summary(long firstTime, int count, float min, float max, double sum) {
+                throw new IllegalStateException("Summaries are only used when downsampling");
+            }
+        });
+    }
+
+    /**
+     * Splits the range into buckets of {@code stepMillis}, starting at {@code fromMillis}, and passes
+     * the count, minimum, maximum and mean of the readings in every non-empty bucket to the visitor.
+     * The step is rounded down to the resolution.
+     * @return how many readings the buckets cover
+     */
+    public long downsample(int sensorSlot, long fromMillis, long toMillis, long stepMillis, BucketVisitor visitor) {
+        long step = stepMillis / resolutionMillis;
+        if (step <= 0) {
+            throw new IllegalArgumentException("Step must be at least " + resolutionMillis + " ms");
+        }
+        ReadingSeries readings = seriesOf(sensorSlot);
+        if (readings == null) {
+            return 0;
+        }
+        long origin = toTime(fromMillis);
+        Buckets buckets = new Buckets(origin, step, visitor);
+        long covered = readings.scan(fromTime(fromMillis), toTime(toMillis), origin, step, buckets);
+        buckets.emit();
+        return covered;
+    }
+
+    /**
+     * Timestamp of the oldest reading kept for the sensor, or Long.MAX_VALUE if there is none.
+     */
+    public long getFirstTimestampMillis(int sensorSlot) {
+        ReadingSeries readings = seriesOf(sensorSlot);
+        return readings == null || readings.size() == 0 ? Long.MAX_VALUE : readings.firstTime() * resolutionMillis;
+    }
+
+    /**
+     * Readings kept for the sensor in the slot.
+     */
+    public long size(int sensorSlot) {
+        ReadingSeries readings = seriesOf(sensorSlot);
+        return readings == null ? 0 : readings.size();
+    }
+
+    /**
+     * Readings refused because they were older than the sensor's last one.
+     */
+    public long getRefused() {
+        return refused;
+    }
+
+    /**
+     * Approximate heap held by the stored readings, including unused array capacity.
+     */
+    public long getMemoryBytes() {
+        long bytes = 16 + 4L * series.length;
+        for (ReadingSeries readings : series) {
+            if (readings != null) {
+                bytes += readings.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private ReadingSeries seriesOf(int sensorSlot) {
+        return sensorSlot >= 0 && sensorSlot < series.length ? series[sensorSlot] : null;
+    }
+
+    private long toTime(long millis) {
+        return Math.floorDiv(millis, resolutionMillis);
+    }
+
+    /**
+     * The first time unit that starts at or after the given millisecond, for the lower end of ranges.
+     */
+    private long fromTime(long millis) {
+        return toTime(millis) + (Math.floorMod(millis, resolutionMillis) == 0 ? 0 : 1);
+    }
+
+    /**
+     * Folds readings and chunk summaries into the current bucket and emits it once a later bucket
+     * starts; the scan delivers both in time order.
+     */
+    private final class Buckets implements ReadingSeries.SampleSink {
+        private final long origin;
+        private final long step;
+        private final BucketVisitor visitor;
+        private long bucket = Long.MIN_VALUE;
+        private int count;
+        private float min;
+        private float max;
+        private double sum;
+
+        private Buckets(long origin, long step, BucketVisitor visitor) {
+            this.origin = origin;
+            this.step = step;
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void sample(long time, float value) {
+            summary(time, 1, value, value, value);
+        }
+
+        @Override
+        public void summary(long firstTime, int count, float min, float max, double sum) {
+            long index = Math.floorDiv(firstTime - origin, step);
+            if (index != bucket) {
+                emit();
+                bucket = index;
+                this.min = Float.POSITIVE_INFINITY;
+                this.max = Float.NEGATIVE_INFINITY;
+            }
+            this.count += count;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.sum += sum;
+        }
+
+        private void emit() {
+            if (count > 0) {
+                visitor.visit((origin + bucket * step) * resolutionMillis, count, min, max, sum / count);
+            }
+            count = 0;
+            sum = 0;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.udacity.catpoint.security.history;
+
+import java.util.Arrays;
+
+/**
+ * Compressed readings of one sensor, in the encoding of Facebook's Gorilla time-series store with
+ * one addition for runs of repeated readings.
+ *
+ * Readings are grouped in chunks covering a fixed span of time. A chunk starts on a 64-bit word
+ * boundary with its first timestamp in full (64 bits) and its first value as raw float bits (32),
+ * so it can be decoded on its own. Every further reading stores the change in the gap between
+ * timestamps, the delta of deltas, and then the XOR of its value with the previous one:
+ * <pre>
+ *   timestamp   '0'                   same gap as before
+ *               '10'    + 7 bits      delta of deltas in [-63, 64]
+ *               '110'   + 9 bits      in [-255, 256]
+ *               '1110'  + 12 bits     in [-2047, 2048]
+ *               '11110' + 32 bits     anything else
+ *               '11111' + 16 bits     run: that many readings with the same gap and the same value,
+ *                                     and no value bits follow
+ *   value       '0'                   same value as before
+ *               '10'    + bits        XOR fits in the window of significant bits used last time
+ *               '11'    + 5 bits leading zeros, 5 bits length - 1, then that many significant bits
+ * </pre>
+ * At 1 Hz the gap hardly ever changes and most sensors report the same value for long stretches, so
+ * plain Gorilla would still spend two bits per reading; the run code lets an idle sensor cost a few
+ * bytes an hour. A run is counted in memory and only written once it ends or the chunk closes.
+ *
+ * Each chunk also keeps the count, minimum, maximum and sum of its values, so a downsampled query
+ * whose buckets are as wide as a chunk never decodes it. Timestamps are in the history's resolution
+ * units. Not thread-safe.
+ */
+final class ReadingSeries {
+
+    private static final int MIN_RUN = 11;
+    private static final int MAX_RUN = 0xFFFF;
+
+    private long[] words = new long[2];
+    private int bitLength;
+
+    private int chunks;
+    private long[] chunkFirst = new long[2];
+    private long[] chunkLast = new long[2];
+    private int[] chunkOffset = new int[2];
+    private int[] chunkCount = new int[2];
+    private float[] chunkMin = new float[2];
+    private float[] chunkMax = new float[2];
+    private double[] chunkSum = new double[2];
+
+    //encoder state for the last chunk
+    private long lastTime;
+    private long lastDelta;
+    private int lastBits;
+    private int leading = -1;
+    private int trailing;
+    private int run;
+
+    /**
+     * Appends a reading; false if it is older than the last one, which is then kept as it was.
+     */
+    boolean append(long time, float value, long chunkSpan) {
+        if (chunks > 0 && time < lastTime) {
+            return false;
+        }
+        int bits = Float.floatToIntBits(value);
+        if (chunks == 0 || Math.floorDiv(time, chunkSpan) != Math.floorDiv(lastTime, chunkSpan)) {
+            flushRun();
+            startChunk(time, bits);
+        } else {
+            long delta = time - lastTime;
+            if (delta == lastDelta && bits == lastBits) {
+                run++;
+                if (run == MAX_RUN) {
+                    flushRun();
+                }
+            } else {
+                flushRun();
+                writeSample(delta - lastDelta, bits);
+            }
+            lastDelta = delta;
+            lastTime = time;
+            lastBits = bits;
+        }
+        int chunk = chunks - 1;
+        chunkLast[chunk] = time;
+        chunkCount[chunk]++;
+        chunkMin[chunk] = Math.min(chunkMin[chunk], value);
+        chunkMax[chunk] = Math.max(chunkMax[chunk], value);
+        chunkSum[chunk] += value;
+        return true;
+    }
+
+    private void startChunk(long time, int bits) {
+        bitLength = (bitLength + 63) & ~63;
+        if (chunks == chunkFirst.length) {
+            int capacity = chunks * 2;
+            chunkFirst = Arrays.copyOf(chunkFirst, capacity);
+            chunkLast = Arrays.copyOf(chunkLast, capacity);
+            chunkOffset = Arrays.copyOf(chunkOffset, capacity);
+            chunkCount = Arrays.copyOf(chunkCount, capacity);
+            chunkMin = Arrays.copyOf(chunkMin, capacity);
+            chunkMax = Arrays.copyOf(chunkMax, capacity);
+            chunkSum = Arrays.copyOf(chunkSum, capacity);
+        }
+        chunkFirst[chunks] = time;
+        chunkOffset[chunks] = bitLength;
+        chunkCount[chunks] = 0;
+        chunkMin[chunks] = Float.POSITIVE_INFINITY;
+        chunkMax[chunks] = Float.NEGATIVE_INFINITY;
+        chunkSum[chunks] = 0;
+        chunks++;
+        write(time, 64);
+        write(bits, 32);
+        lastTime = time;
+        lastDelta = 0;
+        lastBits = bits;
+        leading = -1;
+    }
+
+    private void flushRun() {
+        if (run >= MIN_RUN) {
+            write(0b11111, 5);
+            write(run, 16);
+        } else {
+            for (int i = 0; i < run; i++) {
+                write(0, 2);
+            }
+        }
+        run = 0;
+    }
+
+    private void writeSample(long deltaOfDeltas, int bits) {
+        if (deltaOfDeltas == 0) {
+            write(0, 1);
+        } else if (deltaOfDeltas >= -63 && deltaOfDeltas <= 64) {
+            write(0b10, 2);
+            write(deltaOfDeltas + 63, 7);
+        } else if (deltaOfDeltas >= -255 && deltaOfDeltas <= 256) {
+            write(0b110, 3);
+            write(deltaOfDeltas + 255, 9);
+        } else if (deltaOfDeltas >= -2047 && deltaOfDeltas <= 2048) {
+            write(0b1110, 4);
+            write(deltaOfDeltas + 2047, 12);
+        } else {
+            write(0b11110, 5);
+            write(deltaOfDeltas, 32);
+        }
+        int xor = bits ^ lastBits;
+        if (xor == 0) {
+            write(0, 1);
+            return;
+        }
+        int lead = Integer.numberOfLeadingZeros(xor);
+        int trail = Integer.numberOfTrailingZeros(xor);
+        if (leading >= 0 && lead >= leading && trail >= trailing) {
+            write(0b10, 2);
+            write(xor >>> trailing, 32 - leading - trailing);
+        } else {
+            int length = 32 - lead - trail;
+            write(0b11, 2);
+            write(lead, 5);
+            write(length - 1, 5);
+            write(xor >>> trail, length);
+            leading = lead;
+            trailing = trail;
+        }
+    }
+
+    private void write(long value, int bits) {
+        int end = bitLength + bits;
+        if (end > words.length * 64) {
+            words = Arrays.copyOf(words, Math.max((end + 63) >>> 6, words.length + (words.length >> 1)));
+        }
+        value &= -1L >>> (64 - bits);
+        int word = bitLength >>> 6;
+        int free = 64 - (bitLength & 63);
+        if (bits <= free) {
+            words[word] |= value << (free - bits);
+        } else {
+            words[word] |= value >>> (bits - free);
+            words[word + 1] |= value << (64 - (bits - free));
+        }
+        bitLength = end;
+    }
+
+    /**
+     * Drops the chunks whose readings all fall before the time.
+     */
+    void dropBefore(long time) {
+        int dropped = 0;
+        //the last chunk is still being written, so it stays
+        while (dropped < chunks - 1 && chunkLast[dropped] < time) {
+            dropped++;
+        }
+        if (dropped == 0) {
+            return;
+        }
+        int firstWord = chunkOffset[dropped] >>> 6;
+        int usedWords = (bitLength + 63) >>> 6;
+        System.arraycopy(words, firstWord, words, 0, usedWords - firstWord);
+        Arrays.fill(words, usedWords - firstWord, usedWords, 0);
+        bitLength -= firstWord * 64;
+        int kept = chunks - dropped;
+        System.arraycopy(chunkFirst, dropped, chunkFirst, 0, kept);
+        System.arraycopy(chunkLast, dropped, chunkLast, 0, kept);
+        System.arraycopy(chunkOffset, dropped, chunkOffset, 0, kept);
+        System.arraycopy(chunkCount, dropped, chunkCount, 0, kept);
+        System.arraycopy(chunkMin, dropped, chunkMin, 0, kept);
+        System.arraycopy(chunkMax, dropped, chunkMax, 0, kept);
+        System.arraycopy(chunkSum, dropped, chunkSum, 0, kept);
+        for (int i = 0; i < kept; i++) {
+            chunkOffset[i] -= firstWord * 64;
+        }
+        chunks = kept;
+    }
+
+    long firstTime() {
+        return chunks == 0 ? Long.MAX_VALUE : chunkFirst[0];
+    }
+
+    long lastTime() {
+        return chunks == 0 ? Long.MIN_VALUE : lastTime;
+    }
+
+    long size() {
+        long size = 0;
+        for (int i = 0; i < chunks; i++) {
+            size += chunkCount[i];
+        }
+        return size;
+    }
+
+    /**
+     * Bytes held by this series, counting array headers and unused capacity.
+     */
+    long memoryBytes() {
+        int headers = 8 * 16;
+        return headers + 64 + 8L * words.length + (8L + 8 + 4 + 4 + 4 + 4 + 8) * chunkFirst.length;
+    }
+
+    /**
+     * Passes every reading from {@code from} to {@code to}, both inclusive, to the visitor in time
+     * order, and returns how many there were. When {@code bucket} is positive, chunks that lie in
+     * the range and within one bucket of that width, counted from {@code origin}, are passed as a
+     * summary instead of being decoded, and so are runs of repeated readings, split at bucket
+     * boundaries.
+     */
+    long scan(long from, long to, long origin, long bucket, SampleSink sink) {
+        long visited = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            long first = chunkFirst[chunk];
+            long last = chunkLast[chunk];
+            if (last < from) {
+                continue;
+            }
+            if (first > to) {
+                break;
+            }
+            if (bucket > 0 && first >= from && last <= to
+                    && Math.floorDiv(first - origin, bucket) == Math.floorDiv(last - origin, bucket)) {
+                sink.summary(first, chunkCount[chunk], chunkMin[chunk], chunkMax[chunk], chunkSum[chunk]);
+                visited += chunkCount[chunk];
+            } else {
+                visited += decode(chunk, from, to, origin, bucket, sink);
+            }
+        }
+        return visited;
+    }
+
+    private long decode(int chunk, long from, long to, long origin, long bucket, SampleSink sink) {
+        int position = chunkOffset[chunk];
+        //readings of a run still being counted are not in the bits yet
+        int remaining = chunkCount[chunk] - (chunk == chunks - 1 ? run : 0);
+        long time = read(position, 64);
+        position += 64;
+        int bits = (int) read(position, 32);
+        position += 32;
+        long delta = 0;
+        int lead = 0;
+        int length = 0;
+        long visited = 0;
+        remaining--;
+        if (time > to) {
+            return 0;
+        }
+        if (time >= from) {
+            sink.sample(time, Float.intBitsToFloat(bits));
+            visited++;
+        }
+        while (remaining > 0) {
+            //count the ones of the timestamp prefix; only '11111' has no terminating zero
+            int prefix = 0;
+            while (prefix < 5 && read(position++, 1) == 1) {
+                prefix++;
+            }
+            if (prefix == 5) {
+                int count = (int) read(position, 16);
+                position += 16;
+                remaining -= count;
+                visited += repeat(time, delta, count, Float.intBitsToFloat(bits), from, to, origin, bucket, sink);
+                time += count * delta;
+                if (time > to) {
+                    return visited;
+                }
+                continue;
+            }
+            switch (prefix) {
+                case 1 -> { delta += read(position, 7) - 63; position += 7; }
+                case 2 -> { delta += read(position, 9) - 255; position += 9; }
+                case 3 -> { delta += read(position, 12) - 2047; position += 12; }
+                case 4 -> { delta += (int) read(position, 32); position += 32; }
+                default -> { }
+            }
+            time += delta;
+            if (read(position++, 1) == 1) {
+                if (read(position++, 1) == 1) {
+                    lead = (int) read(position, 5);
+                    length = (int) read(position + 5, 5) + 1;
+                    position += 10;
+                }
+                int trail = 32 - lead - length;
+                bits ^= (int) (read(position, length) << trail);
+                position += length;
+            }
+            remaining--;
+            if (time > to) {
+                return visited;
+            }
+            if (time >= from) {
+                sink.sample(time, Float.intBitsToFloat(bits));
+                visited++;
+            }
+        }
+        if (chunk == chunks - 1) {
+            visited += repeat(time, delta, run, Float.intBitsToFloat(bits), from, to, origin, bucket, sink);
+        }
+        return visited;
+    }
+
+    /**
+     * Passes on the readings of a run, {@code count} repeats of the value {@code delta} apart after
+     * the reading at {@code time}: one by one, or when downsampling as one summary per bucket.
+     */
+    private static long repeat(long time, long delta, int count, float value, long from, long to,
+                               long origin, long bucket, SampleSink sink) {
+        long first;
+        long last;
+        if (delta == 0) {
+            first = time >= from && time <= to ? 1 : count + 1;
+            last = count;
+        } else {
+            first = Math.max(1, -Math.floorDiv(time - from, delta));
+            last = Math.min(count, Math.floorDiv(to - time, delta));
+        }
+        if (first > last) {
+            return 0;
+        }
+        if (bucket <= 0) {
+            for (long k = first; k <= last; k++) {
+                sink.sample(time + k * delta, value);
+            }
+            return last - first + 1;
+        }
+        for (long k = first; k <= last; ) {
+            long at = time + k * delta;
+            long bucketEnd = origin + (Math.floorDiv(at - origin, bucket) + 1) * bucket - 1;
+            long end = delta == 0 ? last : Math.min(last, Math.floorDiv(bucketEnd - time, delta));
+            int readings = (int) (end - k + 1);
+            sink.summary(at, readings, value, value, (double) value * readings);
+            k = end + 1;
+        }
+        return last - first + 1;
+    }
+
+    private long read(int position, int bits) {
+        int word = position >>> 6;
+        int offset = position & 63;
+        long value;
+        if (offset + bits <= 64) {
+            value = words[word] >>> (64 - offset - bits);
+        } else {
+            int spill = offset + bits - 64;
+            value = words[word] << spill | words[word + 1] >>> (64 - spill);
+        }
+        return bits == 64 ? value : value & ((1L << bits) - 1);
+    }
+
+    /**
+     * Receives readings, or whole chunks as a summary, from {@link #scan}.
+     */
+    interface SampleSink {
+        void sample(long time, float value);
+
+        void summary(long firstTime, int count, float min, float max, double sum);
+    }
+}
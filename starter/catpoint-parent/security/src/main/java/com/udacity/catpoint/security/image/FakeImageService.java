@@ -1,14 +1,15 @@
-package com.udacity.catpoint.image.service;
+package com.udacity.catpoint.security.image;
 
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
 /**
- * Service that tries to guess if an image displays a cat.
+ * ImageService that guesses at random, for running without AWS credentials.
  */
-public class FakeImageService {
+public class FakeImageService implements ImageService {
     private final Random r = new Random();
 
+    @Override
     public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
         return r.nextBoolean();
     }
@@ -0,0 +1,19 @@
+package com.udacity.catpoint.security.image;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Service that tries to guess if an image displays a cat.
+ *
+ * It lives in the core, next to FakeImageService, so the headless server does not depend on the
+ * image module and the Rekognition SDK it brings in; AwsImageService there implements it.
+ */
+public interface ImageService {
+
+    /**
+     * Returns true if the provided image contains a cat.
+     * @param image Image to scan
+     * @param confidenceThreshhold Minimum threshhold to consider for cat. For example, 90.0f would require 90% confidence minimum
+     */
+    boolean imageContainsCat(BufferedImage image, float confidenceThreshhold);
+}
@@ -0,0 +1,37 @@
+package com.udacity.catpoint.security.ingest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Small pool of equally sized direct buffers. Direct buffers are expensive to allocate and are
+ * only reclaimed by the garbage collector, so connections borrow one for their lifetime and give
+ * it back on close. Only used from the ingest thread, so it is not thread-safe.
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (free.size() < maxPooled) {
+            free.push(buffer);
+        }
+    }
+
+    public int pooledCount() {
+        return free.size();
+    }
+}
@@ -0,0 +1,86 @@
+package com.udacity.catpoint.security.ingest;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.SensorDebouncer;
+import com.udacity.catpoint.security.service.SensorRegistry;
+
+/**
+ * Applies batches of ingested sensor events to a SecurityService. Sensor ids are resolved through
+ * the service's SensorRegistry without allocating; events for sensors the service does not know
+ * about are counted and dropped. Given a SensorDebouncer, events go through it instead of straight
+ * to the service. Given a SequenceFilter, resent and stale frames, heartbeats included, are dropped
+ * before they reach either.
+ */
+public class SecurityServiceEventHandler implements SensorEventHandler {
+
+    private final SecurityService securityService;
+    private final SensorRegistry sensorRegistry;
+    private final SensorDebouncer debouncer;
+    private final SequenceFilter sequenceFilter;
+
+    private volatile long eventsApplied;
+    private volatile long unknownSensorEvents;
+
+    public SecurityServiceEventHandler(SecurityService securityService) {
+        this(securityService, null);
+    }
+
+    public SecurityServiceEventHandler(SecurityService securityService, SensorDebouncer debouncer) {
+        this(securityService, debouncer, null);
+    }
+
+    public SecurityServiceEventHandler(SecurityService securityService, SensorDebouncer debouncer,
+                                       SequenceFilter sequenceFilter) {
+        this.securityService = securityService;
+        this.sensorRegistry = securityService.getSensorRegistry();
+        this.debouncer = debouncer;
+        this.sequenceFilter = sequenceFilter;
+    }
+
+    @Override
+    public void onSensorEvents(SensorEventBatch batch) {
+        long applied = 0;
+        long unknown = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            int slot = sensorRegistry.slotOf(batch.getSensorIdMsb(i), batch.getSensorIdLsb(i));
+            Sensor sensor = sensorRegistry.getSensor(slot);
+            if (sensor == null) {
+                unknown++;
+                continue;
+            }
+            if (sequenceFilter != null && !sequenceFilter.accept(slot, sensor, batch.getSequence(i))) {
+                continue;
+            }
+            if (batch.isHeartbeat(i)) {
+                securityService.sensorHeartbeat(sensor);
+            } else if (debouncer != null) {
+                //the debouncer may hold the change back, but the sensor was still heard from
+                securityService.sensorHeartbeat(sensor);
+                debouncer.changeSensorActivationStatus(sensor, batch.isActive(i));
+            } else {
+                securityService.changeSensorActivationStatus(sensor, batch.isActive(i));
+            }
+            applied++;
+        }
+        eventsApplied += applied;
+        unknownSensorEvents += unknown;
+    }
+
+    @Override
+    public void onTick(long nowMillis) {
+        if (debouncer != null) {
+            debouncer.advanceClock(nowMillis);
+        } else {
+            securityService.advanceClock(nowMillis);
+        }
+    }
+
+    public long getEventsApplied() {
+        return eventsApplied;
+    }
+
+    public long getUnknownSensorEvents() {
+        return unknownSensorEvents;
+    }
+}
@@ -0,0 +1,94 @@
+package com.udacity.catpoint.security.ingest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable batch of decoded sensor events held in parallel primitive arrays, so decoding and
+ * delivering events allocates nothing per event. A batch is only valid until the handler it was
+ * passed to returns.
+ */
+public class SensorEventBatch {
+
+    private final long[] sensorIdMsb;
+    private final long[] sensorIdLsb;
+    private final long[] sequence;
+    private final byte[] state;
+    private int size;
+
+    public SensorEventBatch(int capacity) {
+        sensorIdMsb = new long[capacity];
+        sensorIdLsb = new long[capacity];
+        sequence = new long[capacity];
+        state = new byte[capacity];
+    }
+
+    public void add(long idMsb, long idLsb, boolean isActive, long seq) {
+        add(idMsb, idLsb, isActive ? SensorEventFrame.ACTIVE : SensorEventFrame.INACTIVE, seq);
+    }
+
+    /**
+     * Adds an event with one of the SensorEventFrame states.
+     */
+    public void add(long idMsb, long idLsb, byte eventState, long seq) {
+        sensorIdMsb[size] = idMsb;
+        sensorIdLsb[size] = idLsb;
+        state[size] = eventState;
+        sequence[size] = seq;
+        size++;
+    }
+
+    /**
+     * Decodes whole frames from the buffer's position up to its limit, stopping early if the
+     * batch fills up or at the first frame with an unknown state, which is left in the buffer.
+     * The buffer position is advanced past every frame that was decoded.
+     * @return the number of frames decoded
+     */
+    public int decode(ByteBuffer src) {
+        int decoded = 0;
+        int position = src.position();
+        while (size < state.length && src.limit() - position >= SensorEventFrame.SIZE
+                && SensorEventFrame.isValid(src, position)) {
+            SensorEventFrame.read(src, position, this);
+            position += SensorEventFrame.SIZE;
+            decoded++;
+        }
+        src.position(position);
+        return decoded;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == state.length;
+    }
+
+    public long getSensorIdMsb(int i) {
+        return sensorIdMsb[i];
+    }
+
+    public long getSensorIdLsb(int i) {
+        return sensorIdLsb[i];
+    }
+
+    public boolean isActive(int i) {
+        return state[i] == SensorEventFrame.ACTIVE;
+    }
+
+    public boolean isHeartbeat(int i) {
+        return state[i] == SensorEventFrame.HEARTBEAT;
+    }
+
+    public long getSequence(int i) {
+        return sequence[i];
+    }
+}
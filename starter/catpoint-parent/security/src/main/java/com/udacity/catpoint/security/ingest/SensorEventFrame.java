@@ -0,0 +1,71 @@
+package com.udacity.catpoint.security.ingest;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Wire format for a single sensor event. Every frame is exactly {@link #SIZE} bytes, big-endian:
+ * <pre>
+ *   offset  0  long  sensor id, most significant bits
+ *   offset  8  long  sensor id, least significant bits
+ *   offset 16  long  sequence number assigned by the device
+ *   offset 24  byte  new state, 0 = inactive, 1 = active, 2 = heartbeat only
+ * </pre>
+ * Frames are simply concatenated on the stream; there is no header or delimiter, so a frame whose
+ * state is none of these means the stream is corrupt or out of step and cannot be trusted further.
+ */
+public final class SensorEventFrame {
+
+    public static final int SIZE = 25;
+
+    public static final byte INACTIVE = 0;
+    public static final byte ACTIVE = 1;
+    public static final byte HEARTBEAT = 2;
+
+    private static final int LSB_OFFSET = 8;
+    private static final int SEQUENCE_OFFSET = 16;
+    private static final int STATE_OFFSET = 24;
+
+    private SensorEventFrame() {}
+
+    public static void write(ByteBuffer dst, UUID sensorId, boolean active, long sequence) {
+        write(dst, sensorId.getMostSignificantBits(), sensorId.getLeastSignificantBits(), active, sequence);
+    }
+
+    public static void write(ByteBuffer dst, long idMsb, long idLsb, boolean active, long sequence) {
+        write(dst, idMsb, idLsb, active ? ACTIVE : INACTIVE, sequence);
+    }
+
+    /**
+     * Writes a frame that only tells the supervisor the sensor is alive.
+     */
+    public static void writeHeartbeat(ByteBuffer dst, long idMsb, long idLsb, long sequence) {
+        write(dst, idMsb, idLsb, HEARTBEAT, sequence);
+    }
+
+    private static void write(ByteBuffer dst, long idMsb, long idLsb, byte state, long sequence) {
+        dst.putLong(idMsb);
+        dst.putLong(idLsb);
+        dst.putLong(sequence);
+        dst.put(state);
+    }
+
+    /**
+     * Whether the frame that starts at the given absolute position carries one of the known states.
+     */
+    static boolean isValid(ByteBuffer src, int position) {
+        byte state = src.get(position + STATE_OFFSET);
+        return state >= INACTIVE && state <= HEARTBEAT;
+    }
+
+    /**
+     * Reads the frame that starts at the given absolute position into the batch, without
+     * moving the buffer position.
+     */
+    static void read(ByteBuffer src, int position, SensorEventBatch batch) {
+        batch.add(src.getLong(position),
+                src.getLong(position + LSB_OFFSET),
+                src.get(position + STATE_OFFSET),
+                src.getLong(position + SEQUENCE_OFFSET));
+    }
+}
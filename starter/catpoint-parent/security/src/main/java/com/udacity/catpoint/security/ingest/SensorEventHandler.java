@@ -0,0 +1,16 @@
+package com.udacity.catpoint.security.ingest;
+
+/**
+ * Receives decoded sensor events from the ingest server, one batch at a time. Called only from
+ * the ingest thread.
+ */
+public interface SensorEventHandler {
+    void onSensorEvents(SensorEventBatch batch);
+
+    /**
+     * Called after every pass of the ingest loop, and at least every
+     * {@link SensorEventServer#TICK_MILLIS} while no events arrive, so time-based work can run on
+     * the ingest thread too.
+     */
+    default void onTick(long nowMillis) {}
+}
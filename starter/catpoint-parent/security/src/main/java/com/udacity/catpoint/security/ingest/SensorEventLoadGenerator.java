@@ -0,0 +1,120 @@
+package com.udacity.catpoint.security.ingest;
+
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load generator for the sensor ingest endpoint. Opens a number of device connections and
+ * streams frames for a fixed set of sensors as fast as the socket accepts them.
+ *
+ * Usage: SensorEventLoadGenerator [--connect host:port] [--sensors n] [--connections n] [--seconds n]
+ *
+ * Without --connect an in-process SensorEventServer is started in front of a SecurityService
+ * with an in-memory repository holding the generated sensors, and the rate of events actually
+ * applied to the service is reported. Generated sensor ids are new UUID(SENSOR_ID_MSB, index).
+ */
+public class SensorEventLoadGenerator {
+
+    public static final long SENSOR_ID_MSB = 0xCA7_0000_0000L;
+    private static final int FRAMES_PER_WRITE = 1024;
+
+    public static void main(String[] args) throws Exception {
+        String connect = null;
+        int sensorCount = 1_000;
+        int connections = 4;
+        int seconds = 10;
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--connect" -> connect = args[i + 1];
+                case "--sensors" -> sensorCount = Integer.parseInt(args[i + 1]);
+                case "--connections" -> connections = Integer.parseInt(args[i + 1]);
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SensorEventServer server = null;
+        SecurityServiceEventHandler handler = null;
+        InetSocketAddress target;
+        if (connect == null) {
+            SecurityRepository repository = new InMemorySecurityRepositoryImpl();
+            SecurityService securityService = new SecurityService(repository, new FakeImageService());
+            for (int i = 0; i < sensorCount; i++) {
+                Sensor sensor = new Sensor("Sensor " + i, SensorType.values()[i % SensorType.values().length]);
+                sensor.setSensorId(new UUID(SENSOR_ID_MSB, i));
+                securityService.addSensor(sensor);
+            }
+            handler = new SecurityServiceEventHandler(securityService);
+            server = new SensorEventServer(new InetSocketAddress("127.0.0.1", 0), handler);
+            server.start();
+            target = new InetSocketAddress("127.0.0.1", server.getPort());
+        } else {
+            String[] hostPort = connect.split(":");
+            target = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        }
+
+        AtomicLong sent = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> senders = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            int connection = c;
+            int sensors = sensorCount;
+            Thread t = new Thread(() -> send(target, connection, sensors, deadline, sent), "load-" + c);
+            senders.add(t);
+            t.start();
+        }
+        long start = System.nanoTime();
+        for (Thread t : senders) {
+            t.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("sent %,d events in %.1f s: %,.0f events/sec%n", sent.get(), elapsed, sent.get() / elapsed);
+        if (server != null) {
+            //let the server drain what is still in flight
+            while (server.getEventsReceived() < sent.get() && server.getOpenConnections() > 0) {
+                Thread.sleep(10);
+            }
+            double drained = (System.nanoTime() - start) / 1e9;
+            server.close();
+            System.out.printf("applied %,d events (%,d unknown) in %,d batches: %,.0f events/sec%n",
+                    handler.getEventsApplied(), handler.getUnknownSensorEvents(), server.getBatchesDelivered(),
+                    handler.getEventsApplied() / drained);
+        }
+    }
+
+    private static void send(InetSocketAddress target, int connection, int sensorCount, long deadline, AtomicLong sent) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SensorEventFrame.SIZE * FRAMES_PER_WRITE);
+        long sequence = 0;
+        int sensor = connection % sensorCount;
+        try (SocketChannel channel = SocketChannel.open(target)) {
+            while (System.nanoTime() < deadline) {
+                buffer.clear();
+                for (int i = 0; i < FRAMES_PER_WRITE; i++) {
+                    SensorEventFrame.write(buffer, SENSOR_ID_MSB, sensor, (sequence & 1) == 0, sequence++);
+                    sensor = (sensor + 1) % sensorCount;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                sent.addAndGet(FRAMES_PER_WRITE);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Load connection " + connection + " failed", e);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.udacity.catpoint.security.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Non-blocking TCP endpoint that devices push sensor events to. A single thread runs a Selector
+ * over every connection, decodes fixed-size {@link SensorEventFrame}s straight out of pooled
+ * direct buffers into a reusable {@link SensorEventBatch}, and hands the batch to the handler
+ * whenever it fills up or the current round of ready connections has been drained.
+ *
+ * Because the handler always runs on the ingest thread, it can drive a SecurityService that is
+ * not used from any other thread without further locking. A handler that throws does not stop
+ * the thread: the batch, or the tick, is counted as failed and ingest carries on with the next one.
+ *
+ * Trouble with one connection stays with that connection. A connection whose read fails, or that
+ * sends a frame with an unknown state, is closed on its own; the frames it sent before a bad one
+ * are still delivered. A failed accept, say because the process is out of file descriptors, is
+ * counted and stops accepting for one tick instead of ending ingest for every device.
+ */
+public class SensorEventServer implements Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final long TICK_MILLIS = 100;
+    private static final int READ_BUFFER_SIZE = SensorEventFrame.SIZE * 2048;
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    private final InetSocketAddress bindAddress;
+    private final SensorEventHandler handler;
+    private final SensorEventBatch batch;
+    private final DirectBufferPool bufferPool = new DirectBufferPool(READ_BUFFER_SIZE, MAX_POOLED_BUFFERS);
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread ingestThread;
+    private volatile boolean running;
+
+    private volatile long eventsReceived;
+    private volatile long batchesDelivered;
+    private volatile int openConnections;
+    private volatile long badFrames;
+    private volatile long acceptFailures;
+    private volatile long handlerFailures;
+    private volatile RuntimeException lastFailure;
+
+    public SensorEventServer(InetSocketAddress bindAddress, SensorEventHandler handler) {
+        this(bindAddress, handler, DEFAULT_BATCH_SIZE);
+    }
+
+    public SensorEventServer(InetSocketAddress bindAddress, SensorEventHandler handler, int batchSize) {
+        this.bindAddress = bindAddress;
+        this.handler = handler;
+        this.batch = new SensorEventBatch(batchSize);
+    }
+
+    /**
+     * Binds the listening socket and starts the ingest thread.
+     */
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(bindAddress);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        ingestThread = new Thread(this::runLoop, "sensor-ingest");
+        ingestThread.start();
+    }
+
+    /**
+     * The port actually bound, which is useful when binding to port 0.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public long getEventsReceived() {
+        return eventsReceived;
+    }
+
+    public long getBatchesDelivered() {
+        return batchesDelivered;
+    }
+
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Frames with an unknown state; each one closed the connection it arrived on.
+     */
+    public long getBadFrames() {
+        return badFrames;
+    }
+
+    /**
+     * Accepts and selects that failed with an IOException while the server kept running.
+     */
+    public long getAcceptFailures() {
+        return acceptFailures;
+    }
+
+    /**
+     * Batches and ticks the handler threw on. The events of a failed batch are not redelivered.
+     */
+    public long getHandlerFailures() {
+        return handlerFailures;
+    }
+
+    /**
+     * The last exception the handler threw, or null if it never has.
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    private void runLoop() {
+        SelectionKey acceptKey = serverChannel.keyFor(selector);
+        try {
+            while (running) {
+                try {
+                    selector.select(TICK_MILLIS);
+                } catch (IOException e) {
+                    acceptFailures++;
+                    pause();
+                }
+                if (acceptKey.interestOps() == 0) {
+                    //resume accepting after the tick a failed accept paused it for
+                    acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(key);
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+                deliverBatch();
+                try {
+                    handler.onTick(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    handlerFailed(e);
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            if (running) {
+                throw new IllegalStateException("Sensor ingest loop failed", e);
+            }
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept(SelectionKey acceptKey) {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, bufferPool.acquire());
+            openConnections++;
+        } catch (IOException e) {
+            acceptFailures++;
+            closeQuietly(channel);
+            //the pending connection stays in the backlog, so select would report it again at once
+            acceptKey.interestOps(0);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //it never became a connection
+        }
+    }
+
+    /**
+     * Waits out a tick after select itself failed, so a selector in trouble is not spun on.
+     */
+    private static void pause() {
+        try {
+            Thread.sleep(TICK_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        buffer.flip();
+        batch.decode(buffer);
+        while (batch.isFull()) {
+            deliverBatch();
+            batch.decode(buffer);
+        }
+        //decoding only stops short of a whole frame with room left in the batch at a bad frame
+        if (buffer.remaining() >= SensorEventFrame.SIZE) {
+            badFrames++;
+            closeConnection(key);
+            return;
+        }
+        //keep any partial frame for the next read
+        buffer.compact();
+        if (read < 0) {
+            closeConnection(key);
+        }
+    }
+
+    private void deliverBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        eventsReceived += batch.size();
+        batchesDelivered++;
+        try {
+            handler.onSensorEvents(batch);
+        } catch (RuntimeException e) {
+            handlerFailed(e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void handlerFailed(RuntimeException e) {
+        lastFailure = e;
+        handlerFailures++;
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            //nothing left to do with a connection that failed to close
+        }
+        bufferPool.release((ByteBuffer) key.attachment());
+        openConnections--;
+    }
+
+    private void closeAll() {
+        if (selector.isOpen()) {
+            selector.keys().stream()
+                    .filter(key -> key.channel() instanceof SocketChannel)
+                    .forEach(this::closeConnection);
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            //shutting down anyway
+        }
+    }
+
+    /**
+     * Stops accepting events, closes every connection and waits for the ingest thread to exit.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            ingestThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.udacity.catpoint.security.ingest;
+
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.util.Arrays;
+
+/**
+ * Drops resent and stale sensor events so devices can deliver at least once without every
+ * duplicate reaching the state machine and the repository.
+ *
+ * Each sensor's highest sequence number seen so far is kept in a long array indexed by
+ * SensorRegistry slot, next to a bitmap of which of the {@code window} numbers below it have also
+ * been seen. An event above the high-water mark moves the mark up; an event inside the window is
+ * accepted once, so events that overtake each other on the way are not lost; anything at or below
+ * the window, or seen before, is dropped and counted. Accepting an event costs a few array reads
+ * and no allocation.
+ *
+ * State for a slot is discarded when a different sensor takes the slot over. A device that
+ * restarts its sequence numbers from zero is treated as stale until it passes its old mark, so
+ * devices are expected to keep their counter across restarts. Called only from the ingest thread.
+ */
+public class SequenceFilter {
+
+    public static final int DEFAULT_WINDOW = 32;
+    public static final int MAX_WINDOW = 64;
+
+    private final int window;
+
+    private Sensor[] owners = new Sensor[0];
+    private long[] highWaterMarks = new long[0];
+    //bit n set means highWaterMark - n was seen; bit 0 is the mark itself
+    private long[] seen = new long[0];
+
+    private volatile long eventsAccepted;
+    private volatile long duplicateEvents;
+    private volatile long staleEvents;
+
+    public SequenceFilter() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param window How far below the highest sequence number seen an event may arrive and still be accepted
+     */
+    public SequenceFilter(int window) {
+        if (window < 1 || window > MAX_WINDOW) {
+            throw new IllegalArgumentException("window must be between 1 and " + MAX_WINDOW);
+        }
+        this.window = window;
+    }
+
+    /**
+     * Decides whether an event is new. The first event from a sensor is always accepted.
+     * @param slot The sensor's SensorRegistry slot
+     * @param sensor The sensor currently registered in that slot
+     * @param sequence The sequence number the device gave the event
+     * @return true if the event should be applied, false if it is a duplicate or too old
+     */
+    public boolean accept(int slot, Sensor sensor, long sequence) {
+        ensureCapacity(slot);
+        if (owners[slot] != sensor) {
+            owners[slot] = sensor;
+            highWaterMarks[slot] = sequence;
+            seen[slot] = 1;
+            eventsAccepted++;
+            return true;
+        }
+        long mark = highWaterMarks[slot];
+        if (sequence > mark) {
+            long advance = sequence - mark;
+            seen[slot] = (advance >= Long.SIZE ? 0 : seen[slot] << advance) | 1;
+            highWaterMarks[slot] = sequence;
+            eventsAccepted++;
+            return true;
+        }
+        long behind = mark - sequence;
+        if (behind >= window) {
+            staleEvents++;
+            return false;
+        }
+        long bit = 1L << behind;
+        if ((seen[slot] & bit) != 0) {
+            duplicateEvents++;
+            return false;
+        }
+        seen[slot] |= bit;
+        eventsAccepted++;
+        return true;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public long getEventsAccepted() {
+        return eventsAccepted;
+    }
+
+    /**
+     * Events dropped because the same sequence number was already accepted.
+     */
+    public long getDuplicateEvents() {
+        return duplicateEvents;
+    }
+
+    /**
+     * Events dropped because they arrived too far below the highest sequence number seen.
+     */
+    public long getStaleEvents() {
+        return staleEvents;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < owners.length) {
+            return;
+        }
+        int capacity = Math.max(Math.max(16, slot + 1), owners.length * 2);
+        owners = Arrays.copyOf(owners, capacity);
+        highWaterMarks = Arrays.copyOf(highWaterMarks, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+    }
+}
@@ -0,0 +1,11 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+/**
+ * Notified whenever the alarm status of a hosted home changes. Called on the worker thread that
+ * owns the home, so implementations must be quick and must not block.
+ */
+public interface HomeAlarmListener {
+    void alarmStatusChanged(long homeId, AlarmStatus previous, AlarmStatus current);
+}
@@ -0,0 +1,82 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+/**
+ * A batch of events for homes that all live on the same shard, held in parallel primitive arrays.
+ * Obtain one from {@link MultiHomeRuntime#newBatch(int)}, fill it with events for homes whose
+ * {@link MultiHomeRuntime#shardOf(long)} matches, then {@link MultiHomeRuntime#submit} it. A batch
+ * must not be touched after it has been submitted.
+ */
+public class HomeEventBatch {
+
+    static final byte SET_ARMING = 0;
+    static final byte SENSOR = 1;
+    static final byte CAT = 2;
+    static final byte ADD_SENSOR = 3;
+    static final byte REMOVE_SENSOR = 4;
+
+    final int shard;
+    final long[] homeIds;
+    final byte[] ops;
+    final int[] args;
+    int size;
+
+    HomeEventBatch(int shard, int capacity) {
+        this.shard = shard;
+        this.homeIds = new long[capacity];
+        this.ops = new byte[capacity];
+        this.args = new int[capacity];
+    }
+
+    public void setArmingStatus(long homeId, ArmingStatus status) {
+        add(homeId, SET_ARMING, status.ordinal());
+    }
+
+    /**
+     * @param sensorIndex index of the sensor within its home, from 0 to {@link HomeStateTable#MAX_SENSORS_PER_HOME} - 1
+     */
+    public void changeSensorActivationStatus(long homeId, int sensorIndex, boolean active) {
+        checkSensorIndex(sensorIndex);
+        add(homeId, SENSOR, sensorIndex << 1 | (active ? 1 : 0));
+    }
+
+    public void catDetected(long homeId, boolean cat) {
+        add(homeId, CAT, cat ? 1 : 0);
+    }
+
+    public void addSensor(long homeId, int sensorIndex) {
+        checkSensorIndex(sensorIndex);
+        add(homeId, ADD_SENSOR, sensorIndex);
+    }
+
+    public void removeSensor(long homeId, int sensorIndex) {
+        checkSensorIndex(sensorIndex);
+        add(homeId, REMOVE_SENSOR, sensorIndex);
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == ops.length;
+    }
+
+    private static void checkSensorIndex(int sensorIndex) {
+        if (sensorIndex < 0 || sensorIndex >= HomeStateTable.MAX_SENSORS_PER_HOME) {
+            throw new IllegalArgumentException("Sensor index out of range: " + sensorIndex);
+        }
+    }
+
+    private void add(long homeId, byte op, int arg) {
+        homeIds[size] = homeId;
+        ops[size] = op;
+        args[size] = arg;
+        size++;
+    }
+}
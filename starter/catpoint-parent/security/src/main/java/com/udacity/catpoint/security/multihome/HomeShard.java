@@ -0,0 +1,94 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One worker thread and the homes it owns. Work arrives through a bounded queue, so producers
+ * block instead of running the shard out of memory, and everything that touches the shard's
+ * HomeStateTable runs on this thread only. Between batches, and at least once per timer tick,
+ * the worker advances the table's entry and exit delay timers to the current time. A batch or task
+ * that throws is counted and the worker moves on to the next one, so a bad event cannot leave
+ * producers blocked on a queue nobody drains; events of that batch after the failing one are lost.
+ */
+class HomeShard implements Runnable {
+
+    private static final Object STOP = new Object();
+
+    private final int index;
+    private final HomeStateTable table;
+    private final BlockingQueue<Object> queue;
+    private volatile long eventsApplied;
+    private volatile long failed;
+    private volatile RuntimeException lastFailure;
+
+    HomeShard(int index, int queueCapacity, HomeAlarmListener listener, long entryDelayMillis, long exitDelayMillis) {
+        this.index = index;
+        this.table = new HomeStateTable(listener, entryDelayMillis, exitDelayMillis, System.currentTimeMillis());
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    void submit(HomeEventBatch batch) throws InterruptedException {
+        queue.put(batch);
+    }
+
+    void execute(Consumer<HomeStateTable> task) throws InterruptedException {
+        queue.put(task);
+    }
+
+    void stop() throws InterruptedException {
+        queue.put(STOP);
+    }
+
+    long getEventsApplied() {
+        return eventsApplied;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+
+    RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+        try {
+            while (true) {
+                Object work = queue.poll(SecurityService.TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+                table.advanceClock(System.currentTimeMillis());
+                if (work == null) {
+                    continue;
+                }
+                if (work == STOP) {
+                    return;
+                }
+                try {
+                    if (work instanceof HomeEventBatch) {
+                        HomeEventBatch batch = (HomeEventBatch) work;
+                        table.apply(batch);
+                        eventsApplied += batch.size;
+                    } else {
+                        ((Consumer<HomeStateTable>) work).accept(table);
+                    }
+                } catch (RuntimeException e) {
+                    lastFailure = e;
+                    failed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "home-shard-" + index;
+    }
+}
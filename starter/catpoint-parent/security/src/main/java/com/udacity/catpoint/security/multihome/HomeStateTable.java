@@ -0,0 +1,261 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.timer.TimingWheel;
+
+import java.util.Arrays;
+
+/**
+ * Compact state for every home on one shard. Each home takes a row across a handful of primitive
+ * arrays: its id, alarm and arming status ordinals, the cat flag, and two bitmasks of installed and
+ * active sensors, which is a few dozen bytes per home instead of a SecurityService, repository and
+ * sensor objects. Homes are created on their first event.
+ *
+ * The transitions applied here are the ones SecurityService applies to a single household under
+ * the default AlarmRules, including entry and exit delays. Sensors are bits without a type or a
+ * zone, so custom AlarmRules and zone arming do not apply here and a home armed the same way can
+ * behave differently than a SecurityService configured with them. The delay timers of every home on the shard share one
+ * TimingWheel, so hundreds of thousands of pending alarms cost O(1) each to start and cancel.
+ * Only the shard's worker thread may touch a table, so nothing here is synchronized.
+ */
+public final class HomeStateTable {
+
+    public static final int MAX_SENSORS_PER_HOME = Long.SIZE;
+
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final byte NO_ALARM = (byte) AlarmStatus.NO_ALARM.ordinal();
+    private static final byte PENDING_ALARM = (byte) AlarmStatus.PENDING_ALARM.ordinal();
+    private static final byte ALARM = (byte) AlarmStatus.ALARM.ordinal();
+    private static final byte DISARMED = (byte) ArmingStatus.DISARMED.ordinal();
+    private static final byte ARMED_HOME = (byte) ArmingStatus.ARMED_HOME.ordinal();
+    private static final int EMPTY = -1;
+    private static final long ENTRY_DELAY_TIMER = 0;
+    private static final long EXIT_DELAY_TIMER = 1;
+
+    private final HomeAlarmListener listener;
+    private final TimingWheel timers;
+    private final long entryDelayMillis;
+    private final long exitDelayMillis;
+
+    //row storage
+    private long[] homeIds = new long[64];
+    private byte[] alarm = new byte[64];
+    private byte[] arming = new byte[64];
+    private boolean[] cat = new boolean[64];
+    private long[] installedSensors = new long[64];
+    private long[] activeSensors = new long[64];
+    private long[] entryDelayTimer = new long[64];
+    private long[] exitDelayTimer = new long[64];
+    private int homeCount;
+
+    //home id -> row, open addressing with linear probing
+    private long[] indexKeys = new long[128];
+    private int[] indexRows = new int[128];
+
+    HomeStateTable(HomeAlarmListener listener) {
+        this(listener, 0, 0, System.currentTimeMillis());
+    }
+
+    HomeStateTable(HomeAlarmListener listener, long entryDelayMillis, long exitDelayMillis, long startMillis) {
+        this.listener = listener;
+        this.entryDelayMillis = entryDelayMillis;
+        this.exitDelayMillis = exitDelayMillis;
+        this.timers = new TimingWheel(SecurityService.TIMER_TICK_MILLIS, startMillis, this::timerExpired);
+        Arrays.fill(indexRows, EMPTY);
+    }
+
+    public int getHomeCount() {
+        return homeCount;
+    }
+
+    /**
+     * Returns the alarm status of a home, or null if the home has never received an event.
+     */
+    public AlarmStatus getAlarmStatus(long homeId) {
+        int row = rowOf(homeId);
+        return row == EMPTY ? null : ALARM_STATUSES[alarm[row]];
+    }
+
+    public ArmingStatus getArmingStatus(long homeId) {
+        int row = rowOf(homeId);
+        return row == EMPTY ? null : ARMING_STATUSES[arming[row]];
+    }
+
+    public long getActiveSensors(long homeId) {
+        int row = rowOf(homeId);
+        return row == EMPTY ? 0L : activeSensors[row];
+    }
+
+    /**
+     * Fires the entry and exit delays of every home that have run out by the given time.
+     */
+    void advanceClock(long nowMillis) {
+        timers.advanceTo(nowMillis);
+    }
+
+    long getClockMillis() {
+        return timers.currentTimeMillis();
+    }
+
+    void apply(HomeEventBatch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            int row = rowOrCreate(batch.homeIds[i]);
+            int arg = batch.args[i];
+            switch (batch.ops[i]) {
+                case HomeEventBatch.SET_ARMING -> setArmingStatus(row, (byte) arg);
+                case HomeEventBatch.SENSOR -> changeSensor(row, arg >>> 1, (arg & 1) == 1);
+                case HomeEventBatch.CAT -> catDetected(row, arg == 1);
+                case HomeEventBatch.ADD_SENSOR -> installedSensors[row] |= 1L << arg;
+                case HomeEventBatch.REMOVE_SENSOR -> {
+                    installedSensors[row] &= ~(1L << arg);
+                    activeSensors[row] &= ~(1L << arg);
+                }
+                default -> throw new IllegalArgumentException("Unknown home event " + batch.ops[i]);
+            }
+        }
+    }
+
+    private void setArmingStatus(int row, byte status) {
+        timers.cancel(exitDelayTimer[row]);
+        exitDelayTimer[row] = TimingWheel.NO_TIMER;
+        if (status == DISARMED) {
+            setAlarm(row, NO_ALARM);
+        } else {
+            if (exitDelayMillis > 0) {
+                exitDelayTimer[row] = timers.schedule(exitDelayMillis, (long) row << 1 | EXIT_DELAY_TIMER);
+            }
+            if (arming[row] == DISARMED && cat[row]) {
+                setAlarm(row, ALARM);
+            }
+            activeSensors[row] = 0L;
+        }
+        arming[row] = status;
+    }
+
+    private void changeSensor(int row, int sensorIndex, boolean active) {
+        long bit = 1L << sensorIndex;
+        if ((installedSensors[row] & bit) == 0) {
+            return;
+        }
+        boolean wasActive = (activeSensors[row] & bit) != 0;
+        if (wasActive == active) {
+            return;
+        }
+        if (active) {
+            activeSensors[row] |= bit;
+            if (arming[row] != DISARMED && exitDelayTimer[row] == TimingWheel.NO_TIMER) {
+                if (alarm[row] == NO_ALARM) {
+                    setAlarm(row, PENDING_ALARM);
+                } else if (alarm[row] == PENDING_ALARM) {
+                    setAlarm(row, ALARM);
+                }
+            }
+        } else {
+            activeSensors[row] &= ~bit;
+            if (alarm[row] == PENDING_ALARM && activeSensors[row] == 0L) {
+                setAlarm(row, NO_ALARM);
+            }
+        }
+    }
+
+    private void catDetected(int row, boolean catDetected) {
+        if (catDetected && arming[row] == ARMED_HOME) {
+            setAlarm(row, ALARM);
+        } else if (activeSensors[row] == 0L) {
+            setAlarm(row, NO_ALARM);
+        }
+        cat[row] = catDetected;
+    }
+
+    private void setAlarm(int row, byte status) {
+        byte previous = alarm[row];
+        alarm[row] = status;
+        if (status != PENDING_ALARM) {
+            timers.cancel(entryDelayTimer[row]);
+            entryDelayTimer[row] = TimingWheel.NO_TIMER;
+        } else if (entryDelayMillis > 0 && entryDelayTimer[row] == TimingWheel.NO_TIMER) {
+            entryDelayTimer[row] = timers.schedule(entryDelayMillis, (long) row << 1 | ENTRY_DELAY_TIMER);
+        }
+        if (previous != status && listener != null) {
+            listener.alarmStatusChanged(homeIds[row], ALARM_STATUSES[previous], ALARM_STATUSES[status]);
+        }
+    }
+
+    private void timerExpired(long timer, long payload) {
+        int row = (int) (payload >>> 1);
+        if ((payload & 1) == ENTRY_DELAY_TIMER) {
+            entryDelayTimer[row] = TimingWheel.NO_TIMER;
+            if (alarm[row] == PENDING_ALARM) {
+                setAlarm(row, ALARM);
+            }
+        } else {
+            exitDelayTimer[row] = TimingWheel.NO_TIMER;
+        }
+    }
+
+    private int rowOf(long homeId) {
+        return indexRows[indexOf(homeId)];
+    }
+
+    private int rowOrCreate(long homeId) {
+        int i = indexOf(homeId);
+        if (indexRows[i] != EMPTY) {
+            return indexRows[i];
+        }
+        int row = homeCount++;
+        if (row == homeIds.length) {
+            growRows();
+        }
+        homeIds[row] = homeId;
+        alarm[row] = NO_ALARM;
+        arming[row] = DISARMED;
+        entryDelayTimer[row] = TimingWheel.NO_TIMER;
+        exitDelayTimer[row] = TimingWheel.NO_TIMER;
+        indexKeys[i] = homeId;
+        indexRows[i] = row;
+        if (homeCount * 2 > indexRows.length) {
+            rehash();
+        }
+        return row;
+    }
+
+    private int indexOf(long homeId) {
+        int mask = indexRows.length - 1;
+        int i = mix(homeId) & mask;
+        while (indexRows[i] != EMPTY && indexKeys[i] != homeId) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void growRows() {
+        int capacity = homeIds.length * 2;
+        homeIds = Arrays.copyOf(homeIds, capacity);
+        alarm = Arrays.copyOf(alarm, capacity);
+        arming = Arrays.copyOf(arming, capacity);
+        cat = Arrays.copyOf(cat, capacity);
+        installedSensors = Arrays.copyOf(installedSensors, capacity);
+        activeSensors = Arrays.copyOf(activeSensors, capacity);
+        entryDelayTimer = Arrays.copyOf(entryDelayTimer, capacity);
+        exitDelayTimer = Arrays.copyOf(exitDelayTimer, capacity);
+    }
+
+    private void rehash() {
+        indexKeys = new long[indexKeys.length * 2];
+        indexRows = new int[indexRows.length * 2];
+        Arrays.fill(indexRows, EMPTY);
+        for (int row = 0; row < homeCount; row++) {
+            int i = indexOf(homeIds[row]);
+            indexKeys[i] = homeIds[row];
+            indexRows[i] = row;
+        }
+    }
+
+    static int mix(long homeId) {
+        long h = homeId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+}
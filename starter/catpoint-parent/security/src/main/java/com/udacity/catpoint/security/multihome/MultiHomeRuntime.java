@@ -0,0 +1,145 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Hosts the alarm state machines of many independent homes in one JVM. Homes are spread across a
+ * fixed number of shards by home id, and each shard is served by exactly one worker thread, so a
+ * home's events are always applied in order by the same thread without any locking while
+ * different homes proceed in parallel on different cores.
+ *
+ * Producers fill a {@link HomeEventBatch} per shard and submit it; the batch is the unit of
+ * hand-off, so queueing costs are paid once per batch rather than once per event.
+ */
+public class MultiHomeRuntime implements Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final HomeShard[] shards;
+    private final List<Thread> workers = new ArrayList<>();
+
+    public MultiHomeRuntime(int shardCount) {
+        this(shardCount, null);
+    }
+
+    /**
+     * @param shardCount number of worker threads, usually the number of available cores
+     * @param listener notified of alarm changes on the owning worker thread, may be null
+     */
+    public MultiHomeRuntime(int shardCount, HomeAlarmListener listener) {
+        this(shardCount, listener, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @param entryDelay how long a home may stay in PENDING_ALARM before escalating, zero to disable
+     * @param exitDelay how long after arming a home ignores sensor activations, zero to disable
+     */
+    public MultiHomeRuntime(int shardCount, HomeAlarmListener listener, Duration entryDelay, Duration exitDelay) {
+        shards = new HomeShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new HomeShard(i, QUEUE_CAPACITY, listener, entryDelay.toMillis(), exitDelay.toMillis());
+        }
+    }
+
+    public void start() {
+        for (HomeShard shard : shards) {
+            Thread t = new Thread(shard, shard.toString());
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * The shard that owns a home. Stable for the lifetime of the runtime.
+     */
+    public int shardOf(long homeId) {
+        return Math.floorMod(HomeStateTable.mix(homeId), shards.length);
+    }
+
+    public HomeEventBatch newBatch(int shard) {
+        return new HomeEventBatch(shard, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Queues a batch for its shard, blocking while that shard is too far behind.
+     */
+    public void submit(HomeEventBatch batch) throws InterruptedException {
+        shards[batch.shard].submit(batch);
+    }
+
+    /**
+     * Reads a home's alarm status on its owning thread, after every batch submitted before it.
+     */
+    public Future<AlarmStatus> getAlarmStatus(long homeId) throws InterruptedException {
+        CompletableFuture<AlarmStatus> result = new CompletableFuture<>();
+        shards[shardOf(homeId)].execute(table -> result.complete(table.getAlarmStatus(homeId)));
+        return result;
+    }
+
+    /**
+     * Total number of events applied so far across all shards.
+     */
+    public long getEventsApplied() {
+        long total = 0;
+        for (HomeShard shard : shards) {
+            total += shard.getEventsApplied();
+        }
+        return total;
+    }
+
+    /**
+     * Number of batches and reads across all shards that threw instead of completing. The worker
+     * skips the rest of such a batch and carries on.
+     */
+    public long getFailed() {
+        long total = 0;
+        for (HomeShard shard : shards) {
+            total += shard.getFailed();
+        }
+        return total;
+    }
+
+    /**
+     * The last exception a failed shard threw, or null if no batch or read has failed. With
+     * failures on several shards it is one of theirs.
+     */
+    public RuntimeException getLastFailure() {
+        RuntimeException last = null;
+        for (HomeShard shard : shards) {
+            if (shard.getLastFailure() != null) {
+                last = shard.getLastFailure();
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Applies everything already queued, then stops the workers.
+     */
+    @Override
+    public void close() {
+        try {
+            for (HomeShard shard : shards) {
+                shard.stop();
+            }
+            for (Thread t : workers) {
+                t.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
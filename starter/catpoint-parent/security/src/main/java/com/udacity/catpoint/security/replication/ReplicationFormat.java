@@ -0,0 +1,80 @@
+package com.udacity.catpoint.security.replication;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Wire format of the replication stream from a primary to a standby. The primary opens with a
+ * header and then sends records, each a byte op and the sequence number of the latest mutation:
+ * <pre>
+ *   header          int magic "CPRL", byte version
+ *   SNAPSHOT        long sequence, byte alarm status, byte arming status, boolean cat detected,
+ *                   int sensor count, then that many sensors
+ *   ADD_SENSOR      long sequence, sensor
+ *   UPDATE_SENSOR   long sequence, long id msb, long id lsb, boolean active, int zone
+ *   REMOVE_SENSOR   long sequence, long id msb, long id lsb
+ *   ALARM           long sequence, byte alarm status
+ *   ARMING          long sequence, byte arming status
+ *   CAT             long sequence, boolean cat detected
+ *   HEARTBEAT       long sequence, nothing changed
+ *   RESYNC          long sequence, the standby fell too far behind; the primary sends nothing
+ *                   more on this connection and the standby reconnects for a fresh SNAPSHOT
+ *   sensor          long id msb, long id lsb, byte type, boolean active, int zone, float threshold,
+ *                   UTF name
+ * </pre>
+ * A standby always receives a SNAPSHOT first, and every mutation after it carries the next
+ * sequence number. The standby answers with a long, the last sequence number it applied, after
+ * every batch it reads. Enums are stored by ordinal. Names and types never change once a sensor
+ * exists, so updates only carry what can. Sensors without a threshold send NaN in its place.
+ */
+final class ReplicationFormat {
+
+    static final int MAGIC = 0x4350524C; // "CPRL"
+    static final byte VERSION = 3;
+
+    static final byte SNAPSHOT = 1;
+    static final byte ADD_SENSOR = 2;
+    static final byte UPDATE_SENSOR = 3;
+    static final byte REMOVE_SENSOR = 4;
+    static final byte ALARM = 5;
+    static final byte ARMING = 6;
+    static final byte CAT = 7;
+    static final byte HEARTBEAT = 8;
+    static final byte RESYNC = 9;
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+
+    private ReplicationFormat() {}
+
+    static void writeSensor(DataOutput out, Sensor sensor) throws IOException {
+        out.writeLong(sensor.getSensorId().getMostSignificantBits());
+        out.writeLong(sensor.getSensorId().getLeastSignificantBits());
+        out.writeByte(sensor.getSensorType().ordinal());
+        out.writeBoolean(Boolean.TRUE.equals(sensor.getActive()));
+        out.writeInt(sensor.getZone());
+        out.writeFloat(sensor.isAnalog() ? sensor.getThreshold() : Float.NaN);
+        out.writeUTF(sensor.getName());
+    }
+
+    static Sensor readSensor(DataInput in) throws IOException {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        SensorType type = SENSOR_TYPES[in.readByte()];
+        boolean active = in.readBoolean();
+        int zone = in.readInt();
+        float threshold = in.readFloat();
+        //the no-argument constructor, because the other one draws a random UUID only to discard it
+        Sensor sensor = new Sensor();
+        sensor.setSensorId(id);
+        sensor.setSensorType(type);
+        sensor.setActive(active);
+        sensor.setZone(zone);
+        sensor.setThreshold(Float.isNaN(threshold) ? null : threshold);
+        sensor.setName(in.readUTF());
+        return sensor;
+    }
+}
@@ -0,0 +1,510 @@
+package com.udacity.catpoint.security.replication;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams every change to a SecurityRepository to standby processes over TCP, so one of them can
+ * take over with the same state if this process dies.
+ *
+ * Build the SecurityService on {@link #getRepository()}, which forwards to the real repository and
+ * appends each mutation, with the next sequence number, to an in-memory buffer for every connected
+ * standby. That is all the mutating thread does: one sender thread per standby ships whatever has
+ * accumulated since its last write as a single batch, so a burst of changes goes out in a few
+ * writes, and a second thread per standby reads the sequence numbers the standby acknowledges. Acks
+ * are pipelined: nothing ever waits for them unless it calls {@link #awaitReplicated}. A standby
+ * that connects late first receives a snapshot of the whole state taken under the same lock that
+ * orders the mutations, so snapshot and stream line up exactly. Idle connections carry a heartbeat
+ * every {@link #DEFAULT_HEARTBEAT_INTERVAL} so standbys notice a lost primary quickly.
+ *
+ * A standby that stops reading cannot make the primary hold every change for it: once its buffer
+ * would pass {@link #DEFAULT_MAX_PENDING_BYTES}, the backlog is thrown away and replaced with a
+ * RESYNC record, the last thing sent on that connection. The standby reconnects on RESYNC and starts
+ * over from a fresh snapshot instead of treating the primary as lost.
+ *
+ * See ReplicationFormat for the wire format.
+ */
+public class ReplicationPrimary implements Closeable {
+
+    public static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofMillis(100);
+    public static final int DEFAULT_MAX_PENDING_BYTES = 16 * 1024 * 1024;
+
+    private final InetSocketAddress bindAddress;
+    private final SecurityRepository delegate;
+    private final long heartbeatMillis;
+    private final int maxPendingBytes;
+    private final ReplicatingRepository repository = new ReplicatingRepository();
+
+    //guards the delegate's mutations, the sequence and every standby's pending buffer
+    private final Object lock = new Object();
+    private final List<Standby> standbys = new ArrayList<>();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private long sequence;
+    private int overflows;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private volatile boolean running;
+
+    public ReplicationPrimary(InetSocketAddress bindAddress, SecurityRepository delegate) {
+        this(bindAddress, delegate, DEFAULT_HEARTBEAT_INTERVAL);
+    }
+
+    public ReplicationPrimary(InetSocketAddress bindAddress, SecurityRepository delegate, Duration heartbeatInterval) {
+        this(bindAddress, delegate, heartbeatInterval, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    /**
+     * @param maxPendingBytes how much may wait to be sent to one standby before it is made to resync;
+     *                        it should comfortably hold a snapshot
+     */
+    public ReplicationPrimary(InetSocketAddress bindAddress, SecurityRepository delegate, Duration heartbeatInterval,
+                              int maxPendingBytes) {
+        if (maxPendingBytes <= 0) {
+            throw new IllegalArgumentException("maxPendingBytes must be positive: " + maxPendingBytes);
+        }
+        this.bindAddress = bindAddress;
+        this.delegate = delegate;
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    /**
+     * Binds the listening socket and starts accepting standbys.
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(bindAddress);
+        running = true;
+        acceptThread = new Thread(this::acceptLoop, "replication-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * The repository to build the SecurityService on. Every mutation made through it is replicated.
+     */
+    public SecurityRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * The port actually bound, which is useful when binding to port 0.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Sequence number of the latest mutation.
+     */
+    public long getSequence() {
+        synchronized (lock) {
+            return sequence;
+        }
+    }
+
+    public int getStandbyCount() {
+        synchronized (lock) {
+            return standbys.size();
+        }
+    }
+
+    /**
+     * How many times a standby fell so far behind that it was told to resync.
+     */
+    public int getOverflowCount() {
+        synchronized (lock) {
+            return overflows;
+        }
+    }
+
+    /**
+     * The lowest sequence number every connected standby has acknowledged, or -1 if none is connected.
+     * Standbys already told to resync no longer count.
+     */
+    public long getReplicatedSequence() {
+        synchronized (lock) {
+            long replicated = Long.MAX_VALUE;
+            for (Standby standby : standbys) {
+                if (!standby.overflowed) {
+                    replicated = Math.min(replicated, standby.acknowledged);
+                }
+            }
+            return replicated == Long.MAX_VALUE ? -1 : replicated;
+        }
+    }
+
+    /**
+     * Waits until at least one standby is connected and every connected standby has applied the
+     * given sequence number. Returns false on timeout.
+     */
+    public boolean awaitReplicated(long sequence, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (getReplicatedSequence() < sequence) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                if (running) {
+                    throw new UncheckedIOException("Replication listener failed", e);
+                }
+                return;
+            }
+            Standby standby = new Standby(socket);
+            synchronized (lock) {
+                try {
+                    DataOutputStream out = new DataOutputStream(standby.pending);
+                    out.writeInt(ReplicationFormat.MAGIC);
+                    out.writeByte(ReplicationFormat.VERSION);
+                    writeSnapshot(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); //writing to memory
+                }
+                standbys.add(standby);
+            }
+            standby.start();
+        }
+    }
+
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        Set<Sensor> sensors = delegate.getSensors();
+        out.writeByte(ReplicationFormat.SNAPSHOT);
+        out.writeLong(sequence);
+        out.writeByte(delegate.getAlarmStatus().ordinal());
+        out.writeByte(delegate.getArmingStatus().ordinal());
+        out.writeBoolean(delegate.getCatDetected());
+        out.writeInt(sensors.size());
+        for (Sensor sensor : sensors) {
+            ReplicationFormat.writeSensor(out, sensor);
+        }
+    }
+
+    /**
+     * Starts a record for the next mutation in the shared scratch buffer. Callers hold the lock.
+     */
+    private DataOutputStream beginRecord(byte op) throws IOException {
+        record.reset();
+        recordOut.writeByte(op);
+        recordOut.writeLong(++sequence);
+        return recordOut;
+    }
+
+    /**
+     * Copies the finished record to every standby and wakes the senders. A standby whose buffer
+     * would outgrow the limit gets a RESYNC in place of its backlog. Callers hold the lock.
+     */
+    private void endRecord() throws IOException {
+        boolean wake = false;
+        for (Standby standby : standbys) {
+            if (standby.overflowed) {
+                continue;
+            }
+            if (standby.pending.size() + record.size() > maxPendingBytes) {
+                standby.overflow();
+                wake = true;
+                continue;
+            }
+            //a sender that still has data queued is busy writing and will come back for this record
+            wake |= standby.pending.size() == 0;
+            record.writeTo(standby.pending);
+        }
+        if (wake) {
+            lock.notifyAll();
+        }
+    }
+
+    private void remove(Standby standby) {
+        synchronized (lock) {
+            standbys.remove(standby);
+            lock.notifyAll();
+        }
+        try {
+            standby.socket.close();
+        } catch (IOException e) {
+            //already broken
+        }
+    }
+
+    /**
+     * Stops accepting standbys and closes every connection. Standbys see the primary as lost.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        List<Standby> connected;
+        synchronized (lock) {
+            connected = new ArrayList<>(standbys);
+        }
+        connected.forEach(this::remove);
+    }
+
+    /**
+     * One connected standby: the records waiting to be sent to it and the threads that send them
+     * and read its acknowledgements.
+     */
+    private final class Standby {
+        private final Socket socket;
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+        private ByteArrayOutputStream spare = new ByteArrayOutputStream(64 * 1024);
+        private volatile long acknowledged;
+        //both set under the lock: whether the header has left pending, and whether the standby has
+        //been told to resync, after which nothing more is queued for it
+        private boolean headerTaken;
+        private boolean overflowed;
+
+        private Standby(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void start() {
+            String peer = socket.getRemoteSocketAddress().toString();
+            Thread sender = new Thread(this::sendLoop, "replication-send " + peer);
+            Thread acks = new Thread(this::ackLoop, "replication-ack " + peer);
+            sender.setDaemon(true);
+            acks.setDaemon(true);
+            sender.start();
+            acks.start();
+        }
+
+        /**
+         * Drops the backlog for a RESYNC, so whatever the sender has in flight is all this standby
+         * still holds on to. Callers hold the lock.
+         */
+        private void overflow() throws IOException {
+            pending = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(pending);
+            if (!headerTaken) {
+                out.writeInt(ReplicationFormat.MAGIC);
+                out.writeByte(ReplicationFormat.VERSION);
+            }
+            out.writeByte(ReplicationFormat.RESYNC);
+            out.writeLong(sequence);
+            overflowed = true;
+            overflows++;
+        }
+
+        private void sendLoop() {
+            try {
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    ByteArrayOutputStream batch;
+                    boolean last;
+                    synchronized (lock) {
+                        long deadline = System.currentTimeMillis() + heartbeatMillis;
+                        while (pending.size() == 0 && standbys.contains(this)) {
+                            long wait = deadline - System.currentTimeMillis();
+                            if (wait <= 0) {
+                                DataOutputStream heartbeat = new DataOutputStream(pending);
+                                heartbeat.writeByte(ReplicationFormat.HEARTBEAT);
+                                heartbeat.writeLong(sequence);
+                                break;
+                            }
+                            lock.wait(wait);
+                        }
+                        if (!standbys.contains(this)) {
+                            return;
+                        }
+                        //swap buffers so the mutating thread keeps appending while this batch is written
+                        batch = pending;
+                        pending = spare;
+                        spare = null;
+                        headerTaken = true;
+                        last = overflowed;
+                    }
+                    batch.writeTo(out);
+                    out.flush();
+                    if (last) {
+                        //the RESYNC is out; the standby hangs up once it reads it, and reconnects for a
+                        //snapshot. Closing here instead could reset the connection before it does.
+                        socket.shutdownOutput();
+                        return;
+                    }
+                    batch.reset();
+                    synchronized (lock) {
+                        spare = batch;
+                    }
+                }
+            } catch (IOException e) {
+                remove(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                remove(this);
+            }
+        }
+
+        private void ackLoop() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                while (true) {
+                    acknowledged = in.readLong();
+                }
+            } catch (IOException e) {
+                remove(this);
+            }
+        }
+    }
+
+    /**
+     * Forwards to the delegate and logs each mutation, both under the lock so the log order is the
+     * order the delegate saw. Updates carry the sensor's current state rather than what changed, so
+     * applying one twice does no harm.
+     */
+    private final class ReplicatingRepository implements SecurityRepository {
+
+        @Override
+        public void addSensor(Sensor sensor) {
+            synchronized (lock) {
+                delegate.addSensor(sensor);
+                try {
+                    ReplicationFormat.writeSensor(beginRecord(ReplicationFormat.ADD_SENSOR), sensor);
+                    endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void removeSensor(Sensor sensor) {
+            synchronized (lock) {
+                delegate.removeSensor(sensor);
+                try {
+                    DataOutputStream out = beginRecord(ReplicationFormat.REMOVE_SENSOR);
+                    out.writeLong(sensor.getSensorId().getMostSignificantBits());
+                    out.writeLong(sensor.getSensorId().getLeastSignificantBits());
+                    endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void updateSensor(Sensor sensor) {
+            synchronized (lock) {
+                delegate.updateSensor(sensor);
+                try {
+                    writeUpdate(sensor);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void updateSensors(Collection<Sensor> sensors) {
+            synchronized (lock) {
+                delegate.updateSensors(sensors);
+                try {
+                    for (Sensor sensor : sensors) {
+                        writeUpdate(sensor);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void setAlarmStatus(AlarmStatus alarmStatus) {
+            synchronized (lock) {
+                delegate.setAlarmStatus(alarmStatus);
+                try {
+                    beginRecord(ReplicationFormat.ALARM).writeByte(alarmStatus.ordinal());
+                    endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void setArmingStatus(ArmingStatus armingStatus) {
+            synchronized (lock) {
+                delegate.setArmingStatus(armingStatus);
+                try {
+                    beginRecord(ReplicationFormat.ARMING).writeByte(armingStatus.ordinal());
+                    endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void setCatDetected(boolean catDetected) {
+            synchronized (lock) {
+                delegate.setCatDetected(catDetected);
+                try {
+                    beginRecord(ReplicationFormat.CAT).writeBoolean(catDetected);
+                    endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private void writeUpdate(Sensor sensor) throws IOException {
+            DataOutputStream out = beginRecord(ReplicationFormat.UPDATE_SENSOR);
+            out.writeLong(sensor.getSensorId().getMostSignificantBits());
+            out.writeLong(sensor.getSensorId().getLeastSignificantBits());
+            out.writeBoolean(Boolean.TRUE.equals(sensor.getActive()));
+            out.writeInt(sensor.getZone());
+            endRecord();
+        }
+
+        @Override
+        public Set<Sensor> getSensors() {
+            return delegate.getSensors();
+        }
+
+        @Override
+        public AlarmStatus getAlarmStatus() {
+            return delegate.getAlarmStatus();
+        }
+
+        @Override
+        public ArmingStatus getArmingStatus() {
+            return delegate.getArmingStatus();
+        }
+
+        @Override
+        public boolean getCatDetected() {
+            return delegate.getCatDetected();
+        }
+    }
+}
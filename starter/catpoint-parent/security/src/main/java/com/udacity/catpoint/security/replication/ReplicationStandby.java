@@ -0,0 +1,273 @@
+package com.udacity.catpoint.security.replication;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a ReplicationPrimary and applies its stream to a replica repository, usually an
+ * InMemorySecurityRepositoryImpl, so this process can take over when the primary is lost.
+ *
+ * A single thread reads records, applies them in sequence order and, whenever it has caught up with
+ * what has arrived, acknowledges the last sequence number applied. The primary is considered lost
+ * when the connection closes, a record is out of sequence, or nothing, not even a heartbeat, arrives
+ * within the failover timeout. A RESYNC from a primary that gave up on buffering for this standby is
+ * not a loss: the thread reconnects and carries on from the fresh snapshot. Nothing else may use the
+ * replica until {@link #promote()} has stopped the thread and handed it over; the SecurityService of
+ * the new primary is then built on it.
+ */
+public class ReplicationStandby implements Closeable {
+
+    public static final Duration DEFAULT_FAILOVER_TIMEOUT = Duration.ofMillis(500);
+
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+
+    private final InetSocketAddress primaryAddress;
+    private final SecurityRepository replica;
+    private final int failoverTimeoutMillis;
+    private final Map<UUID, Sensor> sensors = new HashMap<>();
+    private final CountDownLatch primaryLost = new CountDownLatch(1);
+
+    private volatile Socket socket;
+    private volatile boolean closed;
+    private Thread applyThread;
+    private volatile int resyncs;
+    private volatile boolean synced;
+    private volatile long appliedSequence = -1;
+    private volatile long lastHeardNanos;
+    private volatile String lossReason;
+
+    public ReplicationStandby(InetSocketAddress primaryAddress, SecurityRepository replica) {
+        this(primaryAddress, replica, DEFAULT_FAILOVER_TIMEOUT);
+    }
+
+    public ReplicationStandby(InetSocketAddress primaryAddress, SecurityRepository replica, Duration failoverTimeout) {
+        this.primaryAddress = primaryAddress;
+        this.replica = replica;
+        this.failoverTimeoutMillis = (int) failoverTimeout.toMillis();
+    }
+
+    /**
+     * Connects to the primary and starts applying its stream.
+     */
+    public void start() throws IOException {
+        connect();
+        applyThread = new Thread(this::applyLoop, "replication-standby");
+        applyThread.setDaemon(true);
+        applyThread.start();
+    }
+
+    /**
+     * Sequence number of the last mutation applied to the replica, or -1 before the snapshot.
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * True once the primary's snapshot has been applied, so the replica holds a complete state.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * How many times the primary made this standby start over from a snapshot.
+     */
+    public int getResyncCount() {
+        return resyncs;
+    }
+
+    public boolean isPrimaryLost() {
+        return primaryLost.getCount() == 0;
+    }
+
+    /**
+     * Why the primary was considered lost, or null while it is not.
+     */
+    public String getLossReason() {
+        return lossReason;
+    }
+
+    /**
+     * Milliseconds since anything was last received from the primary.
+     */
+    public long getMillisSinceHeard() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastHeardNanos);
+    }
+
+    public void awaitPrimaryLost() throws InterruptedException {
+        primaryLost.await();
+    }
+
+    public boolean awaitPrimaryLost(Duration timeout) throws InterruptedException {
+        return primaryLost.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops following the primary and hands over the replica, which from then on belongs to the
+     * caller. Call it once the primary is lost, or to fail over on purpose.
+     * @throws IllegalStateException if the snapshot never arrived, so the replica is incomplete
+     */
+    public SecurityRepository promote() throws InterruptedException {
+        close();
+        if (applyThread != null) {
+            applyThread.join();
+        }
+        if (!synced) {
+            throw new IllegalStateException("Cannot promote a standby that never received the primary's snapshot");
+        }
+        return replica;
+    }
+
+    private void connect() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(primaryAddress, failoverTimeoutMillis);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(failoverTimeoutMillis);
+        this.socket = socket;
+        lastHeardNanos = System.nanoTime();
+        if (closed) {
+            socket.close();
+        }
+    }
+
+    private void applyLoop() {
+        try {
+            while (follow()) {
+                resyncs++;
+                connect();
+            }
+        } catch (EOFException e) {
+            lossReason = "connection closed by the primary";
+        } catch (SocketTimeoutException e) {
+            lossReason = "nothing received for " + failoverTimeoutMillis + " ms";
+        } catch (IOException e) {
+            lossReason = e.getMessage() == null ? e.toString() : e.getMessage();
+        } finally {
+            primaryLost.countDown();
+        }
+    }
+
+    /**
+     * Applies the stream of the current connection until the primary asks for a resync, which
+     * returns true, or the connection fails.
+     */
+    private boolean follow() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+             DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            if (in.readInt() != ReplicationFormat.MAGIC || in.readByte() != ReplicationFormat.VERSION) {
+                throw new IOException("Not a catpoint replication stream");
+            }
+            while (true) {
+                byte op = in.readByte();
+                long sequence = in.readLong();
+                lastHeardNanos = System.nanoTime();
+                if (op == ReplicationFormat.RESYNC) {
+                    return true;
+                }
+                if (op == ReplicationFormat.SNAPSHOT) {
+                    applySnapshot(in);
+                    synced = true;
+                } else if (op != ReplicationFormat.HEARTBEAT) {
+                    if (!synced || sequence != appliedSequence + 1) {
+                        throw new IOException("Expected sequence " + (appliedSequence + 1) + " but got " + sequence);
+                    }
+                    apply(op, in);
+                }
+                if (op != ReplicationFormat.HEARTBEAT) {
+                    appliedSequence = sequence;
+                }
+                if (in.available() == 0) {
+                    //caught up with everything received; acknowledge the whole batch at once
+                    out.writeLong(appliedSequence);
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    private void applySnapshot(DataInputStream in) throws IOException {
+        AlarmStatus alarmStatus = ALARM_STATUSES[in.readByte()];
+        ArmingStatus armingStatus = ARMING_STATUSES[in.readByte()];
+        boolean catDetected = in.readBoolean();
+        for (Sensor sensor : new ArrayList<>(replica.getSensors())) {
+            replica.removeSensor(sensor);
+        }
+        sensors.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Sensor sensor = ReplicationFormat.readSensor(in);
+            sensors.put(sensor.getSensorId(), sensor);
+            replica.addSensor(sensor);
+        }
+        replica.setAlarmStatus(alarmStatus);
+        replica.setArmingStatus(armingStatus);
+        replica.setCatDetected(catDetected);
+    }
+
+    private void apply(byte op, DataInputStream in) throws IOException {
+        switch (op) {
+            case ReplicationFormat.ADD_SENSOR -> {
+                Sensor sensor = ReplicationFormat.readSensor(in);
+                sensors.put(sensor.getSensorId(), sensor);
+                replica.addSensor(sensor);
+            }
+            case ReplicationFormat.UPDATE_SENSOR -> {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                Sensor sensor = sensors.get(id);
+                if (sensor == null) {
+                    throw new IOException("Update for unknown sensor " + id);
+                }
+                sensor.setActive(in.readBoolean());
+                sensor.setZone(in.readInt());
+                replica.updateSensor(sensor);
+            }
+            case ReplicationFormat.REMOVE_SENSOR -> {
+                Sensor sensor = sensors.remove(new UUID(in.readLong(), in.readLong()));
+                if (sensor != null) {
+                    replica.removeSensor(sensor);
+                }
+            }
+            case ReplicationFormat.ALARM -> replica.setAlarmStatus(ALARM_STATUSES[in.readByte()]);
+            case ReplicationFormat.ARMING -> replica.setArmingStatus(ARMING_STATUSES[in.readByte()]);
+            case ReplicationFormat.CAT -> replica.setCatDetected(in.readBoolean());
+            default -> throw new IOException("Unknown replication record " + op);
+        }
+    }
+
+    /**
+     * Disconnects from the primary without handing over the replica.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Socket socket = this.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //closing anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.udacity.catpoint.security.scheduler;
+
+import java.time.Duration;
+
+/**
+ * The kinds of work a LaneScheduler keeps apart, most urgent first, with the configuration each
+ * lane gets unless the scheduler is given another.
+ */
+public enum Lane {
+    /**
+     * Arming changes, image verdicts and the clock that runs entry and exit delays. Lossless: a
+     * disarm or a cat must never be dropped.
+     */
+    ALARM(new LaneConfig(1024, LaneConfig.STRICT, Duration.ofMillis(5), 0, true)),
+    /**
+     * Sensor activations and deactivations. Lossless, for the same reason.
+     */
+    SENSOR(new LaneConfig(64 * 1024, LaneConfig.STRICT, Duration.ofMillis(20), 0, true)),
+    /**
+     * Looking for cats in camera frames. Slow, and stale frames are worthless, so the queue is short
+     * and the work runs on a thread of its own.
+     */
+    IMAGE(new LaneConfig(4, 1, Duration.ZERO, 1)),
+    /**
+     * Writes that can wait a little, such as exporting history, but must not be lost.
+     */
+    PERSISTENCE(new LaneConfig(4096, 2, Duration.ZERO, 0, true)),
+    /**
+     * Status notifications for user interfaces.
+     */
+    UI(new LaneConfig(1024, 1, Duration.ZERO, 0));
+
+    private final LaneConfig defaults;
+
+    Lane(LaneConfig defaults) {
+        this.defaults = defaults;
+    }
+
+    public LaneConfig getDefaults() {
+        return defaults;
+    }
+}
@@ -0,0 +1,69 @@
+package com.udacity.catpoint.security.scheduler;
+
+import java.time.Duration;
+
+/**
+ * How a LaneScheduler serves one lane.
+ */
+public final class LaneConfig {
+
+    /**
+     * Weight of a lane served before any weighted lane whenever it has work.
+     */
+    public static final int STRICT = 0;
+
+    private final int capacity;
+    private final int weight;
+    private final Duration latencyBudget;
+    private final int workers;
+    private final boolean lossless;
+
+    /**
+     * @param capacity      how many tasks may wait in the lane; further submissions are rejected,
+     *                      or wait for room if the lane is lossless
+     * @param weight        {@link #STRICT}, or this lane's share of the dispatch thread relative to
+     *                      the other weighted lanes
+     * @param latencyBudget how long a task may take from submission to completion before it counts
+     *                      as over budget; zero for lanes that are not monitored
+     * @param workers       zero to run on the dispatch thread with the SecurityService, or the
+     *                      number of threads of its own for work that must not hold up the others
+     */
+    public LaneConfig(int capacity, int weight, Duration latencyBudget, int workers) {
+        this(capacity, weight, latencyBudget, workers, false);
+    }
+
+    /**
+     * @param lossless      true if a submission to a full lane should wait for room rather than be
+     *                      rejected, for work that must never be lost
+     */
+    public LaneConfig(int capacity, int weight, Duration latencyBudget, int workers, boolean lossless) {
+        if (capacity <= 0 || weight < 0 || workers < 0) {
+            throw new IllegalArgumentException("Capacity must be positive, weight and workers not negative");
+        }
+        this.capacity = capacity;
+        this.weight = weight;
+        this.latencyBudget = latencyBudget;
+        this.workers = workers;
+        this.lossless = lossless;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public Duration getLatencyBudget() {
+        return latencyBudget;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public boolean isLossless() {
+        return lossless;
+    }
+}
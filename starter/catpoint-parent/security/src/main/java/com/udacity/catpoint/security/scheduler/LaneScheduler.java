@@ -0,0 +1,322 @@
+package com.udacity.catpoint.security.scheduler;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Runs work submitted from any thread in separate lanes, so a flood of one kind of work cannot delay
+ * another. Every lane has a bounded queue. When it is full, {@link #submit} refuses the task for a
+ * lane whose work may be lost, such as camera frames, and for a lossless lane makes the caller wait
+ * for room, so the backlog never grows without limit and an alarm-critical event is never dropped.
+ *
+ * Lanes without workers of their own share one dispatch thread, which is the only thread that
+ * touches the SecurityService. Whenever it picks the next task, strict lanes come first, in the
+ * order of {@link Lane}, and only when they are all empty do the weighted lanes take turns in
+ * proportion to their weights, interleaved smoothly rather than in bursts. A task that is running is
+ * never interrupted, so the dispatch thread should only be given short tasks; slow work such as
+ * image analysis belongs in a lane with its own workers, which passes its result back through a
+ * strict lane.
+ *
+ * Each lane keeps {@link LaneStats}. For lanes with a latency budget, a task that finishes later
+ * than the budget after it was submitted is counted, and reported to the budget listener if one is
+ * set, so a regression shows up as a number rather than as an alarm that sounded late.
+ */
+public class LaneScheduler implements Closeable {
+
+    private static final long IDLE_PARK_NANOS = Duration.ofMillis(100).toNanos();
+    private static final long BLOCKED_RECHECK_MILLIS = 10;
+
+    private final Map<Lane, LaneQueue> queues = new EnumMap<>(Lane.class);
+    private final List<LaneQueue> strict = new ArrayList<>();
+    private final List<LaneQueue> weighted = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private Thread dispatchThread;
+    private volatile boolean running;
+    private Runnable clockTask;
+    private long clockPeriodNanos;
+    private ObjLongConsumer<Lane> budgetListener;
+
+    public LaneScheduler() {
+        this(new EnumMap<>(Lane.class));
+    }
+
+    /**
+     * @param configs configuration for the lanes that should not use their defaults
+     */
+    public LaneScheduler(Map<Lane, LaneConfig> configs) {
+        for (Lane lane : Lane.values()) {
+            LaneQueue queue = new LaneQueue(lane, configs.getOrDefault(lane, lane.getDefaults()));
+            queues.put(lane, queue);
+            if (queue.config.getWorkers() > 0) {
+                continue;
+            }
+            if (queue.config.getWeight() == LaneConfig.STRICT) {
+                strict.add(queue);
+            } else {
+                weighted.add(queue);
+            }
+        }
+    }
+
+    /**
+     * Runs the task on the dispatch thread about once per period, between other tasks; this is how
+     * the SecurityService's clock is advanced. Set it before {@link #start()}.
+     */
+    public void setClockTask(Runnable clockTask, Duration period) {
+        this.clockTask = clockTask;
+        this.clockPeriodNanos = period.toNanos();
+    }
+
+    /**
+     * Called with the lane and latency in nanoseconds of every task that exceeded its lane's budget,
+     * on the thread that ran the task. Set it before {@link #start()}.
+     */
+    public void setBudgetListener(ObjLongConsumer<Lane> budgetListener) {
+        this.budgetListener = budgetListener;
+    }
+
+    /**
+     * Starts the dispatch thread and the workers of lanes that have their own.
+     */
+    public void start() {
+        running = true;
+        dispatchThread = new Thread(this::dispatchLoop, "lane-dispatch");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+        for (LaneQueue queue : queues.values()) {
+            for (int i = 0; i < queue.config.getWorkers(); i++) {
+                Thread worker = new Thread(() -> workerLoop(queue), "lane-" + queue.lane.name().toLowerCase() + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    /**
+     * Queues the task in the lane. If the lane is full, a lossless lane waits for room, unless this
+     * is the dispatch thread and the lane is served by it, which would wait for itself; the task
+     * then runs right away instead. Other lanes never block.
+     * @return false if the task will not run: the lane was full and may lose work, or the scheduler
+     *         was closed
+     */
+    public boolean submit(Lane lane, Runnable task) {
+        LaneQueue queue = queues.get(lane);
+        queue.stats.submitted.increment();
+        Task queued = new Task(task, System.nanoTime());
+        //tasks run while draining may still queue more, which the drain then runs
+        if ((isClosed() && !isDispatchThread()) || !queue.tasks.offer(queued) && !(queue.config.isLossless() && waitForRoom(queue, queued))) {
+            queue.stats.rejected.increment();
+            return false;
+        }
+        if (queue.config.getWorkers() == 0) {
+            LockSupport.unpark(dispatchThread);
+        }
+        return true;
+    }
+
+    /**
+     * @return true once the task is queued or has run, false if the scheduler was closed first
+     */
+    private boolean waitForRoom(LaneQueue queue, Task task) {
+        queue.stats.blocked.increment();
+        if (isDispatchThread() && queue.config.getWorkers() == 0) {
+            run(queue, task);
+            return true;
+        }
+        boolean interrupted = false;
+        try {
+            //recheck now and then, so a close while waiting is noticed
+            while (!isClosed()) {
+                try {
+                    if (queue.tasks.offer(task, BLOCKED_RECHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    //the event must not be lost; keep waiting and restore the flag afterwards
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean isClosed() {
+        return !running && dispatchThread != null;
+    }
+
+    public LaneStats getStats(Lane lane) {
+        return queues.get(lane).stats;
+    }
+
+    /**
+     * Tasks waiting in the lane.
+     */
+    public int getQueued(Lane lane) {
+        return queues.get(lane).tasks.size();
+    }
+
+    /**
+     * True when called from the dispatch thread, the only thread allowed to use the SecurityService
+     * while the scheduler runs.
+     */
+    public boolean isDispatchThread() {
+        return Thread.currentThread() == dispatchThread;
+    }
+
+    private void dispatchLoop() {
+        long nextClockNanos = System.nanoTime();
+        while (running) {
+            if (clockTask != null && System.nanoTime() - nextClockNanos >= 0) {
+                runClock();
+                nextClockNanos += clockPeriodNanos;
+                if (System.nanoTime() - nextClockNanos >= 0) {
+                    //fell behind; skip the missed ticks rather than running them back to back
+                    nextClockNanos = System.nanoTime() + clockPeriodNanos;
+                }
+            }
+            LaneQueue queue = next();
+            if (queue != null) {
+                run(queue, queue.tasks.poll());
+            } else {
+                long parkNanos = clockTask == null ? IDLE_PARK_NANOS : nextClockNanos - System.nanoTime();
+                LockSupport.parkNanos(this, Math.max(0, Math.min(parkNanos, IDLE_PARK_NANOS)));
+            }
+        }
+        //run what was accepted before close, most urgent first
+        LaneQueue queue;
+        while ((queue = next()) != null) {
+            run(queue, queue.tasks.poll());
+        }
+    }
+
+    /**
+     * Picks the lane whose task runs next: the first non-empty strict lane, otherwise a weighted lane
+     * by smooth weighted round robin over the non-empty ones. Each of those earns its weight in
+     * credit, the one with the most credit runs and pays back the total, so over time every lane
+     * runs in proportion to its weight and no lane runs twice in a row while another is owed a turn.
+     */
+    private LaneQueue next() {
+        for (LaneQueue queue : strict) {
+            if (!queue.tasks.isEmpty()) {
+                return queue;
+            }
+        }
+        LaneQueue best = null;
+        int total = 0;
+        for (LaneQueue queue : weighted) {
+            if (queue.tasks.isEmpty()) {
+                continue;
+            }
+            queue.credit += queue.config.getWeight();
+            total += queue.config.getWeight();
+            if (best == null || queue.credit > best.credit) {
+                best = queue;
+            }
+        }
+        if (best != null) {
+            best.credit -= total;
+        }
+        return best;
+    }
+
+    private void workerLoop(LaneQueue queue) {
+        try {
+            while (running) {
+                run(queue, queue.tasks.take());
+            }
+        } catch (InterruptedException e) {
+            //closing
+        }
+    }
+
+    private void run(LaneQueue queue, Task task) {
+        try {
+            task.runnable.run();
+        } catch (RuntimeException e) {
+            queue.stats.failed.increment();
+        }
+        long latencyNanos = System.nanoTime() - task.submittedNanos;
+        queue.stats.record(latencyNanos);
+        if (queue.budgetNanos > 0 && latencyNanos > queue.budgetNanos) {
+            queue.stats.overBudget.increment();
+            if (budgetListener != null) {
+                budgetListener.accept(queue.lane, latencyNanos);
+            }
+        }
+    }
+
+    private void runClock() {
+        try {
+            clockTask.run();
+        } catch (RuntimeException e) {
+            //the next tick tries again
+        }
+    }
+
+    /**
+     * Stops the scheduler. The dispatch thread first runs every task already queued in its lanes;
+     * tasks waiting for a lane's own workers are dropped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        if (dispatchThread != null) {
+            LockSupport.unpark(dispatchThread);
+        }
+        try {
+            if (dispatchThread != null) {
+                dispatchThread.join();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class LaneQueue {
+        private final Lane lane;
+        private final LaneConfig config;
+        private final long budgetNanos;
+        private final ArrayBlockingQueue<Task> tasks;
+        private final LaneStats stats;
+        //smooth weighted round robin credit, owned by the dispatch thread
+        private int credit;
+
+        private LaneQueue(Lane lane, LaneConfig config) {
+            this.lane = lane;
+            this.config = config;
+            this.budgetNanos = config.getLatencyBudget().toNanos();
+            this.tasks = new ArrayBlockingQueue<>(config.getCapacity());
+            this.stats = new LaneStats(lane);
+        }
+    }
+
+    private static final class Task {
+        private final Runnable runnable;
+        private final long submittedNanos;
+
+        private Task(Runnable runnable, long submittedNanos) {
+            this.runnable = runnable;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+}
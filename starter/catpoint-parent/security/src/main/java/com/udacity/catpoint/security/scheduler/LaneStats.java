@@ -0,0 +1,119 @@
+package com.udacity.catpoint.security.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram for one lane. Latency is measured from submission to the end of
+ * the task, so it includes the time spent waiting behind other work. The histogram has one bucket
+ * per power of two nanoseconds, which is cheap enough to update for every task and precise enough
+ * to tell a 1 ms tail from a 20 ms one.
+ */
+public final class LaneStats {
+
+    private static final int BUCKETS = 64;
+
+    private final Lane lane;
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    final LongAdder submitted = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder blocked = new LongAdder();
+    final LongAdder completed = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LongAdder overBudget = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    LaneStats(Lane lane) {
+        this.lane = lane;
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Tasks turned away because the lane's queue was full and the lane may lose work, or because the
+     * scheduler was closed.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Submissions to a lossless lane that had to wait for room, which is how such a lane pushes back
+     * on whoever floods it.
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * Tasks that ran, whether or not they threw.
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Tasks that threw; the exception is dropped after counting.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Tasks that finished later than the lane's latency budget allows.
+     */
+    public long getOverBudget() {
+        return overBudget.sum();
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    /**
+     * Upper bound of the histogram bucket holding the given percentile of task latencies, but no
+     * more than the maximum seen; zero when nothing has completed yet.
+     */
+    public long percentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += histogram.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? maxLatencyNanos.get() : Math.min((1L << (i + 1)) - 1, maxLatencyNanos.get());
+            }
+        }
+        return maxLatencyNanos.get();
+    }
+
+    /**
+     * Records the latency of one finished task.
+     */
+    void record(long latencyNanos) {
+        completed.increment();
+        histogram.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(1, latencyNanos)));
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d submitted, %d rejected, %d blocked, %d failed, %d over budget, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                lane, submitted.sum(), rejected.sum(), blocked.sum(), failed.sum(), overBudget.sum(), percentileNanos(50) / 1e6,
+                percentileNanos(99) / 1e6, maxLatencyNanos.get() / 1e6);
+    }
+}
@@ -0,0 +1,138 @@
+package com.udacity.catpoint.security.scheduler;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.StatusListener;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+
+/**
+ * Front for a SecurityService that is driven by a LaneScheduler. Callers on any thread hand their
+ * requests to the lane they belong to and return at once; the service itself is only ever touched
+ * by the scheduler's dispatch thread, which also advances its clock.
+ *
+ * Camera frames are analyzed on the image lane's own workers and only the verdict is passed to the
+ * alarm lane, so a camera sending frames faster than they can be analyzed fills the short image
+ * queue and has frames rejected, while sensor events still reach the service within their budget.
+ * The alarm and sensor lanes are lossless: when they are full the caller waits, and nothing is
+ * dropped. Only frames and UI notifications may be.
+ */
+public class SecurityServiceLanes {
+
+    private final SecurityService securityService;
+    private final LaneScheduler scheduler;
+
+    /**
+     * Makes the scheduler's clock task advance the service's clock. Call this before starting the
+     * scheduler, and do not use the service directly afterwards except from tasks run by it.
+     */
+    public SecurityServiceLanes(SecurityService securityService, LaneScheduler scheduler) {
+        this.securityService = securityService;
+        this.scheduler = scheduler;
+        scheduler.setClockTask(() -> securityService.advanceClock(System.currentTimeMillis()),
+                Duration.ofMillis(SecurityService.TIMER_TICK_MILLIS));
+    }
+
+    public LaneScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return false only if the scheduler was closed; a full sensor lane makes the caller wait
+     */
+    public boolean changeSensorActivationStatus(Sensor sensor, Boolean active) {
+        return scheduler.submit(Lane.SENSOR, () -> securityService.changeSensorActivationStatus(sensor, active));
+    }
+
+    /**
+     * @return false only if the scheduler was closed; a full sensor lane makes the caller wait
+     */
+    public boolean sensorReading(Sensor sensor, float value) {
+        return scheduler.submit(Lane.SENSOR, () -> securityService.sensorReading(sensor, value));
+    }
+
+    /**
+     * @return false only if the scheduler was closed; a full sensor lane makes the caller wait
+     */
+    public boolean sensorHeartbeat(Sensor sensor) {
+        return scheduler.submit(Lane.SENSOR, () -> securityService.sensorHeartbeat(sensor));
+    }
+
+    /**
+     * @return false only if the scheduler was closed; a full alarm lane makes the caller wait
+     */
+    public boolean setArmingStatus(ArmingStatus armingStatus) {
+        return scheduler.submit(Lane.ALARM, () -> securityService.setArmingStatus(armingStatus));
+    }
+
+    /**
+     * @return false only if the scheduler was closed; a full alarm lane makes the caller wait
+     */
+    public boolean setZoneArmingStatus(int zone, ArmingStatus armingStatus) {
+        return scheduler.submit(Lane.ALARM, () -> securityService.setZoneArmingStatus(zone, armingStatus));
+    }
+
+    /**
+     * Analyzes the frame on the image lane and applies the verdict on the alarm lane.
+     * @return false if the image lane was full and the frame was skipped
+     */
+    public boolean processImage(BufferedImage currentCameraImage) {
+        return processImage(SecurityService.DEFAULT_CAMERA, currentCameraImage);
+    }
+
+    /**
+     * Analyzes the frame from the named camera on the image lane and applies the verdict on the alarm lane.
+     * @return false if the image lane was full and the frame was skipped
+     */
+    public boolean processImage(String camera, BufferedImage currentCameraImage) {
+        return scheduler.submit(Lane.IMAGE, () -> {
+            boolean cat = securityService.analyzeImage(camera, currentCameraImage);
+            //the alarm lane is lossless, so this waits for room and only fails once closing
+            if (!scheduler.submit(Lane.ALARM, () -> securityService.applyImageVerdict(cat))) {
+                throw new IllegalStateException("Scheduler closed before the verdict for a frame could be applied");
+            }
+        });
+    }
+
+    /**
+     * Runs a write that may lag behind the system state on the persistence lane, where it cannot
+     * hold up alarm or sensor work.
+     * @return false only if the scheduler was closed; a full persistence lane makes the caller wait
+     */
+    public boolean persist(Runnable write) {
+        return scheduler.submit(Lane.PERSISTENCE, write);
+    }
+
+    /**
+     * Registers the listener so that its callbacks run as UI lane tasks instead of inside the
+     * service's own call, where a slow repaint would delay the next alarm decision. Callbacks keep
+     * their order but may be dropped if the listener falls too far behind.
+     */
+    public void addStatusListener(StatusListener listener) {
+        StatusListener onUiLane = new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+                scheduler.submit(Lane.UI, () -> listener.notify(status));
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+                scheduler.submit(Lane.UI, () -> listener.catDetected(catDetected));
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+                scheduler.submit(Lane.UI, listener::sensorStatusChanged);
+            }
+
+            @Override
+            public void sensorOffline(Sensor sensor, boolean offline) {
+                scheduler.submit(Lane.UI, () -> listener.sensorOffline(sensor, offline));
+            }
+        };
+        scheduler.submit(Lane.ALARM, () -> securityService.addStatusListener(onUiLane));
+    }
+}
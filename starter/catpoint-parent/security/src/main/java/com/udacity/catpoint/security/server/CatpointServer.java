@@ -0,0 +1,363 @@
+package com.udacity.catpoint.security.server;
+
+import com.udacity.catpoint.security.alert.AlertDestination;
+import com.udacity.catpoint.security.alert.AlertDispatcher;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.JdbcSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.PretendDatabaseSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.history.EventHistory;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.ingest.SecurityServiceEventHandler;
+import com.udacity.catpoint.security.ingest.SensorEventServer;
+import com.udacity.catpoint.security.ingest.SequenceFilter;
+import com.udacity.catpoint.security.replication.ReplicationPrimary;
+import com.udacity.catpoint.security.replication.ReplicationStandby;
+import com.udacity.catpoint.security.service.AlarmRules;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.SensorDebouncer;
+import com.udacity.catpoint.security.service.StatusListener;
+import com.udacity.catpoint.security.trace.TraceRecorder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches the security system without any user interface. Only the state machine, the repository
+ * and the image service are constructed, so neither Swing nor the AWT toolkit is ever loaded.
+ * Status changes are written to standard out.
+ *
+ * Pass --exit-after-startup to print startup time, heap usage and time to the first event and then
+ * exit, which is what scripts/compare-startup.sh uses to compare this launcher with the GUI, with
+ * and without an AppCDS archive. Pass --ingest-port n to
+ * accept sensor events from devices on that port, and add --debounce to put a SensorDebouncer
+ * with default windows between those devices and the security service. --dedup drops frames
+ * that devices resend, using their per-sensor sequence numbers. --heartbeat-timeout s
+ * reports sensors that have been silent for s seconds as offline. --history-capacity n keeps the
+ * last n events in memory, and --history-spill file appends older ones to that file.
+ * --record-trace file records every input and alarm change for replay with TraceReplayer.
+ * --alarm-rules file applies the AlarmRules in that file on top of the default rules.
+ * --alert-url name=url, repeatable, pushes alarm transitions to a monitoring center through an
+ * AlertDispatcher whose outboxes live in the --alert-outbox directory (alert-outbox by default).
+ * --jdbc-url url keeps state in that embedded database, for example jdbc:h2:file:./catpoint,
+ * instead of the user preferences.
+ * --replicate-port n streams every repository change to standbys connecting on that port, and
+ * --standby-of host:port runs this process as such a standby, holding the state in memory until
+ * the primary is lost and then taking over as the active server.
+ */
+public class CatpointServer implements Closeable {
+
+    /**
+     * How long the JVM's shutdown waits for {@link #close()} to release everything.
+     */
+    public static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final SecurityService securityService;
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+
+    public CatpointServer(SecurityService securityService) {
+        this.securityService = securityService;
+        this.securityService.addStatusListener(new ConsoleStatusListener());
+    }
+
+    public SecurityService getSecurityService() {
+        return securityService;
+    }
+
+    /**
+     * Registers something to close when the server is closed. Resources are closed in the reverse
+     * order of registration, so whatever feeds the service stops before what it writes to.
+     */
+    public <T extends AutoCloseable> T closeOnShutdown(T resource) {
+        synchronized (resources) {
+            resources.push(resource);
+        }
+        return resource;
+    }
+
+    /**
+     * Blocks until the JVM is asked to shut down. Unless another thread already drives the security
+     * service, the calling thread keeps its clock moving so entry and exit delays run out. The JVM
+     * then waits, up to {@link #SHUTDOWN_TIMEOUT}, for the caller to {@link #close()} the server.
+     */
+    public void awaitShutdown(boolean driveClock) throws InterruptedException {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            shutdown.countDown();
+            try {
+                closed.await(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        if (!driveClock) {
+            shutdown.await();
+            return;
+        }
+        while (!shutdown.await(SecurityService.TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS)) {
+            securityService.advanceClock(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Closes every registered resource, newest first, even if some fail, and then lets a pending
+     * JVM shutdown go ahead.
+     * @throws IOException the first failure, with any later ones suppressed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        while (true) {
+            AutoCloseable resource;
+            synchronized (resources) {
+                resource = resources.poll();
+            }
+            if (resource == null) {
+                break;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                IOException failure = e instanceof IOException ? (IOException) e : new IOException("Could not close " + resource, e);
+                if (error == null) {
+                    error = failure;
+                } else {
+                    error.addSuppressed(failure);
+                }
+            }
+        }
+        closed.countDown();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException, SQLException {
+        StartupReport.mark("main");
+        boolean exitAfterStartup = false;
+        int ingestPort = -1;
+        boolean debounce = false;
+        boolean dedup = false;
+        long heartbeatTimeoutSeconds = 0;
+        int historyCapacity = 0;
+        Path historySpillFile = null;
+        Path traceFile = null;
+        Path alarmRulesFile = null;
+        List<AlertDestination> alertDestinations = new ArrayList<>();
+        Path alertOutboxDir = Path.of("alert-outbox");
+        int replicatePort = -1;
+        InetSocketAddress standbyOf = null;
+        String jdbcUrl = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--exit-after-startup" -> exitAfterStartup = true;
+                case "--ingest-port" -> ingestPort = Integer.parseInt(args[++i]);
+                case "--debounce" -> debounce = true;
+                case "--dedup" -> dedup = true;
+                case "--heartbeat-timeout" -> heartbeatTimeoutSeconds = Long.parseLong(args[++i]);
+                case "--history-capacity" -> historyCapacity = Integer.parseInt(args[++i]);
+                case "--history-spill" -> historySpillFile = Path.of(args[++i]);
+                case "--record-trace" -> traceFile = Path.of(args[++i]);
+                case "--alarm-rules" -> alarmRulesFile = Path.of(args[++i]);
+                case "--alert-url" -> alertDestinations.add(AlertDestination.parse(args[++i]));
+                case "--alert-outbox" -> alertOutboxDir = Path.of(args[++i]);
+                case "--replicate-port" -> replicatePort = Integer.parseInt(args[++i]);
+                case "--standby-of" -> standbyOf = parseAddress(args[++i]);
+                case "--jdbc-url" -> jdbcUrl = args[++i];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SecurityRepository securityRepository;
+        JdbcSecurityRepositoryImpl jdbcRepository = null;
+        if (standbyOf != null) {
+            securityRepository = followPrimary(standbyOf);
+        } else if (jdbcUrl != null) {
+            jdbcRepository = new JdbcSecurityRepositoryImpl(jdbcUrl);
+            securityRepository = jdbcRepository;
+        } else {
+            securityRepository = new PretendDatabaseSecurityRepositoryImpl();
+        }
+        ReplicationPrimary replicationPrimary = null;
+        if (replicatePort >= 0) {
+            replicationPrimary = new ReplicationPrimary(new InetSocketAddress(replicatePort), securityRepository);
+            replicationPrimary.start();
+            securityRepository = replicationPrimary.getRepository();
+            System.out.println("replicating to standbys on port " + replicationPrimary.getPort());
+        }
+        FakeImageService imageService = new FakeImageService();
+        try (CatpointServer server = new CatpointServer(new SecurityService(securityRepository, imageService))) {
+            //the repository goes last, after everything that might still write to it
+            if (jdbcRepository != null) {
+                server.closeOnShutdown(jdbcRepository);
+            }
+            if (replicationPrimary != null) {
+                server.closeOnShutdown(replicationPrimary);
+            }
+            StartupReport.mark("services");
+            if (alarmRulesFile != null) {
+                server.getSecurityService().setAlarmRules(AlarmRules.load(alarmRulesFile));
+            }
+            server.getSecurityService().setHeartbeatTimeout(Duration.ofSeconds(heartbeatTimeoutSeconds));
+            if (historyCapacity > 0) {
+                server.getSecurityService().setEventHistory(server.closeOnShutdown(
+                        new EventHistory(historyCapacity, historySpillFile, System::currentTimeMillis)));
+            }
+            //the first event the service handles is the first tick of its clock, as in the gui
+            server.getSecurityService().advanceClock(System.currentTimeMillis());
+            StartupReport.mark("first event");
+
+            System.out.println(StartupReport.describe("headless", server.getSecurityService()));
+            if (exitAfterStartup) {
+                return;
+            }
+            if (traceFile != null) {
+                TraceRecorder traceRecorder = new TraceRecorder(traceFile);
+                server.getSecurityService().setTraceRecorder(traceRecorder);
+                //ends the trace at the service's clock, once ingest, registered later, has stopped
+                server.closeOnShutdown(() -> traceRecorder.close(server.getSecurityService().getClockMillis()));
+            }
+            AlertDispatcher alertDispatcher = null;
+            if (!alertDestinations.isEmpty()) {
+                alertDispatcher = server.closeOnShutdown(new AlertDispatcher(alertOutboxDir, alertDestinations));
+                alertDispatcher.start();
+                server.getSecurityService().addStatusListener(alertDispatcher);
+            }
+            if (ingestPort >= 0) {
+                //the ingest thread becomes the only thread that drives the security service
+                SecurityService securityService = server.getSecurityService();
+                SensorEventServer ingest = new SensorEventServer(new InetSocketAddress(ingestPort),
+                        new SecurityServiceEventHandler(securityService,
+                                debounce ? new SensorDebouncer(securityService) : null,
+                                dedup ? new SequenceFilter() : null));
+                ingest.start();
+                //registered last so it is closed first, and nothing drives the service while the rest closes
+                server.closeOnShutdown(ingest);
+                System.out.println("accepting sensor events on port " + ingest.getPort());
+            }
+            server.awaitShutdown(ingestPort < 0);
+        }
+    }
+
+    /**
+     * Runs as a standby of the primary at the given address until that primary is lost, then
+     * returns the replicated state for this process to carry on from.
+     */
+    private static SecurityRepository followPrimary(InetSocketAddress primary) throws IOException, InterruptedException {
+        ReplicationStandby standby = new ReplicationStandby(primary, new InMemorySecurityRepositoryImpl());
+        standby.start();
+        System.out.println("standing by for " + primary);
+        standby.awaitPrimaryLost();
+        long sinceHeard = standby.getMillisSinceHeard();
+        SecurityRepository replica = standby.promote();
+        System.out.printf("primary lost (%s), promoted at sequence %d, %d ms after last hearing from it%n",
+                standby.getLossReason(), standby.getAppliedSequence(), sinceHeard);
+        return replica;
+    }
+
+    private static InetSocketAddress parseAddress(String hostPort) {
+        int colon = hostPort.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + hostPort);
+        }
+        return new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1)));
+    }
+
+    /**
+     * Writes every status change to standard out.
+     */
+    private static class ConsoleStatusListener implements StatusListener {
+        @Override
+        public void notify(AlarmStatus status) {
+            System.out.println("alarm status: " + status);
+        }
+
+        @Override
+        public void catDetected(boolean catDetected) {
+            System.out.println("cat detected: " + catDetected);
+        }
+
+        @Override
+        public void sensorStatusChanged() {
+            System.out.println("sensor status changed");
+        }
+
+        @Override
+        public void sensorOffline(Sensor sensor, boolean offline) {
+            System.out.println("sensor " + sensor.getName() + (offline ? " offline" : " online"));
+        }
+    }
+
+    /**
+     * Formats the time since the JVM process started, the current heap usage and, on Linux,
+     * the resident set size of the process, followed by the startup milestones marked so far.
+     * Launchers mark "main" on entry, "services" once the SecurityService exists, "first paint"
+     * when a user interface has first been drawn, and "first event" once the service has handled
+     * its first event, the first tick of its clock.
+     */
+    public static final class StartupReport {
+        private static final Map<String, Long> MARKS = new LinkedHashMap<>();
+
+        private StartupReport() {}
+
+        /**
+         * Records how long after the process started the milestone was reached. Only the first mark
+         * of each milestone counts. May be called from any thread.
+         */
+        public static void mark(String milestone) {
+            long millis = millisSinceStart();
+            synchronized (MARKS) {
+                MARKS.putIfAbsent(milestone, millis);
+            }
+        }
+
+        public static String describe(String launcher, SecurityService securityService) {
+            Runtime rt = Runtime.getRuntime();
+            long usedHeapKb = (rt.totalMemory() - rt.freeMemory()) / 1024;
+            StringBuilder report = new StringBuilder(String.format(
+                    "%s ready: startup %d ms, heap used %d KB, rss %d KB, %d sensors, alarm %s",
+                    launcher, millisSinceStart(), usedHeapKb, residentSetKb(), securityService.getSensors().size(),
+                    securityService.getAlarmStatus()));
+            synchronized (MARKS) {
+                MARKS.forEach((milestone, millis) -> report.append(", ").append(milestone).append(' ')
+                        .append(millis).append(" ms"));
+            }
+            return report.toString();
+        }
+
+        private static long millisSinceStart() {
+            return ProcessHandle.current().info().startInstant()
+                    .map(start -> Duration.between(start, Instant.now()).toMillis())
+                    .orElse(-1L);
+        }
+
+        private static long residentSetKb() {
+            try {
+                return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                        .filter(line -> line.startsWith("VmRSS:"))
+                        .mapToLong(line -> Long.parseLong(line.replaceAll("[^0-9]", "")))
+                        .findFirst()
+                        .orElse(-1L);
+            } catch (IOException | RuntimeException e) {
+                return -1L;
+            }
+        }
+    }
+}
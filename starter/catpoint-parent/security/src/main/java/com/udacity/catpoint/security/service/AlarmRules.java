@@ -0,0 +1,195 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides what a sensor change does to the alarm, depending on how the system is armed and what
+ * kind of sensor changed. Rules are written one per line, for example:
+ * <pre>
+ *   MOTION sensors ignored while ARMED_HOME
+ *   DOOR escalates immediately while ARMED_AWAY
+ *   WINDOW deactivation ignored while ARMED
+ * </pre>
+ * The grammar is {@code <sensor type|any> [activation|deactivation] <action> while <arming status|armed|any>},
+ * case-insensitive, where "sensor" and "sensors" may be added for readability and # starts a
+ * comment. Without an explicit trigger a rule is about activation. Activation actions are
+ * "ignored", "escalates" (no alarm to pending, pending to alarm) and "escalates immediately"
+ * (straight to alarm); deactivation actions are "ignored" and "clears" (a pending alarm returns to
+ * no alarm once no sensor is active).
+ *
+ * Rules are applied on top of {@link #DEFAULT_RULES}, later rules overriding earlier ones, and
+ * compiled into a table indexed by arming status, sensor type and trigger ordinals, so looking up
+ * an action is a single array read. The defaults are exactly the behaviour the service has always
+ * had. Timing rules, such as the exit delay, stay in SecurityService.
+ */
+public final class AlarmRules {
+
+    /**
+     * The sensor changes a rule can apply to.
+     */
+    public enum Trigger {
+        ACTIVATED, DEACTIVATED
+    }
+
+    /**
+     * What a sensor change does to the alarm status.
+     */
+    public enum Action {
+        IGNORE, ESCALATE, ALARM, CLEAR_PENDING
+    }
+
+    public static final List<String> DEFAULT_RULES = List.of(
+            "any activation ignored while DISARMED",
+            "any activation escalates while ARMED",
+            "any deactivation clears while any");
+
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+    private static final Trigger[] TRIGGERS = Trigger.values();
+    private static final AlarmRules DEFAULTS = compile(List.of());
+
+    private final Action[] actions;
+    private final List<String> rules;
+
+    private AlarmRules(Action[] actions, List<String> rules) {
+        this.actions = actions;
+        this.rules = rules;
+    }
+
+    public static AlarmRules defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Compiles the given rules on top of the defaults.
+     * @throws IllegalArgumentException naming the line of the first rule that cannot be parsed
+     */
+    public static AlarmRules compile(List<String> rules) {
+        Action[] actions = new Action[ARMING_STATUSES.length * SENSOR_TYPES.length * TRIGGERS.length];
+        Arrays.fill(actions, Action.IGNORE);
+        for (String rule : DEFAULT_RULES) {
+            apply(actions, rule, 0);
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            apply(actions, rules.get(i), i + 1);
+        }
+        return new AlarmRules(actions, List.copyOf(rules));
+    }
+
+    /**
+     * Reads and compiles a rule file, one rule per line.
+     */
+    public static AlarmRules load(Path file) throws IOException {
+        return compile(Files.readAllLines(file));
+    }
+
+    /**
+     * The rule lines these rules were compiled from on top of the defaults, as given, so compiling
+     * them again yields the same rules. Empty for the defaults.
+     */
+    public List<String> getRules() {
+        return rules;
+    }
+
+    /**
+     * @param armingStatus null if it is not known, for instance before a repository has stored
+     *                     one; that is treated as ARMED_AWAY, since the service has always let
+     *                     sensors raise the alarm in any state but DISARMED
+     */
+    public Action action(ArmingStatus armingStatus, SensorType sensorType, Trigger trigger) {
+        int arming = (armingStatus == null ? ArmingStatus.ARMED_AWAY : armingStatus).ordinal();
+        return actions[index(arming, sensorType.ordinal(), trigger.ordinal())];
+    }
+
+    private static int index(int arming, int type, int trigger) {
+        return (arming * SENSOR_TYPES.length + type) * TRIGGERS.length + trigger;
+    }
+
+    private static void apply(Action[] actions, String line, int lineNumber) {
+        int comment = line.indexOf('#');
+        String text = (comment >= 0 ? line.substring(0, comment) : line).trim().toLowerCase(Locale.ROOT);
+        if (text.isEmpty()) {
+            return;
+        }
+        List<String> words = new ArrayList<>(Arrays.asList(text.split("\\s+")));
+        words.removeIf(w -> w.equals("sensor") || w.equals("sensors"));
+
+        int whileAt = words.indexOf("while");
+        if (whileAt < 2 || whileAt != words.size() - 2) {
+            throw invalid(line, lineNumber, "expected '<sensor type> [trigger] <action> while <arming status>'");
+        }
+        List<SensorType> types = parseSensorTypes(words.get(0), line, lineNumber);
+        List<ArmingStatus> armings = parseArmingStatuses(words.get(whileAt + 1), line, lineNumber);
+
+        List<String> actionWords = words.subList(1, whileAt);
+        Trigger trigger = Trigger.ACTIVATED;
+        if (actionWords.get(0).equals("activation") || actionWords.get(0).equals("deactivation")) {
+            trigger = actionWords.get(0).equals("activation") ? Trigger.ACTIVATED : Trigger.DEACTIVATED;
+            actionWords = actionWords.subList(1, actionWords.size());
+        }
+        Action action = parseAction(String.join(" ", actionWords), trigger, line, lineNumber);
+
+        for (ArmingStatus arming : armings) {
+            for (SensorType type : types) {
+                actions[index(arming.ordinal(), type.ordinal(), trigger.ordinal())] = action;
+            }
+        }
+    }
+
+    private static Action parseAction(String words, Trigger trigger, String line, int lineNumber) {
+        Action action = switch (words) {
+            case "ignored" -> Action.IGNORE;
+            case "escalates" -> Action.ESCALATE;
+            case "escalates immediately" -> Action.ALARM;
+            case "clears", "clears pending" -> Action.CLEAR_PENDING;
+            default -> throw invalid(line, lineNumber, "unknown action '" + words + "'");
+        };
+        boolean forActivation = action != Action.CLEAR_PENDING;
+        boolean forDeactivation = action == Action.IGNORE || action == Action.CLEAR_PENDING;
+        if (trigger == Trigger.ACTIVATED ? !forActivation : !forDeactivation) {
+            throw invalid(line, lineNumber, "'" + words + "' does not apply to " + trigger.name().toLowerCase(Locale.ROOT));
+        }
+        return action;
+    }
+
+    private static List<SensorType> parseSensorTypes(String word, String line, int lineNumber) {
+        if (word.equals("any")) {
+            return List.of(SENSOR_TYPES);
+        }
+        for (SensorType type : SENSOR_TYPES) {
+            if (type.name().toLowerCase(Locale.ROOT).equals(word)) {
+                return List.of(type);
+            }
+        }
+        throw invalid(line, lineNumber, "unknown sensor type '" + word + "'");
+    }
+
+    private static List<ArmingStatus> parseArmingStatuses(String word, String line, int lineNumber) {
+        if (word.equals("any")) {
+            return List.of(ARMING_STATUSES);
+        }
+        if (word.equals("armed")) {
+            return List.of(ArmingStatus.ARMED_HOME, ArmingStatus.ARMED_AWAY);
+        }
+        for (ArmingStatus status : ARMING_STATUSES) {
+            if (status.name().toLowerCase(Locale.ROOT).equals(word)) {
+                return List.of(status);
+            }
+        }
+        throw invalid(line, lineNumber, "unknown arming status '" + word + "'");
+    }
+
+    private static IllegalArgumentException invalid(String line, int lineNumber, String reason) {
+        String where = lineNumber == 0 ? "default rule" : "rule " + lineNumber;
+        return new IllegalArgumentException("Invalid " + where + " '" + line.trim() + "': " + reason);
+    }
+}
@@ -0,0 +1,80 @@
+package com.udacity.catpoint.security.service;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What part of a camera's frames is scanned for cats, and how sure the image service must be.
+ *
+ * A camera with regions of interest only has those regions sent to the image service, each as a
+ * view made with {@link BufferedImage#getSubimage}, which shares the frame's raster rather than
+ * copying it. Whatever the service would find elsewhere in the frame is never seen, so the pixels
+ * scanned and bytes uploaded shrink with the regions, and so do false alarms from the rest of the
+ * picture. A camera without regions has its whole frame scanned.
+ */
+public final class CameraSettings {
+
+    public static final float DEFAULT_CONFIDENCE_THRESHOLD = 50.0f;
+
+    /**
+     * The whole frame, at the confidence threshold the service has always used.
+     */
+    public static final CameraSettings DEFAULTS = new CameraSettings(List.of(), DEFAULT_CONFIDENCE_THRESHOLD);
+
+    private final List<Rectangle> regionsOfInterest;
+    private final float confidenceThreshold;
+
+    /**
+     * @param regionsOfInterest   areas of the frame to scan, in pixels; empty to scan the whole frame.
+     *                            Parts of a region outside a frame are ignored
+     * @param confidenceThreshold minimum confidence, in percent, for the image service to report a cat
+     */
+    public CameraSettings(List<Rectangle> regionsOfInterest, float confidenceThreshold) {
+        if (!(confidenceThreshold >= 0 && confidenceThreshold <= 100)) {
+            throw new IllegalArgumentException("Confidence threshold must be between 0 and 100, was " + confidenceThreshold);
+        }
+        List<Rectangle> regions = new ArrayList<>(regionsOfInterest.size());
+        for (Rectangle region : regionsOfInterest) {
+            if (region.width <= 0 || region.height <= 0) {
+                throw new IllegalArgumentException("Region of interest must have a positive size, was " + region);
+            }
+            regions.add(new Rectangle(region));
+        }
+        this.regionsOfInterest = regions;
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    /**
+     * A copy of the regions, since Rectangle is mutable.
+     */
+    public List<Rectangle> getRegionsOfInterest() {
+        List<Rectangle> copy = new ArrayList<>(regionsOfInterest.size());
+        regionsOfInterest.forEach(region -> copy.add(new Rectangle(region)));
+        return copy;
+    }
+
+    public float getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    /**
+     * The parts of the frame to scan: the frame itself if there are no regions of interest,
+     * otherwise a view of each region that overlaps it.
+     */
+    public List<BufferedImage> crop(BufferedImage frame) {
+        if (regionsOfInterest.isEmpty()) {
+            return List.of(frame);
+        }
+        Rectangle bounds = new Rectangle(frame.getWidth(), frame.getHeight());
+        List<BufferedImage> views = new ArrayList<>(regionsOfInterest.size());
+        for (Rectangle region : regionsOfInterest) {
+            Rectangle visible = region.intersection(bounds);
+            if (!visible.isEmpty()) {
+                views.add(frame.getSubimage(visible.x, visible.y, visible.width, visible.height));
+            }
+        }
+        return views;
+    }
+}
@@ -0,0 +1,161 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.util.Arrays;
+
+/**
+ * Versioned record of the changes made to a SecurityService, passed to every ChangeListener as a
+ * delta as they happen. Version 0 is the state the service was constructed with and every change
+ * adds one.
+ *
+ * The most recent changes are kept in a fixed-size ring, stored column-wise like the EventHistory:
+ * a byte kind, the sensor involved and an int value, so recording one is a few array writes. A
+ * subscriber that left off at a version still in the ring is sent the changes after it; any other
+ * gets a snapshot first. Either way it then receives every change live, and what it is sent costs
+ * as much as the change, not as much as the sensor set.
+ *
+ * Owned by the SecurityService and follows its threading rules.
+ */
+public final class ChangeFeed {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Version to subscribe from to start with a snapshot of the current state.
+     */
+    public static final long SNAPSHOT = -1;
+
+    private static final byte SENSOR_ADDED = 0;
+    private static final byte SENSOR_REMOVED = 1;
+    private static final byte SENSOR_ACTIVATION = 2;
+    private static final byte ALARM_STATUS = 3;
+    private static final byte ARMING_STATUS = 4;
+    private static final byte ZONE_ARMING_STATUS = 5;
+    private static final byte CAT_DETECTED = 6;
+
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+
+    private final int capacity;
+    private final byte[] kinds;
+    private final Sensor[] sensors;
+    private final int[] values;
+    //replaced rather than modified, so a listener may subscribe or unsubscribe from a callback
+    private ChangeListener[] listeners = new ChangeListener[0];
+    private long version;
+
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity How many of the latest changes are kept for subscribers to resume from
+     */
+    public ChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.kinds = new byte[capacity];
+        this.sensors = new Sensor[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * The version of the latest change, or 0 if nothing has changed yet.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * True if a subscriber that has seen every change up to the given version can be sent the rest.
+     */
+    public boolean canResumeFrom(long fromVersion) {
+        return fromVersion >= 0 && fromVersion <= version && version - fromVersion <= capacity;
+    }
+
+    /**
+     * Sends the changes after the given version to the listener, oldest first, and registers it
+     * for the ones that follow. Only call when {@link #canResumeFrom(long)} says so.
+     */
+    void resume(ChangeListener listener, long fromVersion) {
+        for (long v = fromVersion + 1; v <= version; v++) {
+            int i = (int) ((v - 1) % capacity);
+            deliver(listener, v, kinds[i], sensors[i], values[i]);
+        }
+        add(listener);
+    }
+
+    void add(ChangeListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    void remove(ChangeListener listener) {
+        for (int l = 0; l < listeners.length; l++) {
+            if (listeners[l] == listener) {
+                ChangeListener[] remaining = new ChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, l);
+                System.arraycopy(listeners, l + 1, remaining, l, remaining.length - l);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    void sensorAdded(Sensor sensor) {
+        append(SENSOR_ADDED, sensor, 0);
+    }
+
+    void sensorRemoved(Sensor sensor) {
+        append(SENSOR_REMOVED, sensor, 0);
+    }
+
+    void sensorActivationChanged(Sensor sensor, boolean active) {
+        append(SENSOR_ACTIVATION, sensor, active ? 1 : 0);
+    }
+
+    void alarmStatusChanged(AlarmStatus alarmStatus) {
+        append(ALARM_STATUS, null, alarmStatus.ordinal());
+    }
+
+    void armingStatusChanged(ArmingStatus armingStatus) {
+        append(ARMING_STATUS, null, armingStatus.ordinal());
+    }
+
+    void zoneArmingStatusChanged(int zone, ArmingStatus armingStatus) {
+        append(ZONE_ARMING_STATUS, null, zone << 8 | armingStatus.ordinal());
+    }
+
+    void catDetected(boolean catDetected) {
+        append(CAT_DETECTED, null, catDetected ? 1 : 0);
+    }
+
+    private void append(byte kind, Sensor sensor, int value) {
+        int i = (int) (version % capacity);
+        kinds[i] = kind;
+        sensors[i] = sensor;
+        values[i] = value;
+        version++;
+        for (ChangeListener listener : listeners) {
+            deliver(listener, version, kind, sensor, value);
+        }
+    }
+
+    private static void deliver(ChangeListener listener, long version, byte kind, Sensor sensor, int value) {
+        switch (kind) {
+            case SENSOR_ADDED -> listener.sensorAdded(version, sensor);
+            case SENSOR_REMOVED -> listener.sensorRemoved(version, sensor);
+            case SENSOR_ACTIVATION -> listener.sensorActivationChanged(version, sensor, value != 0);
+            case ALARM_STATUS -> listener.alarmStatusChanged(version, ALARM_STATUSES[value]);
+            case ARMING_STATUS -> listener.armingStatusChanged(version, ARMING_STATUSES[value]);
+            case ZONE_ARMING_STATUS -> listener.zoneArmingStatusChanged(version, value >>> 8, ARMING_STATUSES[value & 0xFF]);
+            case CAT_DETECTED -> listener.catDetected(version, value != 0);
+            default -> throw new IllegalStateException("Unknown change kind " + kind);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+
+/**
+ * Subscriber to the change feed of a SecurityService. Every change carries the version it brought
+ * the system to, one more than the change before it, so a subscriber that remembers the last version
+ * it has seen can later resume from there. Callbacks run on the thread driving the service.
+ */
+public interface ChangeListener {
+
+    /**
+     * Called instead of a replay when the subscriber cannot resume where it asked to, because it
+     * asked for {@link ChangeFeed#SNAPSHOT} or because the changes after its version have been
+     * dropped. The service is at the given version and may be read for its sensors, alarm, arming
+     * and zone statuses during this call only; the changes that follow start right after it.
+     */
+    void snapshot(long version, SecurityService securityService);
+
+    default void sensorAdded(long version, Sensor sensor) {}
+
+    default void sensorRemoved(long version, Sensor sensor) {}
+
+    default void sensorActivationChanged(long version, Sensor sensor, boolean active) {}
+
+    default void alarmStatusChanged(long version, AlarmStatus alarmStatus) {}
+
+    /**
+     * Published once the system has been armed or disarmed, if that changed its status or put a
+     * zone with a status of its own back under the system's. Sensors reset by arming, and any
+     * alarm change it causes, are published before it.
+     */
+    default void armingStatusChanged(long version, ArmingStatus armingStatus) {}
+
+    /**
+     * Published once a zone has been armed or disarmed on its own, if that changed the status that
+     * applies to it. Sensors reset by arming the zone, and any alarm change it causes, are
+     * published before it.
+     */
+    default void zoneArmingStatusChanged(long version, int zone, ArmingStatus armingStatus) {}
+
+    default void catDetected(long version, boolean catDetected) {}
+}
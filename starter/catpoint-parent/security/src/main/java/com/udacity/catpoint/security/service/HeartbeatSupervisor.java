@@ -0,0 +1,140 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.timer.TimingWheel;
+
+import java.util.Arrays;
+
+/**
+ * Tracks sensor liveness by SensorRegistry slot and reports a sensor offline once it has not been
+ * heard from for the heartbeat timeout, and online again at its next heartbeat.
+ *
+ * Every watched sensor has exactly one timer on a shared TimingWheel, but a heartbeat does not
+ * touch it: it only stores the time in a long[]. When the timer fires, the sensor is reported
+ * offline if its last heartbeat is older than the timeout, and otherwise the timer is simply
+ * rescheduled for the remaining time. A heartbeat is therefore a single array write, and each
+ * online sensor costs one timer expiry per timeout period no matter how often it reports.
+ *
+ * Not thread-safe; it is owned by the SecurityService and follows its threading rules.
+ */
+public class HeartbeatSupervisor {
+
+    /**
+     * Called when a watched sensor goes offline or comes back online.
+     */
+    @FunctionalInterface
+    public interface ConnectivityHandler {
+        void connectivityChanged(int slot, boolean offline);
+    }
+
+    private final long timeoutMillis;
+    private final ConnectivityHandler handler;
+    private final TimingWheel timers;
+
+    private long[] lastHeartbeat = new long[0];
+    private long[] timerHandles = new long[0];
+    private boolean[] offline = new boolean[0];
+    private boolean[] watched = new boolean[0];
+    private int offlineCount;
+
+    public HeartbeatSupervisor(long timeoutMillis, long tickMillis, long startMillis, ConnectivityHandler handler) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeoutMillis must be positive");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.handler = handler;
+        this.timers = new TimingWheel(tickMillis, startMillis, this::timerExpired);
+    }
+
+    /**
+     * Starts supervising a slot. The sensor counts as just heard from.
+     */
+    public void watch(int slot) {
+        ensureCapacity(slot);
+        if (watched[slot]) {
+            return;
+        }
+        watched[slot] = true;
+        offline[slot] = false;
+        lastHeartbeat[slot] = timers.currentTimeMillis();
+        timerHandles[slot] = timers.schedule(timeoutMillis, slot);
+    }
+
+    /**
+     * Stops supervising a slot, typically because its sensor was removed.
+     */
+    public void unwatch(int slot) {
+        if (slot < 0 || slot >= watched.length || !watched[slot]) {
+            return;
+        }
+        timers.cancel(timerHandles[slot]);
+        timerHandles[slot] = TimingWheel.NO_TIMER;
+        if (offline[slot]) {
+            offline[slot] = false;
+            offlineCount--;
+        }
+        watched[slot] = false;
+    }
+
+    /**
+     * Records that the sensor in the slot is alive.
+     */
+    public void heartbeat(int slot) {
+        if (slot < 0 || slot >= watched.length || !watched[slot]) {
+            return;
+        }
+        long now = timers.currentTimeMillis();
+        lastHeartbeat[slot] = now;
+        if (offline[slot]) {
+            offline[slot] = false;
+            offlineCount--;
+            timerHandles[slot] = timers.schedule(timeoutMillis, slot);
+            handler.connectivityChanged(slot, false);
+        }
+    }
+
+    public boolean isOffline(int slot) {
+        return slot >= 0 && slot < offline.length && offline[slot];
+    }
+
+    public int getOfflineCount() {
+        return offlineCount;
+    }
+
+    public int getPendingTimers() {
+        return timers.size();
+    }
+
+    public void advanceClock(long nowMillis) {
+        timers.advanceTo(nowMillis);
+    }
+
+    public long getClockMillis() {
+        return timers.currentTimeMillis();
+    }
+
+    private void timerExpired(long timer, long slotPayload) {
+        int slot = (int) slotPayload;
+        long silentFor = timers.currentTimeMillis() - lastHeartbeat[slot];
+        if (silentFor < timeoutMillis) {
+            timerHandles[slot] = timers.schedule(timeoutMillis - silentFor, slot);
+            return;
+        }
+        timerHandles[slot] = TimingWheel.NO_TIMER;
+        offline[slot] = true;
+        offlineCount++;
+        handler.connectivityChanged(slot, true);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < watched.length) {
+            return;
+        }
+        int capacity = Math.max(Math.max(16, slot + 1), watched.length * 2);
+        lastHeartbeat = Arrays.copyOf(lastHeartbeat, capacity);
+        int oldLength = timerHandles.length;
+        timerHandles = Arrays.copyOf(timerHandles, capacity);
+        Arrays.fill(timerHandles, oldLength, capacity, TimingWheel.NO_TIMER);
+        offline = Arrays.copyOf(offline, capacity);
+        watched = Arrays.copyOf(watched, capacity);
+    }
+}
@@ -1,17 +1,24 @@
 package com.udacity.catpoint.security.service;
 
-import com.udacity.catpoint.security.application.StatusListener;
 import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.data.ArmingStatus;
 import com.udacity.catpoint.security.data.SecurityRepository;
 import com.udacity.catpoint.security.data.Sensor;
-import com.udacity.catpoint.image.service.FakeImageService;
+import com.udacity.catpoint.security.history.EventHistory;
+import com.udacity.catpoint.security.history.HistoryEventType;
+import com.udacity.catpoint.security.history.ReadingHistory;
+import com.udacity.catpoint.security.image.ImageService;
+import com.udacity.catpoint.security.timer.TimingWheel;
+import com.udacity.catpoint.security.trace.TraceRecorder;
 
 import java.awt.image.BufferedImage;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service that receives information about changes to the security system. Responsible for
@@ -19,15 +26,53 @@ import java.util.Set;
  *
  * This is the class that should contain most of the business logic for our system, and it is the
  * class you will be writing unit tests for.
+ *
+ * Entry and exit delays run on a TimingWheel that only moves when {@link #advanceClock(long)} is
+ * called, so whichever thread drives this service must also call advanceClock regularly. The same
+ * clock drives the optional HeartbeatSupervisor that reports silent sensors as offline.
+ *
+ * Sensors belong to zones. Every zone follows the system arming status until it is armed or
+ * disarmed on its own with {@link #setZoneArmingStatus(int, ArmingStatus)}; setArmingStatus puts
+ * every zone back under the system arming status.
+ *
+ * Besides the StatusListener notifications, every change to sensors, alarm, arming and camera
+ * state is published with a version number on a ChangeFeed; see {@link #subscribe(ChangeListener, long)}.
  */
 public class SecurityService {
-    private final FakeImageService fakeImageService;
+    public static final long TIMER_TICK_MILLIS = 100;
+    /**
+     * The camera whose frames are passed to the methods that do not name one.
+     */
+    public static final String DEFAULT_CAMERA = "default";
+    private static final long ENTRY_DELAY_TIMER = 0;
+    private static final long EXIT_DELAY_TIMER = 1;
+
+    private final ImageService imageService;
     private final Set<StatusListener> statusListeners = new HashSet<>();
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    //read by analyzeImage, which may run on any thread
+    private final Map<String, CameraSettings> cameraSettings = new ConcurrentHashMap<>();
     private final SecurityRepository securityRepository;
+    private final SensorRegistry sensorRegistry = new SensorRegistry();
+    private final SensorZones zones = new SensorZones();
+    private final TimingWheel timers = new TimingWheel(TIMER_TICK_MILLIS, System.currentTimeMillis(), this::timerExpired, 16);
+    private long entryDelayMillis;
+    private long exitDelayMillis;
+    private long entryDelayTimer = TimingWheel.NO_TIMER;
+    private long exitDelayTimer = TimingWheel.NO_TIMER;
+    private HeartbeatSupervisor heartbeatSupervisor;
+    private EventHistory eventHistory;
+    private ReadingHistory readingHistory;
+    private TraceRecorder traceRecorder;
+    private AlarmRules alarmRules = AlarmRules.defaults();
 
-    public SecurityService(SecurityRepository securityRepository, FakeImageService fakeImageService) {
+    public SecurityService(SecurityRepository securityRepository, ImageService imageService) {
         this.securityRepository = securityRepository;
-        this.fakeImageService = fakeImageService;
+        this.imageService = imageService;
+        for (Sensor sensor : securityRepository.getSensors()) {
+            SensorZones.checkZone(sensor.getZone());
+            zones.setActive(sensorRegistry.register(sensor), sensor.getZone(), Boolean.TRUE.equals(sensor.getActive()));
+        }
     }
     /**
      * Sets the current arming status for the system. Changing the arming status
@@ -35,21 +80,87 @@ public class SecurityService {
      * @param armingStatus
      */
     public void setArmingStatus(ArmingStatus armingStatus) {
+        record(HistoryEventType.ARMING_STATUS_CHANGED, EventHistory.NO_SENSOR, armingStatus.ordinal());
+        if (traceRecorder != null) {
+            traceRecorder.armingStatusChanged(getClockMillis(), armingStatus);
+        }
+        //repeating the current status still changes something if it takes zones back from their own status
+        boolean changed = armingStatus != securityRepository.getArmingStatus() || zones.hasOwnArmingStatus();
+        timers.cancel(exitDelayTimer);
+        exitDelayTimer = TimingWheel.NO_TIMER;
+        zones.followSystemArmingStatus();
         if (armingStatus == ArmingStatus.DISARMED) {
             setAlarmStatus(AlarmStatus.NO_ALARM);
         } else {
+            if (exitDelayMillis > 0) {
+                exitDelayTimer = timers.schedule(exitDelayMillis, EXIT_DELAY_TIMER);
+            }
             if (securityRepository.getArmingStatus() == ArmingStatus.DISARMED && securityRepository.getCatDetected()) {
                 setAlarmStatus(AlarmStatus.ALARM);
                 statusListeners.forEach(l -> l.notify(AlarmStatus.ALARM));
             }
             List<Sensor> sensors = new ArrayList<>(securityRepository.getSensors());
             for (Sensor sensor : sensors) {
+                if (Boolean.TRUE.equals(sensor.getActive())) {
+                    changeFeed.sensorActivationChanged(sensor, false);
+                }
                 sensor.setActive(false);
-                securityRepository.updateSensor(sensor);
             }
+            securityRepository.updateSensors(sensors);
+            zones.deactivateAll();
             statusListeners.forEach(StatusListener::sensorStatusChanged);
         }
         securityRepository.setArmingStatus(armingStatus);
+        if (changed) {
+            changeFeed.armingStatusChanged(armingStatus);
+        }
+    }
+
+    /**
+     * Arms or disarms a single zone, leaving the others as they are. Arming a zone resets only the
+     * sensors in that zone, and does not start the exit delay. Disarming the last armed zone clears
+     * the alarm; otherwise a pending alarm clears if no sensor outside the disarmed zones is active.
+     * @param zone A zone number between 0 and SensorZones.MAX_ZONES - 1
+     * @param armingStatus
+     */
+    public void setZoneArmingStatus(int zone, ArmingStatus armingStatus) {
+        SensorZones.checkZone(zone);
+        record(HistoryEventType.ZONE_ARMING_STATUS_CHANGED, zone, armingStatus.ordinal());
+        if (traceRecorder != null) {
+            traceRecorder.zoneArmingStatusChanged(getClockMillis(), zone, armingStatus);
+        }
+        boolean changed = getZoneArmingStatus(zone) != armingStatus;
+        zones.setArmingStatus(zone, armingStatus);
+        if (armingStatus == ArmingStatus.DISARMED) {
+            if (!zones.isAnyZoneArmed(securityRepository.getArmingStatus() != ArmingStatus.DISARMED)) {
+                setAlarmStatus(AlarmStatus.NO_ALARM);
+            } else if (securityRepository.getAlarmStatus() == AlarmStatus.PENDING_ALARM
+                    && !zones.isAnyActiveOutsideDisarmedZones()) {
+                setAlarmStatus(AlarmStatus.NO_ALARM);
+            }
+        } else {
+            List<Sensor> reset = new ArrayList<>();
+            zones.deactivateZone(zone, slot -> {
+                Sensor sensor = sensorRegistry.getSensor(slot);
+                sensor.setActive(false);
+                changeFeed.sensorActivationChanged(sensor, false);
+                reset.add(sensor);
+            });
+            securityRepository.updateSensors(reset);
+            statusListeners.forEach(StatusListener::sensorStatusChanged);
+        }
+        if (changed) {
+            changeFeed.zoneArmingStatusChanged(zone, armingStatus);
+        }
+    }
+
+    /**
+     * The arming status that applies to the sensors in a zone: the zone's own, if it was armed or
+     * disarmed on its own since the last setArmingStatus, otherwise the system arming status.
+     */
+    public ArmingStatus getZoneArmingStatus(int zone) {
+        SensorZones.checkZone(zone);
+        return zones.getArmingStatus(zone, securityRepository.getArmingStatus());
     }
 
     /**
@@ -58,15 +169,18 @@ public class SecurityService {
      * @param cat True if a cat is detected, otherwise false.
      */
     private void catDetected(Boolean cat) {
-        boolean sensorActive = securityRepository.getSensors().stream().filter(Sensor::getActive)
-                .findAny()
-                .isPresent();
+        boolean sensorActive = zones.isAnyActive();
         if (cat && getArmingStatus() == ArmingStatus.ARMED_HOME) {
             setAlarmStatus(AlarmStatus.ALARM);
         } else if (!sensorActive) {
             setAlarmStatus(AlarmStatus.NO_ALARM);
         }
+        boolean catWasDetected = securityRepository.getCatDetected();
         securityRepository.setCatDetected(cat);
+        record(HistoryEventType.CAT_DETECTION, EventHistory.NO_SENSOR, cat ? 1 : 0);
+        if (cat != catWasDetected) {
+            changeFeed.catDetected(cat);
+        }
         statusListeners.forEach(l -> l.catDetected(cat));
     }
 
@@ -83,33 +197,251 @@ public class SecurityService {
     }
 
     /**
-     * Change the alarm status of the system and notify all listeners.
+     * Subscribes the listener to the change feed. A listener that has seen every change up to
+     * {@code fromVersion}, for instance before it was unsubscribed, is first sent the changes since,
+     * if they are still kept; otherwise, and when subscribing from {@link ChangeFeed#SNAPSHOT}, it
+     * is first sent a snapshot. It then receives every change as it happens.
+     * @return the current version, which is what the listener is up to once this returns
+     */
+    public long subscribe(ChangeListener listener, long fromVersion) {
+        if (changeFeed.canResumeFrom(fromVersion)) {
+            changeFeed.resume(listener, fromVersion);
+        } else {
+            listener.snapshot(changeFeed.getVersion(), this);
+            changeFeed.add(listener);
+        }
+        return changeFeed.getVersion();
+    }
+
+    public void unsubscribe(ChangeListener listener) {
+        changeFeed.remove(listener);
+    }
+
+    /**
+     * The version of the latest change published on the change feed.
+     */
+    public long getVersion() {
+        return changeFeed.getVersion();
+    }
+
+    /**
+     * Change the alarm status of the system and notify all listeners. Entering PENDING_ALARM starts
+     * the entry delay, if one is configured, and leaving it cancels the delay.
      * @param status
      */
     public void setAlarmStatus(AlarmStatus status) {
+        AlarmStatus previous = securityRepository.getAlarmStatus();
         securityRepository.setAlarmStatus(status);
+        if (status != previous) {
+            changeFeed.alarmStatusChanged(status);
+        }
+        record(HistoryEventType.ALARM_STATUS_CHANGED, EventHistory.NO_SENSOR, status.ordinal());
+        if (traceRecorder != null) {
+            traceRecorder.alarmStatusChanged(getClockMillis(), status);
+        }
+        if (status != AlarmStatus.PENDING_ALARM) {
+            timers.cancel(entryDelayTimer);
+            entryDelayTimer = TimingWheel.NO_TIMER;
+        } else if (entryDelayMillis > 0 && entryDelayTimer == TimingWheel.NO_TIMER) {
+            entryDelayTimer = timers.schedule(entryDelayMillis, ENTRY_DELAY_TIMER);
+        }
         statusListeners.forEach(sl -> sl.notify(status));
     }
 
     /**
-     * Internal method for updating the alarm status when a sensor has been activated.
+     * Sets how long the system may stay in PENDING_ALARM before it escalates to ALARM on its own.
+     * Zero, the default, disables escalation, so only a second sensor activation raises the alarm.
+     */
+    public void setEntryDelay(Duration entryDelay) {
+        this.entryDelayMillis = entryDelay.toMillis();
+    }
+
+    /**
+     * Replaces the rules that decide what sensor changes do to the alarm, depending on the arming
+     * status and the sensor type. The default rules give the behaviour described on each handler.
+     * A trace being recorded records the new rules, so its replay switches at the same point.
+     */
+    public void setAlarmRules(AlarmRules alarmRules) {
+        this.alarmRules = alarmRules;
+        if (traceRecorder != null) {
+            traceRecorder.alarmRulesChanged(getClockMillis(), alarmRules.getRules());
+        }
+    }
+
+    public AlarmRules getAlarmRules() {
+        return alarmRules;
+    }
+
+    /**
+     * Sets how long after arming sensor activations are ignored, so people can leave the house.
+     * Zero, the default, disables the exit delay.
+     */
+    public void setExitDelay(Duration exitDelay) {
+        this.exitDelayMillis = exitDelay.toMillis();
+    }
+
+    /**
+     * Moves the service's timers forward to the given time, firing any entry or exit delay that has
+     * run out. Must be called from the thread that drives this service.
+     * @param nowMillis The current time in epoch milliseconds, or a virtual time in tests
+     */
+    public void advanceClock(long nowMillis) {
+        timers.advanceTo(nowMillis);
+        if (heartbeatSupervisor != null) {
+            heartbeatSupervisor.advanceClock(nowMillis);
+        }
+    }
+
+    /**
+     * Starts supervising sensor heartbeats: a sensor that is not heard from for the given timeout is
+     * reported offline to every StatusListener. Both heartbeats and activation changes count as
+     * being heard from. Zero, the default, turns supervision off.
+     */
+    public void setHeartbeatTimeout(Duration heartbeatTimeout) {
+        heartbeatSupervisor = null;
+        if (heartbeatTimeout.isZero()) {
+            return;
+        }
+        heartbeatSupervisor = new HeartbeatSupervisor(heartbeatTimeout.toMillis(), TIMER_TICK_MILLIS,
+                timers.currentTimeMillis(), this::sensorConnectivityChanged);
+        for (int slot = 0; slot < sensorRegistry.slotLimit(); slot++) {
+            if (sensorRegistry.getSensor(slot) != null) {
+                heartbeatSupervisor.watch(slot);
+            }
+        }
+    }
+
+    /**
+     * Starts recording alarm, arming, sensor and camera events into the given history, or stops
+     * recording if it is null. Events are stamped with the history's own clock.
+     */
+    public void setEventHistory(EventHistory eventHistory) {
+        this.eventHistory = eventHistory;
+    }
+
+    public EventHistory getEventHistory() {
+        return eventHistory;
+    }
+
+    /**
+     * Starts keeping the readings of analog sensors in the given history, or stops if it is null.
+     * Readings are stamped with the history's own clock.
+     */
+    public void setReadingHistory(ReadingHistory readingHistory) {
+        this.readingHistory = readingHistory;
+    }
+
+    public ReadingHistory getReadingHistory() {
+        return readingHistory;
+    }
+
+    /**
+     * Starts recording every input to this service, and every alarm status it produces, into the
+     * given trace, or stops recording if it is null. The trace header captures the current state,
+     * delays and alarm rules, and every registered sensor is written first, so the trace can be replayed from here.
+     * Closing the recorder is up to the caller.
+     */
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+        if (traceRecorder == null) {
+            return;
+        }
+        long now = getClockMillis();
+        traceRecorder.begin(now, entryDelayMillis, exitDelayMillis, securityRepository.getAlarmStatus(),
+                securityRepository.getArmingStatus(), securityRepository.getCatDetected(), alarmRules.getRules());
+        for (int slot = 0; slot < sensorRegistry.slotLimit(); slot++) {
+            Sensor sensor = sensorRegistry.getSensor(slot);
+            if (sensor != null) {
+                traceRecorder.sensorAdded(now, slot, sensor);
+            }
+        }
+    }
+
+    private void record(HistoryEventType type, int sensorSlot, int value) {
+        if (eventHistory != null) {
+            eventHistory.record(type, sensorSlot, value);
+        }
+    }
+
+    /**
+     * Records that a sensor is alive without changing its activation status.
+     * @param sensor
      */
-    private void handleSensorActivated() {
-        if(securityRepository.getArmingStatus() == ArmingStatus.DISARMED) {
-            return; //no problem if the system is disarmed
+    public void sensorHeartbeat(Sensor sensor) {
+        if (heartbeatSupervisor != null) {
+            heartbeatSupervisor.heartbeat(sensorRegistry.slotOf(sensor.getSensorId()));
         }
-        switch(securityRepository.getAlarmStatus()) {
-            case NO_ALARM -> setAlarmStatus(AlarmStatus.PENDING_ALARM);
-            case PENDING_ALARM -> setAlarmStatus(AlarmStatus.ALARM);
+    }
+
+    /**
+     * True if heartbeat supervision is on and the sensor has missed its heartbeats.
+     */
+    public boolean isSensorOffline(Sensor sensor) {
+        return heartbeatSupervisor != null && heartbeatSupervisor.isOffline(sensorRegistry.slotOf(sensor.getSensorId()));
+    }
+
+    private void sensorConnectivityChanged(int slot, boolean offline) {
+        Sensor sensor = sensorRegistry.getSensor(slot);
+        record(offline ? HistoryEventType.SENSOR_OFFLINE : HistoryEventType.SENSOR_ONLINE, slot, 0);
+        statusListeners.forEach(sl -> sl.sensorOffline(sensor, offline));
+    }
+
+    /**
+     * The time the service's timers have been advanced to.
+     */
+    public long getClockMillis() {
+        return timers.currentTimeMillis();
+    }
+
+    private void timerExpired(long timer, long kind) {
+        if (kind == ENTRY_DELAY_TIMER) {
+            entryDelayTimer = TimingWheel.NO_TIMER;
+            if (securityRepository.getAlarmStatus() == AlarmStatus.PENDING_ALARM) {
+                setAlarmStatus(AlarmStatus.ALARM);
+            }
+        } else if (kind == EXIT_DELAY_TIMER) {
+            exitDelayTimer = TimingWheel.NO_TIMER;
         }
     }
 
     /**
-     * Internal method for updating the alarm status when a sensor has been deactivated
+     * Internal method for updating the alarm status when a sensor has been activated. Under the
+     * default rules activations are ignored while disarmed and otherwise escalate the alarm one step.
      */
-    private void handleSensorDeactivated() {
+    private void handleSensorActivated(Sensor sensor) {
+        if (exitDelayTimer != TimingWheel.NO_TIMER) {
+            return; //still inside the exit delay after arming
+        }
+        ArmingStatus armingStatus = zones.getArmingStatus(sensor.getZone(), securityRepository.getArmingStatus());
+        switch (alarmRules.action(armingStatus, sensor.getSensorType(), AlarmRules.Trigger.ACTIVATED)) {
+            case ESCALATE -> {
+                switch(securityRepository.getAlarmStatus()) {
+                    case NO_ALARM -> setAlarmStatus(AlarmStatus.PENDING_ALARM);
+                    case PENDING_ALARM -> setAlarmStatus(AlarmStatus.ALARM);
+                }
+            }
+            case ALARM -> {
+                if (securityRepository.getAlarmStatus() != AlarmStatus.ALARM) {
+                    setAlarmStatus(AlarmStatus.ALARM);
+                }
+            }
+            default -> {} //ignored
+        }
+    }
+
+    /**
+     * Internal method for updating the alarm status when a sensor has been deactivated. Under the
+     * default rules a pending alarm clears once no sensor is active, not counting sensors in zones
+     * that were disarmed on their own.
+     */
+    private void handleSensorDeactivated(Sensor sensor) {
+        ArmingStatus armingStatus = zones.getArmingStatus(sensor.getZone(), securityRepository.getArmingStatus());
+        if (alarmRules.action(armingStatus, sensor.getSensorType(),
+                AlarmRules.Trigger.DEACTIVATED) != AlarmRules.Action.CLEAR_PENDING) {
+            return;
+        }
         if(securityRepository.getAlarmStatus() == AlarmStatus.PENDING_ALARM){
-            if (getSensors().stream().noneMatch(Sensor::getActive)) {
+            if (!zones.isAnyActiveOutsideDisarmedZones()) {
                 setAlarmStatus(AlarmStatus.NO_ALARM);
             }
         }
@@ -121,41 +453,187 @@ public class SecurityService {
      * @param active
      */
     public void changeSensorActivationStatus(Sensor sensor, Boolean active) {
+        int slot = slotOrRegister(sensor);
+        sensorHeartbeat(sensor);
+        if (traceRecorder != null) {
+            traceRecorder.sensorActivationChanged(getClockMillis(), slot, active);
+        }
         boolean sensorActive = sensor.getActive();
         sensor.setActive(active);
+        zones.setActive(slot, sensor.getZone(), active);
         if (sensorActive != active) {
+            record(active ? HistoryEventType.SENSOR_ACTIVATED : HistoryEventType.SENSOR_DEACTIVATED, slot, 0);
+            changeFeed.sensorActivationChanged(sensor, active);
             if (active) {
-                handleSensorActivated();
+                handleSensorActivated(sensor);
             } else {
-                handleSensorDeactivated();
+                handleSensorDeactivated(sensor);
             }
         }
         securityRepository.updateSensor(sensor);
     }
 
+    /**
+     * Takes a numeric reading from a sensor. The reading is kept in the reading history, if there is
+     * one, and counts as a heartbeat. For an analog sensor, a reading on the other side of its
+     * threshold then activates or deactivates it exactly as changeSensorActivationStatus would.
+     * @param sensor
+     * @param value
+     */
+    public void sensorReading(Sensor sensor, float value) {
+        sensor.setReading(value);
+        int slot = slotOrRegister(sensor);
+        if (readingHistory != null) {
+            readingHistory.record(slot, value);
+        }
+        boolean active = sensor.isActiveAt(value);
+        if (sensor.isAnalog() && active != Boolean.TRUE.equals(sensor.getActive())) {
+            changeSensorActivationStatus(sensor, active);
+        } else {
+            sensorHeartbeat(sensor);
+        }
+    }
+
     /**
      * Send an image to the SecurityService for processing. The securityService will use its provided
      * ImageService to analyze the image for cats and update the alarm status accordingly.
      * @param currentCameraImage
      */
     public void processImage(BufferedImage currentCameraImage) {
-        catDetected(fakeImageService.imageContainsCat(currentCameraImage, 50.0f));
+        processImage(DEFAULT_CAMERA, currentCameraImage);
+    }
+
+    /**
+     * Processes a frame from the named camera, scanning it as that camera's settings say.
+     * @param camera
+     * @param currentCameraImage
+     */
+    public void processImage(String camera, BufferedImage currentCameraImage) {
+        applyImageVerdict(analyzeImage(camera, currentCameraImage));
+    }
+
+    /**
+     * Sets the regions of interest and confidence threshold for the named camera, or goes back to
+     * the defaults if the settings are null. May be called from any thread.
+     */
+    public void setCameraSettings(String camera, CameraSettings settings) {
+        if (settings == null) {
+            cameraSettings.remove(camera);
+        } else {
+            cameraSettings.put(camera, settings);
+        }
+    }
+
+    public CameraSettings getCameraSettings(String camera) {
+        return cameraSettings.getOrDefault(camera, CameraSettings.DEFAULTS);
+    }
+
+    public boolean analyzeImage(BufferedImage currentCameraImage) {
+        return analyzeImage(DEFAULT_CAMERA, currentCameraImage);
+    }
+
+    /**
+     * Asks the image service whether the image shows a cat, without changing any state. Unlike the
+     * rest of this class it may be called from any thread, so slow analysis can run elsewhere and
+     * hand its verdict to {@link #applyImageVerdict(boolean)} on the thread driving this service.
+     * Only the camera's regions of interest are passed on, one at a time until a cat is found.
+     */
+    public boolean analyzeImage(String camera, BufferedImage currentCameraImage) {
+        CameraSettings settings = getCameraSettings(camera);
+        for (BufferedImage region : settings.crop(currentCameraImage)) {
+            if (imageService.imageContainsCat(region, settings.getConfidenceThreshold())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the system for an image analyzed with {@link #analyzeImage(BufferedImage)}, exactly
+     * as processImage would have.
+     */
+    public void applyImageVerdict(boolean cat) {
+        if (traceRecorder != null) {
+            traceRecorder.imageVerdict(getClockMillis(), cat);
+        }
+        catDetected(cat);
     }
 
     public AlarmStatus getAlarmStatus() {
         return securityRepository.getAlarmStatus();
     }
 
+    public boolean getCatDetected() {
+        return securityRepository.getCatDetected();
+    }
+
     public Set<Sensor> getSensors() {
         return securityRepository.getSensors();
     }
 
     public void addSensor(Sensor sensor) {
+        SensorZones.checkZone(sensor.getZone());
         securityRepository.addSensor(sensor);
+        int slot = sensorRegistry.register(sensor);
+        zones.setActive(slot, sensor.getZone(), Boolean.TRUE.equals(sensor.getActive()));
+        record(HistoryEventType.SENSOR_ADDED, slot, 0);
+        changeFeed.sensorAdded(sensor);
+        if (traceRecorder != null) {
+            traceRecorder.sensorAdded(getClockMillis(), slot, sensor);
+        }
+        if (heartbeatSupervisor != null) {
+            heartbeatSupervisor.watch(slot);
+        }
     }
 
     public void removeSensor(Sensor sensor) {
         securityRepository.removeSensor(sensor);
+        changeFeed.sensorRemoved(sensor);
+        int slot = sensorRegistry.unregister(sensor);
+        if (slot < 0) {
+            return; //never seen by this service, so it holds no per-slot state
+        }
+        zones.clear(slot);
+        record(HistoryEventType.SENSOR_REMOVED, slot, 0);
+        if (readingHistory != null) {
+            readingHistory.clear(slot);
+        }
+        if (traceRecorder != null) {
+            traceRecorder.sensorRemoved(getClockMillis(), slot);
+        }
+        if (heartbeatSupervisor != null) {
+            heartbeatSupervisor.unwatch(slot);
+        }
+    }
+
+    /**
+     * The slot of the sensor, registering it first if this service has not seen it yet, which is
+     * the case for sensors put in the repository by something other than this service after it was
+     * constructed. Until then their activation cannot count towards the alarm decisions, which only
+     * look at the zone bitmaps.
+     */
+    private int slotOrRegister(Sensor sensor) {
+        int slot = sensorRegistry.slotOf(sensor.getSensorId());
+        if (slot >= 0) {
+            return slot;
+        }
+        SensorZones.checkZone(sensor.getZone());
+        slot = sensorRegistry.register(sensor);
+        zones.setActive(slot, sensor.getZone(), Boolean.TRUE.equals(sensor.getActive()));
+        if (traceRecorder != null) {
+            traceRecorder.sensorAdded(getClockMillis(), slot, sensor);
+        }
+        if (heartbeatSupervisor != null) {
+            heartbeatSupervisor.watch(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the registry that maps sensor ids to the slots used by per-sensor primitive state.
+     */
+    public SensorRegistry getSensorRegistry() {
+        return sensorRegistry;
     }
 
     public ArmingStatus getArmingStatus() {
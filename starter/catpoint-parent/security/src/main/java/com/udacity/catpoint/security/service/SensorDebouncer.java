@@ -0,0 +1,223 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.timer.TimingWheel;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Sits in front of {@link SecurityService#changeSensorActivationStatus(Sensor, Boolean)} and keeps
+ * chattering sensors from reaching the state machine, the repository and the listeners.
+ *
+ * The first change of a quiet sensor is forwarded straight away, so a real intrusion is not
+ * delayed, and opens a settle window for that sensor. Changes inside the window are only recorded;
+ * when the window closes, the latest reported state is forwarded if it differs from what the
+ * service last saw, and a new window opens. A door that bounces ten times in a window therefore
+ * costs at most two calls into the service.
+ *
+ * A sensor that reports {@code flapTransitions} changes within {@code flapWindow} is flapping and
+ * is quarantined: nothing it reports is forwarded until it has been quiet for the quarantine
+ * period, after which its latest state is forwarded once.
+ *
+ * All per-sensor state lives in primitive arrays indexed by SensorRegistry slot and all windows run
+ * on one TimingWheel, so a report costs O(1) and no allocation. Like SecurityService it is not
+ * thread-safe, and {@link #advanceClock(long)} replaces SecurityService.advanceClock for whichever
+ * thread drives both.
+ */
+public class SensorDebouncer {
+
+    public static final Duration DEFAULT_SETTLE_WINDOW = Duration.ofMillis(250);
+    public static final int DEFAULT_FLAP_TRANSITIONS = 8;
+    public static final Duration DEFAULT_FLAP_WINDOW = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_QUARANTINE = Duration.ofSeconds(60);
+
+    private static final long TIMER_TICK_MILLIS = 10;
+    private static final byte REPORTED_ACTIVE = 1;
+    private static final byte CHANGED_IN_WINDOW = 2;
+    private static final byte QUARANTINED = 4;
+
+    private final SecurityService securityService;
+    private final SensorRegistry sensorRegistry;
+    private final TimingWheel timers;
+    private final long settleMillis;
+    private final int historyLength;
+    private final long flapWindowMillis;
+    private final long quarantineMillis;
+
+    private Sensor[] owners = new Sensor[0];
+    private byte[] flags = new byte[0];
+    private long[] timerHandles = new long[0];
+    //times of each sensor's previous flapTransitions - 1 transitions, as a ring of historyLength longs per slot
+    private long[] transitionTimes = new long[0];
+    private int[] transitionCursor = new int[0];
+
+    private long eventsReported;
+    private long eventsForwarded;
+    private long quarantines;
+
+    public SensorDebouncer(SecurityService securityService) {
+        this(securityService, DEFAULT_SETTLE_WINDOW, DEFAULT_FLAP_TRANSITIONS, DEFAULT_FLAP_WINDOW, DEFAULT_QUARANTINE);
+    }
+
+    public SensorDebouncer(SecurityService securityService, Duration settleWindow, int flapTransitions,
+                           Duration flapWindow, Duration quarantine) {
+        if (flapTransitions < 2) {
+            throw new IllegalArgumentException("flapTransitions must be at least 2");
+        }
+        this.securityService = securityService;
+        this.sensorRegistry = securityService.getSensorRegistry();
+        this.settleMillis = settleWindow.toMillis();
+        this.historyLength = flapTransitions - 1;
+        this.flapWindowMillis = flapWindow.toMillis();
+        this.quarantineMillis = quarantine.toMillis();
+        this.timers = new TimingWheel(TIMER_TICK_MILLIS, securityService.getClockMillis(), this::timerExpired);
+    }
+
+    /**
+     * Reports the state a sensor currently claims to be in. Reports that match what the service
+     * already has are dropped. Sensors the service does not know about are passed straight through.
+     * @param sensor
+     * @param active
+     */
+    public void changeSensorActivationStatus(Sensor sensor, boolean active) {
+        eventsReported++;
+        int slot = sensorRegistry.slotOf(sensor.getSensorId());
+        if (slot < 0) {
+            forward(sensor, active);
+            return;
+        }
+        ensureCapacity(slot);
+        Sensor registered = sensorRegistry.getSensor(slot);
+        if (owners[slot] != registered) {
+            resetSlot(slot, registered);
+        }
+        boolean transition = ((flags[slot] & REPORTED_ACTIVE) != 0) != active;
+        if (transition) {
+            flags[slot] = (byte) (active ? flags[slot] | REPORTED_ACTIVE : flags[slot] & ~REPORTED_ACTIVE);
+        }
+
+        if ((flags[slot] & QUARANTINED) != 0) {
+            if (transition) {
+                restartTimer(slot, quarantineMillis);
+            }
+        } else if (transition && recordTransition(slot, timers.currentTimeMillis())) {
+            flags[slot] |= QUARANTINED;
+            quarantines++;
+            restartTimer(slot, quarantineMillis);
+        } else if (timerHandles[slot] != TimingWheel.NO_TIMER) {
+            if (transition) {
+                flags[slot] |= CHANGED_IN_WINDOW;
+            }
+        } else if (sensor.getActive() != active) {
+            //the service may have reset the sensor on arming, so compare with its state, not the last report
+            forward(sensor, active);
+            if (settleMillis > 0) {
+                restartTimer(slot, settleMillis);
+            }
+        }
+    }
+
+    /**
+     * Moves the settle and quarantine windows, and then the security service, forward to the given
+     * time.
+     * @param nowMillis The current time in epoch milliseconds, or a virtual time in tests
+     */
+    public void advanceClock(long nowMillis) {
+        timers.advanceTo(nowMillis);
+        securityService.advanceClock(nowMillis);
+    }
+
+    public long getClockMillis() {
+        return timers.currentTimeMillis();
+    }
+
+    /**
+     * True while the sensor is quarantined for flapping.
+     */
+    public boolean isQuarantined(Sensor sensor) {
+        int slot = sensorRegistry.slotOf(sensor.getSensorId());
+        return slot >= 0 && slot < owners.length && owners[slot] == sensorRegistry.getSensor(slot)
+                && (flags[slot] & QUARANTINED) != 0;
+    }
+
+    public long getEventsReported() {
+        return eventsReported;
+    }
+
+    public long getEventsForwarded() {
+        return eventsForwarded;
+    }
+
+    public long getQuarantines() {
+        return quarantines;
+    }
+
+    /**
+     * Remembers the transition and reports whether the sensor has now changed flapTransitions times
+     * within the flap window.
+     */
+    private boolean recordTransition(int slot, long now) {
+        int base = slot * historyLength;
+        int cursor = transitionCursor[slot];
+        long oldest = transitionTimes[base + cursor];
+        transitionTimes[base + cursor] = now;
+        transitionCursor[slot] = cursor + 1 == historyLength ? 0 : cursor + 1;
+        return oldest != Long.MIN_VALUE && now - oldest < flapWindowMillis;
+    }
+
+    private void timerExpired(long timer, long slotPayload) {
+        int slot = (int) slotPayload;
+        timerHandles[slot] = TimingWheel.NO_TIMER;
+        Sensor sensor = sensorRegistry.getSensor(slot);
+        if (sensor != owners[slot]) {
+            return; //removed while a window was open
+        }
+        boolean reportedActive = (flags[slot] & REPORTED_ACTIVE) != 0;
+        boolean released = (flags[slot] & QUARANTINED) != 0;
+        boolean changed = released || (flags[slot] & CHANGED_IN_WINDOW) != 0;
+        flags[slot] &= ~(QUARANTINED | CHANGED_IN_WINDOW);
+        if (released) {
+            Arrays.fill(transitionTimes, slot * historyLength, (slot + 1) * historyLength, Long.MIN_VALUE);
+        }
+        if (changed && sensor.getActive() != reportedActive) {
+            forward(sensor, reportedActive);
+            if (settleMillis > 0) {
+                restartTimer(slot, settleMillis);
+            }
+        }
+    }
+
+    private void forward(Sensor sensor, boolean active) {
+        eventsForwarded++;
+        securityService.changeSensorActivationStatus(sensor, active);
+    }
+
+    private void restartTimer(int slot, long delayMillis) {
+        timers.cancel(timerHandles[slot]);
+        timerHandles[slot] = timers.schedule(delayMillis, slot);
+    }
+
+    private void resetSlot(int slot, Sensor sensor) {
+        timers.cancel(timerHandles[slot]);
+        timerHandles[slot] = TimingWheel.NO_TIMER;
+        owners[slot] = sensor;
+        flags[slot] = sensor.getActive() ? REPORTED_ACTIVE : 0;
+        transitionCursor[slot] = 0;
+        Arrays.fill(transitionTimes, slot * historyLength, (slot + 1) * historyLength, Long.MIN_VALUE);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < owners.length) {
+            return;
+        }
+        int capacity = Math.max(Math.max(16, slot + 1), Math.max(owners.length * 2, sensorRegistry.slotLimit()));
+        owners = Arrays.copyOf(owners, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        int oldLength = timerHandles.length;
+        timerHandles = Arrays.copyOf(timerHandles, capacity);
+        Arrays.fill(timerHandles, oldLength, capacity, TimingWheel.NO_TIMER);
+        transitionTimes = Arrays.copyOf(transitionTimes, capacity * historyLength);
+        transitionCursor = Arrays.copyOf(transitionCursor, capacity);
+    }
+}
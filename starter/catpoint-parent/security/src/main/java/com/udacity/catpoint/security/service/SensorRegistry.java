@@ -0,0 +1,178 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Assigns every known sensor a small, dense integer slot and looks slots up by sensor id.
+ * Components that keep per-sensor state in primitive arrays index those arrays by slot.
+ * Slots of removed sensors are reused, so the highest slot stays close to the sensor count.
+ *
+ * Lookups by the two halves of a UUID go through an open-addressing table of primitive longs,
+ * so decoding an id off the wire and finding its sensor does not allocate.
+ *
+ * Not thread-safe; it is owned by the SecurityService and follows its threading rules.
+ */
+public class SensorRegistry {
+
+    private static final int EMPTY = -1;
+
+    private long[] keyMsb;
+    private long[] keyLsb;
+    private int[] tableSlots;
+    private int mask;
+
+    private Sensor[] sensors = new Sensor[16];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotLimit;
+    private int size;
+
+    public SensorRegistry() {
+        allocateTable(32);
+    }
+
+    /**
+     * Registers a sensor, returning its slot. Registering a known sensor returns its existing slot.
+     */
+    public int register(Sensor sensor) {
+        UUID id = sensor.getSensorId();
+        int existing = slotOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (existing != EMPTY) {
+            sensors[existing] = sensor;
+            return existing;
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : slotLimit++;
+        if (slot >= sensors.length) {
+            sensors = Arrays.copyOf(sensors, sensors.length * 2);
+        }
+        sensors[slot] = sensor;
+        if ((size + 1) * 2 > tableSlots.length) {
+            rehash(tableSlots.length * 2);
+        }
+        insert(id.getMostSignificantBits(), id.getLeastSignificantBits(), slot);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Removes a sensor, returning the slot it held or -1 if it was not registered.
+     */
+    public int unregister(Sensor sensor) {
+        UUID id = sensor.getSensorId();
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int i = indexOf(msb, lsb);
+        if (tableSlots[i] == EMPTY) {
+            return EMPTY;
+        }
+        int slot = tableSlots[i];
+        deleteAt(i);
+        sensors[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+        return slot;
+    }
+
+    public int slotOf(UUID sensorId) {
+        return slotOf(sensorId.getMostSignificantBits(), sensorId.getLeastSignificantBits());
+    }
+
+    /**
+     * Returns the slot for the sensor id with the given halves, or -1 if it is unknown.
+     */
+    public int slotOf(long msb, long lsb) {
+        return tableSlots[indexOf(msb, lsb)];
+    }
+
+    /**
+     * Returns the sensor in the given slot, or null if the slot is free.
+     */
+    public Sensor getSensor(int slot) {
+        return slot >= 0 && slot < slotLimit ? sensors[slot] : null;
+    }
+
+    /**
+     * Number of registered sensors.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * One past the highest slot ever handed out. Arrays indexed by slot must be at least this long.
+     */
+    public int slotLimit() {
+        return slotLimit;
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int i = hash(msb, lsb) & mask;
+        while (tableSlots[i] != EMPTY && (keyMsb[i] != msb || keyLsb[i] != lsb)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void insert(long msb, long lsb, int slot) {
+        int i = indexOf(msb, lsb);
+        keyMsb[i] = msb;
+        keyLsb[i] = lsb;
+        tableSlots[i] = slot;
+    }
+
+    /**
+     * Backward-shift deletion, which keeps every probe chain intact without tombstones.
+     */
+    private void deleteAt(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (tableSlots[j] == EMPTY) {
+                break;
+            }
+            int home = hash(keyMsb[j], keyLsb[j]) & mask;
+            boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                keyMsb[i] = keyMsb[j];
+                keyLsb[i] = keyLsb[j];
+                tableSlots[i] = tableSlots[j];
+                i = j;
+            }
+        }
+        tableSlots[i] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMsb = keyMsb;
+        long[] oldLsb = keyLsb;
+        int[] oldSlots = tableSlots;
+        allocateTable(capacity);
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                insert(oldMsb[i], oldLsb[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        keyMsb = new long[capacity];
+        keyLsb = new long[capacity];
+        tableSlots = new int[capacity];
+        Arrays.fill(tableSlots, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
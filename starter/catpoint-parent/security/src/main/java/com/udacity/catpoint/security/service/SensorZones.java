@@ -0,0 +1,202 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Tracks which sensors are active in each zone, and how each zone is armed.
+ *
+ * Every zone keeps a bitmap of its active sensors indexed by SensorRegistry slot, and a summary
+ * word has one bit per zone that has any active sensor. A zone is either armed the way the whole
+ * system is, or has an arming status of its own; a second word has one bit per zone with its own
+ * status and a third one bit per zone that is armed on its own. "Is any sensor active outside the
+ * zones disarmed on their own" is then a couple of word operations, whatever the number of sensors.
+ *
+ * Owned by the SecurityService and follows its threading rules.
+ */
+public final class SensorZones {
+
+    public static final int MAX_ZONES = Integer.SIZE;
+
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final byte FOLLOWS_SYSTEM = -1;
+    private static final byte NO_ZONE = -1;
+
+    private final long[][] activeSlots = new long[MAX_ZONES][];
+    private final int[] activeCounts = new int[MAX_ZONES];
+    private final byte[] zoneArming = new byte[MAX_ZONES];
+    private byte[] slotZones = new byte[0];
+    private int activeZones;
+    private int ownArmingZones;
+    private int ownArmedZones;
+
+    public SensorZones() {
+        Arrays.fill(zoneArming, FOLLOWS_SYSTEM);
+        for (int zone = 0; zone < MAX_ZONES; zone++) {
+            activeSlots[zone] = new long[1];
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if the zone number is out of range.
+     */
+    public static void checkZone(int zone) {
+        if (zone < 0 || zone >= MAX_ZONES) {
+            throw new IllegalArgumentException("Zone must be between 0 and " + (MAX_ZONES - 1) + ", was " + zone);
+        }
+    }
+
+    /**
+     * Records the activation state of the sensor in the given slot. A sensor that was last seen in
+     * another zone is moved.
+     */
+    void setActive(int slot, int zone, boolean active) {
+        ensureCapacity(slot);
+        int previousZone = slotZones[slot];
+        if (previousZone != NO_ZONE && previousZone != zone) {
+            clear(slot);
+        }
+        slotZones[slot] = (byte) zone;
+        long[] bits = words(zone, slot);
+        long bit = 1L << slot;
+        boolean wasActive = (bits[slot >>> 6] & bit) != 0;
+        if (active && !wasActive) {
+            bits[slot >>> 6] |= bit;
+            activeCounts[zone]++;
+            activeZones |= 1 << zone;
+        } else if (!active && wasActive) {
+            bits[slot >>> 6] &= ~bit;
+            if (--activeCounts[zone] == 0) {
+                activeZones &= ~(1 << zone);
+            }
+        }
+    }
+
+    /**
+     * Forgets the sensor in the given slot, for instance because it was removed.
+     */
+    void clear(int slot) {
+        if (slot < 0 || slot >= slotZones.length || slotZones[slot] == NO_ZONE) {
+            return;
+        }
+        setActive(slot, slotZones[slot], false);
+        slotZones[slot] = NO_ZONE;
+    }
+
+    /**
+     * Calls the action for the slot of every active sensor in the zone, then marks them all inactive.
+     */
+    void deactivateZone(int zone, IntConsumer action) {
+        long[] bits = activeSlots[zone];
+        for (int word = 0; word < bits.length; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                action.accept(word << 6 | Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+            bits[word] = 0;
+        }
+        activeCounts[zone] = 0;
+        activeZones &= ~(1 << zone);
+    }
+
+    /**
+     * Marks every sensor in every zone inactive.
+     */
+    void deactivateAll() {
+        for (int zone = 0; zone < MAX_ZONES; zone++) {
+            Arrays.fill(activeSlots[zone], 0L);
+        }
+        Arrays.fill(activeCounts, 0);
+        activeZones = 0;
+    }
+
+    /**
+     * Gives the zone an arming status of its own.
+     */
+    void setArmingStatus(int zone, ArmingStatus status) {
+        zoneArming[zone] = (byte) status.ordinal();
+        ownArmingZones |= 1 << zone;
+        if (status == ArmingStatus.DISARMED) {
+            ownArmedZones &= ~(1 << zone);
+        } else {
+            ownArmedZones |= 1 << zone;
+        }
+    }
+
+    /**
+     * True if some zone has been armed or disarmed on its own since the zones last followed the
+     * system arming status.
+     */
+    boolean hasOwnArmingStatus() {
+        return ownArmingZones != 0;
+    }
+
+    /**
+     * Makes every zone follow the system arming status again.
+     */
+    void followSystemArmingStatus() {
+        Arrays.fill(zoneArming, FOLLOWS_SYSTEM);
+        ownArmingZones = 0;
+        ownArmedZones = 0;
+    }
+
+    /**
+     * The arming status that applies to a zone, given the arming status of the whole system.
+     */
+    public ArmingStatus getArmingStatus(int zone, ArmingStatus systemStatus) {
+        return zoneArming[zone] == FOLLOWS_SYSTEM ? systemStatus : ARMING_STATUSES[zoneArming[zone]];
+    }
+
+    /**
+     * True if the zone has an arming status of its own rather than following the system.
+     */
+    public boolean hasOwnArmingStatus(int zone) {
+        return (ownArmingZones & 1 << zone) != 0;
+    }
+
+    public boolean isAnyActive() {
+        return activeZones != 0;
+    }
+
+    /**
+     * True if any sensor is active in a zone that has not been disarmed on its own. Zones that follow
+     * the system arming status always count, which is how a single-zone system has always behaved.
+     */
+    public boolean isAnyActiveOutsideDisarmedZones() {
+        int disarmedZones = ownArmingZones & ~ownArmedZones;
+        return (activeZones & ~disarmedZones) != 0;
+    }
+
+    /**
+     * True if any zone, on its own or by following the system, is armed.
+     */
+    public boolean isAnyZoneArmed(boolean systemArmed) {
+        return systemArmed ? ownArmingZones != -1 || ownArmedZones != 0 : ownArmedZones != 0;
+    }
+
+    public int getActiveCount(int zone) {
+        return activeCounts[zone];
+    }
+
+    private long[] words(int zone, int slot) {
+        long[] bits = activeSlots[zone];
+        int word = slot >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+            activeSlots[zone] = bits;
+        }
+        return bits;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < slotZones.length) {
+            return;
+        }
+        int oldLength = slotZones.length;
+        slotZones = Arrays.copyOf(slotZones, Math.max(Math.max(16, slot + 1), oldLength * 2));
+        Arrays.fill(slotZones, oldLength, slotZones.length, NO_ZONE);
+    }
+}
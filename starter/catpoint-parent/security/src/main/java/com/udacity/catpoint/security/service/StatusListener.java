@@ -0,0 +1,19 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+
+/**
+ * Identifies a component that should be notified whenever the system status changes
+ */
+public interface StatusListener {
+    void notify(AlarmStatus status);
+    void catDetected(boolean catDetected);
+    void sensorStatusChanged();
+
+    /**
+     * Called when a supervised sensor misses its heartbeats, and again when it is heard from.
+     * Only fires once a heartbeat timeout has been set on the SecurityService.
+     */
+    default void sensorOffline(Sensor sensor, boolean offline) {}
+}
@@ -0,0 +1,234 @@
+package com.udacity.catpoint.security.timer;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical hashed timing wheel. Five levels of 64 slots cover 2^30 ticks; a timer is kept in
+ * the coarsest level that still resolves its deadline and is cascaded down a level each time the
+ * finer wheel wraps. Scheduling and cancelling are O(1), and firing costs O(1) per expired timer
+ * plus a small amount of work per tick, independent of how many timers are pending.
+ *
+ * Timers live in an intrusive doubly linked node pool made of primitive arrays, so millions of
+ * pending timers cost a few dozen bytes each and no objects. A timer is identified by a long
+ * handle that carries a generation counter, so a stale handle never cancels a newer timer that
+ * happens to reuse the same node.
+ *
+ * The wheel has no thread of its own and never reads the system clock: time only moves when
+ * {@link #advanceTo(long)} is called, which makes it trivial to drive with a virtual clock.
+ * Not thread-safe.
+ */
+public class TimingWheel {
+
+    public static final long NO_TIMER = -1L;
+
+    /**
+     * Called for every timer that expires during {@link #advanceTo(long)}.
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler {
+        void expired(long timer, long payload);
+    }
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+    private static final int NIL = -1;
+
+    private final long tickMillis;
+    private final ExpiryHandler handler;
+    private long currentTick;
+
+    private final int[] bucketHeads = new int[LEVELS * SLOTS];
+
+    //node pool
+    private long[] expiryTick;
+    private long[] payload;
+    private int[] next;
+    private int[] prev;
+    private int[] bucket;
+    private int[] generation;
+    private int freeHead = NIL;
+    private int poolUsed;
+    private int size;
+
+    public TimingWheel(long tickMillis, long startMillis, ExpiryHandler handler) {
+        this(tickMillis, startMillis, handler, 1024);
+    }
+
+    public TimingWheel(long tickMillis, long startMillis, ExpiryHandler handler, int initialCapacity) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.handler = handler;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        Arrays.fill(bucketHeads, NIL);
+        int capacity = Math.max(16, initialCapacity);
+        expiryTick = new long[capacity];
+        payload = new long[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        bucket = new int[capacity];
+        generation = new int[capacity];
+    }
+
+    /**
+     * Schedules a timer that expires once the wheel has advanced by at least the given delay.
+     * Deadlines are rounded up to whole ticks, and a timer never fires on the tick it was
+     * scheduled in.
+     * @return a handle that can be passed to {@link #cancel(long)}
+     */
+    public long schedule(long delayMillis, long timerPayload) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        int node = allocate();
+        expiryTick[node] = currentTick + ticks;
+        payload[node] = timerPayload;
+        insert(node);
+        size++;
+        return (long) generation[node] << 32 | node;
+    }
+
+    /**
+     * Cancels a pending timer.
+     * @return true if the timer was pending, false if it already fired, was cancelled, or is NO_TIMER
+     */
+    public boolean cancel(long timer) {
+        if (timer == NO_TIMER) {
+            return false;
+        }
+        int node = (int) timer;
+        if (node < 0 || node >= poolUsed || generation[node] != (int) (timer >>> 32) || bucket[node] == NIL) {
+            return false;
+        }
+        unlink(node);
+        release(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time, firing every timer whose deadline has been
+     * reached, in deadline order. Handlers may schedule and cancel timers.
+     */
+    public void advanceTo(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            if ((currentTick & SLOT_MASK) == 0) {
+                cascade(1);
+            }
+            int b = (int) (currentTick & SLOT_MASK);
+            int node;
+            while ((node = bucketHeads[b]) != NIL) {
+                unlink(node);
+                long handle = (long) generation[node] << 32 | node;
+                long p = payload[node];
+                release(node);
+                size--;
+                handler.expired(handle, p);
+            }
+        }
+    }
+
+    /**
+     * The wheel's current time, which is the last time passed to advanceTo rounded down to a tick.
+     */
+    public long currentTimeMillis() {
+        return currentTick * tickMillis;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Number of pending timers.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+        int b = level * SLOTS + slot;
+        int node;
+        while ((node = bucketHeads[b]) != NIL) {
+            unlink(node);
+            insert(node);
+        }
+    }
+
+    private void insert(int node) {
+        long delta = Math.max(0, expiryTick[node] - currentTick);
+        long slotTick = expiryTick[node];
+        int level = 0;
+        if (delta >= MAX_SPAN) {
+            //beyond the wheel's range: park in the top level and re-place on cascade
+            level = LEVELS - 1;
+            slotTick = currentTick + MAX_SPAN - 1;
+        } else {
+            while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            if (delta == 0) {
+                slotTick = currentTick;
+            }
+        }
+        int b = level * SLOTS + (int) ((slotTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        int head = bucketHeads[b];
+        next[node] = head;
+        prev[node] = NIL;
+        if (head != NIL) {
+            prev[head] = node;
+        }
+        bucketHeads[b] = node;
+        bucket[node] = b;
+    }
+
+    private void unlink(int node) {
+        int n = next[node];
+        int p = prev[node];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            bucketHeads[bucket[node]] = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        }
+        bucket[node] = NIL;
+    }
+
+    private int allocate() {
+        if (freeHead != NIL) {
+            int node = freeHead;
+            freeHead = next[node];
+            return node;
+        }
+        if (poolUsed == expiryTick.length) {
+            int capacity = expiryTick.length * 2;
+            expiryTick = Arrays.copyOf(expiryTick, capacity);
+            payload = Arrays.copyOf(payload, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            bucket = Arrays.copyOf(bucket, capacity);
+            generation = Arrays.copyOf(generation, capacity);
+        }
+        return poolUsed++;
+    }
+
+    private void release(int node) {
+        generation[node]++;
+        bucket[node] = NIL;
+        next[node] = freeHead;
+        freeHead = node;
+    }
+}
@@ -0,0 +1,103 @@
+package com.udacity.catpoint.security.trace;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+import java.util.List;
+
+/**
+ * The outcome of replaying a trace: the alarm statuses the trace recorded, the ones the replayed
+ * service produced, and where the two sequences first part ways.
+ */
+public class ReplayResult {
+
+    private final List<AlarmStatus> expected;
+    private final List<AlarmStatus> actual;
+    private final long inputs;
+    private final long tracedMillis;
+    private final long elapsedNanos;
+    private final boolean complete;
+
+    ReplayResult(List<AlarmStatus> expected, List<AlarmStatus> actual, long inputs, long tracedMillis,
+                 long elapsedNanos, boolean complete) {
+        this.expected = expected;
+        this.actual = actual;
+        this.inputs = inputs;
+        this.tracedMillis = tracedMillis;
+        this.elapsedNanos = elapsedNanos;
+        this.complete = complete;
+    }
+
+    public List<AlarmStatus> getExpected() {
+        return expected;
+    }
+
+    public List<AlarmStatus> getActual() {
+        return actual;
+    }
+
+    /**
+     * Number of sensor, arming, camera and sensor list changes that were replayed.
+     */
+    public long getInputs() {
+        return inputs;
+    }
+
+    /**
+     * How much service clock time the trace covers.
+     */
+    public long getTracedMillis() {
+        return tracedMillis;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * False if the trace ended without its END record, for instance because the recording process
+     * was killed. Everything up to the last complete record is still replayed.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Index of the first alarm status that differs between the recording and the replay, or -1 if
+     * the sequences are identical. If one is a prefix of the other, this is the shorter length.
+     */
+    public int getFirstDivergence() {
+        int common = Math.min(expected.size(), actual.size());
+        for (int i = 0; i < common; i++) {
+            if (expected.get(i) != actual.get(i)) {
+                return i;
+            }
+        }
+        return expected.size() == actual.size() ? -1 : common;
+    }
+
+    public boolean isIdentical() {
+        return getFirstDivergence() < 0;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("replayed %,d inputs covering %,.1f s of service time in %,.3f s%s%n", inputs,
+                tracedMillis / 1e3, elapsedNanos / 1e9, complete ? "" : " (trace was truncated)"));
+        int divergence = getFirstDivergence();
+        if (divergence < 0) {
+            sb.append(String.format("alarm status sequence identical: %,d changes%n", expected.size()));
+        } else {
+            sb.append(String.format("alarm status sequence DIVERGES at change %,d of %,d recorded, %,d replayed:%n",
+                    divergence, expected.size(), actual.size()));
+            sb.append("  recorded: ").append(around(expected, divergence)).append('\n');
+            sb.append("  replayed: ").append(around(actual, divergence)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String around(List<AlarmStatus> statuses, int index) {
+        int from = Math.max(0, index - 2);
+        int to = Math.min(statuses.size(), index + 3);
+        return (from > 0 ? "... " : "") + statuses.subList(from, to) + (to < statuses.size() ? " ..." : "");
+    }
+}
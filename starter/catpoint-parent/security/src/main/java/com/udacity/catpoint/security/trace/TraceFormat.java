@@ -0,0 +1,67 @@
+package com.udacity.catpoint.security.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary layout of an input trace. A trace is a header followed by records:
+ * <pre>
+ *   header  int magic "CPTR", byte version, long start clock, long entry delay, long exit delay,
+ *           byte alarm status, byte arming status, boolean cat detected, alarm rules
+ *   record  byte op, varint milliseconds since the previous record, then per op:
+ *     SENSOR_ACTIVE / SENSOR_INACTIVE  varint sensor slot
+ *     ARMING                           byte arming status
+ *     IMAGE_CAT / IMAGE_NO_CAT         nothing, the verdict is the op
+ *     ADD_SENSOR                       varint slot, long id msb, long id lsb, byte type, boolean active,
+ *                                      varint zone, UTF name
+ *     REMOVE_SENSOR                    varint slot
+ *     ZONE_ARMING                      varint zone, byte arming status
+ *     ALARM_RULES                      alarm rules
+ *     ALARM                            byte alarm status, an output recorded for comparison
+ *     END                              nothing
+ * </pre>
+ * Alarm rules are a varint count followed by that many UTF rule lines, compiled on top of the
+ * default AlarmRules; a count of zero means the defaults. Enums are stored by ordinal. Sensors are referred to by the SensorRegistry slot they had when
+ * recorded; an ADD_SENSOR record binds a slot to a sensor until the matching REMOVE_SENSOR. A
+ * typical sensor change takes three bytes.
+ */
+final class TraceFormat {
+
+    static final int MAGIC = 0x43505452; // "CPTR"
+    static final byte VERSION = 3;
+
+    static final byte SENSOR_ACTIVE = 1;
+    static final byte SENSOR_INACTIVE = 2;
+    static final byte ARMING = 3;
+    static final byte IMAGE_CAT = 4;
+    static final byte IMAGE_NO_CAT = 5;
+    static final byte ADD_SENSOR = 6;
+    static final byte REMOVE_SENSOR = 7;
+    static final byte ALARM = 8;
+    static final byte END = 9;
+    static final byte ZONE_ARMING = 10;
+    static final byte ALARM_RULES = 11;
+
+    private TraceFormat() {}
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+}
@@ -0,0 +1,179 @@
+package com.udacity.catpoint.security.trace;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes every input the SecurityService receives, and every alarm status it produces, to a
+ * compact binary trace that TraceReplayer can play back. Attach it with
+ * SecurityService.setTraceRecorder, which writes the header from the service's current state.
+ *
+ * Times are the SecurityService clock, which is what the entry and exit delays run on, so a replay
+ * that advances its clock to each recorded time fires the same timers between the same inputs.
+ * Output is buffered and flushed whenever an alarm status is recorded, so a trace is complete up to
+ * the last alarm change even if the process dies. Not thread-safe.
+ */
+public class TraceRecorder implements Closeable {
+
+    private final DataOutputStream out;
+    private long lastMillis;
+    private long records;
+
+    public TraceRecorder(Path file) throws IOException {
+        this(Files.newOutputStream(file));
+    }
+
+    public TraceRecorder(OutputStream stream) {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+    }
+
+    public void begin(long clockMillis, long entryDelayMillis, long exitDelayMillis, AlarmStatus alarmStatus,
+                      ArmingStatus armingStatus, boolean catDetected) {
+        begin(clockMillis, entryDelayMillis, exitDelayMillis, alarmStatus, armingStatus, catDetected, List.of());
+    }
+
+    /**
+     * @param alarmRules the lines of the AlarmRules in force, as returned by AlarmRules.getRules
+     */
+    public void begin(long clockMillis, long entryDelayMillis, long exitDelayMillis, AlarmStatus alarmStatus,
+                      ArmingStatus armingStatus, boolean catDetected, List<String> alarmRules) {
+        try {
+            out.writeInt(TraceFormat.MAGIC);
+            out.writeByte(TraceFormat.VERSION);
+            out.writeLong(clockMillis);
+            out.writeLong(entryDelayMillis);
+            out.writeLong(exitDelayMillis);
+            out.writeByte(alarmStatus.ordinal());
+            out.writeByte(armingStatus.ordinal());
+            out.writeBoolean(catDetected);
+            writeRules(alarmRules);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace header", e);
+        }
+        lastMillis = clockMillis;
+    }
+
+    public void sensorActivationChanged(long clockMillis, int slot, boolean active) {
+        try {
+            writeRecord(active ? TraceFormat.SENSOR_ACTIVE : TraceFormat.SENSOR_INACTIVE, clockMillis);
+            TraceFormat.writeVarLong(out, slot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void armingStatusChanged(long clockMillis, ArmingStatus armingStatus) {
+        try {
+            writeRecord(TraceFormat.ARMING, clockMillis);
+            out.writeByte(armingStatus.ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void zoneArmingStatusChanged(long clockMillis, int zone, ArmingStatus armingStatus) {
+        try {
+            writeRecord(TraceFormat.ZONE_ARMING, clockMillis);
+            TraceFormat.writeVarLong(out, zone);
+            out.writeByte(armingStatus.ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void alarmRulesChanged(long clockMillis, List<String> alarmRules) {
+        try {
+            writeRecord(TraceFormat.ALARM_RULES, clockMillis);
+            writeRules(alarmRules);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void imageVerdict(long clockMillis, boolean cat) {
+        try {
+            writeRecord(cat ? TraceFormat.IMAGE_CAT : TraceFormat.IMAGE_NO_CAT, clockMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void sensorAdded(long clockMillis, int slot, Sensor sensor) {
+        try {
+            writeRecord(TraceFormat.ADD_SENSOR, clockMillis);
+            TraceFormat.writeVarLong(out, slot);
+            out.writeLong(sensor.getSensorId().getMostSignificantBits());
+            out.writeLong(sensor.getSensorId().getLeastSignificantBits());
+            out.writeByte(sensor.getSensorType().ordinal());
+            out.writeBoolean(sensor.getActive());
+            TraceFormat.writeVarLong(out, sensor.getZone());
+            out.writeUTF(sensor.getName() == null ? "" : sensor.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void sensorRemoved(long clockMillis, int slot) {
+        try {
+            writeRecord(TraceFormat.REMOVE_SENSOR, clockMillis);
+            TraceFormat.writeVarLong(out, slot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    public void alarmStatusChanged(long clockMillis, AlarmStatus alarmStatus) {
+        try {
+            writeRecord(TraceFormat.ALARM, clockMillis);
+            out.writeByte(alarmStatus.ordinal());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write trace", e);
+        }
+    }
+
+    /**
+     * Number of records written so far, not counting the header.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Writes the END record, which carries the final clock time, and closes the trace.
+     */
+    public void close(long clockMillis) throws IOException {
+        writeRecord(TraceFormat.END, clockMillis);
+        out.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(lastMillis);
+    }
+
+    private void writeRules(List<String> alarmRules) throws IOException {
+        TraceFormat.writeVarLong(out, alarmRules.size());
+        for (String rule : alarmRules) {
+            out.writeUTF(rule);
+        }
+    }
+
+    private void writeRecord(byte op, long clockMillis) throws IOException {
+        out.writeByte(op);
+        TraceFormat.writeVarLong(out, Math.max(0, clockMillis - lastMillis));
+        lastMillis = Math.max(lastMillis, clockMillis);
+        records++;
+    }
+}
@@ -0,0 +1,252 @@
+package com.udacity.catpoint.security.trace;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.ImageService;
+import com.udacity.catpoint.security.service.AlarmRules;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace written by TraceRecorder into a fresh SecurityService backed by an in-memory
+ * repository, and compares the alarm statuses it produces with the ones that were recorded.
+ *
+ * Camera frames are replayed as their recorded verdicts, so the image service never runs and the
+ * replay is deterministic. Before every record the service clock is advanced to the record's time,
+ * shifted by a whole number of timer ticks, so entry and exit delays expire between the same
+ * inputs as they did when the trace was recorded. The alarm rules the trace was recorded under are
+ * compiled again, and changed wherever the recording changed them. At a speed of zero the replay
+ * runs as fast as the service can go; at a speed of one it waits out the recorded gaps between
+ * inputs.
+ *
+ * Usage: TraceReplayer trace-file [--original-timing | --speed x]. The exit code is 1 if the
+ * replayed alarm statuses differ from the recorded ones.
+ */
+public class TraceReplayer {
+
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private final double speed;
+
+    public TraceReplayer() {
+        this(AS_FAST_AS_POSSIBLE);
+    }
+
+    /**
+     * @param speed How many times faster than recorded to replay, or AS_FAST_AS_POSSIBLE
+     */
+    public TraceReplayer(double speed) {
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException("speed must be zero or positive");
+        }
+        this.speed = speed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TraceReplayer trace-file [--original-timing | --speed x]");
+            System.exit(2);
+        }
+        double speed = AS_FAST_AS_POSSIBLE;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--original-timing" -> speed = 1;
+                case "--speed" -> speed = Double.parseDouble(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        ReplayResult result = new TraceReplayer(speed).replay(Path.of(args[0]));
+        System.out.print(result.describe());
+        System.exit(result.isIdentical() ? 0 : 1);
+    }
+
+    public ReplayResult replay(Path trace) throws IOException {
+        try (InputStream in = Files.newInputStream(trace)) {
+            return replay(in);
+        }
+    }
+
+    public ReplayResult replay(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        if (in.readInt() != TraceFormat.MAGIC) {
+            throw new IOException("Not a trace file");
+        }
+        byte version = in.readByte();
+        if (version != TraceFormat.VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+        long traceStart = in.readLong();
+        long entryDelayMillis = in.readLong();
+        long exitDelayMillis = in.readLong();
+        AlarmStatus alarmStatus = AlarmStatus.values()[in.readByte()];
+        ArmingStatus armingStatus = ArmingStatus.values()[in.readByte()];
+        boolean catDetected = in.readBoolean();
+        AlarmRules alarmRules = readAlarmRules(in);
+
+        List<AlarmStatus> expected = new ArrayList<>();
+        List<AlarmStatus> actual = new ArrayList<>();
+        RecordingRepository repository = new RecordingRepository(actual);
+        repository.setAlarmStatus(alarmStatus);
+        repository.setArmingStatus(armingStatus);
+        repository.setCatDetected(catDetected);
+        actual.clear();
+        ReplayImageService imageService = new ReplayImageService();
+        SecurityService securityService = new SecurityService(repository, imageService);
+        securityService.setEntryDelay(Duration.ofMillis(entryDelayMillis));
+        securityService.setExitDelay(Duration.ofMillis(exitDelayMillis));
+        securityService.setAlarmRules(alarmRules);
+
+        //shift by whole ticks so every recorded time lands on the same tick boundary as before
+        long tick = SecurityService.TIMER_TICK_MILLIS;
+        long offset = Math.floorDiv(securityService.getClockMillis() - traceStart + tick - 1, tick) * tick;
+        securityService.advanceClock(traceStart + offset);
+
+        BufferedImage frame = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Sensor[] sensors = new Sensor[16];
+        long time = traceStart;
+        long inputs = 0;
+        boolean complete = false;
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                byte op = in.readByte();
+                time += TraceFormat.readVarLong(in);
+                pace(start, time - traceStart);
+                securityService.advanceClock(time + offset);
+                switch (op) {
+                    case TraceFormat.SENSOR_ACTIVE, TraceFormat.SENSOR_INACTIVE -> {
+                        int slot = (int) TraceFormat.readVarLong(in);
+                        securityService.changeSensorActivationStatus(sensorAt(sensors, slot),
+                                op == TraceFormat.SENSOR_ACTIVE);
+                    }
+                    case TraceFormat.ARMING -> securityService.setArmingStatus(ArmingStatus.values()[in.readByte()]);
+                    case TraceFormat.ZONE_ARMING -> {
+                        int zone = (int) TraceFormat.readVarLong(in);
+                        securityService.setZoneArmingStatus(zone, ArmingStatus.values()[in.readByte()]);
+                    }
+                    case TraceFormat.IMAGE_CAT, TraceFormat.IMAGE_NO_CAT -> {
+                        imageService.verdict = op == TraceFormat.IMAGE_CAT;
+                        securityService.processImage(frame);
+                    }
+                    case TraceFormat.ADD_SENSOR -> {
+                        int slot = (int) TraceFormat.readVarLong(in);
+                        Sensor sensor = readSensor(in);
+                        if (slot >= sensors.length) {
+                            sensors = Arrays.copyOf(sensors, Math.max(slot + 1, sensors.length * 2));
+                        }
+                        sensors[slot] = sensor;
+                        securityService.addSensor(sensor);
+                    }
+                    case TraceFormat.REMOVE_SENSOR -> {
+                        int slot = (int) TraceFormat.readVarLong(in);
+                        securityService.removeSensor(sensorAt(sensors, slot));
+                        sensors[slot] = null;
+                    }
+                    case TraceFormat.ALARM_RULES -> securityService.setAlarmRules(readAlarmRules(in));
+                    case TraceFormat.ALARM -> expected.add(AlarmStatus.values()[in.readByte()]);
+                    case TraceFormat.END -> complete = true;
+                    default -> throw new IOException("Unknown trace record " + op);
+                }
+                if (complete) {
+                    break;
+                }
+                if (op != TraceFormat.ALARM) {
+                    inputs++;
+                }
+            }
+        } catch (EOFException e) {
+            //a recorder that was never closed leaves a trace without an END record; keep what we have
+        }
+        return new ReplayResult(expected, actual, inputs, time - traceStart, System.nanoTime() - start, complete);
+    }
+
+    private static AlarmRules readAlarmRules(DataInputStream in) throws IOException {
+        int count = (int) TraceFormat.readVarLong(in);
+        List<String> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rules.add(in.readUTF());
+        }
+        try {
+            return AlarmRules.compile(rules);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Trace holds alarm rules this version cannot compile", e);
+        }
+    }
+
+    private static Sensor readSensor(DataInputStream in) throws IOException {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        SensorType type = SensorType.values()[in.readByte()];
+        boolean active = in.readBoolean();
+        int zone = (int) TraceFormat.readVarLong(in);
+        Sensor sensor = new Sensor(in.readUTF(), type);
+        sensor.setSensorId(id);
+        sensor.setActive(active);
+        sensor.setZone(zone);
+        return sensor;
+    }
+
+    private static Sensor sensorAt(Sensor[] sensors, int slot) throws IOException {
+        Sensor sensor = slot >= 0 && slot < sensors.length ? sensors[slot] : null;
+        if (sensor == null) {
+            throw new IOException("Trace refers to sensor slot " + slot + " before adding a sensor there");
+        }
+        return sensor;
+    }
+
+    private void pace(long startNanos, long tracedMillis) {
+        if (speed == AS_FAST_AS_POSSIBLE) {
+            return;
+        }
+        long deadline = startNanos + (long) (tracedMillis * 1_000_000 / speed);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * In-memory repository that also remembers every alarm status it is given.
+     */
+    private static class RecordingRepository extends InMemorySecurityRepositoryImpl {
+        private final List<AlarmStatus> alarmStatuses;
+
+        RecordingRepository(List<AlarmStatus> alarmStatuses) {
+            this.alarmStatuses = alarmStatuses;
+        }
+
+        @Override
+        public void setAlarmStatus(AlarmStatus alarmStatus) {
+            super.setAlarmStatus(alarmStatus);
+            alarmStatuses.add(alarmStatus);
+        }
+    }
+
+    /**
+     * Image service that returns whatever verdict the trace recorded for the current frame.
+     */
+    private static class ReplayImageService implements ImageService {
+        private boolean verdict;
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+            return verdict;
+        }
+    }
+}
@@ -1,9 +1,23 @@
 module security {
-    requires java.desktop;
     requires com.google.common;
     requires java.prefs;
+    requires java.sql;
     requires com.google.gson;
-    requires image;
-    requires miglayout;
+    //only the camera API uses AWT image types, so a headless launcher does not have to resolve it
+    requires static java.desktop;
+    requires java.net.http;
+    requires jdk.httpserver;
+    exports com.udacity.catpoint.security.data;
+    exports com.udacity.catpoint.security.service;
+    exports com.udacity.catpoint.security.server;
+    exports com.udacity.catpoint.security.ingest;
+    exports com.udacity.catpoint.security.multihome;
+    exports com.udacity.catpoint.security.timer;
+    exports com.udacity.catpoint.security.history;
+    exports com.udacity.catpoint.security.image;
+    exports com.udacity.catpoint.security.trace;
+    exports com.udacity.catpoint.security.alert;
+    exports com.udacity.catpoint.security.replication;
+    exports com.udacity.catpoint.security.scheduler;
     opens com.udacity.catpoint.security.data to com.google.gson;
 }
@@ -0,0 +1,147 @@
+package com.udacity.catpoint.security.alert;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertDispatcherTest {
+
+    @Test
+    @DisplayName("Through a sink that rejects a third of requests, every alarm transition arrives exactly once and in order.")
+    void flakySink_everyAlertDeliveredOnceInOrder() throws Exception {
+        Path outboxDir = Files.createTempDirectory("outbox");
+        try (AlertSinkStub sink = new AlertSinkStub(0, 0, 0.3, 42);
+             AlertDispatcher dispatcher = dispatcher(outboxDir, sink.getUri(), 1024)) {
+            dispatcher.start();
+            for (int i = 0; i < 100; i++) {
+                dispatcher.notify(AlarmStatus.PENDING_ALARM);
+                dispatcher.notify(AlarmStatus.ALARM);
+                //repeats of the current status are not transitions
+                dispatcher.notify(AlarmStatus.ALARM);
+                dispatcher.notify(AlarmStatus.NO_ALARM);
+            }
+
+            await(() -> dispatcher.getAlertsDelivered() == 200);
+            assertEquals(ids(1, 200), sink.getReceivedIds());
+            assertEquals(0, dispatcher.getPendingAlerts("center"));
+            assertTrue(sink.getFailuresInjected() > 0);
+            assertEquals(sink.getFailuresInjected(), dispatcher.getBatchesFailed());
+        }
+    }
+
+    @Test
+    @DisplayName("Alerts a destination never acknowledged survive a restart and a torn outbox write, and are sent once it is reachable.")
+    void restart_deliversPersistedAlerts() throws Exception {
+        Path outboxDir = Files.createTempDirectory("outbox");
+        URI unreachable;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            unreachable = URI.create("http://127.0.0.1:" + socket.getLocalPort() + "/alerts");
+        }
+        try (AlertDispatcher dispatcher = dispatcher(outboxDir, unreachable, 1024)) {
+            dispatcher.start();
+            for (int i = 0; i < 3; i++) {
+                dispatcher.notify(AlarmStatus.PENDING_ALARM);
+                dispatcher.notify(AlarmStatus.NO_ALARM);
+            }
+            await(() -> dispatcher.getBatchesFailed() > 0);
+            assertEquals(3, dispatcher.getPendingAlerts("center"));
+        }
+        //the first bytes of an alert record that a crash cut short
+        Files.write(outboxDir.resolve("center.outbox"), new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+
+        try (AlertSinkStub sink = new AlertSinkStub(0, 0, 0, 42);
+             AlertDispatcher dispatcher = dispatcher(outboxDir, sink.getUri(), 1024)) {
+            assertEquals(3, dispatcher.getPendingAlerts("center"));
+            dispatcher.start();
+            dispatcher.notify(AlarmStatus.ALARM);
+
+            await(() -> dispatcher.getPendingAlerts("center") == 0);
+            assertEquals(ids(1, 4), sink.getReceivedIds());
+        }
+        try (AlertDispatcher dispatcher = dispatcher(outboxDir, unreachable, 1024)) {
+            assertEquals(0, dispatcher.getPendingAlerts("center"));
+        }
+    }
+
+    @Test
+    @DisplayName("A sink that takes half a second per request never slows down or blocks the caller of notify.")
+    void slowSink_notifyNeverBlocks() throws Exception {
+        Path outboxDir = Files.createTempDirectory("outbox");
+        try (AlertSinkStub sink = new AlertSinkStub(0, 500, 0, 42);
+             AlertDispatcher dispatcher = dispatcher(outboxDir, sink.getUri(), 16)) {
+            dispatcher.start();
+            long start = System.nanoTime();
+            for (int i = 0; i < 10_000; i++) {
+                dispatcher.notify(i % 2 == 0 ? AlarmStatus.PENDING_ALARM : AlarmStatus.ALARM);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(elapsedMillis < 500, "notify took " + elapsedMillis + " ms");
+            assertEquals(10_000, dispatcher.getAlertsQueued() + dispatcher.getAlertsDropped());
+            assertEquals(0, sink.getReceivedIds().size());
+        }
+    }
+
+    @Test
+    @DisplayName("When an outbox cannot be written the dispatcher stops, rejects later alerts and reports the failure on close.")
+    void outboxFailure_rejectsAlertsVisibly() throws Exception {
+        Path outboxDir = Files.createTempDirectory("outbox");
+        //an outbox already past the compaction size, whose compacted copy cannot be created
+        ByteBuffer acks = ByteBuffer.allocate((int) AlertOutbox.COMPACT_BYTES + 9);
+        for (long id = 1; acks.remaining() >= 9; id++) {
+            acks.put((byte) 2).putLong(id);
+        }
+        Files.write(outboxDir.resolve("center.outbox"), acks.array());
+        Files.createDirectory(outboxDir.resolve("center.outbox.tmp"));
+
+        AlertDispatcher dispatcher;
+        try (AlertSinkStub sink = new AlertSinkStub(0, 0, 0, 42)) {
+            dispatcher = dispatcher(outboxDir, sink.getUri(), 1024);
+            dispatcher.start();
+            dispatcher.notify(AlarmStatus.PENDING_ALARM);
+            await(dispatcher::isFailed);
+            assertTrue(dispatcher.isFailed());
+            assertEquals(1, sink.getReceivedIds().size());
+
+            dispatcher.notify(AlarmStatus.ALARM);
+            assertEquals(1, dispatcher.getAlertsQueued());
+            assertEquals(1, dispatcher.getAlertsRejected());
+        }
+        IOException thrown = assertThrows(IOException.class, dispatcher::close);
+        assertSame(dispatcher.getFailure(), thrown);
+    }
+
+    private static AlertDispatcher dispatcher(Path outboxDir, URI uri, int queueCapacity) throws IOException {
+        return new AlertDispatcher(outboxDir, List.of(new AlertDestination("center", uri)), queueCapacity, 16,
+                Duration.ofMillis(5), Duration.ofMillis(50), Duration.ofSeconds(2));
+    }
+
+    private static List<Long> ids(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().collect(Collectors.toList());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.udacity.catpoint.security.data;
+
+import com.google.gson.Gson;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.prefs.Preferences;
+
+/**
+ * Compares JdbcSecurityRepositoryImpl on an H2 file with PretendDatabaseSecurityRepositoryImpl at
+ * 1k and 100k sensors: adding them, reopening, toggling single sensors and resetting them all the
+ * way arming does, with one sensor in a hundred active. Not run as part of the test suite; start it with main().
+ *
+ * The preferences store refuses values over Preferences.MAX_VALUE_LENGTH characters, which the JSON
+ * of either fleet exceeds, so for it the benchmark reports how many sensors it can hold and times
+ * serializing the whole sensor set, which it would do on every single change if the store let it.
+ */
+public class JdbcRepositoryBenchmark {
+
+    private static final int TOGGLES = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        for (int sensors : new int[] {1_000, 100_000}) {
+            String url = "jdbc:h2:file:" + Files.createTempDirectory("catpoint") + "/catpoint";
+            run("jdbc", sensors, () -> open(url));
+            run("jdbc", sensors, () -> open(url));
+
+            serializeOnly(sensors);
+        }
+        System.out.printf("prefs: refuses to store more than %d sensors%n", prefsCapacity());
+    }
+
+    /**
+     * How many sensors PretendDatabaseSecurityRepositoryImpl can add before the preferences store
+     * rejects the JSON.
+     */
+    private static int prefsCapacity() throws Exception {
+        Preferences prefs = Preferences.userRoot().node("catpoint-benchmark");
+        try {
+            SecurityRepository repository = new PretendDatabaseSecurityRepositoryImpl(prefs);
+            int added = 0;
+            try {
+                for (Sensor sensor : sensors(1_000)) {
+                    repository.addSensor(sensor);
+                    added++;
+                }
+            } catch (IllegalArgumentException e) {
+                return added;
+            }
+            return added;
+        } finally {
+            prefs.removeNode();
+        }
+    }
+
+    private static JdbcSecurityRepositoryImpl open(String url) {
+        try {
+            return new JdbcSecurityRepositoryImpl(url);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Fills the repository if it is empty, then reopens it and times single and bulk changes.
+     */
+    private static void run(String name, int count, Supplier<SecurityRepository> opener) throws Exception {
+        SecurityRepository repository = opener.get();
+        long addNanos = 0;
+        if (repository.getSensors().isEmpty()) {
+            long start = System.nanoTime();
+            for (Sensor sensor : sensors(count)) {
+                repository.addSensor(sensor);
+            }
+            addNanos = System.nanoTime() - start;
+        }
+        close(repository);
+
+        long start = System.nanoTime();
+        repository = opener.get();
+        long openNanos = System.nanoTime() - start;
+
+        List<Sensor> sensors = new ArrayList<>(repository.getSensors());
+        Random random = new Random(1);
+        start = System.nanoTime();
+        for (int i = 0; i < TOGGLES; i++) {
+            Sensor sensor = sensors.get(random.nextInt(sensors.size()));
+            sensor.setActive(!sensor.getActive());
+            repository.updateSensor(sensor);
+        }
+        long toggleNanos = System.nanoTime() - start;
+
+        //arming resets every sensor, of which typically only a few are active
+        for (int i = 0; i < sensors.size(); i += 100) {
+            sensors.get(i).setActive(true);
+        }
+        repository.updateSensors(sensors);
+        for (Sensor sensor : sensors) {
+            sensor.setActive(false);
+        }
+        start = System.nanoTime();
+        repository.updateSensors(sensors);
+        long resetNanos = System.nanoTime() - start;
+        close(repository);
+
+        System.out.printf("%s %,d sensors: add %s, reopen %,d ms, %,d us per single change, arming reset %,d ms%n",
+                name, count, addNanos == 0 ? "(already stored)" : String.format("%,d ms", addNanos / 1_000_000),
+                openNanos / 1_000_000, toggleNanos / TOGGLES / 1_000, resetNanos / 1_000_000);
+    }
+
+    private static void serializeOnly(int count) {
+        Gson gson = new Gson();
+        List<Sensor> sensors = sensors(count);
+        int rounds = Math.max(10, 1_000_000 / count);
+        long start = System.nanoTime();
+        long chars = 0;
+        for (int i = 0; i < rounds; i++) {
+            chars += gson.toJson(sensors).length();
+        }
+        System.out.printf("prefs %,d sensors: serializing the set for each change takes %,d us and %,d KB%n",
+                count, (System.nanoTime() - start) / rounds / 1_000, chars / rounds / 1024);
+    }
+
+    private static List<Sensor> sensors(int count) {
+        List<Sensor> sensors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sensors.add(new Sensor("sensor " + i, SensorType.values()[i % SensorType.values().length]));
+        }
+        return sensors;
+    }
+
+    private static void close(SecurityRepository repository) throws Exception {
+        if (repository instanceof AutoCloseable) {
+            ((AutoCloseable) repository).close();
+        }
+    }
+}
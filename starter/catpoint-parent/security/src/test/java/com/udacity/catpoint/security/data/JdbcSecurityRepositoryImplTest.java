@@ -0,0 +1,125 @@
+package com.udacity.catpoint.security.data;
+
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcSecurityRepositoryImplTest {
+
+    @Test
+    @DisplayName("Sensors, their state and the alarm and arming status survive reopening the database.")
+    void stateSurvivesReopen() throws Exception {
+        String url = "jdbc:h2:file:" + Files.createTempDirectory("catpoint") + "/catpoint";
+        List<String> expectedSensors;
+        try (JdbcSecurityRepositoryImpl repository = new JdbcSecurityRepositoryImpl(url)) {
+            SecurityService securityService = new SecurityService(repository, new FakeImageService());
+            List<Sensor> sensors = addSensors(securityService, 5);
+            securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+            securityService.changeSensorActivationStatus(sensors.get(1), true);
+            securityService.removeSensor(sensors.get(4));
+            assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+            expectedSensors = describe(repository);
+        }
+
+        try (JdbcSecurityRepositoryImpl repository = new JdbcSecurityRepositoryImpl(url)) {
+            assertEquals(AlarmStatus.PENDING_ALARM, repository.getAlarmStatus());
+            assertEquals(ArmingStatus.ARMED_HOME, repository.getArmingStatus());
+            assertEquals(expectedSensors, describe(repository));
+            assertEquals(4, repository.getSensors().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Arming resets every sensor row in one batch, and sensors that did not change are not written.")
+    void arming_resetsSensorsInOneBatch() throws Exception {
+        String url = "jdbc:h2:file:" + Files.createTempDirectory("catpoint") + "/catpoint";
+        try (JdbcSecurityRepositoryImpl repository = new JdbcSecurityRepositoryImpl(url);
+             Connection connection = DriverManager.getConnection(url)) {
+            SecurityService securityService = new SecurityService(repository, new FakeImageService());
+            List<Sensor> sensors = addSensors(securityService, 200);
+            for (int i = 0; i < sensors.size(); i += 2) {
+                securityService.changeSensorActivationStatus(sensors.get(i), true);
+            }
+            assertEquals(100, countActiveRows(connection));
+
+            securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            assertEquals(0, countActiveRows(connection));
+            assertTrue(repository.getSensors().stream().noneMatch(Sensor::getActive));
+
+            //a sensor changed behind the repository's back is still written once it is updated
+            Sensor sensor = sensors.get(7);
+            sensor.setActive(true);
+            repository.updateSensors(List.of(sensor, sensors.get(8)));
+            assertEquals(1, countActiveRows(connection));
+            assertFalse(sensors.get(8).getActive());
+        }
+    }
+
+    @Test
+    @DisplayName("The in-memory sensors only change once the database has the row, and unknown sensors are inserted on update.")
+    void cacheFollowsDatabase() throws Exception {
+        String url = "jdbc:h2:file:" + Files.createTempDirectory("catpoint") + "/catpoint";
+        try (JdbcSecurityRepositoryImpl repository = new JdbcSecurityRepositoryImpl(url);
+             Connection connection = DriverManager.getConnection(url)) {
+            //longer than the name column allows, so the insert fails
+            Sensor rejected = new Sensor("x".repeat(300), SensorType.DOOR);
+            assertThrows(IllegalStateException.class, () -> repository.addSensor(rejected));
+            assertThrows(IllegalStateException.class, () -> repository.updateSensor(rejected));
+            assertThrows(IllegalStateException.class, () -> repository.updateSensors(List.of(rejected)));
+            assertTrue(repository.getSensors().isEmpty());
+
+            Sensor unknown = new Sensor("never added", SensorType.WINDOW);
+            unknown.setActive(true);
+            repository.updateSensor(unknown);
+            Sensor unknownInBatch = new Sensor("never added either", SensorType.MOTION);
+            unknownInBatch.setActive(true);
+            repository.updateSensors(List.of(unknownInBatch, unknown, unknownInBatch));
+            assertEquals(2, countActiveRows(connection));
+            assertEquals(2, repository.getSensors().size());
+        }
+    }
+
+    private static List<Sensor> addSensors(SecurityService securityService, int count) {
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Sensor sensor = new Sensor("sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            sensor.setZone(i % 4);
+            if (i % 5 == 0) {
+                sensor.setThreshold(0.25f * i);
+            }
+            securityService.addSensor(sensor);
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    private static int countActiveRows(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM sensors WHERE active")) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+
+    private static List<String> describe(SecurityRepository repository) {
+        return repository.getSensors().stream()
+                .map(s -> s.getSensorId() + " " + s.getName() + " " + s.getSensorType() + " " + s.getActive() + " " + s.getZone()
+                        + " " + s.getThreshold())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,125 @@
+package com.udacity.catpoint.security.history;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventHistoryTest {
+
+    private long now;
+
+    @Test
+    @DisplayName("The ring keeps only the newest entries, and range queries return exactly the entries in the range.")
+    void ringOverwritesOldest_rangeQueriesUseTimestamps() {
+        EventHistory history = new EventHistory(100, null, () -> now);
+        for (int i = 0; i < 250; i++) {
+            now = i * 10L;
+            history.record(HistoryEventType.SENSOR_ACTIVATED, i, 0);
+        }
+
+        assertEquals(100, history.size());
+        assertEquals(250, history.getRecorded());
+        assertEquals(150, history.getSensorSlot(0));
+        assertEquals(2490, history.getTimestamp(99));
+
+        List<Integer> slots = new ArrayList<>();
+        assertEquals(20, history.forEachInRange(2000, 2200, (t, type, slot, value) -> slots.add(slot)));
+        assertEquals(200, (int) slots.get(0));
+        assertEquals(219, (int) slots.get(19));
+        assertEquals(100, history.forEachInRange(0, Long.MAX_VALUE, (t, type, slot, value) -> {}));
+        assertEquals(0, history.forEachInRange(2500, 3000, (t, type, slot, value) -> {}));
+    }
+
+    @Test
+    @DisplayName("Timestamps never go backwards, even if the clock does.")
+    void clockGoesBackwards_timestampsStayOrdered() {
+        EventHistory history = new EventHistory(10, null, () -> now);
+        now = 1000;
+        history.record(HistoryEventType.CAT_DETECTION, EventHistory.NO_SENSOR, 1);
+        now = 400;
+        history.record(HistoryEventType.CAT_DETECTION, EventHistory.NO_SENSOR, 0);
+        assertEquals(1000, history.getTimestamp(1));
+        assertEquals(2, history.forEachInRange(1000, 1001, (t, type, slot, value) -> {}));
+    }
+
+    @Test
+    @DisplayName("Entries evicted from memory are spilled to disk and still found by range queries.")
+    void evictedEntriesSpilled_queriesSpanDiskAndMemory() throws Exception {
+        Path spill = Files.createTempFile("history", ".bin");
+        try (EventHistory history = new EventHistory(1000, spill, () -> now)) {
+            for (int i = 0; i < 20_000; i++) {
+                now = i;
+                history.record(HistoryEventType.SENSOR_DEACTIVATED, i, i & 0x7f);
+            }
+            List<Long> times = new ArrayList<>();
+            assertEquals(2500, history.forEachInRange(17_500, 20_500, (t, type, slot, value) -> {
+                times.add(t);
+                assertEquals(HistoryEventType.SENSOR_DEACTIVATED, type);
+                assertEquals((int) t, slot);
+                assertEquals(slot & 0x7f, value);
+            }));
+            assertEquals(17_500L, (long) times.get(0));
+            assertEquals(19_999L, (long) times.get(times.size() - 1));
+            assertEquals(10, history.forEachInRange(500, 510, (t, type, slot, value) -> {}));
+        } finally {
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    @Test
+    @DisplayName("The security service records why the alarm status changed, just before the change itself.")
+    void securityService_recordsCauseBeforeAlarmChange() {
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+        EventHistory history = new EventHistory(16, null, () -> now);
+        securityService.setEventHistory(history);
+        Sensor door = new Sensor("door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        securityService.changeSensorActivationStatus(door, true);
+
+        List<String> entries = new ArrayList<>();
+        history.forEachInRange(0, 1, (t, type, slot, value) -> entries.add(type + " " + slot + " " + value));
+        int doorSlot = securityService.getSensorRegistry().slotOf(door.getSensorId());
+        assertEquals(List.of(
+                "SENSOR_ADDED " + doorSlot + " 0",
+                "ARMING_STATUS_CHANGED -1 " + ArmingStatus.ARMED_AWAY.ordinal(),
+                "SENSOR_ACTIVATED " + doorSlot + " 0",
+                "ALARM_STATUS_CHANGED -1 " + AlarmStatus.PENDING_ALARM.ordinal()), entries);
+    }
+
+    @Test
+    @DisplayName("Zone arming changes keep their zone through memory and the spill file.")
+    void zoneArmingChange_roundTripsZone() throws Exception {
+        Path spill = Files.createTempFile("history", ".bin");
+        try (EventHistory history = new EventHistory(2, spill, () -> now)) {
+            SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+            securityService.setEventHistory(history);
+            securityService.setZoneArmingStatus(5, ArmingStatus.ARMED_AWAY);
+            securityService.setZoneArmingStatus(31, ArmingStatus.ARMED_HOME);
+            securityService.setZoneArmingStatus(17, ArmingStatus.DISARMED);
+
+            List<String> entries = new ArrayList<>();
+            history.forEachInRange(0, 1, (t, type, slot, value) -> {
+                if (type == HistoryEventType.ZONE_ARMING_STATUS_CHANGED) {
+                    entries.add(slot + " " + ArmingStatus.values()[value]);
+                }
+            });
+            assertEquals(List.of("5 ARMED_AWAY", "31 ARMED_HOME", "17 DISARMED"), entries);
+        } finally {
+            Files.deleteIfExists(spill);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.udacity.catpoint.security.history;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Records a day of 1 Hz readings from many simulated sensors and reports the memory the history
+ * needs per sensor and per reading, extrapolated to 100,000 sensors, and how long range queries
+ * take. Each kind of sensor is measured on its own, since what it costs depends entirely on how
+ * often its readings change:
+ * <ul>
+ *   <li>motion: intensity 0 except for a dozen bursts of noisy readings a day</li>
+ *   <li>temperature: 0.1 degree steps that change every few minutes</li>
+ *   <li>contact: bounce counts, almost always 0</li>
+ *   <li>noisy: a 12-bit value that changes every second, the worst case</li>
+ * </ul>
+ * Readings arrive up to 200 ms late and one in a thousand is lost. Run with the number of sensors
+ * per kind as the argument; 2000 by default.
+ */
+public class ReadingHistoryBenchmark {
+
+    private static final int DAY = 86_400;
+    private static final long START = 1_700_006_400_000L;
+    private static final String[] KINDS = {"motion", "temperature", "contact", "noisy"};
+
+    public static void main(String[] args) {
+        int sensors = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        double[] bytesPerSensor = new double[KINDS.length];
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            int count = kind == 3 ? Math.max(1, sensors / 10) : sensors;
+            ReadingHistory history = new ReadingHistory(1000, Duration.ofHours(2), Duration.ofDays(1), () -> 0);
+            Random random = new Random(kind);
+            float[] state = new float[count];
+            long begin = System.nanoTime();
+            long recorded = 0;
+            for (int second = 0; second < DAY; second++) {
+                for (int sensor = 0; sensor < count; sensor++) {
+                    if (random.nextInt(1000) == 0) {
+                        continue;
+                    }
+                    history.record(sensor, START + second * 1000L + random.nextInt(200), next(kind, state, sensor, second, random));
+                    recorded++;
+                }
+            }
+            long nanos = System.nanoTime() - begin;
+            bytesPerSensor[kind] = (double) history.getMemoryBytes() / count;
+            System.out.printf("%-12s %,d sensors: %,.0f bytes per sensor-day, %.3f bytes per reading, %.0f ns per reading recorded%n",
+                    KINDS[kind], count, bytesPerSensor[kind], (double) history.getMemoryBytes() / recorded,
+                    (double) nanos / recorded);
+            query(history, count);
+        }
+        double mixed = 0.5 * bytesPerSensor[0] + 0.3 * bytesPerSensor[1] + 0.2 * bytesPerSensor[2];
+        System.out.printf("100,000 sensors, half motion, 30%% temperature, 20%% contact: %,.0f MB%n", mixed * 100_000 / 1e6);
+        System.out.printf("100,000 noisy sensors: %,.0f MB%n", bytesPerSensor[3] * 100_000 / 1e6);
+    }
+
+    private static float next(int kind, float[] state, int sensor, int second, Random random) {
+        switch (kind) {
+            case 0 -> {
+                //a burst of about a minute, every two hours or so
+                if (state[sensor] > 0) {
+                    state[sensor]--;
+                    return Math.round(random.nextFloat() * 100) / 100f;
+                }
+                if (random.nextInt(7200) == 0) {
+                    state[sensor] = 60;
+                }
+                return 0;
+            }
+            case 1 -> {
+                if (second == 0) {
+                    state[sensor] = 200 + random.nextInt(50);
+                } else if (random.nextInt(300) == 0) {
+                    state[sensor] += random.nextBoolean() ? 1 : -1;
+                }
+                return state[sensor] / 10f;
+            }
+            case 2 -> {
+                return random.nextInt(5000) == 0 ? 1 + random.nextInt(3) : 0;
+            }
+            default -> {
+                return random.nextInt(4096) / 4095f * 100;
+            }
+        }
+    }
+
+    private static void query(ReadingHistory history, int sensors) {
+        Random random = new Random(1);
+        long[] result = new long[1];
+        int queries = 2000;
+        for (long step : new long[] {60_000, Duration.ofHours(2).toMillis()}) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                history.downsample(random.nextInt(sensors), START, START + DAY * 1000L, step,
+                        (bucketStart, count, min, max, mean) -> result[0] += count);
+            }
+            System.out.printf("    day in %d-minute buckets: %.1f us per query%n", step / 60_000,
+                    (System.nanoTime() - begin) / 1e3 / queries);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            long from = START + random.nextInt(DAY - 3600) * 1000L;
+            history.readings(random.nextInt(sensors), from, from + 3_600_000, (t, v) -> result[0]++);
+        }
+        System.out.printf("    raw readings of one hour: %.1f us per query%n", (System.nanoTime() - begin) / 1e3 / queries);
+        if (result[0] == 0) {
+            throw new IllegalStateException("Queries found nothing");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.udacity.catpoint.security.history;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadingHistoryTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private long now;
+
+    @Test
+    @DisplayName("Readings come back exactly as recorded, through jitter, gaps, repeats and arbitrary floats.")
+    void readingsRoundTrip_anyRange() {
+        ReadingHistory history = new ReadingHistory(1000, Duration.ofHours(2), Duration.ofDays(365), () -> now);
+        Random random = new Random(44);
+        List<String> expected = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        long time = 1_700_000_000_000L;
+        float value = 20;
+        for (int i = 0; i < 50_000; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                time += 1000;
+            } else if (kind < 8) {
+                time += 1000 + random.nextInt(3) * 1000 - 1000;
+                value += (random.nextInt(5) - 2) * 0.1f;
+            } else if (kind < 9) {
+                time += random.nextInt(600) * 1000L;
+                value = random.nextFloat() * 1000 - 500;
+            } else {
+                value = Float.intBitsToFloat(random.nextInt());
+                time += 1000;
+            }
+            if (i % 5000 == 0) {
+                //a long stretch of identical readings
+                for (int j = 0; j < 3000; j++, time += 1000) {
+                    assertTrue(history.record(3, time, value));
+                    expected.add(reading(time, value));
+                    times.add(time);
+                }
+            }
+            assertTrue(history.record(3, time, value));
+            expected.add(reading(time, value));
+            times.add(time);
+        }
+        assertFalse(history.record(3, time - 1000, 1));
+        assertEquals(1, history.getRefused());
+
+        assertEquals(expected, readings(history, Long.MIN_VALUE, Long.MAX_VALUE));
+        for (int q = 0; q < 50; q++) {
+            long from = times.get(random.nextInt(times.size())) - random.nextInt(5000);
+            long to = from + random.nextInt(10) * HOUR;
+            List<String> inRange = new ArrayList<>();
+            for (int i = 0; i < expected.size(); i++) {
+                if (times.get(i) >= from && times.get(i) <= to) {
+                    inRange.add(expected.get(i));
+                }
+            }
+            assertEquals(inRange, readings(history, from, to));
+        }
+        assertEquals(0, history.size(4));
+    }
+
+    @Test
+    @DisplayName("Downsampled buckets match the raw readings, whether chunks are decoded or summarized.")
+    void downsample_matchesRawReadings() {
+        ReadingHistory history = new ReadingHistory(1000, Duration.ofHours(2), Duration.ofDays(7), () -> now);
+        Random random = new Random(45);
+        long start = 1_700_006_400_000L;
+        for (int i = 0; i < 3 * 86_400; i++) {
+            float reading = random.nextInt(20) == 0 ? random.nextInt(100) : 0;
+            history.record(0, start + i * 1000L, reading);
+        }
+
+        for (long step : new long[] {60_000, HOUR, 2 * HOUR, 24 * HOUR}) {
+            long from = start - start % (2 * HOUR);
+            long to = from + 3 * 24 * HOUR - 1;
+            List<String> buckets = new ArrayList<>();
+            long covered = history.downsample(0, from, to, step,
+                    (bucketStart, count, min, max, mean) -> buckets.add(bucket(bucketStart, count, min, max, mean)));
+
+            List<String> raw = new ArrayList<>();
+            long[] bucketStart = {Long.MIN_VALUE};
+            List<Float> values = new ArrayList<>();
+            history.readings(0, from, to, (t, v) -> {
+                long bucket = from + (t - from) / step * step;
+                if (bucket != bucketStart[0] && !values.isEmpty()) {
+                    raw.add(bucket(bucketStart[0], values));
+                    values.clear();
+                }
+                bucketStart[0] = bucket;
+                values.add(v);
+            });
+            raw.add(bucket(bucketStart[0], values));
+            assertEquals(raw, buckets, "step " + step);
+            assertEquals(3 * 86_400, covered);
+        }
+    }
+
+    @Test
+    @DisplayName("Chunks older than the retention are dropped as new readings arrive.")
+    void retention_dropsWholeOldChunks() {
+        ReadingHistory history = new ReadingHistory(1000, Duration.ofHours(1), Duration.ofHours(6), () -> now);
+        for (long t = 0; t < 24 * HOUR; t += 1000) {
+            history.record(1, t, t % 7);
+        }
+
+        //a chunk goes once its last reading is older than the retention, when the next one starts
+        assertEquals(17 * HOUR, history.getFirstTimestampMillis(1));
+        assertEquals(7 * 3600, history.size(1));
+        long memory = history.getMemoryBytes();
+        for (long t = 24 * HOUR; t < 48 * HOUR; t += 1000) {
+            history.record(1, t, t % 7);
+        }
+        assertEquals(7 * 3600, history.size(1));
+        assertTrue(history.getMemoryBytes() <= memory * 1.5, memory + " grew to " + history.getMemoryBytes());
+        history.clear(1);
+        assertEquals(0, history.size(1));
+    }
+
+    @Test
+    @DisplayName("An analog sensor is activated by readings at or above its threshold, and every reading is kept.")
+    void securityService_thresholdDerivesActiveState() {
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+        ReadingHistory history = new ReadingHistory(1000, Duration.ofHours(2), Duration.ofDays(1), () -> now);
+        securityService.setReadingHistory(history);
+        Sensor motion = new Sensor("hall motion", SensorType.MOTION);
+        motion.setThreshold(0.6f);
+        securityService.addSensor(motion);
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        int slot = securityService.getSensorRegistry().slotOf(motion.getSensorId());
+
+        float[] readings = {0.1f, 0.3f, 0.59f, 0.6f, 0.9f, 0.2f};
+        for (int i = 0; i < readings.length; i++) {
+            now = i * 1000L;
+            securityService.sensorReading(motion, readings[i]);
+            assertEquals(readings[i] >= 0.6f, motion.getActive(), "after " + readings[i]);
+            assertEquals(i == 3 || i == 4 ? AlarmStatus.PENDING_ALARM : AlarmStatus.NO_ALARM,
+                    securityService.getAlarmStatus(), "after " + readings[i]);
+        }
+
+        assertEquals(0.2f, motion.getReading());
+        List<Float> kept = new ArrayList<>();
+        history.readings(slot, 0, now, (t, v) -> kept.add(v));
+        assertEquals(List.of(0.1f, 0.3f, 0.59f, 0.6f, 0.9f, 0.2f), kept);
+    }
+
+    private static List<String> readings(ReadingHistory history, long from, long to) {
+        List<String> readings = new ArrayList<>();
+        history.readings(3, from, to, (t, v) -> readings.add(reading(t, v)));
+        return readings;
+    }
+
+    private static String reading(long time, float value) {
+        return time + ": " + Integer.toHexString(Float.floatToIntBits(value));
+    }
+
+    private static String bucket(long start, int count, float min, float max, double mean) {
+        return String.format("%d: %d readings in [%s, %s], mean %.4f", start, count, min, max, mean);
+    }
+
+    private static String bucket(long start, List<Float> values) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (float value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        return bucket(start, values.size(), min, max, sum / values.size());
+    }
+}
@@ -0,0 +1,135 @@
+package com.udacity.catpoint.security.ingest;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorEventServerTest {
+
+    @Test
+    @DisplayName("Frames split across writes are reassembled and applied to the security service; unknown sensors are dropped.")
+    void framesSplitAcrossWrites_appliedToSecurityService() throws Exception {
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+        Sensor door = new Sensor("door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+
+        SecurityServiceEventHandler handler = new SecurityServiceEventHandler(securityService);
+        try (SensorEventServer server = new SensorEventServer(new InetSocketAddress("127.0.0.1", 0), handler, 4)) {
+            server.start();
+
+            ByteBuffer frames = ByteBuffer.allocate(SensorEventFrame.SIZE * 2);
+            SensorEventFrame.write(frames, UUID.randomUUID(), true, 1);
+            SensorEventFrame.write(frames, door.getSensorId(), true, 2);
+            frames.flip();
+
+            try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+                //write the frames in awkward pieces so the server has to keep partial frames around
+                for (int cut : new int[]{7, 30, SensorEventFrame.SIZE * 2}) {
+                    ByteBuffer piece = frames.duplicate();
+                    piece.limit(cut);
+                    channel.write(piece);
+                    frames.position(cut);
+                    Thread.sleep(20);
+                }
+            }
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (handler.getEventsApplied() + handler.getUnknownSensorEvents() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertEquals(1, handler.getEventsApplied());
+        assertEquals(1, handler.getUnknownSensorEvents());
+        assertTrue(door.getActive());
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    @DisplayName("A handler that throws loses only that batch; the ingest thread keeps delivering later events.")
+    void handlerThrows_laterEventsStillDelivered() throws Exception {
+        IllegalStateException boom = new IllegalStateException("boom");
+        int[] delivered = new int[1];
+        SensorEventHandler handler = batch -> {
+            if (delivered[0]++ == 0) {
+                throw boom;
+            }
+        };
+        try (SensorEventServer server = new SensorEventServer(new InetSocketAddress("127.0.0.1", 0), handler, 1)) {
+            server.start();
+
+            try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+                for (int i = 0; i < 3; i++) {
+                    ByteBuffer frame = ByteBuffer.allocate(SensorEventFrame.SIZE);
+                    SensorEventFrame.write(frame, UUID.randomUUID(), true, i);
+                    frame.flip();
+                    channel.write(frame);
+                }
+
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (server.getBatchesDelivered() < 3 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+            }
+
+            assertEquals(3, server.getBatchesDelivered());
+            assertEquals(3, server.getEventsReceived());
+            assertEquals(1, server.getHandlerFailures());
+            assertSame(boom, server.getLastFailure());
+        }
+    }
+
+    @Test
+    @DisplayName("A frame with an unknown state closes only its own connection; the frames before it and other devices still get through.")
+    void badFrame_closesOnlyThatConnection() throws Exception {
+        int[] events = new int[1];
+        SensorEventHandler handler = batch -> events[0] += batch.size();
+        try (SensorEventServer server = new SensorEventServer(new InetSocketAddress("127.0.0.1", 0), handler)) {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+
+            try (SocketChannel good = SocketChannel.open(address); SocketChannel bad = SocketChannel.open(address)) {
+                ByteBuffer frames = ByteBuffer.allocate(SensorEventFrame.SIZE * 3);
+                SensorEventFrame.write(frames, UUID.randomUUID(), true, 1);
+                frames.putLong(1).putLong(2).putLong(2).put((byte) 7);
+                SensorEventFrame.write(frames, UUID.randomUUID(), false, 3);
+                frames.flip();
+                bad.write(frames);
+
+                //the server hangs up on the bad connection
+                assertEquals(-1, bad.read(ByteBuffer.allocate(1)));
+
+                ByteBuffer frame = ByteBuffer.allocate(SensorEventFrame.SIZE);
+                SensorEventFrame.write(frame, UUID.randomUUID(), true, 1);
+                frame.flip();
+                good.write(frame);
+
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (server.getEventsReceived() < 2 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(1, server.getOpenConnections());
+            }
+
+            assertEquals(1, server.getBadFrames());
+            assertEquals(2, server.getEventsReceived());
+            assertEquals(2, events[0]);
+        }
+    }
+}
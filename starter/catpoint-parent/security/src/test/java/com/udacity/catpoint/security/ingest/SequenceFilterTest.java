@@ -0,0 +1,102 @@
+package com.udacity.catpoint.security.ingest;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceFilterTest {
+
+    private final Sensor door = new Sensor("door", SensorType.DOOR);
+
+    @Test
+    @DisplayName("Resent events are dropped and counted as duplicates.")
+    void resentEvents_droppedAsDuplicates() {
+        SequenceFilter filter = new SequenceFilter();
+        assertTrue(filter.accept(0, door, 10));
+        assertFalse(filter.accept(0, door, 10));
+        assertTrue(filter.accept(0, door, 11));
+        assertFalse(filter.accept(0, door, 10));
+        assertFalse(filter.accept(0, door, 11));
+
+        assertEquals(2, filter.getEventsAccepted());
+        assertEquals(3, filter.getDuplicateEvents());
+        assertEquals(0, filter.getStaleEvents());
+    }
+
+    @Test
+    @DisplayName("Events that arrive out of order inside the window are accepted once; older ones are stale.")
+    void outOfOrderEvents_acceptedInsideWindow() {
+        SequenceFilter filter = new SequenceFilter(8);
+        assertTrue(filter.accept(3, door, 100));
+        assertTrue(filter.accept(3, door, 105));
+        assertTrue(filter.accept(3, door, 103));
+        assertTrue(filter.accept(3, door, 98));
+        assertFalse(filter.accept(3, door, 103));
+        assertFalse(filter.accept(3, door, 100));
+        assertFalse(filter.accept(3, door, 97));
+
+        assertEquals(4, filter.getEventsAccepted());
+        assertEquals(2, filter.getDuplicateEvents());
+        assertEquals(1, filter.getStaleEvents());
+    }
+
+    @Test
+    @DisplayName("A jump past the window forgets what was seen, and a new sensor in a reused slot starts afresh.")
+    void jumpsAndSlotReuse_resetState() {
+        SequenceFilter filter = new SequenceFilter();
+        assertTrue(filter.accept(0, door, 1));
+        assertTrue(filter.accept(0, door, 1_000));
+        assertTrue(filter.accept(0, door, 999));
+        assertFalse(filter.accept(0, door, 1));
+
+        Sensor window = new Sensor("window", SensorType.WINDOW);
+        assertTrue(filter.accept(0, window, 1));
+        assertFalse(filter.accept(0, window, 1));
+        //slots far beyond the initial capacity are fine too
+        assertTrue(filter.accept(5_000, door, 1));
+    }
+
+    @Test
+    @DisplayName("With a filter, duplicate frames never reach the state machine or the repository.")
+    void handlerWithFilter_duplicatesNeverReachRepository() {
+        int[] repositoryWrites = new int[1];
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl() {
+            @Override
+            public void updateSensor(Sensor sensor) {
+                repositoryWrites[0]++;
+                super.updateSensor(sensor);
+            }
+        }, new FakeImageService());
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        repositoryWrites[0] = 0;
+        SequenceFilter filter = new SequenceFilter();
+        SecurityServiceEventHandler handler = new SecurityServiceEventHandler(securityService, null, filter);
+
+        long msb = door.getSensorId().getMostSignificantBits();
+        long lsb = door.getSensorId().getLeastSignificantBits();
+        SensorEventBatch batch = new SensorEventBatch(8);
+        batch.add(msb, lsb, true, 1);
+        batch.add(msb, lsb, true, 1);
+        batch.add(msb, lsb, false, 2);
+        batch.add(msb, lsb, true, 1);
+        batch.add(msb, lsb, false, 2);
+        handler.onSensorEvents(batch);
+
+        assertEquals(2, handler.getEventsApplied());
+        assertEquals(3, filter.getDuplicateEvents());
+        assertEquals(2, repositoryWrites[0]);
+        assertFalse(door.getActive());
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+    }
+}
@@ -0,0 +1,137 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HomeStateTableTest {
+
+    private static final long HOME = 42L;
+
+    /**
+     * Image service whose answer is decided by the test.
+     */
+    private static class ScriptedImageService extends FakeImageService {
+        boolean nextResult;
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+            return nextResult;
+        }
+    }
+
+    @Test
+    @DisplayName("A compact home follows exactly the same alarm transitions as a SecurityService for the same events.")
+    void randomEvents_sameAlarmStatusAsSecurityService() {
+        runSameEventsOnBoth(0, 0);
+    }
+
+    @Test
+    @DisplayName("With entry and exit delays on a virtual clock, a compact home still matches a SecurityService.")
+    void randomEventsWithDelays_sameAlarmStatusAsSecurityService() {
+        runSameEventsOnBoth(3_000, 1_000);
+    }
+
+    private void runSameEventsOnBoth(long entryDelayMillis, long exitDelayMillis) {
+        ScriptedImageService imageService = new ScriptedImageService();
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), imageService);
+        securityService.setEntryDelay(Duration.ofMillis(entryDelayMillis));
+        securityService.setExitDelay(Duration.ofMillis(exitDelayMillis));
+        long now = securityService.getClockMillis();
+        HomeStateTable table = new HomeStateTable(null, entryDelayMillis, exitDelayMillis, now);
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+
+        Sensor[] sensors = new Sensor[4];
+        HomeEventBatch setup = new HomeEventBatch(0, 8);
+        for (int i = 0; i < sensors.length; i++) {
+            sensors[i] = new Sensor("s" + i, SensorType.values()[i % 3]);
+            securityService.addSensor(sensors[i]);
+            setup.addSensor(HOME, i);
+        }
+        table.apply(setup);
+
+        Random r = new Random(1234);
+        for (int step = 0; step < 50_000; step++) {
+            HomeEventBatch batch = new HomeEventBatch(0, 1);
+            int choice = r.nextInt(12);
+            if (choice >= 10) {
+                now += r.nextInt(2_000);
+                securityService.advanceClock(now);
+                table.advanceClock(now);
+            } else if (choice < 7) {
+                int i = r.nextInt(sensors.length);
+                boolean active = r.nextBoolean();
+                securityService.changeSensorActivationStatus(sensors[i], active);
+                batch.changeSensorActivationStatus(HOME, i, active);
+            } else if (choice < 9) {
+                ArmingStatus status = ArmingStatus.values()[r.nextInt(3)];
+                securityService.setArmingStatus(status);
+                batch.setArmingStatus(HOME, status);
+            } else {
+                imageService.nextResult = r.nextBoolean();
+                securityService.processImage(image);
+                batch.catDetected(HOME, imageService.nextResult);
+            }
+            table.apply(batch);
+            assertEquals(securityService.getAlarmStatus(), table.getAlarmStatus(HOME), "step " + step);
+        }
+    }
+
+    @Test
+    @DisplayName("Homes sharded across workers are independent of each other.")
+    void runtime_homesAreIndependent() throws Exception {
+        try (MultiHomeRuntime runtime = new MultiHomeRuntime(2)) {
+            runtime.start();
+            long armed = 1L;
+            long disarmed = 2L;
+            for (long home : new long[]{armed, disarmed}) {
+                HomeEventBatch batch = runtime.newBatch(runtime.shardOf(home));
+                batch.addSensor(home, 0);
+                if (home == armed) {
+                    batch.setArmingStatus(home, ArmingStatus.ARMED_AWAY);
+                }
+                batch.changeSensorActivationStatus(home, 0, true);
+                runtime.submit(batch);
+            }
+            assertEquals(AlarmStatus.PENDING_ALARM, runtime.getAlarmStatus(armed).get());
+            assertEquals(AlarmStatus.NO_ALARM, runtime.getAlarmStatus(disarmed).get());
+        }
+    }
+
+    @Test
+    @DisplayName("A batch that throws is skipped and counted; the shard keeps serving its other homes.")
+    void runtime_badBatch_skippedWorkerSurvives() throws Exception {
+        try (MultiHomeRuntime runtime = new MultiHomeRuntime(1)) {
+            runtime.start();
+            HomeEventBatch bad = runtime.newBatch(0);
+            bad.catDetected(HOME, true);
+            bad.ops[0] = 99;
+            runtime.submit(bad);
+
+            HomeEventBatch good = runtime.newBatch(0);
+            good.addSensor(HOME, 0);
+            good.setArmingStatus(HOME, ArmingStatus.ARMED_HOME);
+            good.changeSensorActivationStatus(HOME, 0, true);
+            runtime.submit(good);
+
+            assertEquals(AlarmStatus.PENDING_ALARM, runtime.getAlarmStatus(HOME).get(5, TimeUnit.SECONDS));
+            assertEquals(1, runtime.getFailed());
+            assertTrue(runtime.getLastFailure() instanceof IllegalArgumentException);
+            assertEquals(3, runtime.getEventsApplied());
+        }
+    }
+}
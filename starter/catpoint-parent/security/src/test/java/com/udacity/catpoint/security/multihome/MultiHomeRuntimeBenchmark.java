@@ -0,0 +1,110 @@
+package com.udacity.catpoint.security.multihome;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures event throughput of the MultiHomeRuntime at 100k homes for 1, 2, 4, ... shards up to
+ * the number of available cores, with one producer thread per shard. Not run as part of the
+ * test suite; start it with main(). Throughput should grow roughly linearly with the shard count
+ * until the machine runs out of cores.
+ */
+public class MultiHomeRuntimeBenchmark {
+
+    private static final int HOMES = 100_000;
+    private static final int SENSORS_PER_HOME = 4;
+    private static final long TOTAL_EVENTS = 20_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        run(1); //warm up
+        System.out.printf("%6s %16s %8s%n", "shards", "events/sec", "speedup");
+        double baseline = 0;
+        for (int shards = 1; shards <= cores; shards *= 2) {
+            double rate = run(shards);
+            if (shards == 1) {
+                baseline = rate;
+            }
+            System.out.printf("%6d %,16.0f %7.2fx%n", shards, rate, rate / baseline);
+        }
+    }
+
+    private static double run(int shardCount) throws Exception {
+        try (MultiHomeRuntime runtime = new MultiHomeRuntime(shardCount)) {
+            runtime.start();
+
+            //partition home ids by owning shard so each producer only feeds its own shard
+            List<List<Long>> homesByShard = new ArrayList<>();
+            for (int i = 0; i < shardCount; i++) {
+                homesByShard.add(new ArrayList<>());
+            }
+            for (long home = 0; home < HOMES; home++) {
+                homesByShard.get(runtime.shardOf(home)).add(home);
+            }
+            for (int shard = 0; shard < shardCount; shard++) {
+                HomeEventBatch batch = runtime.newBatch(shard);
+                for (long home : homesByShard.get(shard)) {
+                    for (int s = 0; s < SENSORS_PER_HOME; s++) {
+                        if (batch.isFull()) {
+                            runtime.submit(batch);
+                            batch = runtime.newBatch(shard);
+                        }
+                        batch.addSensor(home, s);
+                    }
+                }
+                runtime.submit(batch);
+            }
+
+            long before = runtime.getEventsApplied();
+            List<Thread> producers = new ArrayList<>();
+            for (int shard = 0; shard < shardCount; shard++) {
+                long[] homes = homesByShard.get(shard).stream().mapToLong(Long::longValue).toArray();
+                int owner = shard;
+                producers.add(new Thread(() -> produce(runtime, owner, homes)));
+            }
+            long start = System.nanoTime();
+            producers.forEach(Thread::start);
+            for (Thread t : producers) {
+                t.join();
+            }
+            long target = before + TOTAL_EVENTS / shardCount * shardCount;
+            while (runtime.getEventsApplied() < target) {
+                Thread.onSpinWait();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return (runtime.getEventsApplied() - before) / seconds;
+        }
+    }
+
+    private static void produce(MultiHomeRuntime runtime, int shard, long[] homes) {
+        SplittableRandom r = new SplittableRandom(shard);
+        ArmingStatus[] arming = ArmingStatus.values();
+        long events = TOTAL_EVENTS / runtime.getShardCount();
+        HomeEventBatch batch = runtime.newBatch(shard);
+        try {
+            for (long i = 0; i < events; i++) {
+                long home = homes[r.nextInt(homes.length)];
+                int kind = r.nextInt(100);
+                if (kind < 90) {
+                    batch.changeSensorActivationStatus(home, r.nextInt(SENSORS_PER_HOME), r.nextBoolean());
+                } else if (kind < 98) {
+                    batch.setArmingStatus(home, arming[r.nextInt(arming.length)]);
+                } else {
+                    batch.catDetected(home, r.nextBoolean());
+                }
+                if (batch.isFull()) {
+                    runtime.submit(batch);
+                    batch = runtime.newBatch(shard);
+                }
+            }
+            if (batch.size() > 0) {
+                runtime.submit(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
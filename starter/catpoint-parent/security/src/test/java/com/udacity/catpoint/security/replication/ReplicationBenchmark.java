@@ -0,0 +1,67 @@
+package com.udacity.catpoint.security.replication;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Drives two million sensor changes through a SecurityService on a plain in-memory repository, and
+ * then through one replicated to a standby on localhost, and prints what replication adds to each
+ * change and how far behind the standby is once the primary stops. Not run as part of the test
+ * suite; start it with main().
+ */
+public class ReplicationBenchmark {
+
+    private static final int SENSORS = 1_000;
+    private static final int CHANGES = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 2; round++) { //the first round warms up
+            long plain = run(new InMemorySecurityRepositoryImpl());
+            try (ReplicationPrimary primary = new ReplicationPrimary(new InetSocketAddress("127.0.0.1", 0),
+                    new InMemorySecurityRepositoryImpl())) {
+                primary.start();
+                try (ReplicationStandby standby = new ReplicationStandby(
+                        new InetSocketAddress("127.0.0.1", primary.getPort()), new InMemorySecurityRepositoryImpl())) {
+                    standby.start();
+                    long replicated = run(primary.getRepository());
+                    long stop = System.nanoTime();
+                    primary.awaitReplicated(primary.getSequence(), Duration.ofSeconds(30));
+                    long drainMicros = (System.nanoTime() - stop) / 1_000;
+                    System.out.printf("%,d changes: %,d ns each in memory, %,d ns each replicated (+%,d ns), "
+                                    + "%,d records, standby caught up %,d us after the last change%n",
+                            CHANGES, plain / CHANGES, replicated / CHANGES, (replicated - plain) / CHANGES,
+                            primary.getSequence(), drainMicros);
+                }
+            }
+        }
+    }
+
+    private static long run(SecurityRepository repository) {
+        SecurityService securityService = new SecurityService(repository, new FakeImageService());
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < SENSORS; i++) {
+            Sensor sensor = new Sensor("sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            securityService.addSensor(sensor);
+            sensors.add(sensor);
+        }
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < CHANGES; i++) {
+            Sensor sensor = sensors.get(random.nextInt(SENSORS));
+            securityService.changeSensorActivationStatus(sensor, !sensor.getActive());
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,173 @@
+package com.udacity.catpoint.security.replication;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    @DisplayName("A standby that joins late gets a snapshot and then every change, and ends up with the primary's exact state.")
+    void lateStandby_convergesOnPrimaryState() throws Exception {
+        try (ReplicationPrimary primary = new ReplicationPrimary(localhost(0), new InMemorySecurityRepositoryImpl())) {
+            primary.start();
+            SecurityService securityService = new SecurityService(primary.getRepository(), new FakeImageService());
+            List<Sensor> sensors = addSensors(securityService, 50);
+            Random random = new Random(7);
+            drive(securityService, sensors, random, 1_000);
+
+            SecurityRepository replica = new InMemorySecurityRepositoryImpl();
+            try (ReplicationStandby standby = new ReplicationStandby(localhost(primary.getPort()), replica)) {
+                standby.start();
+                drive(securityService, sensors, random, 10_000);
+                securityService.removeSensor(sensors.get(0));
+                securityService.addSensor(new Sensor("late", SensorType.WINDOW));
+
+                assertTrue(primary.awaitReplicated(primary.getSequence(), TIMEOUT));
+                assertEquals(primary.getSequence(), standby.getAppliedSequence());
+                assertSameState(primary.getRepository(), replica);
+                assertFalse(standby.isPrimaryLost());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("When the primary dies the standby notices within the failover timeout and carries on from the replicated state.")
+    void primaryLost_standbyPromotedWithSameState() throws Exception {
+        ReplicationPrimary primary = new ReplicationPrimary(localhost(0), new InMemorySecurityRepositoryImpl());
+        primary.start();
+        SecurityService securityService = new SecurityService(primary.getRepository(), new FakeImageService());
+        List<Sensor> sensors = addSensors(securityService, 10);
+        ReplicationStandby standby = new ReplicationStandby(localhost(primary.getPort()),
+                new InMemorySecurityRepositoryImpl(), Duration.ofMillis(300));
+        standby.start();
+
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        securityService.changeSensorActivationStatus(sensors.get(3), true);
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        assertTrue(primary.awaitReplicated(primary.getSequence(), TIMEOUT));
+
+        //idle long enough that only heartbeats keep the standby from giving up on the primary
+        Thread.sleep(600);
+        assertFalse(standby.isPrimaryLost());
+
+        long crash = System.nanoTime();
+        primary.close();
+        assertTrue(standby.awaitPrimaryLost(Duration.ofSeconds(1)));
+        SecurityRepository replica = standby.promote();
+        long failoverMillis = (System.nanoTime() - crash) / 1_000_000;
+        assertTrue(failoverMillis < 1_000, "failover took " + failoverMillis + " ms");
+
+        assertSameState(primary.getRepository(), replica);
+        SecurityService promoted = new SecurityService(replica, new FakeImageService());
+        assertEquals(AlarmStatus.PENDING_ALARM, promoted.getAlarmStatus());
+        Sensor second = promoted.getSensors().stream()
+                .filter(s -> s.getSensorId().equals(sensors.get(5).getSensorId())).findFirst().orElseThrow();
+        promoted.changeSensorActivationStatus(second, true);
+        assertEquals(AlarmStatus.ALARM, promoted.getAlarmStatus());
+    }
+
+    @Test
+    @DisplayName("A standby that stops reading is made to resync once its buffer is full, and catches up from a fresh snapshot.")
+    void stalledStandby_resyncsInsteadOfBufferingForever() throws Exception {
+        try (ReplicationPrimary primary = new ReplicationPrimary(localhost(0), new InMemorySecurityRepositoryImpl(),
+                ReplicationPrimary.DEFAULT_HEARTBEAT_INTERVAL, 64 * 1024)) {
+            primary.start();
+            SecurityRepository repository = primary.getRepository();
+            CountDownLatch stall = new CountDownLatch(1);
+            SecurityRepository replica = new InMemorySecurityRepositoryImpl() {
+                @Override
+                public void setCatDetected(boolean catDetected) {
+                    try {
+                        stall.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.setCatDetected(catDetected);
+                }
+            };
+            try (ReplicationStandby standby = new ReplicationStandby(localhost(primary.getPort()), replica, TIMEOUT)) {
+                standby.start();
+                //the standby's apply thread blocks on the first change, then the socket buffers fill up
+                long deadline = System.nanoTime() + TIMEOUT.toNanos();
+                for (int i = 0; primary.getOverflowCount() == 0; i++) {
+                    assertTrue(System.nanoTime() < deadline, "the stalled standby was never made to resync");
+                    repository.setCatDetected(i % 2 == 0);
+                }
+                repository.setArmingStatus(ArmingStatus.ARMED_AWAY);
+                stall.countDown();
+
+                repository.setCatDetected(true);
+                assertTrue(primary.awaitReplicated(primary.getSequence(), TIMEOUT), "standby lost: " + standby.getLossReason());
+                assertEquals(1, standby.getResyncCount());
+                assertEquals(1, primary.getOverflowCount());
+                assertFalse(standby.isPrimaryLost());
+                assertSameState(repository, replica);
+            }
+        }
+    }
+
+    private static InetSocketAddress localhost(int port) {
+        return new InetSocketAddress("127.0.0.1", port);
+    }
+
+    private static List<Sensor> addSensors(SecurityService securityService, int count) {
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Sensor sensor = new Sensor("sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            sensor.setZone(i % 3);
+            if (i % 5 == 0) {
+                sensor.setThreshold(0.25f * i);
+            }
+            securityService.addSensor(sensor);
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    private static void drive(SecurityService securityService, List<Sensor> sensors, Random random, int inputs) {
+        for (int i = 0; i < inputs; i++) {
+            if (random.nextInt(100) == 0) {
+                securityService.setArmingStatus(ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)]);
+            } else {
+                Sensor sensor = sensors.get(random.nextInt(sensors.size()));
+                securityService.changeSensorActivationStatus(sensor, !sensor.getActive());
+            }
+        }
+    }
+
+    private static void assertSameState(SecurityRepository expected, SecurityRepository actual) {
+        assertEquals(expected.getAlarmStatus(), actual.getAlarmStatus());
+        assertEquals(expected.getArmingStatus(), actual.getArmingStatus());
+        assertEquals(expected.getCatDetected(), actual.getCatDetected());
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    private static List<String> describe(SecurityRepository repository) {
+        return repository.getSensors().stream()
+                .map(s -> s.getSensorId() + " " + s.getName() + " " + s.getSensorType() + " " + s.getActive() + " " + s.getZone()
+                        + " " + s.getThreshold())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,27 @@
+package com.udacity.catpoint.security.scheduler;
+
+/**
+ * Times a door raising the alarm through the LaneScheduler, idle and while a camera floods the
+ * image lane, as in LaneSchedulerTest but with the numbers. Not run as part of the test suite;
+ * start it with main(). It prints the median and worst latencies and the sensor and image lane
+ * statistics, including tasks that went over their lane's budget.
+ */
+public class LaneSchedulerBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        LaneScheduler scheduler = new LaneScheduler();
+        long[][] latencies;
+        try {
+            latencies = LaneSchedulerTest.measureIdleAndSaturated(scheduler);
+        } finally {
+            scheduler.close();
+        }
+        long[] idle = latencies[0];
+        long[] saturated = latencies[1];
+        System.out.printf("sensor to ALARM, idle: p50 %.2f ms max %.2f ms; image lane saturated: p50 %.2f ms max %.2f ms%n",
+                idle[idle.length / 2] / 1e6, idle[idle.length - 1] / 1e6,
+                saturated[saturated.length / 2] / 1e6, saturated[saturated.length - 1] / 1e6);
+        System.out.println(scheduler.getStats(Lane.SENSOR));
+        System.out.println(scheduler.getStats(Lane.IMAGE));
+    }
+}
@@ -0,0 +1,220 @@
+package com.udacity.catpoint.security.scheduler;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.AlarmRules;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.StatusListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LaneSchedulerTest {
+
+    private static final int ROUNDS = 40;
+
+    @Test
+    @DisplayName("Strict lanes run first in lane order, then weighted lanes share the dispatch thread by weight.")
+    void strictLanesFirst_weightedLanesInterleaved() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        LaneScheduler scheduler = new LaneScheduler();
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(Lane.UI, () -> order.add("U"));
+            scheduler.submit(Lane.PERSISTENCE, () -> order.add("P"));
+            scheduler.submit(Lane.PERSISTENCE, () -> order.add("P"));
+        }
+        scheduler.submit(Lane.SENSOR, () -> order.add("S"));
+        scheduler.submit(Lane.ALARM, () -> order.add("A"));
+        scheduler.submit(Lane.SENSOR, () -> order.add("S"));
+        scheduler.submit(Lane.ALARM, () -> order.add("A"));
+
+        scheduler.start();
+        scheduler.close();
+
+        assertEquals(Arrays.asList("A", "A", "S", "S", "P", "U", "P", "P", "U", "P", "P", "U", "P"), order);
+        assertEquals(3, scheduler.getStats(Lane.UI).getCompleted());
+    }
+
+    @Test
+    @DisplayName("A full lane turns tasks away instead of blocking the caller, and only that lane.")
+    void fullLane_rejectsWithoutBlocking() {
+        LaneScheduler scheduler = new LaneScheduler(Map.of(Lane.IMAGE, new LaneConfig(2, 1, Duration.ZERO, 1)));
+        assertTrue(scheduler.submit(Lane.IMAGE, () -> {}));
+        assertTrue(scheduler.submit(Lane.IMAGE, () -> {}));
+        assertFalse(scheduler.submit(Lane.IMAGE, () -> {}));
+        assertTrue(scheduler.submit(Lane.SENSOR, () -> {}));
+
+        assertEquals(1, scheduler.getStats(Lane.IMAGE).getRejected());
+        assertEquals(0, scheduler.getStats(Lane.SENSOR).getRejected());
+        scheduler.close();
+    }
+
+    @Test
+    @DisplayName("A full lossless lane makes the caller wait for room, and nothing submitted to it is dropped.")
+    void fullLosslessLane_blocksInsteadOfDropping() throws InterruptedException {
+        LaneScheduler scheduler = new LaneScheduler(Map.of(Lane.ALARM, new LaneConfig(2, LaneConfig.STRICT, Duration.ZERO, 0, true)));
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        assertTrue(scheduler.submit(Lane.ALARM, () -> ran.add(0)));
+        //the dispatch thread fills the lane again and then submits once more, which must not wait for itself
+        assertTrue(scheduler.submit(Lane.ALARM, () -> {
+            ran.add(1);
+            scheduler.submit(Lane.ALARM, () -> ran.add(3));
+            scheduler.submit(Lane.ALARM, () -> ran.add(4));
+            scheduler.submit(Lane.ALARM, () -> ran.add(5));
+        }));
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            scheduler.submit(Lane.ALARM, () -> ran.add(2));
+            submitted.countDown();
+        });
+        producer.start();
+        assertFalse(submitted.await(100, TimeUnit.MILLISECONDS), "the producer should wait while the lane is full");
+
+        scheduler.start();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        producer.join();
+        scheduler.close();
+
+        assertEquals(6, ran.size());
+        assertTrue(ran.containsAll(List.of(0, 1, 2, 3, 4, 5)));
+        assertEquals(0, scheduler.getStats(Lane.ALARM).getRejected());
+        assertTrue(scheduler.getStats(Lane.ALARM).getBlocked() >= 1);
+        assertFalse(scheduler.submit(Lane.ALARM, () -> {}), "a closed scheduler must not take work");
+    }
+
+    @Test
+    @DisplayName("Opening a door raises the alarm about as fast while a camera floods the image lane with frames.")
+    void sensorToAlarmLatency_flatWhileImageLaneSaturated() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler();
+        long[][] latencies;
+        try {
+            latencies = measureIdleAndSaturated(scheduler);
+        } finally {
+            scheduler.close();
+        }
+        long idleMedian = latencies[0][ROUNDS / 2];
+        long saturatedMedian = latencies[1][ROUNDS / 2];
+
+        assertTrue(scheduler.getStats(Lane.IMAGE).getRejected() > 0, "the camera never filled the image lane");
+        //waiting behind even one frame would cost 20 ms; the rest is headroom for a loaded machine
+        assertTrue(saturatedMedian < 2 * idleMedian + TimeUnit.MILLISECONDS.toNanos(10),
+                "median latency grew from " + idleMedian + " to " + saturatedMedian + " ns");
+    }
+
+    /**
+     * Times a door raising the alarm through the scheduler, first with nothing else going on and
+     * then while a camera submits a frame every millisecond to an image service that takes 20 ms
+     * per frame. The scheduler is started here; closing it is up to the caller.
+     * @return the idle and the saturated latencies in nanoseconds, each sorted
+     */
+    static long[][] measureIdleAndSaturated(LaneScheduler scheduler) throws InterruptedException {
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), new SlowImageService());
+        securityService.setAlarmRules(AlarmRules.compile(List.of("DOOR escalates immediately while ARMED_AWAY")));
+        Sensor door = new Sensor("front door", SensorType.DOOR);
+        securityService.addSensor(door);
+        AlarmLatch alarm = new AlarmLatch();
+        securityService.addStatusListener(alarm);
+        SecurityServiceLanes lanes = new SecurityServiceLanes(securityService, scheduler);
+        scheduler.start();
+        long[] idle = measure(lanes, door, alarm);
+
+        BufferedImage frame = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        Thread camera = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                lanes.processImage(frame);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        camera.start();
+        try {
+            Thread.sleep(100);
+            return new long[][]{idle, measure(lanes, door, alarm)};
+        } finally {
+            camera.interrupt();
+            camera.join();
+        }
+    }
+
+    /**
+     * Arms the system, opens the door and times how long the alarm takes, once per round; returns the
+     * latencies in nanoseconds, sorted.
+     */
+    private static long[] measure(SecurityServiceLanes lanes, Sensor door, AlarmLatch alarm) throws InterruptedException {
+        long[] latencies = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            CountDownLatch armed = new CountDownLatch(1);
+            lanes.setArmingStatus(ArmingStatus.DISARMED);
+            lanes.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            lanes.getScheduler().submit(Lane.ALARM, armed::countDown);
+            assertTrue(armed.await(5, TimeUnit.SECONDS));
+
+            alarm.reset();
+            long start = System.nanoTime();
+            assertTrue(lanes.changeSensorActivationStatus(door, true));
+            assertTrue(alarm.latch.await(5, TimeUnit.SECONDS));
+            latencies[i] = alarm.raisedNanos - start;
+            lanes.changeSensorActivationStatus(door, false);
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /**
+     * Takes as long as a real model to look at a frame, and never sees a cat.
+     */
+    private static final class SlowImageService extends FakeImageService {
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    private static final class AlarmLatch implements StatusListener {
+        private volatile CountDownLatch latch = new CountDownLatch(1);
+        private volatile long raisedNanos;
+
+        private void reset() {
+            latch = new CountDownLatch(1);
+        }
+
+        @Override
+        public void notify(AlarmStatus status) {
+            if (status == AlarmStatus.ALARM && latch.getCount() > 0) {
+                raisedNanos = System.nanoTime();
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public void catDetected(boolean catDetected) {}
+
+        @Override
+        public void sensorStatusChanged() {}
+    }
+}
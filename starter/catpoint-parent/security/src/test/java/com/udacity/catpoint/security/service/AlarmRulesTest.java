@@ -0,0 +1,108 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlarmRulesTest {
+
+    @Test
+    @DisplayName("Under the default rules every sensor change gives exactly the alarm status the hand-coded logic gave.")
+    void defaultRules_matchOriginalBehaviour() {
+        int cases = 0;
+        for (ArmingStatus arming : ArmingStatus.values()) {
+            for (AlarmStatus alarm : AlarmStatus.values()) {
+                for (SensorType type : SensorType.values()) {
+                    for (boolean wasActive : new boolean[] {false, true}) {
+                        for (boolean active : new boolean[] {false, true}) {
+                            for (boolean otherActive : new boolean[] {false, true}) {
+                                SecurityRepository repository = new InMemorySecurityRepositoryImpl();
+                                SecurityService securityService = new SecurityService(repository, new FakeImageService());
+                                Sensor sensor = new Sensor("changed", type);
+                                Sensor other = new Sensor("other", SensorType.WINDOW);
+                                sensor.setActive(wasActive);
+                                other.setActive(otherActive);
+                                securityService.addSensor(sensor);
+                                securityService.addSensor(other);
+                                repository.setArmingStatus(arming);
+                                repository.setAlarmStatus(alarm);
+
+                                securityService.changeSensorActivationStatus(sensor, active);
+
+                                AlarmStatus expected = originalBehaviour(arming, alarm, wasActive, active, otherActive);
+                                assertEquals(expected, securityService.getAlarmStatus(), arming + " " + alarm + " " + type
+                                        + " " + wasActive + "->" + active + " other active " + otherActive);
+                                cases++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(3 * 3 * 3 * 8, cases);
+    }
+
+    @Test
+    @DisplayName("Rules override the defaults for just the sensor types and arming statuses they name.")
+    void rules_overrideOnlyWhatTheyName() {
+        AlarmRules rules = AlarmRules.compile(List.of(
+                "MOTION sensors ignored while ARMED_HOME",
+                "DOOR escalates immediately while ARMED_AWAY  # nobody should be home",
+                "",
+                "any deactivation ignored while armed"));
+
+        assertEquals(AlarmRules.Action.IGNORE, rules.action(ArmingStatus.ARMED_HOME, SensorType.MOTION, AlarmRules.Trigger.ACTIVATED));
+        assertEquals(AlarmRules.Action.ESCALATE, rules.action(ArmingStatus.ARMED_AWAY, SensorType.MOTION, AlarmRules.Trigger.ACTIVATED));
+        assertEquals(AlarmRules.Action.ALARM, rules.action(ArmingStatus.ARMED_AWAY, SensorType.DOOR, AlarmRules.Trigger.ACTIVATED));
+        assertEquals(AlarmRules.Action.ESCALATE, rules.action(ArmingStatus.ARMED_HOME, SensorType.DOOR, AlarmRules.Trigger.ACTIVATED));
+        assertEquals(AlarmRules.Action.IGNORE, rules.action(ArmingStatus.DISARMED, SensorType.DOOR, AlarmRules.Trigger.ACTIVATED));
+        assertEquals(AlarmRules.Action.IGNORE, rules.action(ArmingStatus.ARMED_HOME, SensorType.WINDOW, AlarmRules.Trigger.DEACTIVATED));
+        assertEquals(AlarmRules.Action.CLEAR_PENDING, rules.action(ArmingStatus.DISARMED, SensorType.WINDOW, AlarmRules.Trigger.DEACTIVATED));
+        //an arming status nobody has stored yet counts as armed away
+        assertEquals(AlarmRules.Action.ALARM, rules.action(null, SensorType.DOOR, AlarmRules.Trigger.ACTIVATED));
+    }
+
+    @Test
+    @DisplayName("Rules that cannot be parsed are rejected with their line number.")
+    void invalidRules_rejectedWithLineNumber() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> AlarmRules.compile(List.of("DOOR ignored while ARMED_HOME", "GARAGE ignored while ARMED_HOME")));
+        assertTrue(e.getMessage().contains("rule 2"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> AlarmRules.compile(List.of("DOOR ignored")));
+        assertThrows(IllegalArgumentException.class, () -> AlarmRules.compile(List.of("DOOR clears while ARMED_HOME")));
+        assertThrows(IllegalArgumentException.class,
+                () -> AlarmRules.compile(List.of("DOOR deactivation escalates while ARMED_HOME")));
+    }
+
+    /**
+     * The branches of handleSensorActivated and handleSensorDeactivated before the rule table.
+     */
+    private static AlarmStatus originalBehaviour(ArmingStatus arming, AlarmStatus alarm, boolean wasActive,
+                                                 boolean active, boolean otherActive) {
+        if (wasActive == active) {
+            return alarm;
+        }
+        if (active) {
+            if (arming == ArmingStatus.DISARMED) {
+                return alarm;
+            }
+            return switch (alarm) {
+                case NO_ALARM -> AlarmStatus.PENDING_ALARM;
+                case PENDING_ALARM, ALARM -> AlarmStatus.ALARM;
+            };
+        }
+        return alarm == AlarmStatus.PENDING_ALARM && !otherActive ? AlarmStatus.NO_ALARM : alarm;
+    }
+}
@@ -0,0 +1,96 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.image.FakeImageService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CameraSettingsTest {
+
+    private static final int CAT = 0xFFFF8800;
+    private static final String DOOR_CAMERA = "door";
+
+    private final CatPixelImageService imageService = new CatPixelImageService();
+    private final SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), imageService);
+
+    @Test
+    @DisplayName("Regions are cropped as views of the frame's raster, clipped to the frame, and skipped when outside it.")
+    void crop_viewsSharingTheRaster() {
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        CameraSettings settings = new CameraSettings(List.of(new Rectangle(100, 50, 64, 48),
+                new Rectangle(600, 440, 100, 100), new Rectangle(700, 0, 10, 10)), 80f);
+
+        List<BufferedImage> views = settings.crop(frame);
+        assertEquals(2, views.size());
+        assertEquals(64, views.get(0).getWidth());
+        assertEquals(40, views.get(1).getWidth());
+        assertEquals(40, views.get(1).getHeight());
+        views.get(0).setRGB(0, 0, CAT);
+        assertEquals(CAT, frame.getRGB(100, 50), "the view must write through to the frame, not to a copy");
+
+        assertSame(frame, CameraSettings.DEFAULTS.crop(frame).get(0));
+        assertThrows(IllegalArgumentException.class, () -> new CameraSettings(List.of(new Rectangle(0, 0, 0, 5)), 50f));
+        assertThrows(IllegalArgumentException.class, () -> new CameraSettings(List.of(), 101f));
+    }
+
+    @Test
+    @DisplayName("Only the pixels of a camera's regions reach the image service, so a cat outside them is ignored.")
+    void catOutsideRegion_ignored() {
+        //a doorway covering 10% of the frame
+        securityService.setCameraSettings(DOOR_CAMERA, new CameraSettings(List.of(new Rectangle(256, 96, 128, 240)), 90f));
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        frame.setRGB(20, 20, CAT);
+
+        securityService.processImage(DOOR_CAMERA, frame);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+        assertEquals(128 * 240, imageService.pixels);
+        assertEquals(90f, imageService.confidenceThreshold);
+
+        //the default camera still scans the whole frame at the old threshold
+        assertTrue(securityService.analyzeImage(frame));
+        assertEquals(50f, imageService.confidenceThreshold);
+
+        frame.setRGB(300, 200, CAT);
+        securityService.processImage(DOOR_CAMERA, frame);
+        assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+
+        securityService.setCameraSettings(DOOR_CAMERA, null);
+        assertSame(CameraSettings.DEFAULTS, securityService.getCameraSettings(DOOR_CAMERA));
+        assertFalse(securityService.analyzeImage(DOOR_CAMERA, new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB)));
+    }
+
+    /**
+     * Sees a cat wherever a pixel has the cat colour, and counts the pixels it is asked to look at.
+     */
+    private static final class CatPixelImageService extends FakeImageService {
+        private long pixels;
+        private float confidenceThreshold;
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+            pixels += (long) image.getWidth() * image.getHeight();
+            confidenceThreshold = confidenceThreshhold;
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    if (image.getRGB(x, y) == CAT) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
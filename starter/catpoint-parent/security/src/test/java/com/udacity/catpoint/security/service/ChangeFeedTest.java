@@ -0,0 +1,259 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTest {
+
+    private final SecurityService securityService =
+            new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+    private final List<Sensor> sensors = new ArrayList<>();
+
+    @Test
+    @DisplayName("Subscribers that join at any point and only apply deltas end up with the service's state.")
+    void randomChanges_mirrorsMatchService() {
+        Random random = new Random(7);
+        Mirror early = new Mirror();
+        securityService.subscribe(early, ChangeFeed.SNAPSHOT);
+        Mirror late = new Mirror();
+        for (int i = 0; i < 5000; i++) {
+            if (i == 2500) {
+                securityService.subscribe(late, ChangeFeed.SNAPSHOT);
+            }
+            randomChange(random);
+        }
+        assertEquals(1, early.snapshots);
+        assertEquals(1, late.snapshots);
+        early.assertMatches(securityService);
+        late.assertMatches(securityService);
+    }
+
+    @Test
+    @DisplayName("A subscriber resuming from a version still kept is sent only the changes since; otherwise a snapshot.")
+    void resume_replaysMissedChangesOrSendsSnapshot() {
+        Random random = new Random(11);
+        Mirror mirror = new Mirror();
+        securityService.subscribe(mirror, ChangeFeed.SNAPSHOT);
+        for (int i = 0; i < 100; i++) {
+            randomChange(random);
+        }
+        securityService.unsubscribe(mirror);
+        long missedFrom = mirror.version;
+        for (int i = 0; i < 100; i++) {
+            randomChange(random);
+        }
+        int deltasBefore = mirror.deltas;
+        assertEquals(securityService.getVersion(), securityService.subscribe(mirror, mirror.version));
+        assertEquals(1, mirror.snapshots);
+        assertEquals(securityService.getVersion() - missedFrom, mirror.deltas - deltasBefore);
+        mirror.assertMatches(securityService);
+
+        securityService.unsubscribe(mirror);
+        while (securityService.getVersion() - mirror.version <= ChangeFeed.DEFAULT_CAPACITY) {
+            randomChange(random);
+        }
+        securityService.subscribe(mirror, mirror.version);
+        assertEquals(2, mirror.snapshots);
+        mirror.assertMatches(securityService);
+    }
+
+    @Test
+    @DisplayName("Changing one sensor among many publishes one delta, and repeating a state publishes none.")
+    void singleChange_publishesSingleDelta() {
+        for (int i = 0; i < 1000; i++) {
+            addSensor(i % 4);
+        }
+        Mirror mirror = new Mirror();
+        securityService.subscribe(mirror, ChangeFeed.SNAPSHOT);
+
+        securityService.changeSensorActivationStatus(sensors.get(500), true);
+        assertEquals(1, mirror.deltas);
+        securityService.changeSensorActivationStatus(sensors.get(500), true);
+        securityService.setAlarmStatus(AlarmStatus.NO_ALARM);
+        securityService.applyImageVerdict(false);
+        assertEquals(1, mirror.deltas);
+
+        //arming resets the one active sensor, so that deactivation and the arming change are all it publishes
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        assertEquals(3, mirror.deltas);
+        assertFalse(mirror.active.get(sensors.get(500).getSensorId()));
+        mirror.assertMatches(securityService);
+
+        //arming again changes nothing, unless a zone has to give up a status of its own
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        assertEquals(3, mirror.deltas);
+        securityService.setZoneArmingStatus(1, ArmingStatus.DISARMED);
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        assertEquals(5, mirror.deltas);
+        mirror.assertMatches(securityService);
+
+        //likewise a zone given the status it already has publishes nothing
+        securityService.setZoneArmingStatus(2, ArmingStatus.ARMED_HOME);
+        assertEquals(5, mirror.deltas);
+        securityService.setZoneArmingStatus(1, ArmingStatus.DISARMED);
+        securityService.setZoneArmingStatus(1, ArmingStatus.DISARMED);
+        assertEquals(6, mirror.deltas);
+        mirror.assertMatches(securityService);
+    }
+
+    @Test
+    @DisplayName("Arming changes are published after they are stored, so a subscriber reading the service sees the new status.")
+    void armingChanges_publishedAfterTheyAreStored() {
+        List<ArmingStatus> seen = new ArrayList<>();
+        securityService.subscribe(new ChangeListener() {
+            @Override
+            public void snapshot(long version, SecurityService service) {}
+
+            @Override
+            public void armingStatusChanged(long version, ArmingStatus armingStatus) {
+                seen.add(securityService.getArmingStatus());
+            }
+
+            @Override
+            public void zoneArmingStatusChanged(long version, int zone, ArmingStatus armingStatus) {
+                seen.add(securityService.getZoneArmingStatus(zone));
+            }
+        }, ChangeFeed.SNAPSHOT);
+
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        securityService.setZoneArmingStatus(3, ArmingStatus.DISARMED);
+        securityService.setZoneArmingStatus(3, ArmingStatus.ARMED_HOME);
+        assertEquals(List.of(ArmingStatus.ARMED_AWAY, ArmingStatus.DISARMED, ArmingStatus.ARMED_HOME), seen);
+    }
+
+    private void randomChange(Random random) {
+        int choice = random.nextInt(20);
+        if (sensors.isEmpty() || choice == 0) {
+            addSensor(random.nextInt(4));
+        } else if (choice == 1) {
+            securityService.removeSensor(sensors.remove(random.nextInt(sensors.size())));
+        } else if (choice == 2) {
+            securityService.setArmingStatus(ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)]);
+        } else if (choice == 3) {
+            securityService.setZoneArmingStatus(random.nextInt(4),
+                    ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)]);
+        } else if (choice == 4) {
+            securityService.applyImageVerdict(random.nextBoolean());
+        } else {
+            securityService.changeSensorActivationStatus(sensors.get(random.nextInt(sensors.size())), random.nextBoolean());
+        }
+    }
+
+    private void addSensor(int zone) {
+        Sensor sensor = new Sensor("sensor " + sensors.size(), SensorType.values()[sensors.size() % SensorType.values().length]);
+        sensor.setZone(zone);
+        sensors.add(sensor);
+        securityService.addSensor(sensor);
+    }
+
+    /**
+     * Rebuilds the service's state from nothing but the snapshot and the deltas.
+     */
+    private static final class Mirror implements ChangeListener {
+        private final Map<UUID, Boolean> active = new HashMap<>();
+        private final Map<Integer, ArmingStatus> zoneArming = new HashMap<>();
+        private AlarmStatus alarmStatus;
+        private ArmingStatus armingStatus;
+        private boolean catDetected;
+        private long version;
+        private int snapshots;
+        private int deltas;
+
+        @Override
+        public void snapshot(long version, SecurityService securityService) {
+            active.clear();
+            zoneArming.clear();
+            securityService.getSensors().forEach(s -> active.put(s.getSensorId(), s.getActive()));
+            for (int zone = 0; zone < SensorZones.MAX_ZONES; zone++) {
+                zoneArming.put(zone, securityService.getZoneArmingStatus(zone));
+            }
+            alarmStatus = securityService.getAlarmStatus();
+            armingStatus = securityService.getArmingStatus();
+            catDetected = securityService.getCatDetected();
+            this.version = version;
+            snapshots++;
+        }
+
+        private void next(long version) {
+            assertEquals(this.version + 1, version);
+            this.version = version;
+            deltas++;
+        }
+
+        @Override
+        public void sensorAdded(long version, Sensor sensor) {
+            next(version);
+            active.put(sensor.getSensorId(), false);
+        }
+
+        @Override
+        public void sensorRemoved(long version, Sensor sensor) {
+            next(version);
+            active.remove(sensor.getSensorId());
+        }
+
+        @Override
+        public void sensorActivationChanged(long version, Sensor sensor, boolean active) {
+            next(version);
+            assertTrue(this.active.containsKey(sensor.getSensorId()));
+            this.active.put(sensor.getSensorId(), active);
+        }
+
+        @Override
+        public void alarmStatusChanged(long version, AlarmStatus alarmStatus) {
+            next(version);
+            this.alarmStatus = alarmStatus;
+        }
+
+        @Override
+        public void armingStatusChanged(long version, ArmingStatus armingStatus) {
+            next(version);
+            this.armingStatus = armingStatus;
+            for (int zone = 0; zone < SensorZones.MAX_ZONES; zone++) {
+                zoneArming.put(zone, armingStatus);
+            }
+        }
+
+        @Override
+        public void zoneArmingStatusChanged(long version, int zone, ArmingStatus armingStatus) {
+            next(version);
+            zoneArming.put(zone, armingStatus);
+        }
+
+        @Override
+        public void catDetected(long version, boolean catDetected) {
+            next(version);
+            this.catDetected = catDetected;
+        }
+
+        private void assertMatches(SecurityService securityService) {
+            assertEquals(securityService.getVersion(), version);
+            Map<UUID, Boolean> expected = new HashMap<>();
+            securityService.getSensors().forEach(s -> expected.put(s.getSensorId(), s.getActive()));
+            assertEquals(expected, active);
+            for (int zone = 0; zone < SensorZones.MAX_ZONES; zone++) {
+                assertEquals(securityService.getZoneArmingStatus(zone), zoneArming.get(zone), "zone " + zone);
+            }
+            assertEquals(securityService.getAlarmStatus(), alarmStatus);
+            assertEquals(securityService.getArmingStatus(), armingStatus);
+            assertEquals(securityService.getCatDetected(), catDetected);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.udacity.catpoint.security.service;
+
+/**
+ * Supervises one million sensors that each send a heartbeat every 30 seconds, with a 90 second
+ * timeout and one sensor in fifty dead, on a virtual clock that runs as fast as the supervisor can
+ * keep up. Not run as part of the test suite; start it with main(). It prints how much of one core
+ * the supervisor would need to keep up with that fleet in real time.
+ */
+public class HeartbeatSupervisorBenchmark {
+
+    private static final int SENSORS = 1_000_000;
+    private static final long HEARTBEAT_MILLIS = 30_000;
+    private static final long TIMEOUT_MILLIS = 90_000;
+    private static final long TICK_MILLIS = SecurityService.TIMER_TICK_MILLIS;
+    private static final long SIMULATED_MILLIS = 10 * 60_000;
+
+    public static void main(String[] args) {
+        run(); //warm up
+        run();
+    }
+
+    private static void run() {
+        int[] offlineEvents = new int[1];
+        HeartbeatSupervisor supervisor = new HeartbeatSupervisor(TIMEOUT_MILLIS, TICK_MILLIS, 0,
+                (slot, offline) -> offlineEvents[0]++);
+        for (int slot = 0; slot < SENSORS; slot++) {
+            supervisor.watch(slot);
+        }
+
+        //every tick, the sensors whose slot falls in this tick's share of the heartbeat period report
+        long ticksPerPeriod = HEARTBEAT_MILLIS / TICK_MILLIS;
+        long heartbeats = 0;
+        long start = System.nanoTime();
+        for (long now = TICK_MILLIS, tick = 1; now <= SIMULATED_MILLIS; now += TICK_MILLIS, tick++) {
+            supervisor.advanceClock(now);
+            int from = (int) (SENSORS * (tick % ticksPerPeriod) / ticksPerPeriod);
+            int to = (int) (SENSORS * (tick % ticksPerPeriod + 1) / ticksPerPeriod);
+            for (int slot = from; slot < to; slot++) {
+                if (slot % 50 != 0) {
+                    supervisor.heartbeat(slot);
+                    heartbeats++;
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        double elapsedMillis = elapsedNanos / 1e6;
+        System.out.printf("%,d sensors, %,d heartbeats over %d simulated s in %.0f ms: %.2f%% of one core, "
+                        + "%,d ns per heartbeat, %,d offline, %,d timers pending%n",
+                SENSORS, heartbeats, SIMULATED_MILLIS / 1000, elapsedMillis,
+                100.0 * elapsedMillis / SIMULATED_MILLIS, elapsedNanos / heartbeats,
+                supervisor.getOfflineCount(), supervisor.getPendingTimers());
+    }
+}
@@ -0,0 +1,104 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeartbeatSupervisorTest {
+
+    private final List<String> events = new ArrayList<>();
+    private SecurityService securityService;
+    private Sensor door;
+    private Sensor window;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        securityService = new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+        door = new Sensor("door", SensorType.DOOR);
+        window = new Sensor("window", SensorType.WINDOW);
+        securityService.addSensor(door);
+        securityService.addSensor(window);
+        securityService.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {}
+
+            @Override
+            public void catDetected(boolean catDetected) {}
+
+            @Override
+            public void sensorStatusChanged() {}
+
+            @Override
+            public void sensorOffline(Sensor sensor, boolean offline) {
+                events.add(sensor.getName() + (offline ? " offline" : " online"));
+            }
+        });
+        securityService.setHeartbeatTimeout(Duration.ofSeconds(90));
+        now = securityService.getClockMillis();
+    }
+
+    @Test
+    @DisplayName("A sensor that misses its heartbeats is reported offline once, and online again when it is next heard from.")
+    void missedHeartbeats_offlineThenOnline() {
+        for (int i = 0; i < 6; i++) {
+            advance(30_000);
+            securityService.sensorHeartbeat(door);
+        }
+        assertEquals(List.of("window offline"), events);
+        assertTrue(securityService.isSensorOffline(window));
+        assertFalse(securityService.isSensorOffline(door));
+
+        securityService.changeSensorActivationStatus(window, true);
+        assertEquals(List.of("window offline", "window online"), events);
+        assertFalse(securityService.isSensorOffline(window));
+    }
+
+    @Test
+    @DisplayName("A sensor goes offline exactly one timeout after it was last heard from.")
+    void offlineAfterExactlyOneTimeout() {
+        advance(60_000);
+        securityService.sensorHeartbeat(door);
+        securityService.sensorHeartbeat(window);
+        advance(89_900);
+        assertTrue(events.isEmpty());
+        advance(100);
+        assertEquals(List.of("door offline", "window offline"), events.stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Removed sensors are no longer supervised.")
+    void removedSensor_neverReportedOffline() {
+        securityService.removeSensor(window);
+        advance(100_000);
+        assertEquals(List.of("door offline"), events);
+        assertFalse(securityService.isSensorOffline(window));
+    }
+
+    @Test
+    @DisplayName("With no heartbeat timeout set, sensors are never reported offline.")
+    void supervisionOff_noOfflineEvents() {
+        securityService.setHeartbeatTimeout(Duration.ZERO);
+        advance(1_000_000);
+        assertTrue(events.isEmpty());
+        assertFalse(securityService.isSensorOffline(door));
+    }
+
+    private void advance(long millis) {
+        now += millis;
+        securityService.advanceClock(now);
+    }
+}
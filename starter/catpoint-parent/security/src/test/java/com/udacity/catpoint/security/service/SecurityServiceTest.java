@@ -1,6 +1,6 @@
 package com.udacity.catpoint.security.service;
 
-import com.udacity.catpoint.image.service.FakeImageService;
+import com.udacity.catpoint.security.image.FakeImageService;
 import com.udacity.catpoint.security.data.Sensor;
 import com.udacity.catpoint.security.data.SensorType;
 import com.udacity.catpoint.security.data.AlarmStatus;
@@ -17,7 +17,9 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.ParameterizedTest;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 import java.awt.image.BufferedImage;
@@ -187,4 +189,98 @@ class SecurityServiceTest {
         verify(securityRepository, times(1)).setAlarmStatus(AlarmStatus.ALARM);
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("12. If an entry delay is set and the system is still pending alarm when it runs out, set the alarm status to alarm.")
+    void entryDelayElapsed_PendingAlarm_AlarmStatus() {
+        given(securityRepository.getArmingStatus()).willReturn(ArmingStatus.ARMED_AWAY);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.NO_ALARM);
+        securityService.setEntryDelay(Duration.ofSeconds(30));
+        long start = securityService.getClockMillis();
+
+        securityService.changeSensorActivationStatus(doorSensor, true);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.PENDING_ALARM);
+
+        securityService.advanceClock(start + 29_900);
+        verify(securityRepository, never()).setAlarmStatus(AlarmStatus.ALARM);
+        securityService.advanceClock(start + 30_000);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.ALARM);
+    }
+
+    @Test
+    @DisplayName("13. If the pending alarm is cleared before the entry delay runs out, do not escalate to alarm.")
+    void pendingAlarmClearedBeforeEntryDelay_NoAlarmStatus() {
+        given(securityRepository.getArmingStatus()).willReturn(ArmingStatus.ARMED_AWAY);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.NO_ALARM);
+        securityService.setEntryDelay(Duration.ofSeconds(30));
+        long start = securityService.getClockMillis();
+
+        securityService.changeSensorActivationStatus(doorSensor, true);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.PENDING_ALARM);
+        securityService.changeSensorActivationStatus(doorSensor, false);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.NO_ALARM);
+
+        securityService.advanceClock(start + 60_000);
+        verify(securityRepository, never()).setAlarmStatus(AlarmStatus.ALARM);
+    }
+
+    @Test
+    @DisplayName("14. If a sensor activates during the exit delay after arming, make no change to the alarm state.")
+    void sensorActivatedDuringExitDelay_NoChangeToAlarmStatus() {
+        securityService.setExitDelay(Duration.ofSeconds(10));
+        long start = securityService.getClockMillis();
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        given(securityRepository.getArmingStatus()).willReturn(ArmingStatus.ARMED_AWAY);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.NO_ALARM);
+
+        securityService.changeSensorActivationStatus(doorSensor, true);
+        verify(securityRepository, never()).setAlarmStatus(any());
+
+        securityService.advanceClock(start + 10_000);
+        securityService.changeSensorActivationStatus(motionSensor, true);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.PENDING_ALARM);
+    }
+
+    @Test
+    @DisplayName("15. If motion sensors are ignored while armed-home, activating one makes no change to the alarm state.")
+    void motionIgnoredWhileArmedHome_NoChangeToAlarmStatus() {
+        securityService.setAlarmRules(AlarmRules.compile(List.of("MOTION sensors ignored while ARMED_HOME")));
+        given(securityRepository.getArmingStatus()).willReturn(ArmingStatus.ARMED_HOME);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.NO_ALARM);
+
+        securityService.changeSensorActivationStatus(motionSensor, true);
+        verify(securityRepository, never()).setAlarmStatus(any());
+
+        securityService.changeSensorActivationStatus(doorSensor, true);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.PENDING_ALARM);
+    }
+
+    @Test
+    @DisplayName("16. If doors escalate immediately while armed-away, opening one goes straight to alarm.")
+    void doorEscalatesImmediatelyWhileArmedAway_AlarmStatus() {
+        securityService.setAlarmRules(AlarmRules.compile(List.of("DOOR escalates immediately while ARMED_AWAY")));
+        given(securityRepository.getArmingStatus()).willReturn(ArmingStatus.ARMED_AWAY);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.NO_ALARM);
+
+        securityService.changeSensorActivationStatus(doorSensor, true);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.ALARM);
+        verify(securityRepository, never()).setAlarmStatus(AlarmStatus.PENDING_ALARM);
+    }
+
+    @Test
+    @DisplayName("17. An analog sensor becomes active when a reading reaches its threshold, and not before.")
+    void analogSensorReading_thresholdActivates_PendingAlarmStatus() {
+        motionSensor.setThreshold(0.5f);
+        given(securityRepository.getArmingStatus()).willReturn(ArmingStatus.ARMED_HOME);
+        given(securityRepository.getAlarmStatus()).willReturn(AlarmStatus.NO_ALARM);
+
+        securityService.sensorReading(motionSensor, 0.4f);
+        verify(securityRepository, never()).setAlarmStatus(any(AlarmStatus.class));
+        assertFalse(motionSensor.getActive());
+
+        securityService.sensorReading(motionSensor, 0.5f);
+        verify(securityRepository).setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        assertEquals(true, motionSensor.getActive());
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorDebouncerTest {
+
+    private int sensorUpdates;
+    private SecurityService securityService;
+    private SensorDebouncer debouncer;
+    private Sensor door;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        securityService = new SecurityService(new InMemorySecurityRepositoryImpl() {
+            @Override
+            public void updateSensor(Sensor sensor) {
+                sensorUpdates++;
+                super.updateSensor(sensor);
+            }
+        }, new FakeImageService());
+        door = new Sensor("door", SensorType.DOOR);
+        securityService.addSensor(door);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        sensorUpdates = 0;
+        debouncer = new SensorDebouncer(securityService, Duration.ofMillis(250), 8,
+                Duration.ofSeconds(10), Duration.ofSeconds(60));
+        now = debouncer.getClockMillis();
+    }
+
+    @Test
+    @DisplayName("The first change is forwarded at once, and chatter inside the settle window collapses into one update when it closes.")
+    void chatterInsideSettleWindow_collapsedIntoOneUpdate() {
+        debouncer.changeSensorActivationStatus(door, true);
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        assertEquals(1, sensorUpdates);
+
+        advance(50);
+        debouncer.changeSensorActivationStatus(door, false);
+        advance(50);
+        debouncer.changeSensorActivationStatus(door, true);
+        advance(50);
+        debouncer.changeSensorActivationStatus(door, false);
+        assertTrue(door.getActive());
+        assertEquals(1, sensorUpdates);
+
+        advance(100);
+        assertFalse(door.getActive());
+        assertEquals(2, sensorUpdates);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+        assertEquals(4, debouncer.getEventsReported());
+        assertEquals(2, debouncer.getEventsForwarded());
+    }
+
+    @Test
+    @DisplayName("A sensor that changes too often is quarantined until it has been quiet, and then its latest state is forwarded once.")
+    void flappingSensor_quarantinedUntilQuiet() {
+        boolean active = false;
+        for (int i = 1; i <= 7; i++) {
+            active = !active;
+            debouncer.changeSensorActivationStatus(door, active);
+            advance(300);
+        }
+        assertEquals(7, sensorUpdates);
+        assertFalse(debouncer.isQuarantined(door));
+
+        for (int i = 0; i < 20; i++) {
+            active = !active;
+            debouncer.changeSensorActivationStatus(door, active);
+            advance(300);
+        }
+        assertTrue(debouncer.isQuarantined(door));
+        assertEquals(1, debouncer.getQuarantines());
+        assertEquals(7, sensorUpdates);
+        boolean lastForwarded = door.getActive();
+
+        debouncer.changeSensorActivationStatus(door, !lastForwarded);
+        advance(59_000);
+        assertTrue(debouncer.isQuarantined(door));
+        advance(1_000);
+        assertFalse(debouncer.isQuarantined(door));
+        assertEquals(!lastForwarded, door.getActive());
+        assertEquals(8, sensorUpdates);
+    }
+
+    @Test
+    @DisplayName("A sensor reset by arming is activated again by its next report, even though the device never saw the reset.")
+    void sensorResetByArming_nextReportForwarded() {
+        debouncer.changeSensorActivationStatus(door, true);
+        advance(1_000);
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        assertFalse(door.getActive());
+
+        debouncer.changeSensorActivationStatus(door, true);
+        assertTrue(door.getActive());
+    }
+
+    private void advance(long millis) {
+        now += millis;
+        debouncer.advanceClock(now);
+    }
+}
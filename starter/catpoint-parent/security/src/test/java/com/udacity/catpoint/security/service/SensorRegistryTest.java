@@ -0,0 +1,52 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SensorRegistryTest {
+
+    @Test
+    @DisplayName("Random registers and unregisters keep every remaining sensor reachable by id, and free slots are reused.")
+    void registerAndUnregister_randomOrder_lookupsStayConsistent() {
+        SensorRegistry registry = new SensorRegistry();
+        Map<Sensor, Integer> expected = new HashMap<>();
+        List<Sensor> live = new ArrayList<>();
+        Random r = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            if (live.isEmpty() || r.nextInt(3) > 0) {
+                Sensor s = new Sensor("s" + i, SensorType.DOOR);
+                expected.put(s, registry.register(s));
+                live.add(s);
+            } else {
+                Sensor s = live.remove(r.nextInt(live.size()));
+                assertEquals((int) expected.remove(s), registry.unregister(s));
+                assertEquals(-1, registry.slotOf(s.getSensorId()));
+            }
+        }
+
+        assertEquals(live.size(), registry.size());
+        for (Sensor s : live) {
+            int slot = registry.slotOf(s.getSensorId());
+            assertEquals((int) expected.get(s), slot);
+            assertSame(s, registry.getSensor(slot));
+        }
+
+        //a freed slot is handed out again before the slot range grows
+        int limit = registry.slotLimit();
+        registry.unregister(live.get(0));
+        registry.register(new Sensor("reused", SensorType.WINDOW));
+        assertEquals(limit, registry.slotLimit());
+    }
+}
@@ -0,0 +1,139 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.history.EventHistory;
+import com.udacity.catpoint.security.image.FakeImageService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorZonesTest {
+
+    private static final int HOUSE = 0;
+    private static final int GARAGE = 1;
+
+    private final SecurityService securityService =
+            new SecurityService(new InMemorySecurityRepositoryImpl(), new FakeImageService());
+    private final Sensor frontDoor = sensor("front door", SensorType.DOOR, HOUSE);
+    private final Sensor hallway = sensor("hallway", SensorType.MOTION, HOUSE);
+    private final Sensor garageDoor = sensor("garage door", SensorType.DOOR, GARAGE);
+
+    @Test
+    @DisplayName("Arming a zone resets only that zone's sensors; arming the system resets them all.")
+    void armingZone_resetsOnlyItsSensors() {
+        securityService.changeSensorActivationStatus(frontDoor, true);
+        securityService.changeSensorActivationStatus(garageDoor, true);
+
+        securityService.setZoneArmingStatus(GARAGE, ArmingStatus.ARMED_AWAY);
+        assertFalse(garageDoor.getActive());
+        assertTrue(frontDoor.getActive());
+        assertEquals(ArmingStatus.ARMED_AWAY, securityService.getZoneArmingStatus(GARAGE));
+        assertEquals(ArmingStatus.DISARMED, securityService.getZoneArmingStatus(HOUSE));
+
+        securityService.changeSensorActivationStatus(garageDoor, true);
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+        assertFalse(garageDoor.getActive());
+        assertFalse(frontDoor.getActive());
+        assertEquals(ArmingStatus.ARMED_HOME, securityService.getZoneArmingStatus(GARAGE));
+    }
+
+    @Test
+    @DisplayName("With the garage armed and the house disarmed, only garage sensors raise or hold the alarm.")
+    void garageArmedHouseDisarmed_onlyGarageCounts() {
+        securityService.setZoneArmingStatus(GARAGE, ArmingStatus.ARMED_AWAY);
+        securityService.setZoneArmingStatus(HOUSE, ArmingStatus.DISARMED);
+
+        securityService.changeSensorActivationStatus(hallway, true);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+        securityService.changeSensorActivationStatus(garageDoor, true);
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        //someone walking around the disarmed house does not keep the garage's alarm pending
+        securityService.changeSensorActivationStatus(garageDoor, false);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+
+        securityService.changeSensorActivationStatus(garageDoor, true);
+        securityService.changeSensorActivationStatus(frontDoor, true);
+        assertEquals(AlarmStatus.PENDING_ALARM, securityService.getAlarmStatus());
+        securityService.setZoneArmingStatus(GARAGE, ArmingStatus.DISARMED);
+        assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus());
+    }
+
+    @Test
+    @DisplayName("Zone bitmaps follow sensors across many slots, moves between zones and removal.")
+    void zoneBitmaps_trackActiveSensors() {
+        SensorZones zones = new SensorZones();
+        for (int slot = 0; slot < 200; slot++) {
+            zones.setActive(slot, slot % 3, slot % 2 == 0);
+        }
+        assertEquals(34, zones.getActiveCount(0));
+        assertEquals(33, zones.getActiveCount(1));
+        assertEquals(33, zones.getActiveCount(2));
+
+        zones.setActive(198, 5, true);
+        assertEquals(33, zones.getActiveCount(0));
+        assertEquals(1, zones.getActiveCount(5));
+        zones.clear(198);
+        assertEquals(0, zones.getActiveCount(5));
+
+        List<Integer> reset = new ArrayList<>();
+        zones.deactivateZone(1, reset::add);
+        assertEquals(33, reset.size());
+        assertTrue(reset.contains(196));
+        assertEquals(0, zones.getActiveCount(1));
+
+        zones.setArmingStatus(0, ArmingStatus.DISARMED);
+        zones.setArmingStatus(2, ArmingStatus.DISARMED);
+        assertFalse(zones.isAnyActiveOutsideDisarmedZones());
+        assertTrue(zones.isAnyActive());
+        zones.followSystemArmingStatus();
+        assertTrue(zones.isAnyActiveOutsideDisarmedZones());
+
+        assertThrows(IllegalArgumentException.class, () -> SensorZones.checkZone(SensorZones.MAX_ZONES));
+    }
+
+    @Test
+    @DisplayName("A sensor put in the repository behind the service's back still holds the alarm once it is activated.")
+    void unregisteredSensor_activated_countsTowardsAlarm() {
+        InMemorySecurityRepositoryImpl repository = new InMemorySecurityRepositoryImpl();
+        SecurityService service = new SecurityService(repository, new FakeImageService());
+        EventHistory history = new EventHistory(16, null, () -> 0);
+        service.setEventHistory(history);
+        Sensor window = new Sensor("window", SensorType.WINDOW);
+        repository.addSensor(window);
+        service.setArmingStatus(ArmingStatus.ARMED_HOME);
+
+        service.changeSensorActivationStatus(window, true);
+        assertEquals(AlarmStatus.PENDING_ALARM, service.getAlarmStatus());
+        assertTrue(service.getSensorRegistry().slotOf(window.getSensorId()) >= 0);
+        //no cat, but the window is still open
+        service.applyImageVerdict(false);
+        assertEquals(AlarmStatus.PENDING_ALARM, service.getAlarmStatus());
+        service.changeSensorActivationStatus(window, false);
+        assertEquals(AlarmStatus.NO_ALARM, service.getAlarmStatus());
+
+        //removing a sensor the service never saw leaves no per-slot trace
+        Sensor unseen = new Sensor("unseen", SensorType.DOOR);
+        repository.addSensor(unseen);
+        int recorded = history.size();
+        service.removeSensor(unseen);
+        assertEquals(recorded, history.size());
+    }
+
+    private Sensor sensor(String name, SensorType type, int zone) {
+        Sensor sensor = new Sensor(name, type);
+        sensor.setZone(zone);
+        securityService.addSensor(sensor);
+        return sensor;
+    }
+}
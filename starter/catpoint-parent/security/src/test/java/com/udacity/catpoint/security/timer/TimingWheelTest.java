@@ -0,0 +1,117 @@
+package com.udacity.catpoint.security.timer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    private long virtualNow;
+    private final Map<Long, Long> firedAt = new HashMap<>();
+
+    @Test
+    @DisplayName("Timers across every level of the wheel fire on exactly the tick of their deadline, and cancelled timers never fire.")
+    void randomTimers_fireOnDeadlineTick_cancelledNeverFire() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, (timer, payload) -> firedAt.put(payload, virtualNow));
+        Random r = new Random(99);
+        Map<Long, Long> expectedDeadline = new HashMap<>();
+        Set<Long> cancelled = new HashSet<>();
+        List<Long> handles = new ArrayList<>();
+
+        for (long id = 0; id < 5_000; id++) {
+            //spread delays from one tick up to well past the wheel's top level
+            long delay = r.nextInt(4) == 0 ? 1 + r.nextInt(100) : (long) Math.pow(10, 2 + r.nextInt(9)) + r.nextInt(1000);
+            handles.add(wheel.schedule(delay, id));
+            expectedDeadline.put(id, (delay + TICK - 1) / TICK * TICK);
+        }
+        for (long id = 0; id < 5_000; id += 3) {
+            assertTrue(wheel.cancel(handles.get((int) id)));
+            assertFalse(wheel.cancel(handles.get((int) id)));
+            cancelled.add(id);
+        }
+
+        //step the virtual clock in uneven jumps, as a real driver would
+        TreeSet<Long> advances = new TreeSet<>();
+        long end = 11_000_000_000L;
+        while (virtualNow < end) {
+            long jumpTicks = (long) Math.pow(10, r.nextInt(8)) * (1 + r.nextInt(9));
+            virtualNow = Math.min(end, virtualNow + jumpTicks * TICK);
+            advances.add(virtualNow);
+            wheel.advanceTo(virtualNow);
+        }
+
+        assertEquals(0, wheel.size());
+        for (Map.Entry<Long, Long> e : expectedDeadline.entrySet()) {
+            long id = e.getKey();
+            if (cancelled.contains(id)) {
+                assertFalse(firedAt.containsKey(id), "cancelled timer " + id + " fired");
+            } else {
+                //a timer fires during the first advance that reaches its deadline
+                assertEquals(advances.ceiling(e.getValue()), firedAt.get(id), "timer " + id);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("When the clock moves one tick at a time, every timer fires on its exact deadline.")
+    void singleTickSteps_exactDeadlines() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, (timer, payload) -> firedAt.put(payload, virtualNow));
+        long[] delays = {1, 10, 11, 630, 640, 650, 40_950, 40_960, 40_970, 2_621_430, 2_621_450};
+        for (int i = 0; i < delays.length; i++) {
+            wheel.schedule(delays[i], i);
+        }
+        while (wheel.size() > 0) {
+            virtualNow += TICK;
+            wheel.advanceTo(virtualNow);
+        }
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals((delays[i] + TICK - 1) / TICK * TICK, (long) firedAt.get((long) i), "delay " + delays[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("A stale handle cannot cancel a newer timer that reuses the same node.")
+    void staleHandle_doesNotCancelReusedNode() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, (timer, payload) -> firedAt.put(payload, virtualNow));
+        long first = wheel.schedule(100, 1);
+        assertTrue(wheel.cancel(first));
+        long second = wheel.schedule(100, 2);
+        assertFalse(wheel.cancel(first));
+        virtualNow = 100;
+        wheel.advanceTo(virtualNow);
+        assertTrue(firedAt.containsKey(2L));
+        assertFalse(wheel.cancel(second));
+    }
+
+    @Test
+    @DisplayName("A million pending timers can be scheduled and cancelled.")
+    void millionTimers_scheduleAndCancel() {
+        TimingWheel wheel = new TimingWheel(TICK, 0, (timer, payload) -> firedAt.put(payload, virtualNow), 1 << 20);
+        long[] handles = new long[1_000_000];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = wheel.schedule(30_000 + i % 5_000, i);
+        }
+        assertEquals(handles.length, wheel.size());
+        for (int i = 0; i < handles.length; i += 2) {
+            wheel.cancel(handles[i]);
+        }
+        virtualNow = 40_000;
+        wheel.advanceTo(virtualNow);
+        assertEquals(0, wheel.size());
+        assertEquals(handles.length / 2, firedAt.size());
+    }
+}
@@ -0,0 +1,37 @@
+package com.udacity.catpoint.security.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records a day of busy household traffic, two hundred sensors and about ten inputs a second, to
+ * a trace file and replays it as fast as possible. Not run as part of the test suite; start it with
+ * main(). It prints the trace size and how long recording and replaying took.
+ */
+public class TraceReplayBenchmark {
+
+    private static final int SENSORS = 200;
+    private static final int INPUTS = 864_000;
+    private static final int MAX_GAP_MILLIS = 200;
+
+    public static void main(String[] args) throws IOException {
+        Path trace = Files.createTempFile("catpoint-trace", ".bin");
+        try {
+            long start = System.nanoTime();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(trace))) {
+                TraceReplayerTest.recordSession(42, SENSORS, INPUTS, MAX_GAP_MILLIS, out);
+            }
+            long recordNanos = System.nanoTime() - start;
+            System.out.printf("recorded %,d inputs in %.2f s, %,d bytes (%.1f bytes per input)%n",
+                    INPUTS, recordNanos / 1e9, Files.size(trace), (double) Files.size(trace) / INPUTS);
+            new TraceReplayer().replay(trace); //warm up
+            ReplayResult result = new TraceReplayer().replay(trace);
+            System.out.print(result.describe());
+        } finally {
+            Files.delete(trace);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.udacity.catpoint.security.trace;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.image.FakeImageService;
+import com.udacity.catpoint.security.service.AlarmRules;
+import com.udacity.catpoint.security.service.SecurityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceReplayerTest {
+
+    @Test
+    @DisplayName("Replaying a recorded session with entry and exit delays reproduces its alarm statuses exactly.")
+    void replay_reproducesAlarmStatuses() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recordSession(7, 20, 50_000, 2_000, bytes);
+
+        ReplayResult result = new TraceReplayer().replay(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertTrue(result.isComplete());
+        assertTrue(result.isIdentical(), result.describe());
+        assertEquals(-1, result.getFirstDivergence());
+        assertTrue(result.getExpected().contains(AlarmStatus.ALARM));
+        assertTrue(result.getExpected().size() > 100);
+        //the 20 sensors added before the session started count as inputs too
+        assertEquals(50_020, result.getInputs());
+    }
+
+    @Test
+    @DisplayName("A session recorded under custom alarm rules, changed half way through, replays under the same rules.")
+    void customAlarmRules_replayedWithTheTrace() throws IOException {
+        AlarmRules rules = AlarmRules.compile(List.of(
+                "MOTION sensors ignored while ARMED_HOME",
+                "DOOR escalates immediately while ARMED_AWAY",
+                "WINDOW deactivation ignored while ARMED"));
+        ByteArrayOutputStream custom = new ByteArrayOutputStream();
+        recordSession(7, 20, 20_000, 2_000, rules, custom);
+        ByteArrayOutputStream defaults = new ByteArrayOutputStream();
+        recordSession(7, 20, 20_000, 2_000, defaults);
+
+        ReplayResult result = new TraceReplayer().replay(new ByteArrayInputStream(custom.toByteArray()));
+        ReplayResult underDefaults = new TraceReplayer().replay(new ByteArrayInputStream(defaults.toByteArray()));
+
+        assertTrue(result.isIdentical(), result.describe());
+        assertNotEquals(underDefaults.getExpected(), result.getExpected(), "the rules should have changed the session");
+    }
+
+    @Test
+    @DisplayName("A trace whose recorded alarm statuses the service no longer produces shows a divergence.")
+    void changedBehaviour_diverges() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(bytes);
+        Sensor door = new Sensor("door", SensorType.DOOR);
+        recorder.begin(1_000, 0, 0, AlarmStatus.NO_ALARM, ArmingStatus.DISARMED, false);
+        recorder.sensorAdded(1_000, 0, door);
+        recorder.armingStatusChanged(1_100, ArmingStatus.ARMED_AWAY);
+        recorder.sensorActivationChanged(1_200, 0, true);
+        //a service that went straight to ALARM on the first activation would have recorded this
+        recorder.alarmStatusChanged(1_200, AlarmStatus.ALARM);
+        recorder.close(1_300);
+
+        ReplayResult result = new TraceReplayer().replay(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(0, result.getFirstDivergence());
+        assertEquals(AlarmStatus.PENDING_ALARM, result.getActual().get(0));
+        assertTrue(result.describe().contains("DIVERGES"));
+    }
+
+    @Test
+    @DisplayName("A trace cut off mid-record still replays up to its last complete record.")
+    void truncatedTrace_replaysPrefix() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recordSession(3, 10, 2_000, 2_000, bytes);
+        byte[] trace = bytes.toByteArray();
+
+        ReplayResult result = new TraceReplayer().replay(
+                new ByteArrayInputStream(Arrays.copyOf(trace, trace.length * 2 / 3)));
+
+        assertFalse(result.isComplete());
+        assertTrue(result.getInputs() > 1_000 && result.getInputs() < 2_000);
+    }
+
+    @Test
+    @DisplayName("A sensor change costs about three bytes of trace.")
+    void trace_isCompact() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recordSession(5, 100, 100_000, 2_000, bytes);
+        assertTrue(bytes.size() < 400_000, bytes.size() + " bytes for 100,000 inputs");
+    }
+
+    /**
+     * Drives a SecurityService with a seeded mix of sensor changes, camera verdicts, and system and
+     * zone arming changes across three zones on a virtual clock, recording everything into the given stream. With gaps of up to two
+     * seconds between inputs the five second entry delay regularly runs out between them.
+     */
+    static void recordSession(long seed, int sensorCount, int inputs, int maxGapMillis, OutputStream out)
+            throws IOException {
+        recordSession(seed, sensorCount, inputs, maxGapMillis, AlarmRules.defaults(), out);
+    }
+
+    /**
+     * Records the same session under the given alarm rules, going back to the defaults half way.
+     */
+    static void recordSession(long seed, int sensorCount, int inputs, int maxGapMillis, AlarmRules alarmRules,
+                              OutputStream out) throws IOException {
+        Random random = new Random(seed);
+        SecurityService securityService = new SecurityService(new InMemorySecurityRepositoryImpl(),
+                new SeededImageService(seed));
+        securityService.setEntryDelay(Duration.ofSeconds(5));
+        securityService.setExitDelay(Duration.ofSeconds(3));
+        securityService.setAlarmRules(alarmRules);
+        Sensor[] sensors = new Sensor[sensorCount];
+        for (int i = 0; i < sensorCount; i++) {
+            sensors[i] = new Sensor("sensor " + i, SensorType.values()[i % SensorType.values().length]);
+            sensors[i].setZone(i % 3);
+            securityService.addSensor(sensors[i]);
+        }
+        TraceRecorder recorder = new TraceRecorder(out);
+        securityService.setTraceRecorder(recorder);
+        BufferedImage frame = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        long now = securityService.getClockMillis();
+        for (int i = 0; i < inputs; i++) {
+            if (i == inputs / 2 && alarmRules != AlarmRules.defaults()) {
+                securityService.setAlarmRules(AlarmRules.defaults());
+            }
+            now += random.nextInt(maxGapMillis);
+            securityService.advanceClock(now);
+            int kind = random.nextInt(100);
+            if (kind < 90) {
+                securityService.changeSensorActivationStatus(sensors[random.nextInt(sensorCount)],
+                        random.nextBoolean());
+            } else if (kind < 98) {
+                securityService.processImage(frame);
+            } else if (kind < 99) {
+                securityService.setArmingStatus(ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)]);
+            } else {
+                securityService.setZoneArmingStatus(random.nextInt(3),
+                        ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)]);
+            }
+        }
+        recorder.close(securityService.getClockMillis());
+    }
+
+    private static class SeededImageService extends FakeImageService {
+        private final Random random;
+
+        SeededImageService(long seed) {
+            random = new Random(seed);
+        }
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+            return random.nextInt(10) == 0;
+        }
+    }
+}
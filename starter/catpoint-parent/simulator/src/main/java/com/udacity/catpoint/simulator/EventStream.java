@@ -0,0 +1,125 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded, open-loop stream of simulated inputs. Sensor changes, camera frames and arming changes
+ * each arrive as an independent Poisson process at their configured rate, and every event carries
+ * the time it was due relative to the start of the run, so latency can be measured from when an
+ * event should have been handled rather than from when the simulator got round to it.
+ *
+ * Sensor activity is skewed: with skew s, sensor i is picked with a probability that falls off like
+ * a power law, so a few doors see most of the traffic the way a front door does. Each pick flips
+ * that sensor's state, which gives the open/close pairs real contacts produce. Arming resets every
+ * sensor to inactive, as SecurityService does, so the first pick after it is always an activation.
+ *
+ * The same seed and config always produce the same stream. The stream is a cursor: {@link #next()}
+ * moves it to the next event and the getters describe that event, so nothing is allocated.
+ */
+public class EventStream {
+
+    public static final int SENSOR_CHANGE = 0;
+    public static final int CAMERA_FRAME = 1;
+    public static final int ARMING_CHANGE = 2;
+    public static final int KINDS = 3;
+
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+
+    private final SplittableRandom random;
+    private final double activitySkew;
+    private final double[] meanIntervalNanos = new double[KINDS];
+    private final long[] nextDueNanos = new long[KINDS];
+    private final boolean[] sensorActive;
+
+    private int kind;
+    private long dueNanos;
+    private int sensorIndex;
+    private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+
+    public EventStream(SimulationConfig config) {
+        this.random = new SplittableRandom(config.seed);
+        this.activitySkew = config.activitySkew;
+        this.sensorActive = new boolean[config.sensors];
+        meanIntervalNanos[SENSOR_CHANGE] = meanInterval(config.sensorEventsPerSecond);
+        meanIntervalNanos[CAMERA_FRAME] = meanInterval(config.cameraFramesPerSecond);
+        meanIntervalNanos[ARMING_CHANGE] = meanInterval(config.armingChangesPerMinute / 60.0);
+        for (int k = 0; k < KINDS; k++) {
+            nextDueNanos[k] = nextArrival(k, 0);
+        }
+    }
+
+    /**
+     * Moves to the next event in due-time order.
+     */
+    public void next() {
+        kind = SENSOR_CHANGE;
+        for (int k = 1; k < KINDS; k++) {
+            if (nextDueNanos[k] < nextDueNanos[kind]) {
+                kind = k;
+            }
+        }
+        dueNanos = nextDueNanos[kind];
+        nextDueNanos[kind] = nextArrival(kind, dueNanos);
+        switch (kind) {
+            case SENSOR_CHANGE -> {
+                sensorIndex = (int) (sensorActive.length * Math.pow(random.nextDouble(), activitySkew));
+                sensorActive[sensorIndex] = !sensorActive[sensorIndex];
+            }
+            case ARMING_CHANGE -> {
+                int step = 1 + random.nextInt(ARMING_STATUSES.length - 1);
+                armingStatus = ARMING_STATUSES[(armingStatus.ordinal() + step) % ARMING_STATUSES.length];
+                if (armingStatus != ArmingStatus.DISARMED) {
+                    Arrays.fill(sensorActive, false);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Nanoseconds after the start of the run at which the current event is due.
+     */
+    public long getDueNanos() {
+        return dueNanos;
+    }
+
+    public int getSensorIndex() {
+        return sensorIndex;
+    }
+
+    public boolean isSensorActive() {
+        return sensorActive[sensorIndex];
+    }
+
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    public static String kindName(int kind) {
+        return switch (kind) {
+            case SENSOR_CHANGE -> "sensor";
+            case CAMERA_FRAME -> "camera";
+            case ARMING_CHANGE -> "arming";
+            default -> throw new IllegalArgumentException("No event kind " + kind);
+        };
+    }
+
+    private long nextArrival(int k, long fromNanos) {
+        if (Double.isInfinite(meanIntervalNanos[k])) {
+            return Long.MAX_VALUE;
+        }
+        //exponential inter-arrival times make each kind a Poisson process
+        return fromNanos + (long) (-Math.log(1.0 - random.nextDouble()) * meanIntervalNanos[k]);
+    }
+
+    private static double meanInterval(double perSecond) {
+        return perSecond > 0 ? 1e9 / perSecond : Double.POSITIVE_INFINITY;
+    }
+}
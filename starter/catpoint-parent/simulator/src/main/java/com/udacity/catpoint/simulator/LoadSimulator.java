@@ -0,0 +1,115 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.InMemorySecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.PretendDatabaseSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.awt.image.BufferedImage;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Drives a SecurityService with production-shaped load and reports how it coped.
+ *
+ * A seeded EventStream produces sensor changes, camera frames and arming changes at their target
+ * rates. The simulator replays them on a single thread, the same way the GUI or the ingest server
+ * drives the service, waiting for each event's due time and never skipping ahead: if the service
+ * is too slow, events queue up behind it and their latency, measured from the due time, shows it.
+ *
+ * The options are listed in {@link SimulationConfig#USAGE}. The exit code is 1 if the run failed
+ * or fell behind its target in any second, so it can gate a build.
+ */
+public class LoadSimulator {
+
+    public static final long SENSOR_ID_MSB = 0x51_0000_0000L;
+    private static final long CLOCK_TICK_NANOS = SecurityService.TIMER_TICK_MILLIS * 1_000_000;
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+
+    public static void main(String[] args) {
+        SimulationConfig config = SimulationConfig.parse(args);
+        SimulationReport report = run(config);
+        System.out.print(report.describe());
+        System.exit(report.isBehind() ? 1 : 0);
+    }
+
+    public static SimulationReport run(SimulationConfig config) {
+        SimulationReport report = new SimulationReport(config);
+        EventStream stream = new EventStream(config);
+        BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        long endNanos = config.seconds * 1_000_000_000L;
+        long start = System.nanoTime();
+        try {
+            SecurityService securityService = new SecurityService(createRepository(config),
+                    new SimulatedImageService(config.seed, config.catProbability, config.imageLatencyMicros));
+            Sensor[] sensors = createSensors(securityService, config.sensors);
+            report.start();
+            start = System.nanoTime();
+            long nextTick = CLOCK_TICK_NANOS;
+            for (stream.next(); stream.getDueNanos() < endNanos; stream.next()) {
+                long due = stream.getDueNanos();
+                waitUntil(start + due);
+                switch (stream.getKind()) {
+                    case EventStream.SENSOR_CHANGE -> securityService.changeSensorActivationStatus(
+                            sensors[stream.getSensorIndex()], stream.isSensorActive());
+                    case EventStream.CAMERA_FRAME -> securityService.processImage(frame);
+                    case EventStream.ARMING_CHANGE -> securityService.setArmingStatus(stream.getArmingStatus());
+                    default -> throw new IllegalStateException("No event kind " + stream.getKind());
+                }
+                long done = System.nanoTime() - start;
+                report.handled(stream.getKind(), due, done);
+                if (done >= nextTick) {
+                    securityService.advanceClock(System.currentTimeMillis());
+                    report.sampleHeap();
+                    nextTick = done + CLOCK_TICK_NANOS;
+                }
+            }
+        } catch (RuntimeException e) {
+            //a repository that cannot hold the fleet is a result worth reporting, not a crash
+            report.failed(e);
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    private static Sensor[] createSensors(SecurityService securityService, int count) {
+        Sensor[] sensors = new Sensor[count];
+        for (int i = 0; i < count; i++) {
+            //doors and windows outnumber motion sensors in most homes
+            SensorType type = i % 5 < 2 ? SensorType.DOOR : i % 5 < 4 ? SensorType.WINDOW : SensorType.MOTION;
+            sensors[i] = new Sensor(type + " " + i, type);
+            sensors[i].setSensorId(new UUID(SENSOR_ID_MSB, i));
+            securityService.addSensor(sensors[i]);
+        }
+        return sensors;
+    }
+
+    private static SecurityRepository createRepository(SimulationConfig config) {
+        if (config.repository == SimulationConfig.RepositoryKind.MEMORY) {
+            return new InMemorySecurityRepositoryImpl();
+        }
+        //a node of its own, so a run never touches the state of a real installation
+        Preferences prefs = Preferences.userRoot().node("com/udacity/catpoint/simulator");
+        try {
+            prefs.clear();
+        } catch (BackingStoreException e) {
+            throw new IllegalStateException("Could not reset the simulator preferences node", e);
+        }
+        return new PretendDatabaseSecurityRepositoryImpl(prefs);
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
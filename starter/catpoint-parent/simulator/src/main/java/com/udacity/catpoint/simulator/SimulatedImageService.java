@@ -0,0 +1,37 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.image.ImageService;
+
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Image service with seeded verdicts and a configurable call latency, standing in for a remote
+ * recognition service. A cat is reported with the configured probability, and every call blocks
+ * the caller for the configured time the way a synchronous network call would.
+ */
+public class SimulatedImageService implements ImageService {
+
+    private final SplittableRandom random;
+    private final double catProbability;
+    private final long latencyNanos;
+
+    public SimulatedImageService(long seed, double catProbability, long latencyMicros) {
+        this.random = new SplittableRandom(seed);
+        this.catProbability = catProbability;
+        this.latencyNanos = latencyMicros * 1_000;
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        if (latencyNanos > 0) {
+            long until = System.nanoTime() + latencyNanos;
+            long remaining;
+            while ((remaining = until - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+        return random.nextDouble() < catProbability;
+    }
+}
@@ -0,0 +1,59 @@
+package com.udacity.catpoint.simulator;
+
+/**
+ * Settings for one simulator run, parsed from the command line. Every option has a default, so a
+ * run with no arguments is a small, quick smoke test.
+ */
+public class SimulationConfig {
+
+    public enum RepositoryKind { MEMORY, PREFS }
+
+    long seed = 1;
+    int sensors = 2_000;
+    int seconds = 30;
+    double sensorEventsPerSecond = 5_000;
+    double cameraFramesPerSecond = 5;
+    double armingChangesPerMinute = 2;
+    double activitySkew = 2.0;
+    RepositoryKind repository = RepositoryKind.MEMORY;
+    long imageLatencyMicros = 0;
+    double catProbability = 0.1;
+    long maxLagMillis = 100;
+
+    public static SimulationConfig parse(String[] args) {
+        SimulationConfig config = new SimulationConfig();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--seed" -> config.seed = Long.parseLong(value);
+                case "--sensors" -> config.sensors = Integer.parseInt(value);
+                case "--seconds" -> config.seconds = Integer.parseInt(value);
+                case "--sensor-rate" -> config.sensorEventsPerSecond = Double.parseDouble(value);
+                case "--camera-fps" -> config.cameraFramesPerSecond = Double.parseDouble(value);
+                case "--arming-per-minute" -> config.armingChangesPerMinute = Double.parseDouble(value);
+                case "--skew" -> config.activitySkew = Double.parseDouble(value);
+                case "--repository" -> config.repository = RepositoryKind.valueOf(value.toUpperCase());
+                case "--image-latency-us" -> config.imageLatencyMicros = Long.parseLong(value);
+                case "--cat-probability" -> config.catProbability = Double.parseDouble(value);
+                case "--max-lag-ms" -> config.maxLagMillis = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i] + "\n" + USAGE);
+            }
+            i++;
+        }
+        if (config.sensors <= 0 || config.seconds <= 0) {
+            throw new IllegalArgumentException("--sensors and --seconds must be positive");
+        }
+        return config;
+    }
+
+    static final String USAGE = "Usage: LoadSimulator [--seed n] [--sensors n] [--seconds n] [--sensor-rate events/s]\n"
+            + "    [--camera-fps n] [--arming-per-minute n] [--skew n] [--repository memory|prefs]\n"
+            + "    [--image-latency-us n] [--cat-probability p] [--max-lag-ms n]";
+
+    public String describe() {
+        return String.format("seed %d, %,d sensors, %d s, %,.0f sensor events/s, %.1f camera fps, %.1f arming changes/min, "
+                        + "skew %.1f, %s repository, image latency %d us, max lag %d ms",
+                seed, sensors, seconds, sensorEventsPerSecond, cameraFramesPerSecond, armingChangesPerMinute,
+                activitySkew, repository.name().toLowerCase(), imageLatencyMicros, maxLagMillis);
+    }
+}
@@ -0,0 +1,164 @@
+package com.udacity.catpoint.simulator;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+/**
+ * Collects the results of a simulator run: latency histograms per event kind, how many events were
+ * due and how many were handled in each second of the run, GC activity and heap usage. A second
+ * falls behind when fewer than 95% of the events due in it were handled in it, or when any event
+ * in it waited longer than the configured maximum lag.
+ */
+public class SimulationReport {
+
+    private static final double BEHIND_RATIO = 0.95;
+
+    private final SimulationConfig config;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[EventStream.KINDS];
+    private final long[] duePerSecond;
+    private final long[] handledPerSecond;
+    private final long[] maxLatencyPerSecond;
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private long gcCountAtStart;
+    private long gcMillisAtStart;
+    private long gcCount;
+    private long gcMillis;
+    private long peakHeapBytes;
+    private long elapsedNanos;
+    private long events;
+    private RuntimeException failure;
+
+    public SimulationReport(SimulationConfig config) {
+        this.config = config;
+        for (int k = 0; k < EventStream.KINDS; k++) {
+            latencies[k] = new LatencyHistogram();
+        }
+        duePerSecond = new long[config.seconds + 1];
+        handledPerSecond = new long[config.seconds + 1];
+        maxLatencyPerSecond = new long[config.seconds + 1];
+    }
+
+    void start() {
+        gcCountAtStart = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        gcMillisAtStart = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * Records one handled event.
+     * @param dueNanos When the event was due, relative to the start of the run
+     * @param doneNanos When handling it finished, relative to the start of the run
+     */
+    void handled(int kind, long dueNanos, long doneNanos) {
+        long latency = doneNanos - dueNanos;
+        latencies[kind].record(latency);
+        int dueSecond = second(dueNanos);
+        duePerSecond[dueSecond]++;
+        handledPerSecond[second(doneNanos)]++;
+        maxLatencyPerSecond[dueSecond] = Math.max(maxLatencyPerSecond[dueSecond], latency);
+        events++;
+    }
+
+    void sampleHeap() {
+        peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+    }
+
+    void failed(RuntimeException e) {
+        failure = e;
+    }
+
+    void finish(long elapsed) {
+        elapsedNanos = elapsed;
+        sampleHeap();
+        gcCount = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum() - gcCountAtStart;
+        gcMillis = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum() - gcMillisAtStart;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public double getThroughput() {
+        return events / (elapsedNanos / 1e9);
+    }
+
+    public LatencyHistogram getLatencies(int kind) {
+        return latencies[kind];
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * True if the run failed, or if any second fell behind its target.
+     */
+    public boolean isBehind() {
+        if (failure != null) {
+            return true;
+        }
+        for (int s = 0; s < config.seconds; s++) {
+            if (isBehind(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBehind(int s) {
+        return handledPerSecond[s] < duePerSecond[s] * BEHIND_RATIO
+                || maxLatencyPerSecond[s] > config.maxLagMillis * 1_000_000;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("config: ").append(config.describe()).append('\n');
+        double targetRate = config.sensorEventsPerSecond + config.cameraFramesPerSecond
+                + config.armingChangesPerMinute / 60.0;
+        sb.append(String.format("throughput: %,d events in %.2f s = %,.0f events/s (target %,.0f events/s)%n",
+                events, elapsedNanos / 1e9, getThroughput(), targetRate));
+        sb.append(String.format("%-8s %10s %10s %10s %10s %10s %10s%n", "latency", "count", "p50 us", "p90 us",
+                "p99 us", "p99.9 us", "max us"));
+        LatencyHistogram all = new LatencyHistogram();
+        for (int k = 0; k < EventStream.KINDS; k++) {
+            appendLatencies(sb, EventStream.kindName(k), latencies[k]);
+            all.add(latencies[k]);
+        }
+        appendLatencies(sb, "all", all);
+        sb.append(String.format("gc: %d collections, %d ms; peak heap used %,d KB%n",
+                gcCount, gcMillis, peakHeapBytes / 1024));
+
+        int behindSeconds = 0;
+        StringBuilder behind = new StringBuilder();
+        for (int s = 0; s < config.seconds; s++) {
+            if (isBehind(s)) {
+                behindSeconds++;
+                behind.append(String.format("  second %3d: %,d of %,d due events handled, worst latency %,d us%n",
+                        s, handledPerSecond[s], duePerSecond[s], maxLatencyPerSecond[s] / 1_000));
+            }
+        }
+        if (failure != null) {
+            String message = String.valueOf(failure.getMessage());
+            sb.append(String.format("FAILED after %,d events: %s: %s%n", events, failure.getClass().getName(),
+                    message.length() > 200 ? message.substring(0, 200) + "..." : message));
+        } else if (behindSeconds == 0) {
+            sb.append("kept up with the target rate in every second\n");
+        } else {
+            sb.append(String.format("FELL BEHIND in %d of %d seconds:%n", behindSeconds, config.seconds)).append(behind);
+        }
+        return sb.toString();
+    }
+
+    private static void appendLatencies(StringBuilder sb, String name, LatencyHistogram h) {
+        sb.append(String.format("%-8s %,10d %,10d %,10d %,10d %,10d %,10d%n", name, h.getTotalCount(),
+                h.percentile(50) / 1_000, h.percentile(90) / 1_000, h.percentile(99) / 1_000,
+                h.percentile(99.9) / 1_000, h.getMax() / 1_000));
+    }
+
+    private int second(long nanos) {
+        return (int) Math.min(nanos / 1_000_000_000L, config.seconds);
+    }
+}
@@ -0,0 +1,6 @@
+module simulator {
+    requires java.desktop;
+    requires java.management;
+    requires java.prefs;
+    requires security;
+}
@@ -0,0 +1,82 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadSimulatorTest {
+
+    @Test
+    @DisplayName("Histogram percentiles are within the bucket resolution of the exact values.")
+    void histogramPercentiles_withinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1_000);
+        }
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertWithin(50_000_000, histogram.percentile(50));
+        assertWithin(99_000_000, histogram.percentile(99));
+        assertWithin(99_900_000, histogram.percentile(99.9));
+        assertEquals(100_000_000, histogram.percentile(100), 100_000_000 * 0.03);
+    }
+
+    @Test
+    @DisplayName("The same seed produces the same event stream, arming resets every sensor, and event kinds arrive close to their target rates.")
+    void eventStream_seededAndAtTargetRates() {
+        SimulationConfig config = SimulationConfig.parse(new String[] {"--seed", "42", "--sensor-rate", "1000",
+                "--camera-fps", "10", "--arming-per-minute", "60"});
+        EventStream a = new EventStream(config);
+        EventStream b = new EventStream(config);
+        int[] counts = new int[EventStream.KINDS];
+        //what SecurityService would hold for each sensor, so every sensor change must flip it
+        boolean[] active = new boolean[config.sensors];
+        for (a.next(), b.next(); a.getDueNanos() < 100_000_000_000L; a.next(), b.next()) {
+            assertEquals(a.getDueNanos(), b.getDueNanos());
+            assertEquals(a.getKind(), b.getKind());
+            assertEquals(a.getSensorIndex(), b.getSensorIndex());
+            assertEquals(a.getArmingStatus(), b.getArmingStatus());
+            if (a.getKind() == EventStream.SENSOR_CHANGE) {
+                assertEquals(!active[a.getSensorIndex()], a.isSensorActive());
+                active[a.getSensorIndex()] = a.isSensorActive();
+            } else if (a.getKind() == EventStream.ARMING_CHANGE && a.getArmingStatus() != ArmingStatus.DISARMED) {
+                Arrays.fill(active, false);
+            }
+            counts[a.getKind()]++;
+        }
+        assertEquals(100_000, counts[EventStream.SENSOR_CHANGE], 3_000);
+        assertEquals(1_000, counts[EventStream.CAMERA_FRAME], 150);
+        assertEquals(100, counts[EventStream.ARMING_CHANGE], 40);
+    }
+
+    @Test
+    @DisplayName("A light run against the in-memory repository keeps up with its target.")
+    void lightRun_keepsUp() {
+        SimulationConfig config = SimulationConfig.parse(new String[] {"--seconds", "2", "--sensors", "200",
+                "--sensor-rate", "500", "--camera-fps", "5", "--max-lag-ms", "500"});
+        SimulationReport report = LoadSimulator.run(config);
+        assertFalse(report.isFailed());
+        assertFalse(report.isBehind(), report.describe());
+        assertEquals(1_000, report.getLatencies(EventStream.SENSOR_CHANGE).getTotalCount(), 150);
+    }
+
+    @Test
+    @DisplayName("An image service slower than the camera frame rate is flagged as falling behind.")
+    void slowImageService_flaggedAsBehind() {
+        SimulationConfig config = SimulationConfig.parse(new String[] {"--seconds", "2", "--sensors", "50",
+                "--sensor-rate", "100", "--camera-fps", "20", "--image-latency-us", "100000"});
+        SimulationReport report = LoadSimulator.run(config);
+        assertTrue(report.isBehind());
+        assertTrue(report.describe().contains("FELL BEHIND"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertEquals(expected, actual, expected * 0.03);
+    }
+}